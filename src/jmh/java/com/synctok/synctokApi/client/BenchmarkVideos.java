@@ -0,0 +1,48 @@
+package com.synctok.synctokApi.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Creates video files of a given size for the benchmarks.
+ */
+public final class BenchmarkVideos {
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private BenchmarkVideos() {
+    }
+
+    /**
+     * Writes a file of random bytes of the given size into a new temporary directory.
+     *
+     * @param size the size of the file in bytes
+     * @return the path of the file
+     * @throws IOException if the file cannot be written
+     */
+    public static Path create(long size) throws IOException {
+        Path file = Files.createTempDirectory("synctok-jmh").resolve("video.mp4");
+        byte[] block = new byte[BLOCK_SIZE];
+        new Random(size).nextBytes(block);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += BLOCK_SIZE) {
+                out.write(block, 0, (int) Math.min(BLOCK_SIZE, size - written));
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Deletes a file created by {@link #create(long)} and its directory.
+     *
+     * @param file the file to delete
+     * @throws IOException if the file cannot be deleted
+     */
+    public static void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.getParent());
+    }
+}
@@ -0,0 +1,108 @@
+package com.synctok.synctokApi.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON work of one publish to TikTok, YouTube and Instagram done with {@link PlatformJson} against the
+ * {@code JSONObject} trees the clients used to build and parse: the TikTok initialization request and response, the
+ * YouTube metadata and upload response, the Instagram container, publish and status responses and the Cloudinary
+ * upload response. Run it with the {@code gc} profiler and compare {@code gc.alloc.rate.norm}, the bytes allocated
+ * per publish.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlatformJsonBenchmark {
+
+    private static final String TITLE = "Benchmark video #synctok";
+    private static final String DESCRIPTION = "A video published to every platform at once";
+    private static final String TIKTOK_INIT_RESPONSE = "{\"data\":{\"publish_id\":\"v_pub_file~v2-1.7364\","
+            + "\"upload_url\":\"https://open-upload.tiktokapis.com/video/?upload_id=67890&upload_token=Xza123\"},"
+            + "\"error\":{\"code\":\"ok\",\"message\":\"\",\"log_id\":\"202210112248442CB9319E1FB30C1073F3\"}}";
+    private static final String YOUTUBE_RESPONSE = "{\"kind\":\"youtube#video\",\"etag\":\"Ks-_Y5Ga9c1yYZP3\","
+            + "\"id\":\"dQw4w9WgXcQ\",\"snippet\":{\"publishedAt\":\"2024-09-20T10:15:30Z\","
+            + "\"channelId\":\"UC38IQsAvIsxxjztdMZQtwHA\",\"title\":\"Benchmark video #synctok\","
+            + "\"description\":\"A video published to every platform at once\",\"thumbnails\":{\"default\":"
+            + "{\"url\":\"https://i.ytimg.com/vi/dQw4w9WgXcQ/default.jpg\",\"width\":120,\"height\":90}},"
+            + "\"channelTitle\":\"SyncTok\",\"categoryId\":\"22\",\"liveBroadcastContent\":\"none\"},"
+            + "\"status\":{\"uploadStatus\":\"uploaded\",\"privacyStatus\":\"private\",\"license\":\"youtube\","
+            + "\"embeddable\":true,\"publicStatsViewable\":true}}";
+    private static final String INSTAGRAM_ID_RESPONSE = "{\"id\":\"17889455560051444\"}";
+    private static final String INSTAGRAM_STATUS_RESPONSE =
+            "{\"status_code\":\"FINISHED\",\"id\":\"17889455560051444\"}";
+    private static final String CLOUDINARY_RESPONSE = "{\"asset_id\":\"3515c6000a548515f1134043f9785c2f\","
+            + "\"public_id\":\"synctok/sample\",\"version\":1573064751,\"version_id\":\"b0ec6ac57ce2c0bd4b0e3b1d\","
+            + "\"signature\":\"fcaa8cc2d2a2fd4b5bd1d9f2f6c3ec3b5d7c1e2f\",\"width\":1080,\"height\":1920,"
+            + "\"format\":\"mp4\",\"resource_type\":\"video\",\"created_at\":\"2024-09-20T10:15:30Z\",\"tags\":[],"
+            + "\"pages\":0,\"bytes\":16777216,\"type\":\"upload\",\"etag\":\"f7c8b1e8f0e4a33d\","
+            + "\"placeholder\":false,\"url\":\"http://res.cloudinary.com/demo/video/upload/v1573064751/sample.mp4\","
+            + "\"secure_url\":\"https://res.cloudinary.com/demo/video/upload/v1573064751/sample.mp4\","
+            + "\"playback_url\":\"https://res.cloudinary.com/demo/video/upload/sp_auto/v1573064751/sample.m3u8\","
+            + "\"audio\":{\"codec\":\"aac\",\"bit_rate\":\"128000\",\"frequency\":44100,\"channels\":2},"
+            + "\"video\":{\"pix_format\":\"yuv420p\",\"codec\":\"h264\",\"level\":40,\"profile\":\"High\","
+            + "\"bit_rate\":\"8000000\"},\"frame_rate\":30.0,\"bit_rate\":8128000,\"duration\":16.5,"
+            + "\"eager\":[{\"transformation\":\"c_pad,ar_9:16\",\"status\":\"processing\"}]}";
+
+    @Benchmark
+    public void platformJson(Blackhole blackhole) {
+        blackhole.consume(PlatformJson.tiktokInitRequest(TITLE, 16_777_216L, 5_242_880, 3));
+        blackhole.consume(PlatformJson.requireStrings(TIKTOK_INIT_RESPONSE, "data", "upload_url", "publish_id"));
+        blackhole.consume(PlatformJson.youtubeVideoMetadata(TITLE, DESCRIPTION));
+        blackhole.consume(PlatformJson.requireString(YOUTUBE_RESPONSE, "id"));
+        blackhole.consume(PlatformJson.readString(CLOUDINARY_RESPONSE, "url"));
+        blackhole.consume(PlatformJson.requireString(INSTAGRAM_ID_RESPONSE, "id"));
+        blackhole.consume(PlatformJson.requireString(INSTAGRAM_STATUS_RESPONSE, "status_code"));
+        blackhole.consume(PlatformJson.requireString(INSTAGRAM_ID_RESPONSE, "id"));
+    }
+
+    @Benchmark
+    public void jsonObjectTrees(Blackhole blackhole) throws Exception {
+        org.cloudinary.json.JSONObject postInfo = new org.cloudinary.json.JSONObject();
+        postInfo.put("title", TITLE);
+        postInfo.put("privacy_level", "SELF_ONLY");
+        org.cloudinary.json.JSONObject sourceInfo = new org.cloudinary.json.JSONObject();
+        sourceInfo.put("source", "FILE_UPLOAD");
+        sourceInfo.put("video_size", 16_777_216L);
+        sourceInfo.put("chunk_size", 5_242_880);
+        sourceInfo.put("total_chunk_count", 3);
+        org.cloudinary.json.JSONObject tiktokRequest = new org.cloudinary.json.JSONObject();
+        tiktokRequest.put("post_info", postInfo);
+        tiktokRequest.put("source_info", sourceInfo);
+        blackhole.consume(tiktokRequest.toString());
+        org.cloudinary.json.JSONObject data = new org.cloudinary.json.JSONObject(TIKTOK_INIT_RESPONSE)
+                .getJSONObject("data");
+        blackhole.consume(data.getString("upload_url"));
+        blackhole.consume(data.getString("publish_id"));
+
+        org.json.JSONObject snippet = new org.json.JSONObject();
+        snippet.put("title", TITLE);
+        snippet.put("description", DESCRIPTION);
+        snippet.put("categoryId", "22");
+        org.json.JSONObject status = new org.json.JSONObject();
+        status.put("privacyStatus", "private");
+        org.json.JSONObject youtubeRequest = new org.json.JSONObject();
+        youtubeRequest.put("snippet", snippet);
+        youtubeRequest.put("status", status);
+        blackhole.consume(youtubeRequest.toString());
+        blackhole.consume(new org.json.JSONObject(YOUTUBE_RESPONSE).getString("id"));
+
+        blackhole.consume(new org.cloudinary.json.JSONObject(CLOUDINARY_RESPONSE).optString("url", null));
+        blackhole.consume(new org.cloudinary.json.JSONObject(INSTAGRAM_ID_RESPONSE).getString("id"));
+        blackhole.consume(new org.cloudinary.json.JSONObject(INSTAGRAM_STATUS_RESPONSE).getString("status_code"));
+        blackhole.consume(new org.cloudinary.json.JSONObject(INSTAGRAM_ID_RESPONSE).getString("id"));
+    }
+}
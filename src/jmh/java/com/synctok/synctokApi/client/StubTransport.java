@@ -0,0 +1,89 @@
+package com.synctok.synctokApi.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.function.Function;
+
+/**
+ * In-process transport answering every request with a canned response, so benchmarks measure the
+ * clients rather than the network. Request bodies are streamed into a sink that only counts bytes.
+ */
+final class StubTransport implements ClientHttpRequestFactory {
+
+    private final Function<StubRequest, ClientHttpResponse> responder;
+
+    StubTransport(Function<StubRequest, ClientHttpResponse> responder) {
+        this.responder = responder;
+    }
+
+    static ClientHttpResponse respond(int status, String body, HttpHeaders headers) {
+        MockClientHttpResponse response = new MockClientHttpResponse(body.getBytes(), status);
+        response.getHeaders().putAll(headers);
+        return response;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+        return new StubRequest(uri, httpMethod);
+    }
+
+    /**
+     * A request whose body is discarded as it is written.
+     */
+    final class StubRequest extends AbstractClientHttpRequest {
+
+        private final URI uri;
+        private final HttpMethod method;
+        private long bodyLength;
+
+        private final OutputStream body = new OutputStream() {
+            @Override
+            public void write(int b) {
+                bodyLength++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bodyLength += len;
+            }
+        };
+
+        StubRequest(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        long getBodyLength() {
+            return bodyLength;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            return body;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+            return responder.apply(this);
+        }
+    }
+}
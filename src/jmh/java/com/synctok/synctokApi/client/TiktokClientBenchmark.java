@@ -0,0 +1,86 @@
+package com.synctok.synctokApi.client;
+
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.metrics.PublishMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the TikTok upload path against a stubbed transport: chunk slicing, the JSON body of the
+ * initialization request and streaming every chunk of the spooled video.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TiktokClientBenchmark {
+
+    private static final String UPLOAD_URL = "https://upload.example.com/video";
+
+    @Param({"1048576", "16777216", "67108864"})
+    private long fileSize;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private Path file;
+    private VideoSource video;
+    private TiktokClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchmarkVideos.create(fileSize);
+        video = VideoSource.open(file, "video.mp4", "video/mp4");
+        StubTransport transport = new StubTransport(request -> request.getMethod() == HttpMethod.POST
+                ? StubTransport.respond(200,
+                        "{\"data\":{\"upload_url\":\"" + UPLOAD_URL + "\",\"publish_id\":\"publish-1\"}}",
+                        new HttpHeaders())
+                : StubTransport.respond(201, "{\"success\":true}", new HttpHeaders()));
+        client = new TiktokClient(new RestTemplate(transport), "token", "https://api.example.com", parallelism, 1,
+                Duration.ZERO, new PublishMetrics(new SimpleMeterRegistry()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        video.close();
+        BenchmarkVideos.delete(file);
+    }
+
+    @Benchmark
+    public List<ChunkUploader.Chunk> splitChunks() {
+        return ChunkUploader.split(fileSize, 5 * 1024 * 1024);
+    }
+
+    @Benchmark
+    public TiktokClient.VideoUploadInitializationResult initializeUpload() {
+        return client.initializeVideoPublish(video, "Benchmark video #synctok");
+    }
+
+    @Benchmark
+    public void uploadChunks() {
+        client.publishVideo(video, UPLOAD_URL);
+    }
+}
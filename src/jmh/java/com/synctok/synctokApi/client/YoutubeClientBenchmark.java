@@ -0,0 +1,91 @@
+package com.synctok.synctokApi.client;
+
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.metrics.PublishMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the YouTube resumable upload against a stubbed transport that acknowledges every chunk,
+ * covering session metadata, Content-Range handling and streaming the spooled video.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class YoutubeClientBenchmark {
+
+    private static final int RESUME_INCOMPLETE = 308;
+
+    @Param({"1048576", "16777216", "67108864"})
+    private long fileSize;
+
+    @Param({"8MB"})
+    private String chunkSize;
+
+    private Path file;
+    private VideoSource video;
+    private YoutubeClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchmarkVideos.create(fileSize);
+        video = VideoSource.open(file, "video.mp4", "video/mp4");
+        RestTemplate restTemplate = new RestTemplate(new StubTransport(YoutubeClientBenchmark::respond));
+        client = new YoutubeClient(restTemplate, "token", "https://upload.example.com/videos",
+                DataSize.parse(chunkSize), 1, Duration.ZERO, new PublishMetrics(new SimpleMeterRegistry()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        video.close();
+        BenchmarkVideos.delete(file);
+    }
+
+    @Benchmark
+    public String upload() {
+        return client.publishVideo(video, "Benchmark video", "Uploaded by the benchmark");
+    }
+
+    private static ClientHttpResponse respond(StubTransport.StubRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        if (request.getMethod() == HttpMethod.POST) {
+            headers.setLocation(URI.create("https://upload.example.com/session-1"));
+            return StubTransport.respond(200, "", headers);
+        }
+        // Content-Range: bytes <start>-<end>/<total>
+        String range = request.getHeaders().getFirst("Content-Range");
+        long end = Long.parseLong(range.substring(range.indexOf('-') + 1, range.indexOf('/')));
+        long total = Long.parseLong(range.substring(range.indexOf('/') + 1));
+        if (end + 1 < total) {
+            headers.set(HttpHeaders.RANGE, "bytes=0-" + end);
+            return StubTransport.respond(RESUME_INCOMPLETE, "", headers);
+        }
+        return StubTransport.respond(200, "{\"id\":\"video-1\"}", headers);
+    }
+}
@@ -0,0 +1,119 @@
+package com.synctok.synctokApi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.synctok.synctokApi.client.BenchmarkVideos;
+import com.synctok.synctokApi.client.CloudinaryStager;
+import com.synctok.synctokApi.client.StagedUrlCache;
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.service.executor.PublishingExecutor;
+import com.synctok.synctokApi.service.idempotency.IdempotencyStore;
+import com.synctok.synctokApi.service.job.InMemoryJobStore;
+import com.synctok.synctokApi.service.job.JobStore;
+import com.synctok.synctokApi.service.job.PublishJob;
+import com.synctok.synctokApi.service.strategy.FilePlatformStrategy;
+import com.synctok.synctokApi.service.strategy.PlatformStrategy;
+import com.synctok.synctokApi.service.strategy.PublishContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the fan-out of {@link VideoService#publishVideo} over a growing number of platforms whose
+ * strategies complete immediately, isolating job bookkeeping, lane scheduling and future composition.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VideoServiceBenchmark {
+
+    private static final List<String> PLATFORMS = List.of("alpha", "bravo", "charlie", "delta");
+
+    @Param({"1", "2", "4"})
+    private int platformCount;
+
+    private Path file;
+    private JobStore jobStore;
+    private PublishingExecutor publishingExecutor;
+    private CloudinaryStager cloudinaryStager;
+    private VideoService videoService;
+    private List<String> platforms;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchmarkVideos.create(1024);
+        jobStore = new InMemoryJobStore(Duration.ZERO);
+        publishingExecutor = new PublishingExecutor(true, 1, Integer.MAX_VALUE, Integer.MAX_VALUE, new MockEnvironment());
+        List<PlatformStrategy> strategies = List.of(
+                new AlphaStrategy(), new BravoStrategy(), new CharlieStrategy(), new DeltaStrategy());
+        // No rendition is configured, so the file-based platforms never stage
+        cloudinaryStager = new CloudinaryStager(null, null, new MockEnvironment(),
+                Duration.ZERO, Duration.ZERO, 1, Duration.ZERO);
+        videoService = new VideoService(strategies, cloudinaryStager,
+                new StagedUrlCache(Duration.ofHours(1), 1, false, "unused", new ObjectMapper()),
+                null, jobStore, publishingExecutor, new IdempotencyStore(Duration.ofHours(1), Duration.ofDays(1), 1));
+        platforms = PLATFORMS.subList(0, platformCount);
+    }
+
+    @TearDown(Level.Iteration)
+    public void evictJobs() {
+        // Stands in for the JobSweeper, so finished jobs do not pile up across iterations
+        jobStore.evictExpired();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        publishingExecutor.destroy();
+        cloudinaryStager.destroy();
+        BenchmarkVideos.delete(file);
+    }
+
+    @Benchmark
+    public void publishVideo() throws IOException {
+        PublishJob job = PublishJob.create(platforms, "title");
+        jobStore.save(job);
+        VideoSource source = VideoSource.open(file, "video.mp4", "video/mp4");
+        videoService.publishVideo(new PublishContext(job.id(), source, null, "title", null, Map.of()), platforms)
+                .join();
+    }
+
+    private abstract static class CompletedStrategy implements FilePlatformStrategy {
+        @Override
+        public CompletableFuture<String> publishVideo(PublishContext context) {
+            return CompletableFuture.completedFuture(context.jobId());
+        }
+    }
+
+    private static final class AlphaStrategy extends CompletedStrategy {
+    }
+
+    private static final class BravoStrategy extends CompletedStrategy {
+    }
+
+    private static final class CharlieStrategy extends CompletedStrategy {
+    }
+
+    private static final class DeltaStrategy extends CompletedStrategy {
+    }
+}
@@ -0,0 +1,241 @@
+package com.synctok.synctokApi.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.synctok.synctokApi.Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drives a burst of concurrent publishes through the full application against {@link PlatformStandIns}
+ * and reports end-to-end latency percentiles, upload throughput and peak heap usage.
+ * <p>
+ * Options are passed as {@code --name=value}:
+ * <ul>
+ *     <li>{@code publishes} – number of publish requests (default 50)</li>
+ *     <li>{@code concurrency} – number of requests in flight at once (default 10)</li>
+ *     <li>{@code video-size} – size of the uploaded video, e.g. {@code 8MB} (default 8MB)</li>
+ *     <li>{@code platforms} – comma-separated platforms to publish to (default tiktok,youtube,instagram)</li>
+ *     <li>{@code latency} – latency of every stand-in response (default 20ms)</li>
+ *     <li>{@code bandwidth} – per-request upload bandwidth of the stand-ins, 0 for unlimited (default 0)</li>
+ *     <li>{@code error-rate} – share of stand-in requests answered with 503 (default 0)</li>
+ *     <li>{@code processing-delay} – how long Instagram containers stay IN_PROGRESS (default 1s)</li>
+ *     <li>{@code media-not-ready-delay} – how long Instagram answers "Media ID is not available" (default 0s)</li>
+ *     <li>{@code instagram-poll-delay} – delay between Instagram container status polls (default 200ms)</li>
+ *     <li>{@code rate-limits} – whether the platform rate limits apply, as in production (default false)</li>
+ * </ul>
+ * The application runs in the same JVM, so the reported heap peak covers the application, the stand-ins
+ * and the driver together.
+ */
+public final class LoadDriver {
+
+    private static final Duration JOB_POLL_INTERVAL = Duration.ofMillis(100);
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+    private static final double BYTES_PER_MB = 1024d * 1024d;
+    private static final int PERCENTILE_P50 = 50;
+    private static final int PERCENTILE_P99 = 99;
+    private static final int PERCENT = 100;
+    private static final int ACCEPTED = 202;
+
+    private final Map<String, String> options;
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LoadDriver(Map<String, String> options) {
+        this.options = options;
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args the options of the run, as {@code --name=value}
+     * @throws Exception if the run cannot be completed
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") && separator > 0) {
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        new LoadDriver(options).run();
+    }
+
+    private void run() throws Exception {
+        int publishes = Integer.parseInt(option("publishes", "50"));
+        int concurrency = Integer.parseInt(option("concurrency", "10"));
+        long videoSize = DataSize.parse(option("video-size", "8MB")).toBytes();
+        String platforms = option("platforms", "tiktok,youtube,instagram");
+        PlatformStandIns.Settings settings = new PlatformStandIns.Settings(
+                duration("latency", "20ms"),
+                DataSize.parse(option("bandwidth", "0B")).toBytes(),
+                Double.parseDouble(option("error-rate", "0")),
+                duration("processing-delay", "1s"),
+                duration("media-not-ready-delay", "0s"));
+
+        Path video = createVideo(videoSize);
+        try (PlatformStandIns standIns = PlatformStandIns.start(settings);
+             ConfigurableApplicationContext context = startApplication(standIns)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI publishUri = URI.create("http://localhost:" + port + "/api/v1/video/publish");
+            List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .toList();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+            long started = System.nanoTime();
+            List<Future<Result>> futures = new ArrayList<>();
+            try (ExecutorService executor = Executors.newFixedThreadPool(concurrency)) {
+                for (int i = 0; i < publishes; i++) {
+                    futures.add(executor.submit(() -> publish(publishUri, video, platforms)));
+                }
+            }
+            long elapsed = System.nanoTime() - started;
+
+            List<Long> latencies = new ArrayList<>();
+            int failed = 0;
+            for (Future<Result> future : futures) {
+                Result result = future.get();
+                latencies.add(result.latencyNanos());
+                if (!result.succeeded()) {
+                    failed++;
+                }
+            }
+            long heapPeak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            report(publishes, concurrency, videoSize, platforms, settings, latencies, failed, elapsed,
+                    standIns.getBytesReceived(), heapPeak);
+        } finally {
+            Files.deleteIfExists(video);
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication(PlatformStandIns standIns) {
+        List<String> args = new ArrayList<>();
+        standIns.applicationProperties().forEach((name, value) -> args.add("--" + name + "=" + value));
+        args.add("--server.port=0");
+        args.add("--logging.level.com.synctok=WARN");
+        args.add("--instagram.poll.initial-delay=" + option("instagram-poll-delay", "200ms"));
+        args.add("--instagram.poll.max-delay=" + option("instagram-poll-delay", "200ms"));
+        args.add("--synctok.rate-limit.enabled=" + option("rate-limits", "false"));
+        // Every publish should pay for its staging upload, as distinct videos would
+        args.add("--synctok.staging.cache.max-entries=0");
+        return new SpringApplicationBuilder(Application.class).run(args.toArray(String[]::new));
+    }
+
+    private Result publish(URI publishUri, Path video, String platforms) throws IOException, InterruptedException {
+        String boundary = UUID.randomUUID().toString();
+        HttpRequest request = HttpRequest.newBuilder(publishUri)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.concat(
+                        HttpRequest.BodyPublishers.ofString(field(boundary, "title", "Load test")
+                                + field(boundary, "platforms", platforms)
+                                + "--" + boundary + "\r\n"
+                                + "Content-Disposition: form-data; name=\"video\"; filename=\"video.mp4\"\r\n"
+                                + "Content-Type: video/mp4\r\n\r\n"),
+                        HttpRequest.BodyPublishers.ofFile(video),
+                        HttpRequest.BodyPublishers.ofString("\r\n--" + boundary + "--\r\n")))
+                .build();
+
+        long started = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != ACCEPTED) {
+            return new Result(System.nanoTime() - started, false);
+        }
+        URI jobUri = URI.create(response.headers().firstValue("Location").orElseThrow());
+        while (true) {
+            JsonNode job = objectMapper.readTree(httpClient.send(HttpRequest.newBuilder(jobUri).build(),
+                    HttpResponse.BodyHandlers.ofString()).body());
+            boolean finished = true;
+            boolean succeeded = true;
+            for (JsonNode status : job.path("platforms")) {
+                String state = status.path("state").asText();
+                finished &= "PUBLISHED".equals(state) || "FAILED".equals(state);
+                succeeded &= "PUBLISHED".equals(state);
+            }
+            if (finished) {
+                return new Result(System.nanoTime() - started, succeeded);
+            }
+            Thread.sleep(JOB_POLL_INTERVAL);
+        }
+    }
+
+    private static String field(String boundary, String name, String value) {
+        return "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n";
+    }
+
+    private static Path createVideo(long size) throws IOException {
+        Path video = Files.createTempFile("synctok-load", ".mp4");
+        byte[] block = new byte[(int) Math.min(size, DataSize.ofMegabytes(1).toBytes())];
+        ThreadLocalRandom.current().nextBytes(block);
+        try (OutputStream out = Files.newOutputStream(video)) {
+            for (long written = 0; written < size; written += block.length) {
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+            }
+        }
+        return video;
+    }
+
+    private static void report(
+            int publishes, int concurrency, long videoSize, String platforms, PlatformStandIns.Settings settings,
+            List<Long> latencies, int failed, long elapsedNanos, long bytesReceived, long heapPeak) {
+        List<Long> sorted = latencies.stream().sorted().toList();
+        double seconds = elapsedNanos / (NANOS_PER_MILLI * 1000);
+        StringBuilder out = new StringBuilder()
+                .append(String.format("publishes=%d concurrency=%d video=%.1fMB platforms=%s%n",
+                        publishes, concurrency, videoSize / BYTES_PER_MB, platforms))
+                .append(String.format("stand-ins: %s%n", settings))
+                .append(String.format("succeeded=%d failed=%d wall=%.1fs%n", publishes - failed, failed, seconds))
+                .append(String.format("latency p50=%.0fms p99=%.0fms max=%.0fms%n",
+                        percentile(sorted, PERCENTILE_P50) / NANOS_PER_MILLI,
+                        percentile(sorted, PERCENTILE_P99) / NANOS_PER_MILLI,
+                        sorted.getLast() / NANOS_PER_MILLI))
+                .append(String.format("uploaded=%.1fMB throughput=%.1fMB/s%n",
+                        bytesReceived / BYTES_PER_MB, bytesReceived / BYTES_PER_MB / seconds))
+                .append(String.format("heap peak=%.1fMB%n", heapPeak / BYTES_PER_MB));
+        System.out.print(out);
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / (double) PERCENT * sorted.size());
+        return sorted.get(Math.max(rank - 1, 0));
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private Duration duration(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(option(name, defaultValue));
+    }
+
+    private record Result(long latencyNanos, boolean succeeded) {
+    }
+}
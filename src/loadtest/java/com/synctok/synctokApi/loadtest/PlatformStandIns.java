@@ -0,0 +1,299 @@
+package com.synctok.synctokApi.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded stand-ins for the platform endpoints the clients call, so the whole publish pipeline can be
+ * load-tested locally:
+ * <ul>
+ *     <li>TikTok: {@code POST /tiktok/v2/post/publish/video/init/} and chunk {@code PUT}s to the returned URL</li>
+ *     <li>YouTube: the resumable upload session, including {@code 308} progress and status queries</li>
+ *     <li>Instagram: Graph API {@code media}, {@code media_publish} and container status</li>
+ *     <li>Cloudinary: the video upload endpoint</li>
+ * </ul>
+ * Every response is delayed by the configured latency, request bodies are read at the configured
+ * bandwidth, and the configured share of requests fails with {@code 503}. Instagram containers stay
+ * {@code IN_PROGRESS} for the processing delay and answer "Media ID is not available" until the
+ * publish delay has passed.
+ */
+public final class PlatformStandIns implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private static final int RESUME_INCOMPLETE = 308;
+
+    private final Settings settings;
+    private final HttpServer server;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentMap<String, Long> youtubeSessions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Instant> containers = new ConcurrentHashMap<>();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+
+    private PlatformStandIns(Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/tiktok/v2/post/publish/video/init/", handler(this::tiktokInit));
+        server.createContext("/tiktok/upload/", handler(this::tiktokChunk));
+        server.createContext("/youtube/upload", handler(this::youtubeStart));
+        server.createContext("/youtube/session/", handler(this::youtubeChunk));
+        server.createContext("/graph/", handler(this::graph));
+        server.createContext("/cloudinary/", handler(this::cloudinaryUpload));
+    }
+
+    /**
+     * Starts the stand-ins on a free local port.
+     *
+     * @param settings the behaviour of the stand-ins
+     * @return the running stand-ins
+     * @throws IOException if the server cannot be started
+     */
+    public static PlatformStandIns start(Settings settings) throws IOException {
+        PlatformStandIns standIns = new PlatformStandIns(settings);
+        standIns.server.start();
+        return standIns;
+    }
+
+    /**
+     * Returns the base URL of the stand-ins.
+     *
+     * @return the base URL, without a trailing slash
+     */
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the application properties pointing every client at the stand-ins.
+     *
+     * @return the properties, by name
+     */
+    public Map<String, String> applicationProperties() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("tiktok.api.base-url", baseUrl() + "/tiktok");
+        properties.put("youtube.api.upload-url", baseUrl() + "/youtube/upload");
+        properties.put("instagram.api.base-url", baseUrl() + "/graph");
+        properties.put("cloudinary.upload-prefix", baseUrl() + "/cloudinary");
+        properties.put("cloudinary.cloud-name", "stand-in");
+        properties.put("cloudinary.api-key", "stand-in");
+        properties.put("cloudinary.api-secret", "stand-in");
+        // The stand-in stores no assets, so there are no renditions to publish
+        properties.put("cloudinary.renditions.instagram", "");
+        properties.put("cloudinary.renditions.tiktok", "");
+        properties.put("cloudinary.renditions.youtube", "");
+        properties.put("tiktok.access-token", "stand-in");
+        properties.put("youtube.access-token", "stand-in");
+        properties.put("instagram.access-token", "stand-in");
+        properties.put("instagram.account-id", "stand-in");
+        return properties;
+    }
+
+    /**
+     * Returns the number of request body bytes received by the stand-ins.
+     *
+     * @return the number of bytes received
+     */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * Returns the number of requests served by the stand-ins.
+     *
+     * @return the number of requests
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void tiktokInit(HttpExchange exchange) throws IOException {
+        drain(exchange);
+        String publishId = "tiktok-" + UUID.randomUUID();
+        respond(exchange, 200, "{\"data\":{\"publish_id\":\"" + publishId + "\",\"upload_url\":\""
+                + baseUrl() + "/tiktok/upload/" + publishId + "\"},\"error\":{\"code\":\"ok\"}}");
+    }
+
+    private void tiktokChunk(HttpExchange exchange) throws IOException {
+        drain(exchange);
+        respond(exchange, 201, "{\"error\":{\"code\":\"ok\"}}");
+    }
+
+    private void youtubeStart(HttpExchange exchange) throws IOException {
+        drain(exchange);
+        String sessionId = UUID.randomUUID().toString();
+        youtubeSessions.put(sessionId, 0L);
+        exchange.getResponseHeaders().set("Location", baseUrl() + "/youtube/session/" + sessionId);
+        respond(exchange, 200, "");
+    }
+
+    private void youtubeChunk(HttpExchange exchange) throws IOException {
+        String sessionId = exchange.getRequestURI().getPath().substring("/youtube/session/".length());
+        long read = drain(exchange);
+        // Content-Range is "bytes <start>-<end>/<total>" for a chunk and "bytes */<total>" for a status query
+        String contentRange = exchange.getRequestHeaders().getFirst("Content-Range");
+        long total = Long.parseLong(contentRange.substring(contentRange.indexOf('/') + 1));
+        long received = youtubeSessions.getOrDefault(sessionId, 0L);
+        if (!contentRange.startsWith("bytes */")) {
+            long start = Long.parseLong(contentRange.substring("bytes ".length(), contentRange.indexOf('-')));
+            if (start == received) {
+                received += read;
+                youtubeSessions.put(sessionId, received);
+            }
+        }
+        if (received < total) {
+            if (received > 0) {
+                exchange.getResponseHeaders().set("Range", "bytes=0-" + (received - 1));
+            }
+            respond(exchange, RESUME_INCOMPLETE, "");
+            return;
+        }
+        youtubeSessions.remove(sessionId);
+        respond(exchange, 200, "{\"id\":\"youtube-" + sessionId + "\"}");
+    }
+
+    private void graph(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        bytesReceived.addAndGet(body.length);
+        if (path.endsWith("/media")) {
+            String creationId = "container-" + UUID.randomUUID();
+            containers.put(creationId, Instant.now());
+            respond(exchange, 200, "{\"id\":\"" + creationId + "\"}");
+        } else if (path.endsWith("/media_publish")) {
+            JsonNode request = objectMapper.readTree(body);
+            Instant created = containers.get(request.path("creation_id").asText());
+            if (created == null || Instant.now().isBefore(created.plus(settings.mediaNotReadyDelay()))) {
+                respond(exchange, 400, "{\"error\":{\"message\":\"Media ID is not available\",\"code\":9007}}");
+                return;
+            }
+            respond(exchange, 200, "{\"id\":\"media-" + UUID.randomUUID() + "\"}");
+        } else {
+            Instant created = containers.get(path.substring(path.lastIndexOf('/') + 1));
+            String status = created != null && Instant.now().isAfter(created.plus(settings.processingDelay()))
+                    ? "FINISHED" : "IN_PROGRESS";
+            respond(exchange, 200, "{\"status_code\":\"" + status + "\"}");
+        }
+    }
+
+    private void cloudinaryUpload(HttpExchange exchange) throws IOException {
+        drain(exchange);
+        String publicId = UUID.randomUUID().toString();
+        String url = baseUrl() + "/assets/" + publicId + ".mp4";
+        respond(exchange, 200, "{\"public_id\":\"" + publicId + "\",\"resource_type\":\"video\",\"url\":\""
+                + url + "\",\"secure_url\":\"" + url + "\"}");
+    }
+
+    private HttpHandler handler(ExchangeHandler handler) {
+        return exchange -> {
+            requests.incrementAndGet();
+            try {
+                sleep(settings.latency());
+                if (ThreadLocalRandom.current().nextDouble() < settings.errorRate()) {
+                    drain(exchange);
+                    respond(exchange, SERVICE_UNAVAILABLE, "{\"error\":\"stand-in failure\"}");
+                    return;
+                }
+                handler.handle(exchange);
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private long drain(HttpExchange exchange) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long started = System.nanoTime();
+        long total = 0;
+        try (InputStream body = exchange.getRequestBody()) {
+            for (int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+                total += read;
+                throttle(total, started);
+            }
+        }
+        bytesReceived.addAndGet(total);
+        return total;
+    }
+
+    private void throttle(long bytes, long startedNanos) {
+        if (settings.bandwidth() <= 0) {
+            return;
+        }
+        long expectedNanos = bytes * 1_000_000_000L / settings.bandwidth();
+        long aheadNanos = expectedNanos - (System.nanoTime() - startedNanos);
+        if (aheadNanos > 0) {
+            sleep(Duration.ofNanos(aheadNanos));
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ExchangeHandler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Behaviour of the stand-ins.
+     *
+     * @param latency            the delay added before every response
+     * @param bandwidth          the rate request bodies are read at, in bytes per second; 0 for unlimited
+     * @param errorRate          the share of requests, between 0 and 1, answered with {@code 503}
+     * @param processingDelay    how long Instagram containers stay {@code IN_PROGRESS}
+     * @param mediaNotReadyDelay how long publishing an Instagram container fails with "Media ID is not available"
+     */
+    public record Settings(
+            Duration latency,
+            long bandwidth,
+            double errorRate,
+            Duration processingDelay,
+            Duration mediaNotReadyDelay) {
+    }
+}
@@ -0,0 +1,164 @@
+package com.synctok.synctokApi.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Waits for resources a platform prepares asynchronously, such as Instagram media containers or Cloudinary
+ * renditions, by checking them with a growing delay until they are ready or a deadline passes.
+ * A single scheduler thread times the checks of every pending resource; each check runs on a virtual thread and
+ * reschedules itself, so no thread is parked while the platform works and hundreds of pending resources cost
+ * little more than a map entry each. Waiting on the same resource twice shares a single poll.
+ *
+ * @param <T> the type of the value a ready resource is reported with
+ */
+final class BackoffPoller<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackoffPoller.class);
+
+    private final String name;
+    private final Duration initialDelay;
+    private final Duration maxDelay;
+    private final double backoffMultiplier;
+    private final Duration timeout;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService pollers;
+    private final Map<String, CompletableFuture<T>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new BackoffPoller.
+     *
+     * @param name              the kind of resource polled, naming the threads and log messages of the poller
+     * @param initialDelay      the delay after a check made right away that finds a resource not ready
+     * @param maxDelay          the upper bound of the delay between two checks
+     * @param backoffMultiplier the factor applied to the delay after each check that finds a resource not ready
+     * @param timeout           how long a resource may take to be ready before it is given up on
+     */
+    BackoffPoller(String name, Duration initialDelay, Duration maxDelay, double backoffMultiplier, Duration timeout) {
+        this.name = name;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.backoffMultiplier = backoffMultiplier;
+        this.timeout = timeout;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name(name + "-poller").daemon(true).factory());
+        this.pollers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-poll-", 0).factory());
+    }
+
+    /**
+     * Returns a future completed with the given value once a resource is ready.
+     * The future fails with the exception thrown by a check, or with the timeout exception once the resource has
+     * not been ready for longer than the timeout.
+     *
+     * @param key        the identifier of the resource, under which concurrent waits share a poll
+     * @param result     the value the future is completed with once the resource is ready
+     * @param firstDelay the delay before the first check
+     * @param check      the check telling whether the resource is ready
+     * @param timedOut   the exception failing the future when the resource is not ready in time
+     * @return a CompletableFuture completed when the resource is ready
+     */
+    CompletableFuture<T> await(
+            String key,
+            T result,
+            Duration firstDelay,
+            Check check,
+            Supplier<? extends Exception> timedOut) {
+        return pending.computeIfAbsent(key, id -> {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.whenComplete((value, ex) -> pending.remove(id));
+            Poll<T> poll = new Poll<>(id, result, check, timedOut, future, Instant.now().plus(timeout));
+            schedule(poll, firstDelay);
+            return future;
+        });
+    }
+
+    /**
+     * Returns the timeout after which a resource that is still not ready is given up on.
+     *
+     * @return the timeout
+     */
+    Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Returns the number of resources currently being polled.
+     *
+     * @return the number of pending resources
+     */
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Stops polling and cancels the futures of every pending resource.
+     */
+    void shutdown() {
+        scheduler.shutdownNow();
+        pollers.shutdownNow();
+        pending.values().forEach(future -> future.cancel(false));
+    }
+
+    private void schedule(Poll<T> poll, Duration delay) {
+        scheduler.schedule(() -> pollers.execute(() -> check(poll, delay)), delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void check(Poll<T> poll, Duration delay) {
+        if (poll.future().isDone()) {
+            return;
+        }
+        boolean ready;
+        try {
+            ready = poll.check().isReady();
+        } catch (Exception e) {
+            poll.future().completeExceptionally(e);
+            return;
+        }
+
+        if (ready) {
+            poll.future().complete(poll.result());
+        } else if (Instant.now().isAfter(poll.deadline())) {
+            poll.future().completeExceptionally(poll.timedOut().get());
+        } else {
+            Duration next = delay.isZero() ? initialDelay : Duration.ofMillis(Math.min(
+                    (long) (delay.toMillis() * backoffMultiplier), maxDelay.toMillis()));
+            logger.debug("{} {} not ready yet, next check in {}", name, poll.key(), next);
+            schedule(poll, next);
+        }
+    }
+
+    /**
+     * A single check of whether a resource is ready.
+     */
+    @FunctionalInterface
+    interface Check {
+
+        /**
+         * Checks the resource once.
+         *
+         * @return true if the resource is ready, false if it should be checked again later
+         * @throws Exception if the resource will never be ready, which fails its future
+         */
+        boolean isReady() throws Exception;
+    }
+
+    private record Poll<T>(
+            String key,
+            T result,
+            Check check,
+            Supplier<? extends Exception> timedOut,
+            CompletableFuture<T> future,
+            Instant deadline) {
+    }
+}
@@ -0,0 +1,211 @@
+package com.synctok.synctokApi.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Predicate;
+
+/**
+ * Splits an upload into byte ranges and sends them with a bounded number of chunks in flight.
+ * Chunks are handed to a {@link ChunkSender}, which is expected to stream its range straight from
+ * the spooled video, so parallel uploads never hold more than the transport buffers in memory.
+ * A chunk failing with a retryable exception is sent again, with exponential backoff, before it is
+ * considered failed. The first failed chunk cancels the chunks that have not been sent yet and is
+ * rethrown to the caller.
+ */
+final class ChunkUploader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkUploader.class);
+
+    private final int parallelism;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Predicate<RuntimeException> retryable;
+
+    /**
+     * Constructs a new ChunkUploader that sends each chunk once.
+     *
+     * @param parallelism the maximum number of chunks uploaded at the same time
+     */
+    ChunkUploader(int parallelism) {
+        this(parallelism, 1, Duration.ZERO, e -> false);
+    }
+
+    /**
+     * Constructs a new ChunkUploader that retries chunks failing with a retryable exception.
+     *
+     * @param parallelism    the maximum number of chunks uploaded at the same time
+     * @param maxAttempts    the maximum number of times a single chunk is sent
+     * @param initialBackoff the delay before the first retry; doubled for each further retry
+     * @param retryable      decides whether a failure is transient and worth retrying
+     */
+    ChunkUploader(int parallelism, int maxAttempts, Duration initialBackoff, Predicate<RuntimeException> retryable) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Chunk upload parallelism must be at least 1");
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Chunk upload attempts must be at least 1");
+        }
+        this.parallelism = parallelism;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.retryable = retryable;
+    }
+
+    /**
+     * Uploads every chunk of a file of the given size.
+     *
+     * @param totalSize the size of the file in bytes
+     * @param chunkSize the size of every chunk but the last one
+     * @param sender    the callback sending a single chunk
+     */
+    void upload(long totalSize, long chunkSize, ChunkSender sender) {
+        upload(split(totalSize, chunkSize), sender);
+    }
+
+    /**
+     * Uploads the given chunks, for example the chunks of a file that have not been acknowledged yet.
+     *
+     * @param chunks the chunks to upload
+     * @param sender the callback sending a single chunk
+     */
+    void upload(List<Chunk> chunks, ChunkSender sender) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        if (parallelism == 1 || chunks.size() == 1) {
+            chunks.forEach(chunk -> sendWithRetry(chunk, sender));
+            return;
+        }
+
+        int workers = Math.min(parallelism, chunks.size());
+        ThreadFactory threadFactory = Thread.ofVirtual().name("chunk-", 0).factory();
+        try (ExecutorService pool = Executors.newFixedThreadPool(workers, threadFactory)) {
+            CompletionService<Chunk> completion = new ExecutorCompletionService<>(pool);
+            for (Chunk chunk : chunks) {
+                completion.submit(() -> {
+                    sendWithRetry(chunk, sender);
+                    return chunk;
+                });
+            }
+            for (int i = 0; i < chunks.size(); i++) {
+                try {
+                    completion.take().get();
+                } catch (ExecutionException e) {
+                    pool.shutdownNow();
+                    throw propagate(e.getCause());
+                } catch (InterruptedException e) {
+                    pool.shutdownNow();
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while uploading chunks", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits a file into consecutive chunks; the last chunk holds the remainder.
+     *
+     * @param totalSize the size of the file in bytes
+     * @param chunkSize the size of every chunk but the last one
+     * @return the chunks, in file order
+     */
+    static List<Chunk> split(long totalSize, long chunkSize) {
+        List<Chunk> chunks = new ArrayList<>();
+        int index = 0;
+        for (long start = 0; start < totalSize; start += chunkSize) {
+            long end = Math.min(start + chunkSize, totalSize) - 1;
+            chunks.add(new Chunk(index++, start, end, totalSize));
+        }
+        return chunks;
+    }
+
+    private void sendWithRetry(Chunk chunk, ChunkSender sender) {
+        long backoffMillis = initialBackoff.toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                sender.send(chunk);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !retryable.test(e)) {
+                    throw e;
+                }
+                logger.warn("Chunk {} ({}) failed on attempt {}/{}, retrying in {} ms: {}",
+                        chunk.index(), chunk.contentRange(), attempt, maxAttempts, backoffMillis, e.getMessage());
+                sleep(backoffMillis);
+                backoffMillis *= 2;
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry a chunk", e);
+        }
+    }
+
+    private static RuntimeException propagate(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException("Chunk upload failed", cause);
+    }
+
+    /**
+     * Callback sending a single chunk of an upload.
+     */
+    @FunctionalInterface
+    interface ChunkSender {
+
+        /**
+         * Sends the given chunk, throwing an unchecked exception if it fails.
+         *
+         * @param chunk the chunk to send
+         */
+        void send(Chunk chunk);
+    }
+
+    /**
+     * A byte range of an upload.
+     *
+     * @param index the zero-based position of the chunk
+     * @param start the offset of the first byte of the chunk
+     * @param end   the offset of the last byte of the chunk, inclusive
+     * @param total the size of the whole file
+     */
+    record Chunk(int index, long start, long end, long total) {
+
+        /**
+         * Returns the number of bytes in the chunk.
+         *
+         * @return the length of the chunk
+         */
+        long length() {
+            return end - start + 1;
+        }
+
+        /**
+         * Returns the value of the Content-Range header describing this chunk.
+         *
+         * @return the content range, e.g. {@code bytes 0-99/1000}
+         */
+        String contentRange() {
+            return "bytes " + start + "-" + end + "/" + total;
+        }
+    }
+}
@@ -2,43 +2,222 @@ package com.synctok.synctokApi.client;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
+import com.synctok.synctokApi.exception.CloudinaryUploadException;
+import com.synctok.synctokApi.exception.MalformedResponseException;
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.metrics.PublishMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Client for interacting with the Cloudinary service.
  * This class provides methods for uploading files to Cloudinary and retrieving their public URLs.
+ * Videos larger than the configured chunk size are staged with Cloudinary's chunked upload protocol: the chunks share
+ * an upload id, every chunk but the last is sent with several chunks in flight, and the last chunk, whose response
+ * describes the whole asset, is sent once the others are in. Each chunk is streamed from the spooled video and
+ * retried on its own after a transient failure, so memory use does not grow with the size of the video and a
+ * failure only costs the chunk it interrupted. Eager transformations requested with an upload are generated
+ * asynchronously by Cloudinary, in parallel with each other, once the upload has completed.
  */
 @Component
-@SuppressWarnings("unchecked")
 public final class CloudinaryClient {
 
+    private static final String PLATFORM = "cloudinary";
+    private static final Logger logger = LoggerFactory.getLogger(CloudinaryClient.class);
+
     private final Cloudinary cloudinary;
+    private final RestTemplate restTemplate;
+    private final String uploadUrl;
+    private final long chunkSize;
+    private final ChunkUploader chunkUploader;
+    private final PublishMetrics publishMetrics;
 
     /**
      * Constructs a new CloudinaryClient with the specified Cloudinary instance.
      *
-     * @param cloudinary the Cloudinary instance to use for file operations
+     * @param cloudinary the Cloudinary instance providing the account configuration and request signing
+     * @param restTemplate the RestTemplate used to send uploads to Cloudinary
+     * @param chunkSize the size of the chunks large videos are split into
+     * @param uploadParallelism the maximum number of chunks uploaded at the same time
+     * @param chunkMaxAttempts the maximum number of times a single chunk is sent
+     * @param chunkRetryBackoff the delay before the first retry of a chunk, doubled for each further retry
+     * @param publishMetrics the metrics recording the duration and throughput of staging uploads
      */
     @Autowired
-    public CloudinaryClient(Cloudinary cloudinary) {
+    public CloudinaryClient(
+            Cloudinary cloudinary,
+            @Qualifier("cloudinary") RestTemplate restTemplate,
+            @Value("${cloudinary.upload.chunk-size}") DataSize chunkSize,
+            @Value("${cloudinary.upload.parallelism}") int uploadParallelism,
+            @Value("${cloudinary.upload.chunk-max-attempts}") int chunkMaxAttempts,
+            @Value("${cloudinary.upload.chunk-retry-backoff}") Duration chunkRetryBackoff,
+            PublishMetrics publishMetrics) {
         this.cloudinary = cloudinary;
+        this.restTemplate = restTemplate;
+        this.uploadUrl = cloudinary.cloudinaryApiUrl("upload", ObjectUtils.asMap("resource_type", "video"));
+        this.chunkSize = chunkSize.toBytes();
+        this.chunkUploader = new ChunkUploader(
+                uploadParallelism, chunkMaxAttempts, chunkRetryBackoff, this::retryChunk);
+        this.publishMetrics = publishMetrics;
     }
 
     /**
-     * Uploads a file to Cloudinary and retrieves its public URL.
+     * Uploads a video to Cloudinary and retrieves its public URL.
+     * The video is streamed from its spool file rather than loaded onto the heap, in chunks when it is larger
+     * than the chunk size.
      *
-     * @param file the MultipartFile to upload
+     * @param source                the spooled video to upload
+     * @param eagerTransformations  the transformations Cloudinary should generate asynchronously once the video is
+     *                              uploaded, in its URL syntax; may be empty
      * @return the public URL of the uploaded file
      * @throws IOException if there's an error during file upload
+     * @throws CloudinaryUploadException if Cloudinary's response to the upload has no URL for the video
+     */
+    public String uploadAndGetPublicUrl(VideoSource source, List<String> eagerTransformations) throws IOException {
+        long started = System.nanoTime();
+        String url = publishMetrics.time(PLATFORM, "staging", () -> upload(source, eagerTransformations));
+        publishMetrics.recordUpload(PLATFORM, source.getSize(), Duration.ofNanos(System.nanoTime() - started));
+        return url;
+    }
+
+    /**
+     * Returns whether a derived video can be fetched yet.
+     * Cloudinary answers {@code 423 Locked} while an asynchronous transformation is still being generated and
+     * {@code 404 Not Found} before it has started.
+     *
+     * @param url the URL of the derived video
+     * @return true if the video is available, false if it is still being generated
+     * @throws IOException if Cloudinary cannot be reached or rejects the transformation
      */
-    public String uploadAndGetPublicUrl(MultipartFile file) throws IOException {
-        Map<String, Object> uploadResult = cloudinary.uploader().upload(file.getBytes(),
-                ObjectUtils.asMap("resource_type", "video"));
-        return (String) uploadResult.get("url");
+    public boolean isAvailable(String url) throws IOException {
+        try {
+            restTemplate.headForHeaders(url);
+            return true;
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.LOCKED || e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return false;
+            }
+            throw new IOException("Failed to check " + url + ": " + e.getMessage(), e);
+        } catch (RestClientException e) {
+            throw new IOException("Failed to check " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Downloads a video from Cloudinary, handing its body to the extractor as it is received.
+     *
+     * @param url       the URL of the video
+     * @param extractor the extractor reading the response, typically into a spool file
+     * @param <T>       the type of the extracted result
+     * @return the result of the extractor
+     * @throws IOException if the video cannot be downloaded
+     */
+    public <T> T download(String url, ResponseExtractor<T> extractor) throws IOException {
+        try {
+            return restTemplate.execute(url, HttpMethod.GET, null, extractor);
+        } catch (RestClientException e) {
+            throw new IOException("Failed to download " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    private String upload(VideoSource source, List<String> eagerTransformations) throws IOException {
+        List<ChunkUploader.Chunk> chunks = ChunkUploader.split(source.getSize(), chunkSize);
+        AtomicReference<String> url = new AtomicReference<>();
+        try {
+            if (chunks.size() <= 1) {
+                chunkUploader.upload(List.of(new ChunkUploader.Chunk(0, 0, source.getSize() - 1, source.getSize())),
+                        chunk -> url.set(sendChunk(source, eagerTransformations, null, chunk, true)));
+                return url.get();
+            }
+            String uploadId = UUID.randomUUID().toString();
+            logger.info("Staging {} on Cloudinary in {} chunks", source.getFilename(), chunks.size());
+            chunkUploader.upload(chunks.subList(0, chunks.size() - 1),
+                    chunk -> sendChunk(source, eagerTransformations, uploadId, chunk, false));
+            chunkUploader.upload(List.of(chunks.getLast()),
+                    chunk -> url.set(sendChunk(source, eagerTransformations, uploadId, chunk, true)));
+            return url.get();
+        } catch (RestClientException e) {
+            throw new IOException("Failed to stage video on Cloudinary: " + e.getMessage(), e);
+        }
+    }
+
+    private String sendChunk(
+            VideoSource source,
+            List<String> eagerTransformations,
+            String uploadId,
+            ChunkUploader.Chunk chunk,
+            boolean last) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("timestamp", Instant.now().getEpochSecond());
+        if (!eagerTransformations.isEmpty()) {
+            // Every chunk carries the same parameters; Cloudinary applies them once the last one is in
+            params.put("eager", String.join("|", eagerTransformations));
+            params.put("eager_async", true);
+        }
+        cloudinary.signRequest(params, new HashMap<>());
+
+        // The chunk resource has no filename of its own; without one Cloudinary would read the part as a text field
+        HttpHeaders fileHeaders = new HttpHeaders();
+        String filename = source.getFilename() == null ? "video" : source.getFilename();
+        fileHeaders.setContentDispositionFormData("file", filename);
+        fileHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        params.forEach((name, value) -> body.add(name, String.valueOf(value)));
+        body.add("file", new HttpEntity<>(source.asResource(chunk.start(), chunk.length()), fileHeaders));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        if (uploadId != null) {
+            headers.set("X-Unique-Upload-Id", uploadId);
+            headers.set("Content-Range", chunk.contentRange());
+        }
+        ResponseEntity<String> response = restTemplate.exchange(
+                uploadUrl, HttpMethod.POST, new HttpEntity<>(body, headers), String.class);
+        publishMetrics.recordBytesSent(PLATFORM, chunk.length());
+        try {
+            // Only the response to the last chunk describes the assembled video
+            return last ? PlatformJson.requireString(response.getBody(), "url") : null;
+        } catch (MalformedResponseException e) {
+            throw new CloudinaryUploadException("Cloudinary returned no URL for " + source.getFilename(), e);
+        }
+    }
+
+    private boolean retryChunk(RuntimeException e) {
+        boolean retry = e instanceof HttpServerErrorException
+                || e instanceof HttpClientErrorException clientError
+                        && clientError.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS
+                || e instanceof ResourceAccessException;
+        if (retry) {
+            publishMetrics.recordRetry(PLATFORM, "chunk");
+        }
+        return retry;
     }
 }
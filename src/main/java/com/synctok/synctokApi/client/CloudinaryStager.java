@@ -0,0 +1,190 @@
+package com.synctok.synctokApi.client;
+
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.media.VideoSpooler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stages videos on Cloudinary together with the rendition each platform prefers.
+ * The rendition of a platform is a Cloudinary transformation configured as {@code cloudinary.renditions.<platform>};
+ * the renditions of every platform of a publish are requested as eager, asynchronous transformations of the one
+ * upload, so Cloudinary encodes them in parallel instead of the video being re-encoded once per platform.
+ * A rendition is only handed out once Cloudinary serves it, which a {@link BackoffPoller} checks with a growing
+ * delay, as the {@link InstagramContainerPoller} does for media containers.
+ */
+@Component
+public final class CloudinaryStager implements DisposableBean {
+
+    private static final String RENDITION_PROPERTY = "cloudinary.renditions.";
+    private static final String UPLOAD_PATH = "/upload/";
+    private static final Logger logger = LoggerFactory.getLogger(CloudinaryStager.class);
+
+    private final CloudinaryClient cloudinaryClient;
+    private final VideoSpooler videoSpooler;
+    private final Environment environment;
+    private final BackoffPoller<String> poller;
+
+    /**
+     * Constructs a new CloudinaryStager.
+     *
+     * @param cloudinaryClient  the client uploading videos to Cloudinary and fetching their renditions
+     * @param videoSpooler      the spooler writing renditions downloaded for file-based platforms to disk
+     * @param environment       the environment the rendition of each platform is read from
+     * @param initialDelay      the delay before the second availability check of a rendition
+     * @param maxDelay          the upper bound of the delay between two availability checks
+     * @param backoffMultiplier the factor applied to the delay after each check that finds the rendition missing
+     * @param timeout           how long a rendition may take to be generated before it is given up on
+     */
+    @Autowired
+    public CloudinaryStager(
+            CloudinaryClient cloudinaryClient,
+            VideoSpooler videoSpooler,
+            Environment environment,
+            @Value("${cloudinary.renditions.poll.initial-delay}") Duration initialDelay,
+            @Value("${cloudinary.renditions.poll.max-delay}") Duration maxDelay,
+            @Value("${cloudinary.renditions.poll.backoff-multiplier}") double backoffMultiplier,
+            @Value("${cloudinary.renditions.poll.timeout}") Duration timeout) {
+        this.cloudinaryClient = cloudinaryClient;
+        this.videoSpooler = videoSpooler;
+        this.environment = environment;
+        this.poller = new BackoffPoller<>("rendition", initialDelay, maxDelay, backoffMultiplier, timeout);
+    }
+
+    /**
+     * Uploads a video to Cloudinary, requesting the renditions of the given platforms in the same upload.
+     *
+     * @param source    the spooled video to upload
+     * @param platforms the platforms the video is published to
+     * @return the public URL of the original video
+     * @throws IOException if the video cannot be uploaded
+     */
+    public String stage(VideoSource source, List<String> platforms) throws IOException {
+        return cloudinaryClient.uploadAndGetPublicUrl(source, transformationsFor(platforms));
+    }
+
+    /**
+     * Returns the distinct transformations producing the renditions of the given platforms.
+     *
+     * @param platforms the platforms a video is published to
+     * @return the transformations, in the order of the platforms; empty if none of them has a rendition
+     */
+    public List<String> transformationsFor(List<String> platforms) {
+        return platforms.stream()
+                .map(this::transformationFor)
+                .flatMap(Optional::stream)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Returns whether a platform publishes its own rendition rather than the original video.
+     *
+     * @param platform the name of the platform
+     * @return true if a rendition is configured for the platform
+     */
+    public boolean hasRendition(String platform) {
+        return transformationFor(platform).isPresent();
+    }
+
+    /**
+     * Returns a future completed with the URL of a platform's rendition once Cloudinary serves it.
+     * The future completes with the URL of the original video right away when the platform has no rendition,
+     * and fails if the rendition cannot be generated or is not ready within the timeout.
+     * Waiting on the same rendition twice shares a single poll.
+     *
+     * @param videoUrl the public URL of the staged original video
+     * @param platform the name of the platform
+     * @return a CompletableFuture completed with the URL the platform should publish from
+     */
+    public CompletableFuture<String> awaitRendition(String videoUrl, String platform) {
+        Optional<String> transformation = transformationFor(platform);
+        if (transformation.isEmpty()) {
+            return CompletableFuture.completedFuture(videoUrl);
+        }
+        String renditionUrl;
+        try {
+            renditionUrl = renditionUrl(videoUrl, transformation.get());
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        // A rendition of a video staged earlier is usually ready already, so the first check is immediate
+        return poller.await(renditionUrl, renditionUrl, Duration.ZERO, () -> isAvailable(renditionUrl),
+                () -> new IOException("Rendition " + renditionUrl + " still being generated after "
+                        + poller.getTimeout()));
+    }
+
+    /**
+     * Downloads a rendition into the spool directory, for platforms that upload files rather than URLs.
+     * The returned source owns its spool file and deletes it when closed.
+     *
+     * @param renditionUrl the URL of the rendition
+     * @param original     the spooled original video, whose filename the rendition keeps
+     * @return a VideoSource backed by the downloaded rendition
+     * @throws IOException if the rendition cannot be downloaded or spooled
+     */
+    public VideoSource download(String renditionUrl, VideoSource original) throws IOException {
+        return cloudinaryClient.download(renditionUrl, response -> {
+            MediaType contentType = response.getHeaders().getContentType();
+            return videoSpooler.spool(response.getBody(), original.getFilename(),
+                    contentType == null ? original.getContentType() : contentType.toString());
+        });
+    }
+
+    /**
+     * Returns the URL under which Cloudinary serves a transformation of an uploaded video.
+     *
+     * @param videoUrl       the public URL of the uploaded video
+     * @param transformation the transformation, in Cloudinary's URL syntax
+     * @return the URL of the derived video
+     * @throws IllegalArgumentException if the URL is not the URL of a Cloudinary upload
+     */
+    public static String renditionUrl(String videoUrl, String transformation) {
+        int path = videoUrl.indexOf(UPLOAD_PATH);
+        if (path < 0) {
+            throw new IllegalArgumentException("Not a Cloudinary upload URL: " + videoUrl);
+        }
+        int end = path + UPLOAD_PATH.length();
+        return videoUrl.substring(0, end) + transformation + "/" + videoUrl.substring(end);
+    }
+
+    /**
+     * Returns the number of renditions currently being waited for.
+     *
+     * @return the number of pending renditions
+     */
+    public int getPendingCount() {
+        return poller.getPendingCount();
+    }
+
+    @Override
+    public void destroy() {
+        poller.shutdown();
+    }
+
+    private Optional<String> transformationFor(String platform) {
+        String transformation = environment.getProperty(RENDITION_PROPERTY + platform.toLowerCase(Locale.ROOT), "");
+        return transformation.isBlank() ? Optional.empty() : Optional.of(transformation.strip());
+    }
+
+    private boolean isAvailable(String renditionUrl) throws IOException {
+        boolean available = cloudinaryClient.isAvailable(renditionUrl);
+        if (available) {
+            logger.info("Rendition {} is ready", renditionUrl);
+        }
+        return available;
+    }
+}
@@ -1,12 +1,16 @@
 package com.synctok.synctokApi.client;
 
+import com.synctok.synctokApi.exception.MalformedResponseException;
 import com.synctok.synctokApi.exception.MediaContainerCreationException;
+import com.synctok.synctokApi.exception.MediaNotReadyException;
 import com.synctok.synctokApi.exception.MediaPublishException;
-import org.cloudinary.json.JSONException;
-import org.cloudinary.json.JSONObject;
+import com.synctok.synctokApi.media.VideoLimits;
+import com.synctok.synctokApi.metrics.PublishMetrics;
+import com.synctok.synctokApi.ratelimit.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -18,9 +22,10 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URLEncoder;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.springframework.http.HttpMethod.GET;
@@ -35,9 +40,22 @@ public final class InstagramClient {
     private final RestTemplate restTemplate;
     private final String accessToken;
     private final String accountId;
-    private static final int MAX_RETRIES = 5;
-    private static final int INITIAL_RETRY_DELAY_MS = 2000;
+    private final String graphApiUrl;
+    private final PublishMetrics publishMetrics;
+    private final RateLimiter rateLimiter;
+    private static final String PLATFORM = "instagram";
+    private static final String REQUESTS = "requests";
     private static final Logger logger = LoggerFactory.getLogger(InstagramClient.class);
+    private static final long MAX_REEL_SIZE = 1024L * 1024 * 1024; // 1 GB
+    private static final Duration MIN_REEL_DURATION = Duration.ofSeconds(3);
+    private static final Duration MAX_REEL_DURATION = Duration.ofMinutes(15);
+    private static final int MAX_REEL_LONG_SIDE = 1920;
+
+    /**
+     * The limits Instagram puts on the reels it accepts.
+     */
+    public static final VideoLimits LIMITS = new VideoLimits(MAX_REEL_SIZE, MIN_REEL_DURATION, MAX_REEL_DURATION,
+            MAX_REEL_LONG_SIDE, Set.of("avc1", "avc3", "hvc1", "hev1"));
 
     /**
      * Constructs a new InstagramClient with the specified RestTemplate and credentials.
@@ -45,15 +63,33 @@ public final class InstagramClient {
      * @param restTemplate the RestTemplate to use for HTTP requests
      * @param accessToken the Instagram API access token
      * @param accountId the Instagram account ID
+     * @param graphApiUrl the versioned base URL of the Graph API
+     * @param publishMetrics the metrics recording the duration of each call and retries
+     * @param rateLimiter the limiter holding back Graph API calls over the account's budget
      */
     @Autowired
     public InstagramClient(
-            RestTemplate restTemplate,
+            @Qualifier("instagram") RestTemplate restTemplate,
             @Value("${instagram.access-token}") String accessToken,
-            @Value("${instagram.account-id}") String accountId) {
+            @Value("${instagram.account-id}") String accountId,
+            @Value("${instagram.api.base-url}") String graphApiUrl,
+            PublishMetrics publishMetrics,
+            RateLimiter rateLimiter) {
         this.restTemplate = restTemplate;
         this.accessToken = accessToken;
         this.accountId = accountId;
+        this.graphApiUrl = graphApiUrl;
+        this.publishMetrics = publishMetrics;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Returns the ID of the account this client publishes as.
+     *
+     * @return the Instagram account ID
+     */
+    public String getAccount() {
+        return accountId;
     }
 
     /**
@@ -66,7 +102,7 @@ public final class InstagramClient {
      */
     public String createMediaContainer(String videoUrl, String title) {
         logger.info("Creating Instagram media container for video: {}", videoUrl);
-        String requestUrl = String.format("https://graph.facebook.com/v20.0/%s/media", accountId);
+        String requestUrl = String.format("%s/%s/media", graphApiUrl, accountId);
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
 
@@ -79,13 +115,14 @@ public final class InstagramClient {
         HttpEntity<Map<String, String>> request = new HttpEntity<>(requestBody, headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.postForEntity(requestUrl, request, String.class);
-            JSONObject jsonResponse = new JSONObject(response.getBody());
-            logger.info("Instagram media container creation response: {}", jsonResponse);
-            return jsonResponse.getString("id");
+            rateLimiter.acquire(PLATFORM, accountId, REQUESTS, 1);
+            ResponseEntity<String> response = publishMetrics.time(PLATFORM, "container",
+                    () -> restTemplate.postForEntity(requestUrl, request, String.class));
+            logger.info("Instagram media container creation response: {}", response.getBody());
+            return PlatformJson.requireString(response.getBody(), "id");
         } catch (HttpClientErrorException e) {
             throw new MediaContainerCreationException("Failed to create media container", e, videoUrl);
-        } catch (JSONException e) {
+        } catch (MalformedResponseException e) {
             throw new MediaContainerCreationException("Failed to parse response", e, videoUrl);
         }
     }
@@ -95,11 +132,13 @@ public final class InstagramClient {
      *
      * @param creationId the ID of the media container to publish
      * @return the ID of the published media
+     * @throws MediaNotReadyException if Instagram cannot publish the media yet and the container should be polled
+     *                                again before publishing it
      * @throws MediaPublishException if the media publishing fails
      */
     public String publishMedia(String creationId) throws MediaPublishException {
         logger.info("Publishing media container to Instagram with creation ID: {}", creationId);
-        String requestUrl = String.format("https://graph.facebook.com/v20.0/%s/media_publish", accountId);
+        String requestUrl = String.format("%s/%s/media_publish", graphApiUrl, accountId);
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         Map<String, String> requestBody = Map.of(
@@ -108,59 +147,49 @@ public final class InstagramClient {
         );
         HttpEntity<Map<String, String>> request = new HttpEntity<>(requestBody, headers);
 
-        int retryDelayMs = INITIAL_RETRY_DELAY_MS;
-
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-            try {
-                ResponseEntity<String> response = restTemplate.postForEntity(requestUrl, request, String.class);
-                JSONObject jsonResponse = new JSONObject(Objects.requireNonNull(response.getBody()));
-                logger.info("Instagram media container publish response: {}", jsonResponse);
-                return jsonResponse.getString("id");
-            } catch (HttpClientErrorException e) {
-                if (e.getStatusCode() == HttpStatus.BAD_REQUEST
-                        && e.getResponseBodyAsString().contains("Media ID is not available")) {
-                    if (attempt == MAX_RETRIES) {
-                        throw new MediaPublishException("Failed to publish media after max retries", e, creationId);
-                    }
-                    try {
-                        Thread.sleep(retryDelayMs);
-                        retryDelayMs *= 2;
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        throw new MediaPublishException("Retry interrupted", ie, creationId);
-                    }
-                } else {
-                    throw new MediaPublishException("Failed to publish media", e, creationId);
-                }
-            } catch (JSONException e) {
-                throw new MediaPublishException("Failed to parse response", e, creationId);
+        try {
+            rateLimiter.acquire(PLATFORM, accountId, REQUESTS, 1);
+            ResponseEntity<String> response = publishMetrics.time(PLATFORM, "publish",
+                    () -> restTemplate.postForEntity(requestUrl, request, String.class));
+            logger.info("Instagram media container publish response: {}", response.getBody());
+            return PlatformJson.requireString(response.getBody(), "id");
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.BAD_REQUEST
+                    && e.getResponseBodyAsString().contains("Media ID is not available")) {
+                publishMetrics.recordRetry(PLATFORM, "publish");
+                throw new MediaNotReadyException("Media is not available yet", e, creationId);
             }
+            throw new MediaPublishException("Failed to publish media", e, creationId);
+        } catch (MalformedResponseException e) {
+            throw new MediaPublishException("Failed to parse response", e, creationId);
         }
-
-        throw new MediaPublishException("Failed to publish media after max retries", creationId);
     }
 
     /**
      * Checks the status of a media container.
      *
      * @param creationId the ID of the media container to check
-     * @return the status code of the media container
+     * @return the status code of the media container, e.g. IN_PROGRESS, FINISHED or ERROR
+     * @throws MediaPublishException if the status cannot be read
      */
     public String checkContainerStatus(final String creationId) {
-        String url = String.format("https://graph.instagram.com/v12.0/%s?fields=status_code", creationId);
+        String url = String.format("%s/%s?fields=status_code", graphApiUrl, creationId);
         HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + accessToken);
+        headers.setBearerAuth(accessToken);
 
         HttpEntity<?> request = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.exchange(url, GET, request, String.class);
-            System.out.println("Container Status Response: " + response.getBody());
-            JSONObject jsonResponse = new JSONObject(response.getBody());
-            return jsonResponse.getString("status_code");
+            rateLimiter.acquire(PLATFORM, accountId, REQUESTS, 1);
+            ResponseEntity<String> response = publishMetrics.time(PLATFORM, "status",
+                    () -> restTemplate.exchange(url, GET, request, String.class));
+            logger.debug("Instagram container status response: {}", response.getBody());
+            return PlatformJson.requireString(response.getBody(), "status_code");
         } catch (HttpClientErrorException e) {
-            System.err.println("Status Check Error: " + e.getResponseBodyAsString());
-            throw new RuntimeException("Failed to check container status", e);
+            throw new MediaPublishException("Failed to check container status: "
+                    + e.getResponseBodyAsString(), e, creationId);
+        } catch (MalformedResponseException e) {
+            throw new MediaPublishException("Failed to parse container status", e, creationId);
         }
     }
 
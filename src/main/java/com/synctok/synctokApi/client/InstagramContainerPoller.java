@@ -0,0 +1,122 @@
+package com.synctok.synctokApi.client;
+
+import com.synctok.synctokApi.exception.MediaPublishException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tracks Instagram media containers that are still being processed and reports when they are ready.
+ * Containers are checked by a {@link BackoffPoller}, so no thread is parked while Instagram transcodes and
+ * hundreds of pending reels cost little more than a map entry each. A status check failing with a server error,
+ * {@code 429}, a broken connection or an open circuit breaker does not say anything about the container, so it
+ * counts as one more check finding it in progress.
+ */
+@Component
+public final class InstagramContainerPoller implements DisposableBean {
+
+    private static final String FINISHED = "FINISHED";
+    private static final String IN_PROGRESS = "IN_PROGRESS";
+    private static final Logger logger = LoggerFactory.getLogger(InstagramContainerPoller.class);
+
+    private final InstagramClient instagramClient;
+    private final Duration initialDelay;
+    private final BackoffPoller<Void> poller;
+
+    /**
+     * Constructs a new InstagramContainerPoller.
+     *
+     * @param instagramClient   the client used to read the status of containers
+     * @param initialDelay      the delay before the first status check of a container
+     * @param maxDelay          the upper bound of the delay between two status checks
+     * @param backoffMultiplier the factor applied to the delay after each check that finds the container in progress
+     * @param timeout           how long a container may stay in progress before it is given up on
+     */
+    @Autowired
+    public InstagramContainerPoller(
+            InstagramClient instagramClient,
+            @Value("${instagram.poll.initial-delay}") Duration initialDelay,
+            @Value("${instagram.poll.max-delay}") Duration maxDelay,
+            @Value("${instagram.poll.backoff-multiplier}") double backoffMultiplier,
+            @Value("${instagram.poll.timeout}") Duration timeout) {
+        this.instagramClient = instagramClient;
+        this.initialDelay = initialDelay;
+        this.poller = new BackoffPoller<>("instagram", initialDelay, maxDelay, backoffMultiplier, timeout);
+    }
+
+    /**
+     * Returns a future completed once the container has finished processing.
+     * The future fails with a {@link MediaPublishException} if processing fails, expires or times out.
+     * Waiting on the same container twice shares a single poll.
+     *
+     * @param creationId the ID of the media container
+     * @return a CompletableFuture completed when the container can be published
+     */
+    public CompletableFuture<Void> awaitFinished(String creationId) {
+        return poller.await(creationId, null, initialDelay, () -> isFinished(creationId),
+                () -> new MediaPublishException("Media container still in progress after " + poller.getTimeout(),
+                        creationId));
+    }
+
+    /**
+     * Returns the number of containers currently being polled.
+     *
+     * @return the number of pending containers
+     */
+    public int getPendingCount() {
+        return poller.getPendingCount();
+    }
+
+    @Override
+    public void destroy() {
+        poller.shutdown();
+    }
+
+    private boolean isFinished(String creationId) {
+        String status;
+        try {
+            status = instagramClient.checkContainerStatus(creationId);
+        } catch (RuntimeException e) {
+            if (!isTransient(e)) {
+                throw e;
+            }
+            logger.warn("Failed to check status of Instagram container {}, checking again later: {}",
+                    creationId, e.toString());
+            return false;
+        }
+
+        if (FINISHED.equals(status)) {
+            logger.info("Instagram container {} finished processing", creationId);
+            return true;
+        }
+        if (!IN_PROGRESS.equals(status)) {
+            throw new MediaPublishException("Media container processing ended with status " + status, creationId);
+        }
+        return false;
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        // The client wraps rejections of the status check, 429 included, in a MediaPublishException
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpServerErrorException
+                    || cause instanceof HttpClientErrorException clientError
+                            && clientError.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS
+                    || cause instanceof ResourceAccessException
+                    || cause instanceof CallNotPermittedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,216 @@
+package com.synctok.synctokApi.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.synctok.synctokApi.exception.MalformedResponseException;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes the JSON bodies the platform clients send and reads the few fields they need from the responses.
+ * Bodies are written with a Jackson streaming generator from templates whose field names are encoded once, and
+ * responses are read with a streaming parser that skips every other field and stops as soon as the wanted fields
+ * have been seen, so no tree of the whole document is ever built. The generator and parser buffers come from a pool
+ * shared by all threads, because a thread-local pool would give every virtual thread buffers of its own.
+ */
+public final class PlatformJson {
+
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+            .recyclerPool(JsonRecyclerPools.sharedLockFreePool())
+            .build();
+    private static final int INITIAL_BODY_SIZE = 256;
+
+    private static final SerializableString POST_INFO = new SerializedString("post_info");
+    private static final SerializableString TITLE = new SerializedString("title");
+    private static final SerializableString PRIVACY_LEVEL = new SerializedString("privacy_level");
+    private static final SerializableString SOURCE_INFO = new SerializedString("source_info");
+    private static final SerializableString SOURCE = new SerializedString("source");
+    private static final SerializableString VIDEO_SIZE = new SerializedString("video_size");
+    private static final SerializableString CHUNK_SIZE = new SerializedString("chunk_size");
+    private static final SerializableString TOTAL_CHUNK_COUNT = new SerializedString("total_chunk_count");
+    private static final SerializableString SNIPPET = new SerializedString("snippet");
+    private static final SerializableString DESCRIPTION = new SerializedString("description");
+    private static final SerializableString CATEGORY_ID = new SerializedString("categoryId");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString PRIVACY_STATUS = new SerializedString("privacyStatus");
+
+    private PlatformJson() {
+    }
+
+    /**
+     * Writes the body of a TikTok direct post initialization request for a private video uploaded from a file.
+     *
+     * @param title           the title of the video
+     * @param videoSize       the size of the video in bytes
+     * @param chunkSize       the size of each uploaded chunk in bytes
+     * @param totalChunkCount the number of chunks the video is uploaded in
+     * @return the JSON body
+     */
+    public static String tiktokInitRequest(String title, long videoSize, int chunkSize, int totalChunkCount) {
+        return write(generator -> {
+            generator.writeStartObject();
+            generator.writeFieldName(POST_INFO);
+            generator.writeStartObject();
+            generator.writeFieldName(TITLE);
+            generator.writeString(title);
+            generator.writeFieldName(PRIVACY_LEVEL);
+            generator.writeString("SELF_ONLY");
+            generator.writeEndObject();
+            generator.writeFieldName(SOURCE_INFO);
+            generator.writeStartObject();
+            generator.writeFieldName(SOURCE);
+            generator.writeString("FILE_UPLOAD");
+            generator.writeFieldName(VIDEO_SIZE);
+            generator.writeNumber(videoSize);
+            generator.writeFieldName(CHUNK_SIZE);
+            generator.writeNumber(chunkSize);
+            generator.writeFieldName(TOTAL_CHUNK_COUNT);
+            generator.writeNumber(totalChunkCount);
+            generator.writeEndObject();
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * Writes the metadata of a private YouTube video in the "People &amp; Blogs" category.
+     *
+     * @param title       the title of the video
+     * @param description the description of the video
+     * @return the JSON body
+     */
+    public static String youtubeVideoMetadata(String title, String description) {
+        return write(generator -> {
+            generator.writeStartObject();
+            generator.writeFieldName(SNIPPET);
+            generator.writeStartObject();
+            generator.writeFieldName(TITLE);
+            generator.writeString(title);
+            generator.writeFieldName(DESCRIPTION);
+            generator.writeString(description);
+            generator.writeFieldName(CATEGORY_ID);
+            generator.writeString("22");
+            generator.writeEndObject();
+            generator.writeFieldName(STATUS);
+            generator.writeStartObject();
+            generator.writeFieldName(PRIVACY_STATUS);
+            generator.writeString("private");
+            generator.writeEndObject();
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * Reads a top-level field of a response.
+     *
+     * @param body  the body of the response
+     * @param field the name of the field
+     * @return the value of the field as text, or null if the response has no such field or it is null
+     * @throws MalformedResponseException if the body is not a JSON object
+     */
+    public static String readString(String body, String field) {
+        return readStrings(body, null, field)[0];
+    }
+
+    /**
+     * Reads a top-level field a response must have.
+     *
+     * @param body  the body of the response
+     * @param field the name of the field
+     * @return the value of the field as text
+     * @throws MalformedResponseException if the body is not a JSON object or has no such field
+     */
+    public static String requireString(String body, String field) {
+        return requireStrings(body, null, field)[0];
+    }
+
+    /**
+     * Reads fields a response must have, either at the top level or inside one of its objects.
+     *
+     * @param body   the body of the response
+     * @param object the name of the top-level object holding the fields, or null for top-level fields
+     * @param fields the names of the fields
+     * @return the values of the fields as text, in the order of the names
+     * @throws MalformedResponseException if the body is not a JSON object or lacks any of the fields
+     */
+    public static String[] requireStrings(String body, String object, String... fields) {
+        String[] values = readStrings(body, object, fields);
+        for (int i = 0; i < fields.length; i++) {
+            if (values[i] == null) {
+                throw new MalformedResponseException("Response has no field " + fields[i]);
+            }
+        }
+        return values;
+    }
+
+    private static String[] readStrings(String body, String object, String... fields) {
+        if (body == null || body.isEmpty()) {
+            throw new MalformedResponseException("Response is empty");
+        }
+        String[] values = new String[fields.length];
+        try (JsonParser parser = FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new MalformedResponseException("Response is not a JSON object");
+            }
+            if (object != null && !enterObject(parser, object)) {
+                throw new MalformedResponseException("Response has no object " + object);
+            }
+            int remaining = fields.length;
+            while (remaining > 0 && parser.nextToken() == JsonToken.FIELD_NAME) {
+                int index = indexOf(fields, parser.currentName());
+                JsonToken value = parser.nextToken();
+                if (index >= 0 && values[index] == null && value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+                    values[index] = parser.getText();
+                    remaining--;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return values;
+        } catch (IOException e) {
+            throw new MalformedResponseException("Response is not valid JSON", e);
+        }
+    }
+
+    private static boolean enterObject(JsonParser parser, String object) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            boolean wanted = object.equals(parser.currentName());
+            if (parser.nextToken() == JsonToken.START_OBJECT && wanted) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static int indexOf(String[] fields, String name) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String write(BodyTemplate template) {
+        StringWriter body = new StringWriter(INITIAL_BODY_SIZE);
+        try (JsonGenerator generator = FACTORY.createGenerator(body)) {
+            template.write(generator);
+        } catch (IOException e) {
+            // Writing to a StringWriter does not fail
+            throw new UncheckedIOException(e);
+        }
+        return body.toString();
+    }
+
+    @FunctionalInterface
+    private interface BodyTemplate {
+        void write(JsonGenerator generator) throws IOException;
+    }
+}
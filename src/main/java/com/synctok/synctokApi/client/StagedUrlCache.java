@@ -0,0 +1,207 @@
+package com.synctok.synctokApi.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Cache mapping the SHA-256 fingerprint of a video to the public URL it was staged at on Cloudinary,
+ * so republishing the same clip skips the staging upload.
+ * Entries expire after a TTL. The in-memory tier keeps the most recently used entries up to a maximum count.
+ * The optional persistent tier ({@code synctok.staging.cache.persistent=true}) stores each entry as a JSON
+ * document, so staged URLs survive restarts.
+ */
+@Component
+public final class StagedUrlCache {
+
+    private static final Pattern SAFE_FINGERPRINT = Pattern.compile("[0-9a-f]+");
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final Logger logger = LoggerFactory.getLogger(StagedUrlCache.class);
+
+    private final Duration ttl;
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final Map<String, StagedUrl> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Constructs a new StagedUrlCache.
+     *
+     * @param ttl          how long a staged URL is reused after the upload that produced it
+     * @param maxEntries   the maximum number of entries kept in memory
+     * @param persistent   whether entries are also stored in the cache directory
+     * @param directory    the directory of the persistent tier
+     * @param objectMapper the ObjectMapper used to serialize persistent entries
+     * @throws IOException if the directory of the persistent tier cannot be created
+     */
+    @Autowired
+    public StagedUrlCache(
+            @Value("${synctok.staging.cache.ttl}") Duration ttl,
+            @Value("${synctok.staging.cache.max-entries}") int maxEntries,
+            @Value("${synctok.staging.cache.persistent}") boolean persistent,
+            @Value("${synctok.staging.cache.directory}") String directory,
+            ObjectMapper objectMapper) throws IOException {
+        this.ttl = ttl;
+        this.directory = persistent ? Files.createDirectories(Path.of(directory)) : null;
+        this.objectMapper = objectMapper;
+        this.entries = new LinkedHashMap<>(maxEntries, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StagedUrl> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        if (this.directory != null) {
+            pruneExpired();
+        }
+    }
+
+    /**
+     * Returns the URL a video with the given fingerprint was staged at, if it has not expired.
+     *
+     * @param fingerprint the hex-encoded SHA-256 digest of the video
+     * @return the staged URL, or an empty Optional on a miss
+     */
+    public Optional<String> find(String fingerprint) {
+        if (fingerprint == null || !SAFE_FINGERPRINT.matcher(fingerprint).matches()) {
+            return Optional.empty();
+        }
+        lock.lock();
+        try {
+            StagedUrl staged = entries.get(fingerprint);
+            if (staged == null && directory != null) {
+                staged = read(fingerprint);
+                if (staged != null) {
+                    entries.put(fingerprint, staged);
+                }
+            }
+            if (staged == null) {
+                return Optional.empty();
+            }
+            if (staged.isExpired(ttl)) {
+                entries.remove(fingerprint);
+                delete(fingerprint);
+                return Optional.empty();
+            }
+            return Optional.of(staged.url());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the URL a video was staged at.
+     *
+     * @param fingerprint the hex-encoded SHA-256 digest of the video
+     * @param url         the public URL of the staged video
+     */
+    public void put(String fingerprint, String url) {
+        if (fingerprint == null || !SAFE_FINGERPRINT.matcher(fingerprint).matches()) {
+            return;
+        }
+        StagedUrl staged = new StagedUrl(url, Instant.now());
+        lock.lock();
+        try {
+            entries.put(fingerprint, staged);
+            if (directory != null) {
+                write(fingerprint, staged);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of entries held in memory.
+     *
+     * @return the size of the in-memory tier
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private StagedUrl read(String fingerprint) {
+        Path file = fileFor(fingerprint);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), StagedUrl.class);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable staged URL entry {}", file, e);
+            return null;
+        }
+    }
+
+    private void write(String fingerprint, StagedUrl staged) {
+        try {
+            Path temp = Files.createTempFile(directory, fingerprint, ".tmp");
+            objectMapper.writeValue(temp.toFile(), staged);
+            Files.move(temp, fileFor(fingerprint), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The persistent tier is an optimization; losing an entry only costs a future upload
+            logger.warn("Failed to persist staged URL for {}", fingerprint, e);
+        }
+    }
+
+    private void delete(String fingerprint) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(fileFor(fingerprint));
+        } catch (IOException e) {
+            logger.warn("Failed to delete staged URL entry for {}", fingerprint, e);
+        }
+    }
+
+    private void pruneExpired() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : files) {
+                String fingerprint = file.getFileName().toString().replace(".json", "");
+                StagedUrl staged = read(fingerprint);
+                if (staged == null || staged.isExpired(ttl)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private Path fileFor(String fingerprint) {
+        return directory.resolve(fingerprint + ".json");
+    }
+
+    /**
+     * A staged URL and when it was staged.
+     *
+     * @param url      the public URL of the staged video
+     * @param stagedAt when the video was staged
+     */
+    record StagedUrl(String url, Instant stagedAt) {
+
+        boolean isExpired(Duration ttl) {
+            return !Instant.now().isBefore(stagedAt.plus(ttl));
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.synctok.synctokApi.client;
 
+import com.synctok.synctokApi.exception.MalformedResponseException;
 import com.synctok.synctokApi.exception.TiktokVideoPublishingException;
-import org.cloudinary.json.JSONException;
-import org.cloudinary.json.JSONObject;
+import com.synctok.synctokApi.media.VideoLimits;
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.metrics.PublishMetrics;
+import com.synctok.synctokApi.ratelimit.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -15,10 +20,15 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
 
 /**
  * Client for interacting with the TikTok API.
@@ -28,39 +38,76 @@ import java.io.IOException;
 public final class TiktokClient {
     private static final int CHUNK_SIZE = 5 * 1024 * 1024; // 5 MB chunk size
     private static final long MAX_FILE_SIZE = 500L * 1024 * 1024; // 500 MB, adjust as per TikTok's limits
+    private static final Duration MIN_DURATION = Duration.ofSeconds(3);
+    private static final Duration MAX_DURATION = Duration.ofMinutes(10);
+    private static final int MAX_LONG_SIDE = 4096;
+
+    /**
+     * The limits TikTok puts on the videos it accepts.
+     */
+    public static final VideoLimits LIMITS = new VideoLimits(MAX_FILE_SIZE, MIN_DURATION, MAX_DURATION, MAX_LONG_SIDE,
+            Set.of("avc1", "avc3", "hvc1", "hev1", "vp08", "vp09"));
+    private static final String PLATFORM = "tiktok";
     private static final Logger logger = LoggerFactory.getLogger(TiktokClient.class);
 
     private final RestTemplate restTemplate;
     private final String accessToken;
+    private final String account;
+    private final String initUrl;
+    private final ChunkUploader chunkUploader;
+    private final PublishMetrics publishMetrics;
 
     /**
      * Constructs a new TiktokClient with the specified RestTemplate and access token.
      *
      * @param restTemplate the RestTemplate to use for HTTP requests
      * @param accessToken the TikTok API access token
+     * @param apiBaseUrl the base URL of TikTok's Open API
+     * @param uploadParallelism the maximum number of chunks uploaded at the same time
+     * @param chunkMaxAttempts the maximum number of times a single chunk is sent
+     * @param chunkRetryBackoff the delay before the first retry of a chunk, doubled for each further retry
+     * @param publishMetrics the metrics recording the duration of each call, retries and bytes sent
      */
     @Autowired
     public TiktokClient(
-            RestTemplate restTemplate,
-            @Value("${tiktok.access-token}") String accessToken) {
+            @Qualifier("tiktok") RestTemplate restTemplate,
+            @Value("${tiktok.access-token}") String accessToken,
+            @Value("${tiktok.api.base-url}") String apiBaseUrl,
+            @Value("${tiktok.upload.parallelism}") int uploadParallelism,
+            @Value("${tiktok.upload.chunk-max-attempts}") int chunkMaxAttempts,
+            @Value("${tiktok.upload.chunk-retry-backoff}") Duration chunkRetryBackoff,
+            PublishMetrics publishMetrics) {
         this.restTemplate = restTemplate;
         this.accessToken = accessToken;
+        this.account = RateLimiter.accountOf(accessToken);
+        this.initUrl = apiBaseUrl + "/v2/post/publish/video/init/";
+        this.chunkUploader = new ChunkUploader(
+                uploadParallelism, chunkMaxAttempts, chunkRetryBackoff, this::retryChunk);
+        this.publishMetrics = publishMetrics;
+    }
+
+    /**
+     * Returns the identifier of the account this client publishes as, derived from its access token.
+     *
+     * @return the account identifier, safe to log and to use as a metric tag
+     */
+    public String getAccount() {
+        return account;
     }
 
     /**
      * Initializes a video upload to TikTok.
      *
-     * @param videoFile the video file to upload
+     * @param videoFile the spooled video to upload
      * @param title the title of the video
      * @return a VideoUploadInitializationResult containing the upload URL and publish ID
      * @throws TiktokVideoPublishingException if the initialization fails
      */
-    public VideoUploadInitializationResult initializeVideoPublish(MultipartFile videoFile, String title) {
+    public VideoUploadInitializationResult initializeVideoPublish(VideoSource videoFile, String title) {
         if (videoFile.getSize() > MAX_FILE_SIZE) {
             throw new TiktokVideoPublishingException("File size exceeds maximum allowed size");
         }
 
-        String uploadUrl = "https://open.tiktokapis.com/v2/post/publish/video/init/";
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setBearerAuth(accessToken);
@@ -68,96 +115,126 @@ public final class TiktokClient {
         HttpEntity<String> request = getInitializeVideoUploadRequest(videoFile, title, headers);
         try {
             logger.info("Publishing video to Tiktok: {}", request);
-            ResponseEntity<String> response = restTemplate.exchange(uploadUrl, HttpMethod.POST, request, String.class);
+            ResponseEntity<String> response = publishMetrics.time(PLATFORM, "init",
+                    () -> restTemplate.exchange(initUrl, HttpMethod.POST, request, String.class));
             String responseBody = response.getBody();
             if (responseBody == null || responseBody.isEmpty()) {
                 throw new TiktokVideoPublishingException("Received empty response from server");
             }
-            JSONObject jsonResponse = new JSONObject(responseBody);
-            JSONObject data = jsonResponse.getJSONObject("data");
-            String uploadUrlResult = data.getString("upload_url");
-            String publishId = data.getString("publish_id");
-            logger.info("Tiktok video publish initialization response: {}", jsonResponse);
-            return new VideoUploadInitializationResult(uploadUrlResult, publishId);
+            logger.info("Tiktok video publish initialization response: {}", responseBody);
+            String[] data = PlatformJson.requireStrings(responseBody, "data", "upload_url", "publish_id");
+            return new VideoUploadInitializationResult(data[0], data[1]);
         } catch (HttpClientErrorException e) {
             throw new TiktokVideoPublishingException("Failed to initialize video upload: "
                     + e.getResponseBodyAsString(), e);
-        } catch (JSONException e) {
+        } catch (MalformedResponseException e) {
             throw new TiktokVideoPublishingException("Failed to parse response", e);
         }
     }
 
     private static HttpEntity<String> getInitializeVideoUploadRequest(
-            MultipartFile videoFile,
+            VideoSource videoFile,
             String title,
             HttpHeaders headers) {
         long fileSize = videoFile.getSize();
         int chunkSize = Math.min(CHUNK_SIZE, (int) fileSize);
         int totalChunkCount = (int) Math.ceil((double) fileSize / chunkSize);
 
-        JSONObject postInfo = new JSONObject();
-        postInfo.put("title", title);
-        postInfo.put("privacy_level", "SELF_ONLY");
-
-        JSONObject sourceInfo = new JSONObject();
-        sourceInfo.put("source", "FILE_UPLOAD");
-        sourceInfo.put("video_size", fileSize);
-        sourceInfo.put("chunk_size", chunkSize);
-        sourceInfo.put("total_chunk_count", totalChunkCount);
-
-        JSONObject requestBody = new JSONObject();
-        requestBody.put("post_info", postInfo);
-        requestBody.put("source_info", sourceInfo);
-
-        return new HttpEntity<>(requestBody.toString(), headers);
+        return new HttpEntity<>(PlatformJson.tiktokInitRequest(title, fileSize, chunkSize, totalChunkCount), headers);
     }
 
     /**
      * Uploads a video to TikTok.
+     * Each chunk is streamed straight from the spooled file, so no chunk is ever copied onto the heap,
+     * and up to the configured number of chunks are in flight at the same time.
      *
-     * @param videoFile the video file to upload
+     * @param videoFile the spooled video to upload
      * @param uploadUrl the URL to upload the video to
-     * @throws IOException if there's an error reading the video file
      * @throws TiktokVideoPublishingException if the upload fails
      */
-    public void publishVideo(MultipartFile videoFile, String uploadUrl) throws IOException {
-        long fileSize = videoFile.getSize();
-        byte[] fileContent = videoFile.getBytes();
+    public void publishVideo(VideoSource videoFile, String uploadUrl) {
+        publishVideo(videoFile, uploadUrl, Set.of(), chunkIndex -> { });
+    }
 
-        for (int chunkStart = 0; chunkStart < fileSize; chunkStart += CHUNK_SIZE) {
-            int chunkEnd = Math.min(chunkStart + CHUNK_SIZE - 1, (int) fileSize - 1);
-            publishChunk(fileContent, chunkStart, chunkEnd, fileSize, uploadUrl);
+    /**
+     * Uploads the chunks of a video that TikTok has not acknowledged yet, resuming an interrupted upload.
+     * Chunks failing with a transient error (a server error, a throttled request or a broken connection)
+     * are retried with backoff; every chunk TikTok acknowledges is reported to the given callback.
+     *
+     * @param videoFile the spooled video to upload
+     * @param uploadUrl the URL returned when the upload was initialized
+     * @param acknowledgedChunks the indexes of the chunks already acknowledged, which are skipped
+     * @param onChunkAcknowledged called with the index of every newly acknowledged chunk
+     * @throws TiktokVideoPublishingException if a chunk cannot be uploaded
+     */
+    public void publishVideo(
+            VideoSource videoFile,
+            String uploadUrl,
+            Set<Integer> acknowledgedChunks,
+            IntConsumer onChunkAcknowledged) {
+        List<ChunkUploader.Chunk> pending = ChunkUploader.split(videoFile.getSize(), CHUNK_SIZE).stream()
+                .filter(chunk -> !acknowledgedChunks.contains(chunk.index()))
+                .toList();
+        if (!acknowledgedChunks.isEmpty()) {
+            logger.info("Resuming Tiktok upload with {} chunks already acknowledged", acknowledgedChunks.size());
+        }
+        long started = System.nanoTime();
+        try {
+            chunkUploader.upload(pending, chunk -> {
+                publishChunk(videoFile, chunk, uploadUrl);
+                onChunkAcknowledged.accept(chunk.index());
+            });
+            long uploaded = pending.stream().mapToLong(ChunkUploader.Chunk::length).sum();
+            publishMetrics.recordUpload(PLATFORM, uploaded, Duration.ofNanos(System.nanoTime() - started));
+        } catch (RestClientException e) {
+            throw new TiktokVideoPublishingException("Failed to upload video chunk: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean retryChunk(RuntimeException e) {
+        boolean retry = isTransient(e);
+        if (retry) {
+            publishMetrics.recordRetry(PLATFORM, "chunk");
         }
+        return retry;
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof HttpServerErrorException
+                || e instanceof HttpClientErrorException clientError
+                        && clientError.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS
+                || e instanceof ResourceAccessException;
     }
 
-    private void publishChunk(byte[] fileContent, int start, int end,
-                              long totalSize, String uploadUrl) {
+    private void publishChunk(VideoSource videoFile, ChunkUploader.Chunk chunk, String uploadUrl) {
+        long start = chunk.start();
+        long end = chunk.end();
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
         headers.setBearerAuth(accessToken);
-        headers.set("Content-Range", String.format("bytes %d-%d/%d", start, end, totalSize));
-
-        byte[] chunk = new byte[end - start + 1];
-        System.arraycopy(fileContent, start, chunk, 0, chunk.length);
+        headers.set("Content-Range", chunk.contentRange());
 
-        HttpEntity<byte[]> requestEntity = new HttpEntity<>(chunk, headers);
+        HttpEntity<Resource> requestEntity = new HttpEntity<>(videoFile.asResource(start, chunk.length()), headers);
 
         try {
             logger.info("Publishing chunk to Tiktok: {}-{}-{}", start, end, requestEntity);
-            ResponseEntity<String> response = restTemplate.exchange(
+            ResponseEntity<String> response = publishMetrics.time(PLATFORM, "chunk", () -> restTemplate.exchange(
                     uploadUrl,
                     HttpMethod.PUT,
                     requestEntity,
                     String.class
-            );
+            ));
+            publishMetrics.recordBytesSent(PLATFORM, chunk.length());
 
             if (response.getStatusCode() != HttpStatus.CREATED) {
                 throw new TiktokVideoPublishingException("Failed to upload video chunk. Status code: "
                         + response.getStatusCode());
             }
-            JSONObject jsonResponse = new JSONObject(response.getBody());
-            logger.info("Tiktok chunk publish response: {}-{}-{}", start, end, jsonResponse);
+            logger.info("Tiktok chunk publish response: {}-{}-{}", start, end, response.getBody());
         } catch (HttpClientErrorException e) {
+            if (isTransient(e)) {
+                throw e;
+            }
             throw new TiktokVideoPublishingException("Failed to upload video chunk: "
                     + e.getResponseBodyAsString(), e);
         }
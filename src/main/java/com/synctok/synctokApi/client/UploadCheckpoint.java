@@ -0,0 +1,67 @@
+package com.synctok.synctokApi.client;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Progress of a chunked upload to a platform, persisted so that an interrupted upload can be resumed.
+ *
+ * @param publishId          the identifier the platform assigned to the upload
+ * @param uploadUrl          the URL chunks of this upload are sent to
+ * @param title              the title the upload was initialized with
+ * @param totalSize          the size of the uploaded video in bytes
+ * @param acknowledgedChunks the indexes of the chunks the platform has acknowledged
+ * @param createdAt          when the upload was initialized
+ */
+public record UploadCheckpoint(
+        String publishId,
+        String uploadUrl,
+        String title,
+        long totalSize,
+        Set<Integer> acknowledgedChunks,
+        Instant createdAt) {
+
+    /**
+     * Creates a checkpoint, copying the acknowledged chunks into an immutable set.
+     */
+    public UploadCheckpoint {
+        acknowledgedChunks = acknowledgedChunks == null ? Set.of() : Set.copyOf(acknowledgedChunks);
+    }
+
+    /**
+     * Creates a checkpoint for a freshly initialized upload with no acknowledged chunk.
+     *
+     * @param publishId the identifier the platform assigned to the upload
+     * @param uploadUrl the URL chunks of this upload are sent to
+     * @param title     the title the upload was initialized with
+     * @param totalSize the size of the uploaded video in bytes
+     * @return a new checkpoint
+     */
+    public static UploadCheckpoint start(String publishId, String uploadUrl, String title, long totalSize) {
+        return new UploadCheckpoint(publishId, uploadUrl, title, totalSize, Set.of(), Instant.now());
+    }
+
+    /**
+     * Returns a copy of this checkpoint with one more acknowledged chunk.
+     *
+     * @param chunkIndex the index of the acknowledged chunk
+     * @return the updated checkpoint
+     */
+    public UploadCheckpoint acknowledge(int chunkIndex) {
+        Set<Integer> chunks = new TreeSet<>(acknowledgedChunks);
+        chunks.add(chunkIndex);
+        return new UploadCheckpoint(publishId, uploadUrl, title, totalSize, chunks, createdAt);
+    }
+
+    /**
+     * Tells whether this checkpoint is older than the given age, after which its upload URL is no longer valid.
+     *
+     * @param maxAge the maximum age of a usable checkpoint
+     * @return true if the checkpoint has expired
+     */
+    public boolean isExpired(Duration maxAge) {
+        return createdAt.plus(maxAge).isBefore(Instant.now());
+    }
+}
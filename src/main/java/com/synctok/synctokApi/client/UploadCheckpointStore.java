@@ -0,0 +1,210 @@
+package com.synctok.synctokApi.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Stores upload checkpoints as JSON documents in a directory, so chunked uploads survive failures and restarts.
+ * Updates to the same checkpoint are serialized through a striped lock and written atomically
+ * through a temporary file, so chunks acknowledged concurrently are never lost. The locks are
+ * {@link ReentrantLock}s so that the virtual threads uploading chunks never pin their carrier thread on them.
+ * Checkpoints outlive the publish that wrote them when it fails, so those whose upload URL has expired are
+ * deleted by a sweep running every {@code tiktok.upload.checkpoint-ttl} on a single daemon thread.
+ */
+@Component
+public final class UploadCheckpointStore implements DisposableBean {
+
+    private static final Pattern SAFE_KEY = Pattern.compile("[A-Za-z0-9-]+");
+    private static final Logger logger = LoggerFactory.getLogger(UploadCheckpointStore.class);
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path directory;
+    private final Duration ttl;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock[] lockStripes = new ReentrantLock[LOCK_STRIPES];
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a new UploadCheckpointStore and schedules its sweeps.
+     *
+     * @param directory    the directory in which checkpoints are stored
+     * @param ttl          how long a checkpoint can be resumed, after which it is deleted by the sweep
+     * @param objectMapper the ObjectMapper used to serialize checkpoints
+     * @throws IOException if the directory cannot be created
+     */
+    @Autowired
+    public UploadCheckpointStore(
+            @Value("${synctok.checkpoints.directory}") String directory,
+            @Value("${tiktok.upload.checkpoint-ttl}") Duration ttl,
+            ObjectMapper objectMapper) throws IOException {
+        this.directory = Files.createDirectories(Path.of(directory));
+        this.ttl = ttl;
+        this.objectMapper = objectMapper;
+        for (int i = 0; i < lockStripes.length; i++) {
+            lockStripes[i] = new ReentrantLock();
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("checkpoint-sweeper").daemon(true).factory());
+        scheduler.scheduleWithFixedDelay(this::sweep, ttl.toMillis(), ttl.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Returns the checkpoint stored under the given key.
+     *
+     * @param key the key of the checkpoint
+     * @return the checkpoint, or an empty Optional if there is none
+     */
+    public Optional<UploadCheckpoint> find(String key) {
+        return Optional.ofNullable(read(checkKey(key)));
+    }
+
+    /**
+     * Stores a checkpoint, replacing any checkpoint with the same key.
+     *
+     * @param key        the key of the checkpoint
+     * @param checkpoint the checkpoint to store
+     */
+    public void save(String key, UploadCheckpoint checkpoint) {
+        String k = checkKey(key);
+        withLock(k, () -> write(k, checkpoint));
+    }
+
+    /**
+     * Records that a chunk of the upload has been acknowledged by the platform.
+     * Does nothing if the checkpoint no longer exists.
+     *
+     * @param key        the key of the checkpoint
+     * @param chunkIndex the index of the acknowledged chunk
+     */
+    public void acknowledge(String key, int chunkIndex) {
+        String k = checkKey(key);
+        withLock(k, () -> {
+            UploadCheckpoint current = read(k);
+            if (current != null) {
+                write(k, current.acknowledge(chunkIndex));
+            }
+        });
+    }
+
+    /**
+     * Removes a checkpoint, typically once its upload has completed or can no longer be resumed.
+     *
+     * @param key the key of the checkpoint
+     */
+    public void delete(String key) {
+        String k = checkKey(key);
+        withLock(k, () -> {
+            try {
+                Files.deleteIfExists(fileFor(k));
+            } catch (IOException e) {
+                logger.warn("Failed to delete upload checkpoint {}", k, e);
+            }
+        });
+    }
+
+    /**
+     * Deletes every checkpoint older than the TTL, whose upload can no longer be resumed.
+     * Checkpoints that cannot be read are left in place.
+     */
+    public void evictExpired() {
+        List<String> keys;
+        try (Stream<Path> files = Files.list(directory)) {
+            keys = files.map(file -> file.getFileName().toString())
+                    .filter(fileName -> fileName.endsWith(".json"))
+                    .map(fileName -> fileName.substring(0, fileName.length() - ".json".length()))
+                    .filter(key -> SAFE_KEY.matcher(key).matches())
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list upload checkpoints in " + directory, e);
+        }
+        for (String key : keys) {
+            withLock(key, () -> {
+                try {
+                    UploadCheckpoint checkpoint = read(key);
+                    if (checkpoint != null && checkpoint.isExpired(ttl)) {
+                        Files.deleteIfExists(fileFor(key));
+                    }
+                } catch (IOException | UncheckedIOException e) {
+                    logger.warn("Skipping upload checkpoint {} while evicting expired checkpoints", key, e);
+                }
+            });
+        }
+    }
+
+    private void sweep() {
+        try {
+            evictExpired();
+        } catch (RuntimeException e) {
+            // A failed sweep must not cancel the next ones
+            logger.warn("Failed to evict expired upload checkpoints", e);
+        }
+    }
+
+    private void withLock(String key, Runnable action) {
+        ReentrantLock lock = lockStripes[Math.floorMod(key.hashCode(), lockStripes.length)];
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String checkKey(String key) {
+        if (!SAFE_KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid checkpoint key: " + key);
+        }
+        return key;
+    }
+
+    private UploadCheckpoint read(String key) {
+        Path file = fileFor(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), UploadCheckpoint.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read upload checkpoint " + key, e);
+        }
+    }
+
+    private void write(String key, UploadCheckpoint checkpoint) {
+        try {
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            objectMapper.writeValue(temp.toFile(), checkpoint);
+            Files.move(temp, fileFor(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write upload checkpoint " + key, e);
+        }
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(key + ".json");
+    }
+}
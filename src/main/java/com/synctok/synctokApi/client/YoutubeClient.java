@@ -1,129 +1,258 @@
 package com.synctok.synctokApi.client;
 
+import com.synctok.synctokApi.exception.MalformedResponseException;
 import com.synctok.synctokApi.exception.YoutubeVideoPublishingException;
-import org.json.JSONObject;
+import com.synctok.synctokApi.media.VideoLimits;
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.metrics.PublishMetrics;
+import com.synctok.synctokApi.ratelimit.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Set;
 
 /**
  * Client for interacting with the YouTube API.
- * This class provides methods for uploading videos to YouTube.
+ * This class provides methods for uploading videos to YouTube through the resumable upload protocol:
+ * a session is opened with the video metadata, then the video is streamed from disk in fixed-size chunks.
+ * When a chunk fails with a transient error, the session is asked how many bytes it holds and the
+ * upload continues from there, so memory use is constant and a failure never restarts the whole video.
  */
 @Component
 public final class YoutubeClient {
 
-    private static final String UPLOAD_URL =
-            "https://www.googleapis.com/upload/youtube/v3/videos?uploadType=multipart&part=snippet,status";
+    private static final String UPLOAD_QUERY = "?uploadType=resumable&part=snippet,status";
     private static final long MAX_FILE_SIZE = 256L * 1024 * 1024 * 1024; // 256GB
+    private static final Duration MAX_DURATION = Duration.ofHours(12);
+    private static final int MAX_LONG_SIDE = 7680; // 8K
+
+    /**
+     * The limits YouTube puts on the videos it accepts; it transcodes any codec.
+     */
+    public static final VideoLimits LIMITS = new VideoLimits(MAX_FILE_SIZE, Duration.ZERO, MAX_DURATION, MAX_LONG_SIDE,
+            Set.of());
+    private static final long CHUNK_GRANULARITY = 256L * 1024; // Chunks must be multiples of 256 KiB
+    private static final int RESUME_INCOMPLETE = 308;
+    private static final String DEFAULT_CONTENT_TYPE = "video/*";
+    private static final String PLATFORM = "youtube";
     private static final Logger logger = LoggerFactory.getLogger(YoutubeClient.class);
 
     private final RestTemplate restTemplate;
     private final String accessToken;
+    private final String account;
+    private final String uploadUrl;
+    private final long chunkSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final PublishMetrics publishMetrics;
 
     /**
      * Constructs a new YoutubeClient with the specified RestTemplate and access token.
      *
      * @param restTemplate the RestTemplate to use for HTTP requests
      * @param accessToken the YouTube API access token
+     * @param uploadUrl the URL of YouTube's video upload endpoint
+     * @param chunkSize the size of each uploaded chunk, a multiple of 256 KiB
+     * @param maxAttempts the maximum number of consecutive failed attempts before the upload is abandoned
+     * @param retryBackoff the delay before the first retry, doubled for each further consecutive retry
+     * @param publishMetrics the metrics recording the duration of each call, retries and bytes sent
      */
     @Autowired
     public YoutubeClient(
-            RestTemplate restTemplate,
-            @Value("${youtube.access-token}") String accessToken) {
+            @Qualifier("youtube") RestTemplate restTemplate,
+            @Value("${youtube.access-token}") String accessToken,
+            @Value("${youtube.api.upload-url}") String uploadUrl,
+            @Value("${youtube.upload.chunk-size}") DataSize chunkSize,
+            @Value("${youtube.upload.max-attempts}") int maxAttempts,
+            @Value("${youtube.upload.retry-backoff}") Duration retryBackoff,
+            PublishMetrics publishMetrics) {
+        if (chunkSize.toBytes() <= 0 || chunkSize.toBytes() % CHUNK_GRANULARITY != 0) {
+            throw new IllegalArgumentException("YouTube upload chunk size must be a positive multiple of 256 KiB");
+        }
         this.restTemplate = restTemplate;
         this.accessToken = accessToken;
+        this.account = RateLimiter.accountOf(accessToken);
+        this.uploadUrl = uploadUrl + UPLOAD_QUERY;
+        this.chunkSize = chunkSize.toBytes();
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.publishMetrics = publishMetrics;
+    }
+
+    /**
+     * Returns the identifier of the account this client publishes as, derived from its access token.
+     *
+     * @return the account identifier, safe to log and to use as a metric tag
+     */
+    public String getAccount() {
+        return account;
     }
 
     /**
      * Uploads a video to YouTube.
      *
-     * @param videoFile the video file to upload
+     * @param videoFile the spooled video to upload
      * @param title the title of the video
      * @param description the description of the video
      * @return the ID of the uploaded video
      * @throws YoutubeVideoPublishingException if the upload fails
      */
-    public String publishVideo(MultipartFile videoFile, String title, String description) {
+    public String publishVideo(VideoSource videoFile, String title, String description) {
         if (videoFile.getSize() > MAX_FILE_SIZE) {
             throw new YoutubeVideoPublishingException("File size exceeds maximum allowed size");
         }
 
+        try {
+            String sessionUrl = startSession(videoFile, title, description);
+            long started = System.nanoTime();
+            String videoId = uploadChunks(videoFile, sessionUrl);
+            publishMetrics.recordUpload(PLATFORM, videoFile.getSize(), Duration.ofNanos(System.nanoTime() - started));
+            return videoId;
+        } catch (HttpClientErrorException e) {
+            throw new YoutubeVideoPublishingException("Failed to upload video: " + e.getResponseBodyAsString(), e);
+        } catch (RestClientException e) {
+            throw new YoutubeVideoPublishingException("Failed to upload video: " + e.getMessage(), e);
+        }
+    }
+
+    private String startSession(VideoSource videoFile, String title, String description) {
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setBearerAuth(accessToken);
+        headers.set("X-Upload-Content-Length", String.valueOf(videoFile.getSize()));
+        headers.set("X-Upload-Content-Type",
+                videoFile.getContentType() != null ? videoFile.getContentType() : DEFAULT_CONTENT_TYPE);
 
-        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-
-        // Prepare JSON metadata
-        JSONObject videoMetadata = new JSONObject();
-        JSONObject snippet = new JSONObject();
-        snippet.put("title", title);
-        snippet.put("description", description);
-        snippet.put("categoryId", "22"); // Category ID for "People & Blogs"
-        JSONObject status = new JSONObject();
-        status.put("privacyStatus", "private");
-        videoMetadata.put("snippet", snippet);
-        videoMetadata.put("status", status);
-
-        // Add JSON part
-        HttpHeaders jsonHeaders = new HttpHeaders();
-        jsonHeaders.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<String> jsonPart = new HttpEntity<>(videoMetadata.toString(), jsonHeaders);
-        body.add("json", jsonPart);
-
-        // Add media part
-        try {
-            HttpHeaders videoHeaders = new HttpHeaders();
-            videoHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            HttpEntity<ByteArrayResource> videoPart = new HttpEntity<>(new ByteArrayResource(videoFile.getBytes()) {
-                @Override
-                public String getFilename() {
-                    return videoFile.getOriginalFilename();
+        HttpEntity<String> requestEntity = new HttpEntity<>(PlatformJson.youtubeVideoMetadata(title, description),
+                headers);
+        logger.debug("Starting YouTube upload session: {}", requestEntity);
+        ResponseEntity<String> response = publishMetrics.time(PLATFORM, "init", () -> restTemplate.exchange(
+                uploadUrl,
+                HttpMethod.POST,
+                requestEntity,
+                String.class
+        ));
+
+        URI location = response.getHeaders().getLocation();
+        if (response.getStatusCode() != HttpStatus.OK || location == null) {
+            throw new YoutubeVideoPublishingException("Failed to start upload session. Status code: "
+                    + response.getStatusCode());
+        }
+        return location.toString();
+    }
+
+    private String uploadChunks(VideoSource videoFile, String sessionUrl) {
+        long total = videoFile.getSize();
+        long offset = 0;
+        int failures = 0;
+        boolean querySession = false;
+        while (true) {
+            ResponseEntity<String> response;
+            try {
+                if (querySession) {
+                    response = queryStatus(sessionUrl, total);
+                } else {
+                    long length = Math.min(chunkSize, total - offset);
+                    response = putChunk(videoFile, sessionUrl, offset, length);
+                    publishMetrics.recordBytesSent(PLATFORM, length);
+                    failures = 0;
+                }
+                querySession = false;
+            } catch (RestClientException e) {
+                failures++;
+                if (!isTransient(e) || failures >= maxAttempts) {
+                    throw e;
                 }
-            }, videoHeaders);
-            body.add("media", videoPart);
-        } catch (IOException e) {
-            throw new YoutubeVideoPublishingException("Failed to read video file", e);
+                logger.warn("YouTube upload at offset {} failed (attempt {}/{}), querying session: {}",
+                        offset, failures, maxAttempts, e.getMessage());
+                publishMetrics.recordRetry(PLATFORM, "chunk");
+                sleep(retryBackoff.toMillis() << (failures - 1));
+                querySession = true;
+                continue;
+            }
+
+            if (response.getStatusCode().value() != RESUME_INCOMPLETE) {
+                return completedVideoId(response);
+            }
+            offset = nextOffset(response);
+            logger.debug("YouTube session holds {} of {} bytes", offset, total);
+        }
+    }
+
+    private ResponseEntity<String> putChunk(VideoSource videoFile, String sessionUrl, long offset, long length) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setBearerAuth(accessToken);
+        headers.set("Content-Range", String.format("bytes %d-%d/%d", offset, offset + length - 1, videoFile.getSize()));
+        HttpEntity<Resource> requestEntity = new HttpEntity<>(videoFile.asResource(offset, length), headers);
+        return publishMetrics.time(PLATFORM, "chunk",
+                () -> restTemplate.exchange(sessionUrl, HttpMethod.PUT, requestEntity, String.class));
+    }
+
+    private ResponseEntity<String> queryStatus(String sessionUrl, long total) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+        headers.setContentLength(0);
+        headers.set("Content-Range", "bytes */" + total);
+        return publishMetrics.time(PLATFORM, "status",
+                () -> restTemplate.exchange(sessionUrl, HttpMethod.PUT, new HttpEntity<>(headers), String.class));
+    }
+
+    private static long nextOffset(ResponseEntity<String> response) {
+        // The Range header reports the bytes received so far as "bytes=0-<last byte>"; no header means none
+        String range = response.getHeaders().getFirst(HttpHeaders.RANGE);
+        if (range == null) {
+            return 0;
         }
+        return Long.parseLong(range.substring(range.lastIndexOf('-') + 1)) + 1;
+    }
 
-        HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
+    private static String completedVideoId(ResponseEntity<String> response) {
+        HttpStatusCode statusCode = response.getStatusCode();
+        if (statusCode != HttpStatus.OK && statusCode != HttpStatus.CREATED) {
+            throw new YoutubeVideoPublishingException("Failed to upload video. Status code: " + statusCode);
+        }
+        logger.info("Youtube video publish response: {}", response.getBody());
+        try {
+            return PlatformJson.requireString(response.getBody(), "id");
+        } catch (MalformedResponseException e) {
+            throw new YoutubeVideoPublishingException("Failed to parse response", e);
+        }
+    }
 
+    private static boolean isTransient(RestClientException e) {
+        return e instanceof HttpServerErrorException
+                || e instanceof ResourceAccessException
+                || e instanceof HttpClientErrorException clientError
+                        && clientError.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS;
+    }
+
+    private static void sleep(long millis) {
         try {
-            logger.debug("Publishing video to YouTube: {}", requestEntity);
-            ResponseEntity<String> response = restTemplate.exchange(
-                    UPLOAD_URL,
-                    HttpMethod.POST,
-                    requestEntity,
-                    String.class
-            );
-
-            if (response.getStatusCode() == HttpStatus.OK) {
-                JSONObject jsonResponse = new JSONObject(response.getBody());
-                logger.info("Youtube video publish response: {}", jsonResponse);
-                return jsonResponse.getString("id");
-            } else {
-                throw new YoutubeVideoPublishingException("Failed to upload video. Status code: "
-                        + response.getStatusCode());
-            }
-        } catch (HttpClientErrorException e) {
-            throw new YoutubeVideoPublishingException("Failed to upload video: " + e.getResponseBodyAsString(), e);
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new YoutubeVideoPublishingException("Upload interrupted", e);
         }
     }
 }
@@ -1,24 +1,135 @@
 package com.synctok.synctokApi.config;
 
+import com.synctok.synctokApi.resilience.CircuitBreakingRequestFactory;
+import com.synctok.synctokApi.resilience.PlatformCircuitBreakers;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 /**
  * Configuration class for application-wide beans.
  * This class provides configuration for common beans used across the application.
+ * Each platform gets its own RestTemplate backed by a pooled Apache HttpClient, so connections and
+ * TLS sessions are reused across chunks and calls, and timeouts and pool sizes can be tuned per platform
+ * through the {@code synctok.http.<platform>.*} properties. Every request goes through the platform's
+ * circuit breaker, so a sick platform fails fast instead of tying up publishing threads.
  */
 @Configuration
 public class AppConfig {
 
+    private static final String HTTP_PROPERTY_PREFIX = "synctok.http.";
+
+    /**
+     * Creates the RestTemplate used for calls to TikTok's API.
+     *
+     * @param environment the environment holding the HTTP settings of the platform
+     * @param circuitBreakers the circuit breakers guarding calls to each platform
+     * @return a RestTemplate backed by TikTok's connection pool
+     */
+    @Bean
+    @Qualifier("tiktok")
+    public RestTemplate tiktokRestTemplate(Environment environment, PlatformCircuitBreakers circuitBreakers) {
+        return guarded(pooledRestTemplate(environment, "tiktok"), circuitBreakers, "tiktok");
+    }
+
     /**
-     * Creates and configures a RestTemplate bean.
-     * This bean can be used for making HTTP requests to external services.
+     * Creates the RestTemplate used for calls to YouTube's API.
      *
-     * @return A new instance of RestTemplate.
+     * @param environment the environment holding the HTTP settings of the platform
+     * @param circuitBreakers the circuit breakers guarding calls to each platform
+     * @return a RestTemplate backed by YouTube's connection pool
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    @Qualifier("youtube")
+    public RestTemplate youtubeRestTemplate(Environment environment, PlatformCircuitBreakers circuitBreakers) {
+        return guarded(pooledRestTemplate(environment, "youtube"), circuitBreakers, "youtube");
+    }
+
+    /**
+     * Creates the RestTemplate used for calls to Instagram's Graph API.
+     *
+     * @param environment the environment holding the HTTP settings of the platform
+     * @param circuitBreakers the circuit breakers guarding calls to each platform
+     * @return a RestTemplate backed by Instagram's connection pool
+     */
+    @Bean
+    @Qualifier("instagram")
+    public RestTemplate instagramRestTemplate(Environment environment, PlatformCircuitBreakers circuitBreakers) {
+        return guarded(pooledRestTemplate(environment, "instagram"), circuitBreakers, "instagram");
+    }
+
+    /**
+     * Creates the RestTemplate used to stage videos on Cloudinary.
+     *
+     * @param environment the environment holding the HTTP settings of the platform
+     * @param circuitBreakers the circuit breakers guarding calls to each platform
+     * @return a RestTemplate backed by Cloudinary's connection pool
+     */
+    @Bean
+    @Qualifier("cloudinary")
+    public RestTemplate cloudinaryRestTemplate(Environment environment, PlatformCircuitBreakers circuitBreakers) {
+        return guarded(pooledRestTemplate(environment, "cloudinary"), circuitBreakers, "cloudinary");
+    }
+
+    /**
+     * Routes the requests of a RestTemplate through the circuit breaker of its platform.
+     *
+     * @param restTemplate    the RestTemplate of the platform
+     * @param circuitBreakers the circuit breakers guarding calls to each platform
+     * @param platform        the name of the platform
+     * @return the same RestTemplate
+     */
+    static RestTemplate guarded(RestTemplate restTemplate, PlatformCircuitBreakers circuitBreakers, String platform) {
+        restTemplate.setRequestFactory(new CircuitBreakingRequestFactory(
+                restTemplate.getRequestFactory(), circuitBreakers.forPlatform(platform)));
+        return restTemplate;
+    }
+
+    /**
+     * Creates a RestTemplate for a platform from its {@code synctok.http.<platform>.*} properties.
+     * Retries are left to the clients, which know which calls are safe to repeat.
+     *
+     * @param environment the environment holding the HTTP settings
+     * @param platform    the name of the platform
+     * @return a RestTemplate backed by a dedicated connection pool
+     */
+    static RestTemplate pooledRestTemplate(Environment environment, String platform) {
+        String prefix = HTTP_PROPERTY_PREFIX + platform + ".";
+        Duration connectTimeout = environment.getRequiredProperty(prefix + "connect-timeout", Duration.class);
+        Duration readTimeout = environment.getRequiredProperty(prefix + "read-timeout", Duration.class);
+        Duration idleTimeout = environment.getRequiredProperty(prefix + "idle-timeout", Duration.class);
+        int maxConnections = environment.getRequiredProperty(prefix + "max-connections", Integer.class);
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .build())
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(connectTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .disableAutomaticRetries()
+                .build();
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
     }
 }
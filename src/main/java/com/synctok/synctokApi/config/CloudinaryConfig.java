@@ -23,6 +23,9 @@ public class CloudinaryConfig {
     @Value("${cloudinary.api-secret}")
     private String apiSecret;
 
+    @Value("${cloudinary.upload-prefix}")
+    private String uploadPrefix;
+
     /**
      * Creates and configures a Cloudinary bean.
      * This bean is used for interacting with the Cloudinary service.
@@ -35,6 +38,7 @@ public class CloudinaryConfig {
         config.put("cloud_name", cloudName);
         config.put("api_key", apiKey);
         config.put("api_secret", apiSecret);
+        config.put("upload_prefix", uploadPrefix);
         return new Cloudinary(config);
     }
 }
@@ -1,64 +1,122 @@
 package com.synctok.synctokApi.controller;
 
+import com.synctok.synctokApi.service.BatchService;
+import com.synctok.synctokApi.service.PublishScheduler;
 import com.synctok.synctokApi.service.VideoService;
+import com.synctok.synctokApi.service.batch.BatchItem;
+import com.synctok.synctokApi.service.batch.BatchResult;
+import com.synctok.synctokApi.service.job.PublishJob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
+import java.net.URI;
+import java.time.Instant;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller for handling video-related operations.
- * This controller provides endpoints for publishing videos to multiple platforms.
+ * This controller provides endpoints for publishing videos to multiple platforms
+ * and for following the progress of the resulting publish jobs.
  */
 @RestController
 @RequestMapping("/api/v1/video")
 public final class VideoController {
 
     private final VideoService videoService;
+    private final BatchService batchService;
+    private final PublishScheduler publishScheduler;
     private static final Logger logger = LoggerFactory.getLogger(VideoController.class);
 
 
     /**
-     * Constructs a new VideoController with the specified VideoService.
+     * Constructs a new VideoController with the specified services.
      *
      * @param videoService the service to handle video operations
+     * @param batchService the service to handle batch publishes
+     * @param publishScheduler the service to handle scheduled publishes
      */
     @Autowired
-    public VideoController(VideoService videoService) {
+    public VideoController(VideoService videoService, BatchService batchService, PublishScheduler publishScheduler) {
         this.videoService = videoService;
+        this.batchService = batchService;
+        this.publishScheduler = publishScheduler;
     }
 
     /**
-     * Publishes a video to specified platforms.
+     * Accepts a video for publishing to specified platforms.
+     * The publish runs in the background; the response carries the job and its status URL.
+     * Retrying with the same {@code Idempotency-Key} header returns the job of the first attempt.
+     * With a {@code publishAt} time the video is accepted now and published at that time.
      *
      * @param video     the video file to be published
      * @param platforms the list of platforms to publish the video to
      * @param title     the title of the video
-     * @return a ResponseEntity containing a success message
+     * @param caption   the caption of the video; defaults to the title
+     * @param publishAt the ISO-8601 time at which the video goes live; published right away when absent
+     * @param idempotencyKey the optional idempotency key of the request
+     * @return a 202 Accepted ResponseEntity containing the queued job
      * @throws IOException if there's an error handling the video file
      */
     @PostMapping("/publish")
-    public CompletableFuture<ResponseEntity<String>> publishVideo(
+    public ResponseEntity<PublishJob> publishVideo(
             @RequestParam("title") String title,
             @RequestParam("video") MultipartFile video,
-            @RequestParam("platforms") List<String> platforms) throws IOException {
+            @RequestParam("platforms") List<String> platforms,
+            @RequestParam(value = "caption", required = false) String caption,
+            @RequestParam(value = "publishAt", required = false) Instant publishAt,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws IOException {
         logger.info("Received request to publish video to platforms: {}", platforms);
-        return videoService.publishVideo(video, platforms, title)
-                .thenApply(_ -> ResponseEntity.ok("Video successfully uploaded and published to "
-                        + String.join(", ", platforms)))
-                .exceptionally(ex -> {
-                    logger.error("Error occurred while publishing video", ex);
-                    return ResponseEntity.internalServerError()
-                            .body("An error occurred while publishing the video: " + ex.getMessage());
-                });
+        PublishJob job = publishAt == null
+                ? videoService.submitVideo(video, platforms, title, caption, idempotencyKey)
+                : publishScheduler.schedule(video, platforms, title, caption, publishAt, idempotencyKey);
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/v1/video/jobs/{id}")
+                .buildAndExpand(job.id())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    /**
+     * Accepts many videos for publishing in one request.
+     * The JSON manifest lists the title, caption and platforms of each video, referring to the uploaded video parts
+     * by file name. Each item starts its own publish job; items that cannot be accepted are reported without
+     * affecting the others.
+     *
+     * @param manifest       the items of the batch
+     * @param videos         the video files referred to by the manifest
+     * @param idempotencyKey the optional idempotency key of the request
+     * @return a 202 Accepted ResponseEntity containing the result of each item
+     */
+    @PostMapping("/publish/batch")
+    public ResponseEntity<BatchResult> publishBatch(
+            @RequestPart("manifest") List<BatchItem> manifest,
+            @RequestPart("videos") List<MultipartFile> videos,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        logger.info("Received request to publish a batch of {} videos", manifest.size());
+        return ResponseEntity.accepted().body(batchService.submitBatch(manifest, videos, idempotencyKey));
+    }
+
+    /**
+     * Returns the current state of a publish job.
+     *
+     * @param id the identifier of the job
+     * @return a ResponseEntity containing the job and the state of each of its platforms
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<PublishJob> getJob(@PathVariable("id") String id) {
+        return ResponseEntity.ok(videoService.getJob(id));
     }
 }
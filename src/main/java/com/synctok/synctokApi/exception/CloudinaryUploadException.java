@@ -0,0 +1,27 @@
+package com.synctok.synctokApi.exception;
+
+/**
+ * Exception thrown when Cloudinary accepts an upload but its response cannot be used, for example because it has
+ * no URL for the staged video.
+ */
+public class CloudinaryUploadException extends RuntimeException {
+
+    /**
+     * Constructs a new CloudinaryUploadException with the specified detail message.
+     *
+     * @param message the detail message (which is saved for later retrieval by the getMessage() method)
+     */
+    public CloudinaryUploadException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new CloudinaryUploadException with the specified detail message and cause.
+     *
+     * @param message the detail message (which is saved for later retrieval by the getMessage() method)
+     * @param cause the cause (which is saved for later retrieval by the getCause() method)
+     */
+    public CloudinaryUploadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
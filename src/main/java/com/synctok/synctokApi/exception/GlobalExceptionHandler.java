@@ -83,4 +83,70 @@ public final class GlobalExceptionHandler {
         }
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
+
+    /**
+     * Handles JobNotFoundException.
+     *
+     * @param ex the exception to handle
+     * @return a ResponseEntity with error details
+     */
+    @ExceptionHandler(JobNotFoundException.class)
+    public ResponseEntity<Object> handleJobNotFoundException(JobNotFoundException ex) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", ex.getMessage());
+        body.put("jobId", ex.getJobId());
+        body.put("error", "Publish Job Not Found");
+        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handles IdempotencyKeyMismatchException.
+     *
+     * @param ex the exception to handle
+     * @return a ResponseEntity with error details
+     */
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<Object> handleIdempotencyKeyMismatchException(IdempotencyKeyMismatchException ex) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", ex.getMessage());
+        body.put("idempotencyKey", ex.getIdempotencyKey());
+        body.put("error", "Idempotency Key Reused");
+        return new ResponseEntity<>(body, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    /**
+     * Handles InvalidBatchException.
+     *
+     * @param ex the exception to handle
+     * @return a ResponseEntity with error details
+     */
+    @ExceptionHandler(InvalidBatchException.class)
+    public ResponseEntity<Object> handleInvalidBatchException(InvalidBatchException ex) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", ex.getMessage());
+        body.put("error", "Invalid Batch");
+        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles InvalidVideoException.
+     *
+     * @param ex the exception to handle
+     * @return a ResponseEntity with error details
+     */
+    @ExceptionHandler(InvalidVideoException.class)
+    public ResponseEntity<Object> handleInvalidVideoException(InvalidVideoException ex) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", ex.getMessage());
+        if (ex.getPlatform() != null) {
+            body.put("platform", ex.getPlatform());
+        }
+        body.put("violations", ex.getViolations());
+        body.put("error", "Invalid Video");
+        return new ResponseEntity<>(body, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
 }
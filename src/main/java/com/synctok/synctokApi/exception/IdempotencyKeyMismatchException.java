@@ -0,0 +1,27 @@
+package com.synctok.synctokApi.exception;
+
+/**
+ * Exception thrown when an idempotency key is reused for a request that differs from the one it was first used with.
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    private final String idempotencyKey;
+
+    /**
+     * Constructs a new IdempotencyKeyMismatchException for the specified key.
+     *
+     * @param idempotencyKey the idempotency key that was reused
+     */
+    public IdempotencyKeyMismatchException(String idempotencyKey) {
+        super("Idempotency key was already used for a different request: " + idempotencyKey);
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    /**
+     * Returns the idempotency key that was reused.
+     *
+     * @return the idempotency key
+     */
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
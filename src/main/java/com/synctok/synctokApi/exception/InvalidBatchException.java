@@ -0,0 +1,16 @@
+package com.synctok.synctokApi.exception;
+
+/**
+ * Exception thrown when a batch publish request cannot be accepted as a whole.
+ */
+public class InvalidBatchException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidBatchException with the specified reason.
+     *
+     * @param reason why the batch was rejected
+     */
+    public InvalidBatchException(String reason) {
+        super("Invalid batch: " + reason);
+    }
+}
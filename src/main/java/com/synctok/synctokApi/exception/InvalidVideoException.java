@@ -0,0 +1,52 @@
+package com.synctok.synctokApi.exception;
+
+import java.util.List;
+
+/**
+ * Exception thrown when an uploaded video is malformed or breaks the limits of a platform it is published to.
+ */
+public class InvalidVideoException extends RuntimeException {
+    private final String platform;
+    private final List<String> violations;
+
+    /**
+     * Constructs a new InvalidVideoException for a video that cannot be read.
+     *
+     * @param reason why the video was rejected
+     */
+    public InvalidVideoException(String reason) {
+        super("Invalid video: " + reason);
+        this.platform = null;
+        this.violations = List.of(reason);
+    }
+
+    /**
+     * Constructs a new InvalidVideoException for a video breaking the limits of a platform.
+     *
+     * @param platform   the name of the platform
+     * @param violations the limits the video breaks
+     */
+    public InvalidVideoException(String platform, List<String> violations) {
+        super("Video not accepted by " + platform + ": " + String.join("; ", violations));
+        this.platform = platform;
+        this.violations = List.copyOf(violations);
+    }
+
+    /**
+     * Returns the name of the platform whose limits the video breaks.
+     *
+     * @return the name of the platform, or null if the video could not be read at all
+     */
+    public String getPlatform() {
+        return platform;
+    }
+
+    /**
+     * Returns the reasons the video was rejected.
+     *
+     * @return the reasons, never empty
+     */
+    public List<String> getViolations() {
+        return violations;
+    }
+}
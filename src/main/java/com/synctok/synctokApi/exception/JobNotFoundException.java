@@ -0,0 +1,27 @@
+package com.synctok.synctokApi.exception;
+
+/**
+ * Exception thrown when a publish job cannot be found.
+ */
+public class JobNotFoundException extends RuntimeException {
+    private final String jobId;
+
+    /**
+     * Constructs a new JobNotFoundException for the specified job.
+     *
+     * @param jobId the identifier of the job that could not be found
+     */
+    public JobNotFoundException(String jobId) {
+        super("Publish job not found: " + jobId);
+        this.jobId = jobId;
+    }
+
+    /**
+     * Returns the identifier of the job that could not be found.
+     *
+     * @return the job identifier
+     */
+    public String getJobId() {
+        return jobId;
+    }
+}
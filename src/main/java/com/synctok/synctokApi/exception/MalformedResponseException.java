@@ -0,0 +1,26 @@
+package com.synctok.synctokApi.exception;
+
+/**
+ * Exception thrown when the body of a platform response is not valid JSON or lacks a field the client needs.
+ */
+public class MalformedResponseException extends RuntimeException {
+
+    /**
+     * Constructs a new MalformedResponseException with the specified detail message.
+     *
+     * @param message the detail message (which is saved for later retrieval by the getMessage() method)
+     */
+    public MalformedResponseException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new MalformedResponseException with the specified detail message and cause.
+     *
+     * @param message the detail message (which is saved for later retrieval by the getMessage() method)
+     * @param cause the cause (which is saved for later retrieval by the getCause() method)
+     */
+    public MalformedResponseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,31 @@
+package com.synctok.synctokApi.exception;
+
+/**
+ * Exception thrown when Instagram refuses to publish a media container whose media is not available yet,
+ * although the container reported that it had finished processing. Publishing it again later may succeed.
+ * This class is final to prevent extension, as it's not designed for subclassing.
+ */
+public final class MediaNotReadyException extends RuntimeException {
+    private final String creationId;
+
+    /**
+     * Constructs a new MediaNotReadyException with the specified detail message, cause, and creation ID.
+     *
+     * @param message the detail message (which is saved for later retrieval by the getMessage() method)
+     * @param cause the cause (which is saved for later retrieval by the getCause() method)
+     * @param creationId the ID of the media container that could not be published
+     */
+    public MediaNotReadyException(String message, Throwable cause, String creationId) {
+        super(message, cause);
+        this.creationId = creationId;
+    }
+
+    /**
+     * Returns the creation ID associated with this exception.
+     *
+     * @return the creation ID
+     */
+    public String getCreationId() {
+        return creationId;
+    }
+}
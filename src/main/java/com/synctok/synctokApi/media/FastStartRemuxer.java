@@ -0,0 +1,152 @@
+package com.synctok.synctokApi.media;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/**
+ * Rewrites MP4 and QuickTime files whose {@code moov} box follows the media data so that it comes first, which lets
+ * Instagram and Cloudinary start processing a video before they have fetched all of it.
+ * The {@code moov} box is moved in front of the first {@code mdat} box and the chunk offsets of its {@code stco} and
+ * {@code co64} boxes are shifted by its size. It is always written back with a compact header, so when it had a
+ * 64-bit size the data following it moves back by the bytes saved. Only the {@code moov} box is held in memory;
+ * every other box is copied from file to file by the operating system, so the media data never passes through the
+ * heap.
+ */
+public final class FastStartRemuxer {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int CHUNK_OFFSETS_PREFIX_SIZE = 8;
+    private static final long MAX_32_BIT_OFFSET = 0xFFFFFFFFL;
+    private static final Set<String> CONTAINERS = Set.of("trak", "mdia", "minf", "stbl");
+
+    private FastStartRemuxer() {
+    }
+
+    /**
+     * Returns whether a video would be rewritten by {@link #remux}.
+     *
+     * @param metadata the metadata of the video
+     * @return true if the video is an MP4 or QuickTime file with its {@code moov} box after the media data
+     */
+    public static boolean needsRemux(VideoMetadata metadata) {
+        return metadata.isProbed() && !metadata.isFastStart();
+    }
+
+    /**
+     * Writes a copy of a video with its {@code moov} box moved in front of the media data.
+     * Nothing is written if the video is not an MP4 or QuickTime file, is already laid out for progressive
+     * playback or is fragmented.
+     *
+     * @param source the video to rewrite
+     * @param target the file to write the rewritten video to; created or truncated
+     * @return true if the rewritten video was written to the target
+     * @throws IOException if the video cannot be read or the target cannot be written, or if the video cannot be
+     *         rewritten because it is corrupt or a shifted chunk offset no longer fits in an {@code stco} box
+     */
+    public static boolean remux(VideoSource source, Path target) throws IOException {
+        long size = source.getSize();
+        long moovOffset = -1;
+        long mdatOffset = -1;
+        Mp4Probe.BoxHeader moovHeader = null;
+        long position = 0;
+        while (position < size) {
+            Mp4Probe.BoxHeader box = Mp4Probe.readHeader(source, position, size);
+            if (box == null || "moof".equals(box.type())) {
+                return false;
+            }
+            if ("moov".equals(box.type()) && moovHeader == null) {
+                moovOffset = position;
+                moovHeader = box;
+            } else if ("mdat".equals(box.type()) && mdatOffset < 0) {
+                mdatOffset = position;
+            }
+            position += box.size();
+        }
+        if (moovHeader == null || mdatOffset < 0 || moovOffset < mdatOffset) {
+            return false;
+        }
+
+        ByteBuffer moov = Mp4Probe.readBody(source, moovOffset, moovHeader);
+        long moovEnd = moovOffset + moovHeader.size();
+        // The moov box is written back with a compact header, which is what it shifts the media data by
+        long shift = HEADER_SIZE + moov.remaining();
+        Relocation relocation = new Relocation(mdatOffset, moovOffset, moovEnd, shift,
+                HEADER_SIZE - moovHeader.headerSize());
+        try {
+            shiftChunkOffsets(moov.duplicate(), relocation);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt moov box in " + source.getFilename(), e);
+        } catch (IllegalStateException e) {
+            throw new IOException("Cannot move the moov box of " + source.getFilename() + ": " + e.getMessage(), e);
+        }
+
+        try (FileChannel out = FileChannel.open(target,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            source.transferTo(0, mdatOffset, out);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt((int) shift)
+                    .put("moov".getBytes(StandardCharsets.US_ASCII))
+                    .flip();
+            writeFully(out, header);
+            writeFully(out, moov);
+            source.transferTo(mdatOffset, moovOffset - mdatOffset, out);
+            source.transferTo(moovEnd, size - moovEnd, out);
+        }
+        return true;
+    }
+
+    private static void shiftChunkOffsets(ByteBuffer boxes, Relocation relocation) {
+        Mp4Probe.forEachBox(boxes, (type, body) -> {
+            if (CONTAINERS.contains(type)) {
+                shiftChunkOffsets(body, relocation);
+            } else if ("stco".equals(type)) {
+                int count = body.getInt(Integer.BYTES);
+                for (int i = 0; i < count; i++) {
+                    int index = CHUNK_OFFSETS_PREFIX_SIZE + i * Integer.BYTES;
+                    long offset = relocation.apply(Integer.toUnsignedLong(body.getInt(index)));
+                    if (offset > MAX_32_BIT_OFFSET) {
+                        throw new IllegalStateException("chunk offset " + offset + " does not fit in an stco box");
+                    }
+                    body.putInt(index, (int) offset);
+                }
+            } else if ("co64".equals(type)) {
+                int count = body.getInt(Integer.BYTES);
+                for (int i = 0; i < count; i++) {
+                    int index = CHUNK_OFFSETS_PREFIX_SIZE + i * Long.BYTES;
+                    body.putLong(index, relocation.apply(body.getLong(index)));
+                }
+            }
+        });
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Where the data of a file ends up once its moov box has been moved in front of its media data.
+     *
+     * @param mdatOffset the offset of the first mdat box, where the moov box is moved to
+     * @param moovOffset the offset of the moov box
+     * @param moovEnd    the offset of the end of the moov box
+     * @param moovShift  the size of the moved moov box, which the data it now precedes is shifted by
+     * @param tailShift  the change in size of the moov box header, which the data after the moov box is shifted by
+     */
+    private record Relocation(long mdatOffset, long moovOffset, long moovEnd, long moovShift, long tailShift) {
+
+        long apply(long offset) {
+            if (offset >= mdatOffset && offset < moovOffset) {
+                return offset + moovShift;
+            }
+            return offset >= moovEnd ? offset + tailShift : offset;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.synctok.synctokApi.media;
+
+import com.synctok.synctokApi.exception.InvalidVideoException;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads the metadata of MP4 and QuickTime (ISO base media) files without decoding them.
+ * Only box headers are read while walking the top level of the file, so the media data is skipped over however
+ * large it is; the {@code moov} box is then read whole and its {@code mvhd}, {@code tkhd}, {@code hdlr} and
+ * {@code stsd} boxes give the duration, dimensions and codecs. Files that do not start with an ISO base media box
+ * are not probed; files that do but are truncated or have no {@code moov} box are rejected.
+ */
+public final class Mp4Probe {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int LARGE_HEADER_SIZE = 16;
+    private static final int FOURCC_SIZE = 4;
+    private static final int FULL_BOX_FLAGS_SIZE = 3;
+    private static final int MAX_MOOV_SIZE = 64 * 1024 * 1024;
+    private static final int MVHD_V0_TIMES_SIZE = 8;
+    private static final int MVHD_V1_TIMES_SIZE = 16;
+    private static final int TKHD_V0_HEADER_SIZE = 20;
+    private static final int TKHD_V1_HEADER_SIZE = 32;
+    private static final int TKHD_LAYOUT_SIZE = 52;
+    private static final int FIXED_POINT_FRACTION_BITS = 16;
+    private static final int HDLR_PREFIX_SIZE = 8;
+    private static final int STSD_PREFIX_SIZE = 12;
+    private static final long UNKNOWN_V0_DURATION = 0xFFFFFFFFL;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int FIRST_PRINTABLE = 0x20;
+    private static final int LAST_PRINTABLE = 0x7E;
+    private static final Set<String> TOP_LEVEL_TYPES = Set.of(
+            "ftyp", "styp", "moov", "mdat", "free", "skip", "wide", "pnot", "uuid", "meta", "moof", "mfra", "sidx");
+
+    private Mp4Probe() {
+    }
+
+    /**
+     * Probes a video.
+     *
+     * @param source the video to probe
+     * @return the metadata of the video; only its size if it is not an MP4 or QuickTime file
+     * @throws IOException if the video cannot be read
+     * @throws InvalidVideoException if the video is an MP4 or QuickTime file that cannot be parsed
+     */
+    public static VideoMetadata probe(VideoSource source) throws IOException {
+        long size = source.getSize();
+        long moovOffset = -1;
+        long mdatOffset = -1;
+        ByteBuffer moov = null;
+        long position = 0;
+        while (position < size) {
+            BoxHeader box = readHeader(source, position, size);
+            if (position == 0 && (box == null || !TOP_LEVEL_TYPES.contains(box.type()))) {
+                return VideoMetadata.unprobed(size);
+            }
+            if (box == null) {
+                throw new InvalidVideoException("truncated or corrupt box at offset " + position);
+            }
+            if ("moov".equals(box.type()) && moov == null) {
+                moovOffset = position;
+                moov = readBody(source, position, box);
+            } else if ("mdat".equals(box.type()) && mdatOffset < 0) {
+                mdatOffset = position;
+            }
+            position += box.size();
+        }
+        if (moov == null) {
+            throw new InvalidVideoException("no moov box, the file is incomplete or fragmented");
+        }
+        try {
+            Movie movie = new Movie();
+            movie.parse(moov, null);
+            return movie.toMetadata(size, moovOffset, mdatOffset);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new InvalidVideoException("corrupt moov box");
+        }
+    }
+
+    static BoxHeader readHeader(VideoSource source, long position, long fileSize) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LARGE_HEADER_SIZE);
+        header.limit((int) Math.min(LARGE_HEADER_SIZE, fileSize - position));
+        readFully(source, header, position);
+        if (header.position() < HEADER_SIZE) {
+            return null;
+        }
+        header.flip();
+        long boxSize = Integer.toUnsignedLong(header.getInt());
+        String type = fourcc(header);
+        int headerSize = HEADER_SIZE;
+        if (boxSize == 1) {
+            if (header.remaining() < Long.BYTES) {
+                return null;
+            }
+            boxSize = header.getLong();
+            headerSize = LARGE_HEADER_SIZE;
+        } else if (boxSize == 0) {
+            boxSize = fileSize - position;
+        }
+        if (type == null || boxSize < headerSize || boxSize > fileSize - position) {
+            return null;
+        }
+        return new BoxHeader(type, boxSize, headerSize);
+    }
+
+    static ByteBuffer readBody(VideoSource source, long position, BoxHeader box) throws IOException {
+        long bodySize = box.size() - box.headerSize();
+        if (bodySize > MAX_MOOV_SIZE) {
+            throw new InvalidVideoException("moov box of " + bodySize + " bytes is too large");
+        }
+        ByteBuffer body = ByteBuffer.allocate((int) bodySize);
+        readFully(source, body, position + box.headerSize());
+        return body.flip();
+    }
+
+    private static void readFully(VideoSource source, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            if (source.read(target, position + target.position()) < 0) {
+                return;
+            }
+        }
+    }
+
+    private static String fourcc(ByteBuffer buffer) {
+        byte[] type = new byte[FOURCC_SIZE];
+        buffer.get(type);
+        for (byte b : type) {
+            if (b < FIRST_PRINTABLE || b > LAST_PRINTABLE) {
+                return null;
+            }
+        }
+        return new String(type, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Hands each box of a sequence to an action, together with a view of the box body that shares its content.
+     *
+     * @param boxes  the boxes, from the current position to the limit
+     * @param action the action receiving the type of each box, or an empty string if unreadable, and its body
+     * @throws IllegalArgumentException if a box overruns the sequence
+     */
+    static void forEachBox(ByteBuffer boxes, BiConsumer<String, ByteBuffer> action) {
+        while (boxes.remaining() >= HEADER_SIZE) {
+            int start = boxes.position();
+            long boxSize = Integer.toUnsignedLong(boxes.getInt());
+            String type = fourcc(boxes);
+            int headerSize = HEADER_SIZE;
+            if (boxSize == 1) {
+                boxSize = boxes.getLong();
+                headerSize = LARGE_HEADER_SIZE;
+            } else if (boxSize == 0) {
+                boxSize = boxes.limit() - start;
+            }
+            if (boxSize < headerSize || boxSize > boxes.limit() - start) {
+                throw new IllegalArgumentException("Box " + type + " overruns its parent");
+            }
+            action.accept(type == null ? "" : type, boxes.slice(start + headerSize, (int) boxSize - headerSize));
+            boxes.position(start + (int) boxSize);
+        }
+    }
+
+    private static void skipFullBoxFlags(ByteBuffer body) {
+        body.position(body.position() + FULL_BOX_FLAGS_SIZE);
+    }
+
+    private static void skip(ByteBuffer body, int bytes) {
+        body.position(body.position() + bytes);
+    }
+
+    record BoxHeader(String type, long size, int headerSize) { }
+
+    private static final class Track {
+        private String handler;
+        private int width;
+        private int height;
+        private String codec;
+    }
+
+    private static final class Movie {
+        private long timescale;
+        private long duration;
+        private final List<Track> tracks = new ArrayList<>();
+
+        void parse(ByteBuffer boxes, Track track) {
+            forEachBox(boxes, (type, body) -> parseBox(type, body, track));
+        }
+
+        private void parseBox(String type, ByteBuffer body, Track track) {
+            switch (type) {
+                case "mvhd" -> parseMvhd(body);
+                case "trak" -> {
+                    Track child = new Track();
+                    parse(body, child);
+                    tracks.add(child);
+                }
+                case "mdia", "minf", "stbl" -> {
+                    if (track != null) {
+                        parse(body, track);
+                    }
+                }
+                case "tkhd" -> {
+                    if (track != null) {
+                        parseTkhd(body, track);
+                    }
+                }
+                case "hdlr" -> {
+                    if (track != null) {
+                        skip(body, HDLR_PREFIX_SIZE);
+                        track.handler = fourcc(body);
+                    }
+                }
+                case "stsd" -> {
+                    if (track != null && body.remaining() >= STSD_PREFIX_SIZE + FOURCC_SIZE) {
+                        skip(body, STSD_PREFIX_SIZE);
+                        track.codec = fourcc(body);
+                    }
+                }
+                default -> {
+                    // Boxes that say nothing about duration, dimensions or codecs
+                }
+            }
+        }
+
+        private void parseMvhd(ByteBuffer body) {
+            int version = body.get();
+            skipFullBoxFlags(body);
+            if (version == 1) {
+                skip(body, MVHD_V1_TIMES_SIZE);
+                timescale = Integer.toUnsignedLong(body.getInt());
+                duration = body.getLong();
+            } else {
+                skip(body, MVHD_V0_TIMES_SIZE);
+                timescale = Integer.toUnsignedLong(body.getInt());
+                long v0Duration = Integer.toUnsignedLong(body.getInt());
+                duration = v0Duration == UNKNOWN_V0_DURATION ? 0 : v0Duration;
+            }
+        }
+
+        private static void parseTkhd(ByteBuffer body, Track track) {
+            int version = body.get();
+            skipFullBoxFlags(body);
+            skip(body, (version == 1 ? TKHD_V1_HEADER_SIZE : TKHD_V0_HEADER_SIZE) + TKHD_LAYOUT_SIZE);
+            // Width and height are 16.16 fixed-point numbers
+            track.width = body.getInt() >>> FIXED_POINT_FRACTION_BITS;
+            track.height = body.getInt() >>> FIXED_POINT_FRACTION_BITS;
+        }
+
+        VideoMetadata toMetadata(long size, long moovOffset, long mdatOffset) {
+            Track video = track("vide");
+            Track audio = track("soun");
+            return new VideoMetadata(
+                    size,
+                    duration(),
+                    video == null ? 0 : video.width,
+                    video == null ? 0 : video.height,
+                    video == null ? null : video.codec,
+                    audio == null ? null : audio.codec,
+                    moovOffset,
+                    mdatOffset);
+        }
+
+        private Duration duration() {
+            if (timescale <= 0 || duration <= 0) {
+                return null;
+            }
+            return Duration.ofSeconds(duration / timescale, duration % timescale * NANOS_PER_SECOND / timescale);
+        }
+
+        private Track track(String handler) {
+            return tracks.stream()
+                    .filter(track -> handler.equals(track.handler))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.synctok.synctokApi.media;
+
+import com.synctok.synctokApi.exception.InvalidVideoException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The limits a platform puts on the videos it accepts.
+ * Only what the {@link Mp4Probe} could determine is checked; a platform with no codec restriction has an empty
+ * set of codecs.
+ *
+ * @param maxBytes     the largest accepted file size in bytes
+ * @param minDuration  the shortest accepted duration
+ * @param maxDuration  the longest accepted duration
+ * @param maxLongSide  the largest accepted width or height in pixels, whichever is larger
+ * @param videoCodecs  the accepted sample entry types of the video track, or empty to accept any
+ */
+public record VideoLimits(
+        long maxBytes,
+        Duration minDuration,
+        Duration maxDuration,
+        int maxLongSide,
+        Set<String> videoCodecs) {
+
+    /**
+     * Creates limits, copying the accepted codecs.
+     */
+    public VideoLimits {
+        videoCodecs = Set.copyOf(videoCodecs);
+    }
+
+    /**
+     * Checks a video against these limits.
+     *
+     * @param platform the name of the platform the limits belong to
+     * @param metadata the metadata of the video
+     * @throws InvalidVideoException if the video breaks any of the limits
+     */
+    public void check(String platform, VideoMetadata metadata) {
+        List<String> violations = new ArrayList<>();
+        if (metadata.size() > maxBytes) {
+            violations.add("size of " + metadata.size() + " bytes exceeds " + maxBytes);
+        }
+        Duration duration = metadata.duration();
+        if (duration != null && duration.compareTo(minDuration) < 0) {
+            violations.add("duration of " + duration + " is shorter than " + minDuration);
+        }
+        if (duration != null && duration.compareTo(maxDuration) > 0) {
+            violations.add("duration of " + duration + " is longer than " + maxDuration);
+        }
+        if (Math.max(metadata.width(), metadata.height()) > maxLongSide) {
+            violations.add("resolution of " + metadata.width() + "x" + metadata.height()
+                    + " exceeds " + maxLongSide + " pixels");
+        }
+        if (metadata.videoCodec() != null && !videoCodecs.isEmpty() && !videoCodecs.contains(metadata.videoCodec())) {
+            violations.add("video codec " + metadata.videoCodec() + " is not one of " + videoCodecs);
+        }
+        if (!violations.isEmpty()) {
+            throw new InvalidVideoException(platform, violations);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.synctok.synctokApi.media;
+
+import java.time.Duration;
+
+/**
+ * What the {@link Mp4Probe} found out about a video without decoding it.
+ * Fields the probe could not determine are null, or 0 for dimensions; a video in a container other than
+ * MP4/QuickTime is described by its size alone.
+ *
+ * @param size        the size of the video in bytes
+ * @param duration    the duration of the presentation, or null if unknown
+ * @param width       the display width of the video track in pixels, or 0 if unknown
+ * @param height      the display height of the video track in pixels, or 0 if unknown
+ * @param videoCodec  the sample entry type of the video track, such as {@code avc1} or {@code hvc1}, or null
+ * @param audioCodec  the sample entry type of the audio track, such as {@code mp4a}, or null
+ * @param moovOffset  the position of the {@code moov} box, or -1 if the video was not probed
+ * @param mdatOffset  the position of the first {@code mdat} box, or -1 if there is none
+ */
+public record VideoMetadata(
+        long size,
+        Duration duration,
+        int width,
+        int height,
+        String videoCodec,
+        String audioCodec,
+        long moovOffset,
+        long mdatOffset) {
+
+    /**
+     * Describes a video in a container the probe does not read.
+     *
+     * @param size the size of the video in bytes
+     * @return metadata carrying only the size
+     */
+    public static VideoMetadata unprobed(long size) {
+        return new VideoMetadata(size, null, 0, 0, null, null, -1, -1);
+    }
+
+    /**
+     * Returns whether the video was recognised and read as an MP4/QuickTime file.
+     *
+     * @return true if the video was probed
+     */
+    public boolean isProbed() {
+        return moovOffset >= 0;
+    }
+
+    /**
+     * Returns whether the {@code moov} box precedes the media data, so the video can be played while it downloads.
+     *
+     * @return true if the video is laid out for progressive playback
+     */
+    public boolean isFastStart() {
+        return isProbed() && (mdatOffset < 0 || moovOffset < mdatOffset);
+    }
+}
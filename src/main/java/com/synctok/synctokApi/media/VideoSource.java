@@ -0,0 +1,392 @@
+package com.synctok.synctokApi.media;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read-only, range-addressable view over a video that has been spooled to disk.
+ * A single instance is shared by every client taking part in a publish, so the upload is
+ * written to disk once and read back in slices instead of being copied onto the heap.
+ * All reads are positional, which makes the view safe to use from several threads at once.
+ */
+public final class VideoSource implements AutoCloseable {
+
+    private static final int BYTE_MASK = 0xFF;
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final String filename;
+    private final String contentType;
+    private final long size;
+    private final FileChannel channel;
+    private final boolean deleteOnClose;
+    private final ReentrantLock probeLock = new ReentrantLock();
+    private volatile String fingerprint;
+    private volatile VideoMetadata metadata;
+
+    private VideoSource(
+            Path path,
+            String filename,
+            String contentType,
+            boolean deleteOnClose,
+            String fingerprint) throws IOException {
+        this.path = path;
+        this.filename = filename;
+        this.contentType = contentType;
+        this.deleteOnClose = deleteOnClose;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Opens a view over an existing file. The file is left in place when the source is closed.
+     *
+     * @param path the file containing the video
+     * @param filename the original filename of the video
+     * @param contentType the MIME type of the video, may be null
+     * @return a new VideoSource backed by the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static VideoSource open(Path path, String filename, String contentType) throws IOException {
+        return new VideoSource(path, filename, contentType, false, null);
+    }
+
+    /**
+     * Opens a view over a spool file owned by the source. The file is deleted when the source is closed.
+     *
+     * @param path the spool file containing the video
+     * @param filename the original filename of the video
+     * @param contentType the MIME type of the video, may be null
+     * @param fingerprint the hex-encoded SHA-256 digest computed while spooling, or null to compute it on first use
+     * @return a new VideoSource that owns the spool file
+     * @throws IOException if the file cannot be opened
+     */
+    static VideoSource spooled(Path path, String filename, String contentType, String fingerprint)
+            throws IOException {
+        return new VideoSource(path, filename, contentType, true, fingerprint);
+    }
+
+    /**
+     * Opens a view over a spooled file that outlives the source. The file is left in place when the source is closed.
+     *
+     * @param path the spool file containing the video
+     * @param filename the original filename of the video
+     * @param contentType the MIME type of the video, may be null
+     * @param fingerprint the hex-encoded SHA-256 digest computed while spooling, or null to compute it on first use
+     * @return a new VideoSource backed by the file
+     * @throws IOException if the file cannot be opened
+     */
+    static VideoSource retained(Path path, String filename, String contentType, String fingerprint)
+            throws IOException {
+        return new VideoSource(path, filename, contentType, false, fingerprint);
+    }
+
+    /**
+     * Returns the size of the video in bytes.
+     *
+     * @return the size of the video in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the original filename of the video.
+     *
+     * @return the original filename
+     */
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * Returns the MIME type of the video.
+     *
+     * @return the MIME type, or null if unknown
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the path of the file backing this source.
+     *
+     * @return the path of the backing file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the SHA-256 digest of the video content as a lowercase hex string.
+     * Streamed videos are hashed while they are spooled and moved uploads before the spooler rewrites their layout,
+     * so the digest is that of the upload either way; other videos are hashed on first use.
+     * Either way it is cached for the lifetime of the source.
+     *
+     * @return the hex-encoded SHA-256 digest of the video
+     * @throws IOException if the video cannot be read
+     */
+    public String getFingerprint() throws IOException {
+        String result = fingerprint;
+        if (result == null) {
+            // A lock rather than a monitor, so virtual threads hashing the file do not pin their carrier
+            probeLock.lock();
+            try {
+                result = fingerprint;
+                if (result == null) {
+                    result = computeFingerprint();
+                    fingerprint = result;
+                }
+            } finally {
+                probeLock.unlock();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the duration, dimensions and codecs of the video, as read by the {@link Mp4Probe}.
+     * The video is probed on first use, normally right after it is spooled, and the result is cached for the
+     * lifetime of the source.
+     *
+     * @return the metadata of the video
+     * @throws IOException if the video cannot be read
+     * @throws com.synctok.synctokApi.exception.InvalidVideoException if the video is a malformed MP4 or QuickTime
+     *         file
+     */
+    public VideoMetadata getMetadata() throws IOException {
+        VideoMetadata result = metadata;
+        if (result == null) {
+            probeLock.lock();
+            try {
+                result = metadata;
+                if (result == null) {
+                    result = Mp4Probe.probe(this);
+                    metadata = result;
+                }
+            } finally {
+                probeLock.unlock();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads bytes starting at the given position into the buffer without moving any shared file position.
+     *
+     * @param target the buffer to read into
+     * @param position the position in the video to start reading from
+     * @return the number of bytes read, or -1 if the position is at or past the end of the video
+     * @throws IOException if the read fails
+     */
+    public int read(ByteBuffer target, long position) throws IOException {
+        return channel.read(target, position);
+    }
+
+    /**
+     * Copies a byte range of the video to a channel, letting the operating system move the bytes where it can.
+     *
+     * @param offset the position of the first byte of the range
+     * @param length the number of bytes in the range
+     * @param target the channel to write the range to
+     * @throws IOException if the range cannot be read or written
+     */
+    void transferTo(long offset, long length, WritableByteChannel target) throws IOException {
+        checkRange(offset, length);
+        long transferred = 0;
+        while (transferred < length) {
+            long count = channel.transferTo(offset + transferred, length - transferred, target);
+            if (count <= 0) {
+                throw new EOFException("Video " + filename + " ended at " + (offset + transferred));
+            }
+            transferred += count;
+        }
+    }
+
+    /**
+     * Opens a stream over a byte range of the video.
+     *
+     * @param offset the position of the first byte of the range
+     * @param length the number of bytes in the range
+     * @return an InputStream that yields exactly the bytes in the range
+     */
+    public InputStream openStream(long offset, long length) {
+        checkRange(offset, length);
+        return new RangeInputStream(offset, offset + length);
+    }
+
+    /**
+     * Exposes the whole video as a streaming Resource carrying the original filename.
+     *
+     * @return a Resource over the whole video
+     */
+    public Resource asResource() {
+        return new SliceResource(0, size, filename);
+    }
+
+    /**
+     * Exposes a byte range of the video as a streaming Resource with a known content length.
+     *
+     * @param offset the position of the first byte of the range
+     * @param length the number of bytes in the range
+     * @return a Resource over the range
+     */
+    public Resource asResource(long offset, long length) {
+        checkRange(offset, length);
+        return new SliceResource(offset, length, null);
+    }
+
+    /**
+     * Releases the file handle and, for spooled sources, deletes the spool file.
+     *
+     * @throws IOException if the file cannot be closed or deleted
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        if (deleteOnClose) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Creates the digest used to fingerprint videos.
+     *
+     * @return a new SHA-256 MessageDigest
+     */
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String computeFingerprint() throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(DIGEST_BUFFER_SIZE);
+        long position = 0;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            buffer.flip();
+            digest.update(buffer);
+            position += read;
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void checkRange(long offset, long length) {
+        if (offset < 0 || length < 0 || offset + length > size) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Range %d+%d is outside of video of size %d", offset, length, size));
+        }
+    }
+
+    /**
+     * InputStream reading a bounded range of the backing channel with positional reads.
+     */
+    private final class RangeInputStream extends InputStream {
+        private final long end;
+        private long position;
+
+        RangeInputStream(long start, long end) {
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & BYTE_MASK;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                return -1;
+            }
+            int toRead = (int) Math.min(len, end - position);
+            int read = channel.read(ByteBuffer.wrap(buffer, off, toRead), position);
+            if (read < 0) {
+                return -1;
+            }
+            position += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, end - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+    }
+
+    /**
+     * Resource over a byte range of the video. Each call to getInputStream opens an independent stream,
+     * so the same resource can be written more than once, for example when a request is retried.
+     */
+    private final class SliceResource extends AbstractResource {
+        private final long offset;
+        private final long length;
+        private final String sliceFilename;
+
+        SliceResource(long offset, long length, String sliceFilename) {
+            this.offset = offset;
+            this.length = length;
+            this.sliceFilename = sliceFilename;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return openStream(offset, length);
+        }
+
+        @Override
+        public long contentLength() {
+            return length;
+        }
+
+        @Override
+        public String getFilename() {
+            return sliceFilename;
+        }
+
+        @Override
+        public boolean exists() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public String getDescription() {
+            return String.format("VideoSource [%s] bytes %d-%d", path, offset, offset + length - 1);
+        }
+    }
+}
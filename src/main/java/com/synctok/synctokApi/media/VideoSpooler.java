@@ -0,0 +1,196 @@
+package com.synctok.synctokApi.media;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Component responsible for spooling uploaded videos to disk.
+ * Each upload is written once to the spool directory and exposed as a {@link VideoSource}
+ * that the platform clients can share for the duration of a publish. A multipart upload the servlet container has
+ * already written to disk is moved into the spool directory rather than copied, and its SHA-256 fingerprint is
+ * computed from the spooled file on first use; a video read from a stream is fingerprinted while it is written, so
+ * identical videos can be recognised without reading them again. The spooled
+ * video is then probed for its duration, dimensions and codecs while its first and last blocks are still cached,
+ * so a malformed MP4 is rejected before anything is uploaded. When {@code synctok.spool.faststart} is enabled, an MP4
+ * whose {@code moov} box follows the media data is rewritten by the {@link FastStartRemuxer} before it is handed on;
+ * the fingerprint remains that of the video as it was uploaded.
+ */
+@Component
+public final class VideoSpooler {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoSpooler.class);
+
+    private final Path spoolDirectory;
+    private final boolean fastStart;
+
+    /**
+     * Constructs a new VideoSpooler writing into the specified directory.
+     *
+     * @param spoolDirectory the directory in which uploaded videos are spooled
+     * @param fastStart      whether to move the {@code moov} box of spooled MP4s in front of their media data
+     */
+    @Autowired
+    public VideoSpooler(
+            @Value("${synctok.spool.directory}") String spoolDirectory,
+            @Value("${synctok.spool.faststart}") boolean fastStart) {
+        this.spoolDirectory = Path.of(spoolDirectory);
+        this.fastStart = fastStart;
+    }
+
+    /**
+     * Spools an uploaded video to disk.
+     * The returned source owns the spool file and deletes it when closed.
+     *
+     * @param file the uploaded video
+     * @return a VideoSource backed by the spooled copy of the upload
+     * @throws IOException if the upload cannot be written to the spool directory
+     * @throws com.synctok.synctokApi.exception.InvalidVideoException if the upload is a malformed MP4 or QuickTime
+     *         file
+     */
+    public VideoSource spool(MultipartFile file) throws IOException {
+        Files.createDirectories(spoolDirectory);
+        Path target = Files.createTempFile(spoolDirectory, "synctok-", ".video");
+        transfer(file, target);
+        return ingested(VideoSource.spooled(target, file.getOriginalFilename(), file.getContentType(), null), true);
+    }
+
+    /**
+     * Spools a video read from a stream to disk, such as a rendition downloaded from Cloudinary.
+     * The returned source owns the spool file and deletes it when closed. The stream is not closed.
+     *
+     * @param content     the content of the video
+     * @param filename    the filename of the video
+     * @param contentType the MIME type of the video, may be null
+     * @return a VideoSource backed by the spooled copy of the content
+     * @throws IOException if the content cannot be read or written to the spool directory
+     * @throws com.synctok.synctokApi.exception.InvalidVideoException if the content is a malformed MP4 or QuickTime
+     *         file
+     */
+    public VideoSource spool(InputStream content, String filename, String contentType) throws IOException {
+        Files.createDirectories(spoolDirectory);
+        Path target = Files.createTempFile(spoolDirectory, "synctok-", ".video");
+        String fingerprint = copy(content, filename, target);
+        return ingested(VideoSource.spooled(target, filename, contentType, fingerprint), true);
+    }
+
+    /**
+     * Spools an uploaded video to a given file that outlives the returned source, for videos published later.
+     * The file is left in place when the source is closed; {@link #reopen} hands it back to the pipeline.
+     *
+     * @param file   the uploaded video
+     * @param target the file to spool the video to
+     * @return a VideoSource backed by the spooled copy of the upload
+     * @throws IOException if the upload cannot be written to the file
+     * @throws com.synctok.synctokApi.exception.InvalidVideoException if the upload is a malformed MP4 or QuickTime
+     *         file, in which case the file is deleted
+     */
+    public VideoSource spoolTo(MultipartFile file, Path target) throws IOException {
+        transfer(file, target);
+        VideoSource source = VideoSource.retained(target, file.getOriginalFilename(), file.getContentType(), null);
+        try {
+            return ingested(source, false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    /**
+     * Reopens a video spooled earlier with {@link #spoolTo}. The returned source owns the file and deletes it when
+     * closed, like the sources of fresh uploads.
+     *
+     * @param path        the file the video was spooled to
+     * @param filename    the original filename of the video
+     * @param contentType the MIME type of the video, may be null
+     * @param fingerprint the hex-encoded SHA-256 digest of the video
+     * @return a VideoSource that owns the file
+     * @throws IOException if the file cannot be opened
+     */
+    public VideoSource reopen(Path path, String filename, String contentType, String fingerprint) throws IOException {
+        return VideoSource.spooled(path, filename, contentType, fingerprint);
+    }
+
+    private VideoSource ingested(VideoSource source, boolean owned) throws IOException {
+        VideoSource probed = probed(source);
+        if (!fastStart || !FastStartRemuxer.needsRemux(probed.getMetadata())) {
+            return probed;
+        }
+        Path path = probed.getPath();
+        Path remuxed = Files.createTempFile(spoolDirectory, "synctok-", ".faststart");
+        try {
+            if (!FastStartRemuxer.remux(probed, remuxed)) {
+                Files.deleteIfExists(remuxed);
+                return probed;
+            }
+        } catch (IOException | RuntimeException e) {
+            // The original layout still publishes, only more slowly
+            logger.warn("Could not move the moov box of {} to the front: {}", probed.getFilename(), e.getMessage());
+            Files.deleteIfExists(remuxed);
+            return probed;
+        }
+        String fingerprint = probed.getFingerprint();
+        probed.close();
+        try {
+            Files.move(remuxed, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(remuxed);
+            throw e;
+        }
+        logger.info("Moved the moov box of {} in front of its media data", probed.getFilename());
+        return probed(owned
+                ? VideoSource.spooled(path, probed.getFilename(), probed.getContentType(), fingerprint)
+                : VideoSource.retained(path, probed.getFilename(), probed.getContentType(), fingerprint));
+    }
+
+    private static VideoSource probed(VideoSource source) throws IOException {
+        try {
+            VideoMetadata metadata = source.getMetadata();
+            if (metadata.isProbed()) {
+                logger.info("Probed {}: {}x{} {}/{}, {}{}", source.getFilename(), metadata.width(), metadata.height(),
+                        metadata.videoCodec(), metadata.audioCodec(), metadata.duration(),
+                        metadata.isFastStart() ? "" : ", moov after mdat");
+            }
+            return source;
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    private static void transfer(MultipartFile file, Path target) throws IOException {
+        try {
+            // Tomcat renames a part it has already written to disk, so the upload is not written a second time
+            file.transferTo(target.toAbsolutePath().toFile());
+            logger.info("Spooled upload {} ({} bytes) to {}", file.getOriginalFilename(), file.getSize(), target);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    private static String copy(InputStream content, String filename, Path target) throws IOException {
+        MessageDigest digest = VideoSource.newDigest();
+        try {
+            long size = Files.copy(new DigestInputStream(content, digest), target, StandardCopyOption.REPLACE_EXISTING);
+            String fingerprint = HexFormat.of().formatHex(digest.digest());
+            logger.info("Spooled upload {} ({} bytes, sha256 {}) to {}", filename, size, fingerprint, target);
+            return fingerprint;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+}
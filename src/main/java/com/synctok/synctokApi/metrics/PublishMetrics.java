@@ -0,0 +1,135 @@
+package com.synctok.synctokApi.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long each stage of a publish takes on each platform, together with retries, bytes sent and
+ * upload throughput. Stages are the individual calls the clients make, e.g. {@code staging}, {@code init},
+ * {@code chunk}, {@code container}, {@code publish} and {@code status}.
+ * Timers publish percentile histograms, so latency SLOs can be computed from the Prometheus endpoint.
+ */
+@Component
+public final class PublishMetrics {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, AtomicLong> throughput = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new PublishMetrics recording into the specified registry.
+     *
+     * @param registry the registry the meters are registered with
+     */
+    @Autowired
+    public PublishMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Times a stage of a publish, tagging the measurement with its outcome.
+     *
+     * @param platform the platform the stage talks to
+     * @param stage    the name of the stage
+     * @param call     the work of the stage
+     * @param <T>      the type of the result of the stage
+     * @param <E>      the type of exception the stage may throw
+     * @return the result of the stage
+     * @throws E if the stage fails
+     */
+    public <T, E extends Exception> T time(String platform, String stage, StageCall<T, E> call) throws E {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "failure";
+        try {
+            T result = call.call();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("synctok.publish.stage")
+                    .description("Duration of a stage of a publish")
+                    .tags("platform", platform, "stage", stage, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Counts a retry of a stage of a publish.
+     *
+     * @param platform the platform the stage talks to
+     * @param stage    the name of the retried stage
+     */
+    public void recordRetry(String platform, String stage) {
+        Counter.builder("synctok.publish.retries")
+                .description("Retries of a stage of a publish")
+                .tags("platform", platform, "stage", stage)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Counts video bytes sent to a platform.
+     *
+     * @param platform the platform the bytes were sent to
+     * @param bytes    the number of bytes sent
+     */
+    public void recordBytesSent(String platform, long bytes) {
+        Counter.builder("synctok.publish.bytes")
+                .description("Video bytes sent to a platform")
+                .baseUnit("bytes")
+                .tag("platform", platform)
+                .register(registry)
+                .increment(bytes);
+    }
+
+    /**
+     * Records a completed upload, updating the throughput gauge of its platform.
+     *
+     * @param platform the platform the video was uploaded to
+     * @param bytes    the number of bytes uploaded
+     * @param elapsed  how long the upload took
+     */
+    public void recordUpload(String platform, long bytes, Duration elapsed) {
+        long nanos = Math.max(elapsed.toNanos(), 1);
+        throughput.computeIfAbsent(platform, this::registerThroughput)
+                .set(Math.round(bytes * NANOS_PER_SECOND / nanos));
+    }
+
+    private AtomicLong registerThroughput(String platform) {
+        AtomicLong bytesPerSecond = new AtomicLong();
+        Gauge.builder("synctok.publish.upload.throughput", bytesPerSecond, AtomicLong::get)
+                .description("Throughput of the latest upload to a platform")
+                .baseUnit("bytes.per.second")
+                .tag("platform", platform)
+                .register(registry);
+        return bytesPerSecond;
+    }
+
+    /**
+     * The work of a stage of a publish.
+     *
+     * @param <T> the type of the result of the stage
+     * @param <E> the type of exception the stage may throw
+     */
+    @FunctionalInterface
+    public interface StageCall<T, E extends Exception> {
+
+        /**
+         * Runs the stage.
+         *
+         * @return the result of the stage
+         * @throws E if the stage fails
+         */
+        T call() throws E;
+    }
+}
@@ -0,0 +1,12 @@
+package com.synctok.synctokApi.ratelimit;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of a token bucket, persisted so that a restart does not forget the budget already spent.
+ *
+ * @param tokens     the tokens left when the snapshot was taken, negative if the bucket was in debt
+ * @param snapshotAt when the snapshot was taken
+ */
+record BucketState(double tokens, Instant snapshotAt) {
+}
@@ -0,0 +1,90 @@
+package com.synctok.synctokApi.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Stores snapshots of token buckets as JSON documents in a directory, so the budget spent before a restart is
+ * still spent after it. Snapshots are written atomically through a temporary file, serialized through a striped
+ * lock. A snapshot that cannot be written is only logged: the limiter keeps working from memory.
+ */
+final class BucketStateStore {
+
+    private static final Pattern SAFE_KEY = Pattern.compile("[A-Za-z0-9_-]+");
+    private static final Logger logger = LoggerFactory.getLogger(BucketStateStore.class);
+    private static final int LOCK_STRIPES = 16;
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock[] lockStripes = new ReentrantLock[LOCK_STRIPES];
+
+    /**
+     * Constructs a new BucketStateStore.
+     *
+     * @param directory    the directory in which snapshots are stored
+     * @param objectMapper the ObjectMapper used to serialize snapshots
+     * @throws IOException if the directory cannot be created
+     */
+    BucketStateStore(Path directory, ObjectMapper objectMapper) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.objectMapper = objectMapper;
+        for (int i = 0; i < lockStripes.length; i++) {
+            lockStripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the snapshot stored under the given key.
+     *
+     * @param key the key of the bucket
+     * @return the snapshot, or an empty Optional if there is none or it cannot be read
+     */
+    Optional<BucketState> find(String key) {
+        Path file = fileFor(key);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(file.toFile(), BucketState.class));
+        } catch (IOException e) {
+            logger.warn("Failed to read rate limit state {}, starting with a full budget", key, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores a snapshot, replacing any snapshot with the same key.
+     *
+     * @param key   the key of the bucket
+     * @param state the snapshot to store
+     */
+    void save(String key, BucketState state) {
+        ReentrantLock lock = lockStripes[Math.floorMod(key.hashCode(), lockStripes.length)];
+        lock.lock();
+        try {
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            objectMapper.writeValue(temp.toFile(), state);
+            Files.move(temp, fileFor(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to write rate limit state {}", key, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Path fileFor(String key) {
+        if (!SAFE_KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid rate limit key: " + key);
+        }
+        return directory.resolve(key + ".json");
+    }
+}
@@ -0,0 +1,281 @@
+package com.synctok.synctokApi.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quota-aware rate limiter of the calls made to each platform, with one token bucket per platform, account
+ * and budget. A budget is a named limit such as {@code requests}, or {@code quota} for YouTube's quota units,
+ * configured with {@code synctok.rate-limit.<platform>.<budget>.capacity} and {@code .period}; budgets without
+ * a configured capacity are unlimited.
+ * Callers over budget wait in arrival order until enough tokens have been refilled, instead of failing with
+ * a {@code 429} from the platform. Calls that may wait for hours, such as uploads charged against a daily quota,
+ * {@link #reserve} their tokens and are resumed by a scheduler thread once the tokens are due, so they hold no
+ * thread while waiting; the cheap calls in between simply {@link #acquire} them.
+ * The state of every bucket is persisted in a directory, so a restart does not hand out a budget that has
+ * already been spent. Calls only mark their bucket as changed; the scheduler thread saves the changed buckets
+ * every {@code synctok.rate-limit.save-interval} and once more on shutdown, so no call waits on a file write
+ * and a snapshot is never overwritten by an older one. The remaining tokens and the number of waiting callers
+ * of every budget are exposed as gauges.
+ */
+@Component
+public final class RateLimiter implements MeterBinder, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+    private static final String PROPERTY_PREFIX = "synctok.rate-limit.";
+    private static final int ACCOUNT_KEY_BYTES = 6;
+
+    private final boolean enabled;
+    private final Environment environment;
+    private final BucketStateStore stateStore;
+    private final ScheduledExecutorService scheduler;
+    private final Map<BucketKey, Optional<TokenBucket>> buckets = new ConcurrentHashMap<>();
+    private final Set<BucketKey> unsaved = ConcurrentHashMap.newKeySet();
+    private volatile MeterRegistry meterRegistry;
+
+    /**
+     * Constructs a new RateLimiter.
+     *
+     * @param enabled      whether calls are rate limited at all
+     * @param directory    the directory in which the state of every budget is persisted
+     * @param saveInterval the delay between two saves of the budgets that changed
+     * @param objectMapper the ObjectMapper used to serialize the state of the budgets
+     * @param environment  the environment used to look up the capacity and period of each budget
+     * @throws IOException if the directory cannot be created
+     */
+    @Autowired
+    public RateLimiter(
+            @Value("${synctok.rate-limit.enabled}") boolean enabled,
+            @Value("${synctok.rate-limit.directory}") String directory,
+            @Value("${synctok.rate-limit.save-interval}") Duration saveInterval,
+            ObjectMapper objectMapper,
+            Environment environment) throws IOException {
+        this.enabled = enabled;
+        this.environment = environment;
+        this.stateStore = new BucketStateStore(Path.of(directory), objectMapper);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("rate-limiter").daemon(true).factory());
+        scheduler.scheduleWithFixedDelay(this::saveUnsaved, saveInterval.toMillis(), saveInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes tokens from a budget of an account, waiting on the calling thread until they are available.
+     * Meant for calls whose budget refills within seconds; calls that may wait longer should {@link #reserve}
+     * their tokens instead.
+     *
+     * @param platform the platform the call is made to
+     * @param account  the account the call is made as
+     * @param budget   the name of the budget, e.g. {@code requests} or {@code quota}
+     * @param permits  the number of tokens the call costs
+     * @throws IllegalStateException if the caller is interrupted while waiting
+     * @throws IllegalArgumentException if the call costs more than the capacity of the budget
+     */
+    public void acquire(String platform, String account, String budget, long permits) {
+        BucketKey key = new BucketKey(platform.toLowerCase(), account, budget);
+        Optional<TokenBucket> bucket = bucket(key);
+        if (bucket.isEmpty() || permits <= 0) {
+            return;
+        }
+        long waitNanos = take(key, bucket.get(), permits);
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + platform + " " + budget, e);
+            } finally {
+                bucket.get().waited();
+            }
+        }
+        recordWait(key, permits, waitNanos);
+    }
+
+    /**
+     * Takes tokens from a budget of an account without waiting for them. The tokens are taken immediately, in
+     * arrival order with every other caller, and the returned future completes once they are due, so the caller
+     * holds no thread, lock or executor slot while waiting.
+     *
+     * @param platform the platform the call is made to
+     * @param account  the account the call is made as
+     * @param budget   the name of the budget, e.g. {@code requests} or {@code quota}
+     * @param permits  the number of tokens the call costs
+     * @return a CompletableFuture completed once the tokens may be spent
+     * @throws IllegalArgumentException if the call costs more than the capacity of the budget
+     */
+    public CompletableFuture<Void> reserve(String platform, String account, String budget, long permits) {
+        BucketKey key = new BucketKey(platform.toLowerCase(), account, budget);
+        Optional<TokenBucket> bucket = bucket(key);
+        if (bucket.isEmpty() || permits <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long waitNanos = take(key, bucket.get(), permits);
+        if (waitNanos == 0) {
+            recordWait(key, permits, 0);
+            return CompletableFuture.completedFuture(null);
+        }
+        logger.info("Holding back a call costing {} {} of {} account {} for {} ms", permits, budget, platform,
+                account, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        CompletableFuture<Void> due = new CompletableFuture<>();
+        try {
+            scheduler.schedule(() -> {
+                bucket.get().waited();
+                recordWait(key, permits, waitNanos);
+                due.complete(null);
+            }, waitNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            bucket.get().waited();
+            due.completeExceptionally(e);
+        }
+        return due;
+    }
+
+    /**
+     * Returns the tokens currently left in a budget of an account.
+     *
+     * @param platform the platform of the budget
+     * @param account  the account of the budget
+     * @param budget   the name of the budget
+     * @return the remaining tokens, or {@link Double#POSITIVE_INFINITY} if the budget is unlimited
+     */
+    public double getRemaining(String platform, String account, String budget) {
+        return bucket(new BucketKey(platform.toLowerCase(), account, budget))
+                .map(TokenBucket::available)
+                .orElse(Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Derives a stable account identifier from a credential, for platforms whose account is identified only
+     * by its access token. The identifier is a truncated SHA-256 digest, so it can be logged and used as a
+     * metric tag without exposing the credential.
+     *
+     * @param credential the access token of the account
+     * @return the account identifier
+     */
+    public static String accountOf(String credential) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(String.valueOf(credential).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, ACCOUNT_KEY_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        try {
+            // Let a save in progress finish, so the final one is not overwritten by it
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        saveUnsaved();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        buckets.forEach((key, bucket) -> bucket.ifPresent(present -> bindBucket(registry, key, present)));
+    }
+
+    private Optional<TokenBucket> bucket(BucketKey key) {
+        return buckets.computeIfAbsent(key, newKey -> {
+            String prefix = PROPERTY_PREFIX + newKey.platform() + "." + newKey.budget();
+            Long capacity = environment.getProperty(prefix + ".capacity", Long.class);
+            if (!enabled || capacity == null) {
+                return Optional.empty();
+            }
+            Duration period = environment.getRequiredProperty(prefix + ".period", Duration.class);
+            TokenBucket bucket = stateStore.find(newKey.fileKey())
+                    .map(state -> new TokenBucket(capacity, period, state.tokens(), state.snapshotAt()))
+                    .orElseGet(() -> new TokenBucket(capacity, period));
+            MeterRegistry registry = meterRegistry;
+            if (registry != null) {
+                bindBucket(registry, newKey, bucket);
+            }
+            return Optional.of(bucket);
+        });
+    }
+
+    private long take(BucketKey key, TokenBucket bucket, long permits) {
+        long waitNanos = bucket.reserve(permits);
+        unsaved.add(key);
+        return waitNanos;
+    }
+
+    private void saveUnsaved() {
+        for (BucketKey key : unsaved) {
+            // Removed before the snapshot is taken, so a call taking tokens meanwhile marks the bucket again
+            unsaved.remove(key);
+            try {
+                buckets.get(key).ifPresent(bucket -> stateStore.save(key.fileKey(), bucket.snapshot()));
+            } catch (RuntimeException e) {
+                // A bucket that cannot be saved must not cancel the next saves
+                logger.warn("Failed to save rate limit state of {} {} of account {}", key.platform(), key.budget(),
+                        key.account(), e);
+            }
+        }
+    }
+
+    private void recordWait(BucketKey key, long permits, long waitNanos) {
+        Duration waited = Duration.ofNanos(waitNanos);
+        if (waited.toMillis() > 0) {
+            logger.info("Waited {} ms for {} {} of {} account {}", waited.toMillis(), permits, key.budget(),
+                    key.platform(), key.account());
+        }
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            Timer.builder("synctok.ratelimit.wait")
+                    .description("Time spent waiting for a rate limit budget")
+                    .tags("platform", key.platform(), "account", key.account(), "budget", key.budget())
+                    .register(registry)
+                    .record(waited);
+        }
+    }
+
+    private static void bindBucket(MeterRegistry registry, BucketKey key, TokenBucket bucket) {
+        Gauge.builder("synctok.ratelimit.remaining", bucket, TokenBucket::available)
+                .tags("platform", key.platform(), "account", key.account(), "budget", key.budget())
+                .description("Tokens left in a rate limit budget")
+                .register(registry);
+        Gauge.builder("synctok.ratelimit.waiting", bucket, TokenBucket::waiting)
+                .tags("platform", key.platform(), "account", key.account(), "budget", key.budget())
+                .description("Calls waiting for a rate limit budget")
+                .register(registry);
+    }
+
+    private record BucketKey(String platform, String account, String budget) {
+        String fileKey() {
+            return platform + "-" + account + "-" + budget;
+        }
+    }
+}
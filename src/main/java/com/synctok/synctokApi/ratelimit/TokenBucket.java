@@ -0,0 +1,132 @@
+package com.synctok.synctokApi.ratelimit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket holding up to a capacity of tokens, refilled continuously at capacity tokens per period.
+ * Tokens are reserved rather than waited for: a caller that finds too few tokens takes them anyway, leaving
+ * the bucket in debt, and is told how long it must wait until the debt has been refilled. Later callers find
+ * the bucket deeper in debt and wait longer, so callers are served in arrival order and a large request is not
+ * starved by a stream of small ones, without anyone holding a lock or a thread while waiting.
+ */
+final class TokenBucket {
+
+    private final long capacity;
+    private final double tokensPerNano;
+    private final ReentrantLock state = new ReentrantLock();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * Constructs a new, full TokenBucket.
+     *
+     * @param capacity the maximum number of tokens
+     * @param period   the time it takes to refill an empty bucket
+     */
+    TokenBucket(long capacity, Duration period) {
+        this(capacity, period, capacity, Instant.now());
+    }
+
+    /**
+     * Constructs a TokenBucket restored from a snapshot, refilled for the time elapsed since it was taken.
+     *
+     * @param capacity   the maximum number of tokens
+     * @param period     the time it takes to refill an empty bucket
+     * @param tokens     the tokens left when the snapshot was taken, negative if the bucket was in debt
+     * @param snapshotAt when the snapshot was taken
+     */
+    TokenBucket(long capacity, Duration period, double tokens, Instant snapshotAt) {
+        if (capacity <= 0 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("A token bucket needs a positive capacity and period");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = (double) capacity / period.toNanos();
+        long elapsedNanos = Math.max(0, Duration.between(snapshotAt, Instant.now()).toNanos());
+        this.tokens = Math.min(capacity, tokens + elapsedNanos * tokensPerNano);
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Takes tokens from the bucket without waiting for them. If the caller has to wait, it is counted as waiting
+     * until it reports the wait over with {@link #waited()}.
+     *
+     * @param permits the number of tokens to take
+     * @return how long the caller must wait before using the tokens, in nanoseconds
+     * @throws IllegalArgumentException if more tokens are requested than the bucket can ever hold
+     */
+    long reserve(long permits) {
+        if (permits > capacity) {
+            throw new IllegalArgumentException(
+                    "Cannot take " + permits + " tokens from a bucket of capacity " + capacity);
+        }
+        long waitNanos;
+        state.lock();
+        try {
+            refill();
+            tokens -= permits;
+            waitNanos = tokens >= 0 ? 0 : Math.max((long) Math.ceil(-tokens / tokensPerNano), 1);
+        } finally {
+            state.unlock();
+        }
+        if (waitNanos > 0) {
+            waiting.incrementAndGet();
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Reports that a caller told to wait by {@link #reserve} has finished waiting.
+     */
+    void waited() {
+        waiting.decrementAndGet();
+    }
+
+    /**
+     * Returns the number of tokens currently available.
+     *
+     * @return the available tokens, negative while the bucket is in debt to waiting callers
+     */
+    double available() {
+        state.lock();
+        try {
+            refill();
+            return tokens;
+        } finally {
+            state.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of callers currently waiting for their tokens.
+     *
+     * @return the number of waiting callers
+     */
+    int waiting() {
+        return waiting.get();
+    }
+
+    /**
+     * Takes a snapshot of the bucket, from which it can be restored after a restart.
+     *
+     * @return the tokens currently available and the time they were counted
+     */
+    BucketState snapshot() {
+        state.lock();
+        try {
+            refill();
+            return new BucketState(tokens, Instant.now());
+        } finally {
+            state.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,108 @@
+package com.synctok.synctokApi.resilience;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+/**
+ * Request factory running every request of a platform's RestTemplate through the platform's circuit breaker.
+ * Server errors, {@code 429 Too Many Requests} and I/O failures count as failures; other client errors are
+ * the caller's fault rather than a sign of a sick platform, so they count as successful calls. Every call
+ * counts as slow when, body upload included, it exceeds the breaker's slow-call threshold.
+ * Unlike a {@link org.springframework.http.client.ClientHttpRequestInterceptor}, which buffers request bodies,
+ * the factory decorates the delegate's requests, so chunk bodies are still streamed from disk.
+ */
+public final class CircuitBreakingRequestFactory implements ClientHttpRequestFactory {
+
+    private final ClientHttpRequestFactory delegate;
+    private final CircuitBreaker breaker;
+
+    /**
+     * Constructs a new CircuitBreakingRequestFactory.
+     *
+     * @param delegate the factory creating the actual requests
+     * @param breaker  the circuit breaker of the platform the requests go to
+     */
+    public CircuitBreakingRequestFactory(ClientHttpRequestFactory delegate, CircuitBreaker breaker) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        return new CircuitBreakingRequest(delegate.createRequest(uri, httpMethod));
+    }
+
+    private final class CircuitBreakingRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+
+        private final ClientHttpRequest request;
+
+        CircuitBreakingRequest(ClientHttpRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            breaker.acquirePermission();
+            long started = breaker.getCurrentTimestamp();
+            ClientHttpResponse response;
+            try {
+                response = request.execute();
+            } catch (IOException | RuntimeException e) {
+                breaker.onError(breaker.getCurrentTimestamp() - started, breaker.getTimestampUnit(), e);
+                throw e;
+            }
+            long elapsed = breaker.getCurrentTimestamp() - started;
+            if (response.getStatusCode().is5xxServerError()
+                    || response.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) {
+                breaker.onError(elapsed, breaker.getTimestampUnit(), new IOException(
+                        getMethod() + " " + getURI().getPath() + " answered " + response.getStatusCode()));
+            } else {
+                breaker.onSuccess(elapsed, breaker.getTimestampUnit());
+            }
+            return response;
+        }
+
+        @Override
+        public void setBody(Body body) {
+            if (request instanceof StreamingHttpOutputMessage streaming) {
+                streaming.setBody(body);
+                return;
+            }
+            try {
+                body.writeTo(request.getBody());
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to write request body", e);
+            }
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return request.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return request.getHeaders();
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return request.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return request.getURI();
+        }
+    }
+}
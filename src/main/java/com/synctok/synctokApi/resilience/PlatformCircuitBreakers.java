@@ -0,0 +1,89 @@
+package com.synctok.synctokApi.resilience;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Circuit breakers guarding the calls made to each platform.
+ * A breaker opens when, over a sliding window of recent calls, the share of failed calls or of calls slower
+ * than the platform's slow-call threshold ({@code synctok.circuit-breaker.slow-call-duration-threshold.<platform>})
+ * exceeds its threshold. While open, calls to the platform fail immediately with
+ * {@link io.github.resilience4j.circuitbreaker.CallNotPermittedException} instead of waiting on a sick platform;
+ * after a pause a few trial calls decide whether it closes again.
+ * The state and call counts of every breaker are exposed as {@code resilience4j.circuitbreaker.*} metrics.
+ */
+@Component
+public final class PlatformCircuitBreakers implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlatformCircuitBreakers.class);
+    private static final String SLOW_CALL_THRESHOLD_PROPERTY = "synctok.circuit-breaker.slow-call-duration-threshold.";
+
+    private final CircuitBreakerRegistry registry;
+    private final Environment environment;
+    private final Duration defaultSlowCallThreshold;
+
+    /**
+     * Constructs a new PlatformCircuitBreakers.
+     *
+     * @param failureRateThreshold     the percentage of failed calls opening a breaker
+     * @param slowCallRateThreshold    the percentage of slow calls opening a breaker
+     * @param slidingWindowSize        the number of recent calls the rates are computed over
+     * @param minimumNumberOfCalls     the number of calls needed before the rates are evaluated
+     * @param waitDurationInOpenState  how long an open breaker rejects calls before allowing trial calls
+     * @param defaultSlowCallThreshold the slow-call threshold of platforms without a specific setting
+     * @param environment              the environment used to look up per-platform slow-call thresholds
+     */
+    @Autowired
+    public PlatformCircuitBreakers(
+            @Value("${synctok.circuit-breaker.failure-rate-threshold}") float failureRateThreshold,
+            @Value("${synctok.circuit-breaker.slow-call-rate-threshold}") float slowCallRateThreshold,
+            @Value("${synctok.circuit-breaker.sliding-window-size}") int slidingWindowSize,
+            @Value("${synctok.circuit-breaker.minimum-number-of-calls}") int minimumNumberOfCalls,
+            @Value("${synctok.circuit-breaker.wait-duration-in-open-state}") Duration waitDurationInOpenState,
+            @Value("${synctok.circuit-breaker.default-slow-call-duration-threshold}") Duration defaultSlowCallThreshold,
+            Environment environment) {
+        this.registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(waitDurationInOpenState)
+                .build());
+        this.registry.getEventPublisher().onEntryAdded(added -> added.getAddedEntry().getEventPublisher()
+                .onStateTransition(event -> logger.warn("Circuit breaker of {} moved from {}",
+                        event.getCircuitBreakerName(), event.getStateTransition())));
+        this.environment = environment;
+        this.defaultSlowCallThreshold = defaultSlowCallThreshold;
+    }
+
+    /**
+     * Returns the circuit breaker of a platform, creating it on first use.
+     *
+     * @param platform the name of the platform
+     * @return the circuit breaker guarding calls to the platform
+     */
+    public CircuitBreaker forPlatform(String platform) {
+        String name = platform.toLowerCase();
+        return registry.circuitBreaker(name, () -> CircuitBreakerConfig.from(registry.getDefaultConfig())
+                .slowCallDurationThreshold(environment.getProperty(
+                        SLOW_CALL_THRESHOLD_PROPERTY + name, Duration.class, defaultSlowCallThreshold))
+                .build());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+    }
+}
@@ -0,0 +1,118 @@
+package com.synctok.synctokApi.service;
+
+import com.synctok.synctokApi.exception.IdempotencyKeyMismatchException;
+import com.synctok.synctokApi.exception.InvalidBatchException;
+import com.synctok.synctokApi.exception.InvalidVideoException;
+import com.synctok.synctokApi.exception.UnsupportedPlatformException;
+import com.synctok.synctokApi.service.batch.BatchItem;
+import com.synctok.synctokApi.service.batch.BatchItemResult;
+import com.synctok.synctokApi.service.batch.BatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service accepting many videos for publishing in a single request.
+ * Every item of a batch becomes an ordinary publish job, started through the same {@link VideoService} pipeline
+ * as single publishes: items share the per-platform lanes of the publishing executor, the pooled connections
+ * and the rate limit budgets of each platform, and the Cloudinary staging cache, so a batch is throttled by
+ * the same global limits rather than by the number of requests it would otherwise take.
+ * Items with a {@code publishAt} time go through the {@link PublishScheduler} instead.
+ * Items are accepted independently; an invalid item is reported in the result without failing the others.
+ */
+@Service
+public final class BatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchService.class);
+
+    private final VideoService videoService;
+    private final PublishScheduler publishScheduler;
+    private final int maxItems;
+
+    /**
+     * Constructs a new BatchService.
+     *
+     * @param videoService     the service starting the publish job of each item
+     * @param publishScheduler the service scheduling the items to be published later
+     * @param maxItems         the maximum number of items accepted in one batch
+     */
+    @Autowired
+    public BatchService(
+            VideoService videoService,
+            PublishScheduler publishScheduler,
+            @Value("${synctok.batch.max-items}") int maxItems) {
+        this.videoService = videoService;
+        this.publishScheduler = publishScheduler;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Accepts a batch of videos for publishing, starting one publish job per manifest item.
+     * Each item refers to one of the uploaded videos by its file name. When an idempotency key is given, each
+     * item is keyed by it and its position in the manifest, so retrying the batch returns the jobs of the
+     * items accepted by the first attempt and only starts the others.
+     *
+     * @param manifest       the items of the batch
+     * @param videos         the uploaded videos, referred to by the items by file name
+     * @param idempotencyKey the idempotency key sent by the client, or null
+     * @return the result of each item, in manifest order
+     * @throws InvalidBatchException if the manifest is empty or too large, or two videos share a file name
+     */
+    public BatchResult submitBatch(List<BatchItem> manifest, List<MultipartFile> videos, String idempotencyKey) {
+        if (manifest == null || manifest.isEmpty()) {
+            throw new InvalidBatchException("the manifest has no items");
+        }
+        if (manifest.size() > maxItems) {
+            throw new InvalidBatchException("the manifest has " + manifest.size() + " items, at most "
+                    + maxItems + " are accepted");
+        }
+        Map<String, MultipartFile> videosByName = new HashMap<>();
+        for (MultipartFile video : videos) {
+            if (videosByName.putIfAbsent(video.getOriginalFilename(), video) != null) {
+                throw new InvalidBatchException("more than one video is named " + video.getOriginalFilename());
+            }
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(manifest.size());
+        for (int i = 0; i < manifest.size(); i++) {
+            String itemKey = idempotencyKey == null || idempotencyKey.isBlank() ? null : idempotencyKey + "#" + i;
+            results.add(submitItem(manifest.get(i), videosByName, itemKey));
+        }
+        BatchResult result = BatchResult.of(results);
+        logger.info("Accepted {} of {} batch items", result.accepted(), manifest.size());
+        return result;
+    }
+
+    private BatchItemResult submitItem(BatchItem item, Map<String, MultipartFile> videosByName, String itemKey) {
+        MultipartFile video = videosByName.get(item.video());
+        if (video == null) {
+            return BatchItemResult.rejected(item.video(), "No video named " + item.video() + " was uploaded");
+        }
+        if (item.title() == null || item.title().isBlank()) {
+            return BatchItemResult.rejected(item.video(), "A title is required");
+        }
+        if (item.platforms() == null || item.platforms().isEmpty()) {
+            return BatchItemResult.rejected(item.video(), "At least one platform is required");
+        }
+        try {
+            return BatchItemResult.accepted(item.video(), item.publishAt() == null
+                    ? videoService.submitVideo(video, item.platforms(), item.title(), item.caption(), itemKey)
+                    : publishScheduler.schedule(video, item.platforms(), item.title(), item.caption(),
+                            item.publishAt(), itemKey));
+        } catch (UnsupportedPlatformException | InvalidVideoException | IdempotencyKeyMismatchException e) {
+            return BatchItemResult.rejected(item.video(), e.getMessage());
+        } catch (IOException e) {
+            logger.warn("Failed to accept batch item {}", item.video(), e);
+            return BatchItemResult.rejected(item.video(), "Failed to receive the video: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.synctok.synctokApi.service;
+
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.media.VideoSpooler;
+import com.synctok.synctokApi.service.idempotency.IdempotencyStore;
+import com.synctok.synctokApi.service.job.JobStore;
+import com.synctok.synctokApi.service.job.PlatformState;
+import com.synctok.synctokApi.service.job.PlatformStatus;
+import com.synctok.synctokApi.service.job.PublishJob;
+import com.synctok.synctokApi.service.schedule.ScheduleStore;
+import com.synctok.synctokApi.service.schedule.ScheduledPublish;
+import com.synctok.synctokApi.service.schedule.TimingWheel;
+import com.synctok.synctokApi.service.strategy.PublishContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service publishing videos at a scheduled time rather than right away.
+ * A scheduled video is spooled into the {@link ScheduleStore} when it is accepted, and staged on Cloudinary right
+ * away when a URL-based platform needs it, so little more than the platform uploads is left to do when it is due.
+ * Pending publishes are timed by a single {@link TimingWheel} driven by one scheduler thread, which costs one small
+ * entry per publish rather than a thread or timer each; due publishes are handed to the {@link VideoService}
+ * pipeline from virtual threads. The store is read back on startup, so schedules survive restarts, and publishes
+ * that fell due while the application was down go out right away. The number of pending publishes is published as
+ * the {@code synctok.schedule.pending} gauge.
+ */
+@Service
+public final class PublishScheduler implements MeterBinder, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublishScheduler.class);
+
+    private final VideoService videoService;
+    private final VideoSpooler videoSpooler;
+    private final JobStore jobStore;
+    private final ScheduleStore scheduleStore;
+    private final IdempotencyStore idempotencyStore;
+    private final TimingWheel<String> wheel;
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService dispatchers;
+    private final Map<String, CompletableFuture<String>> stagings = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new PublishScheduler and resumes the publishes left pending by a previous run.
+     *
+     * @param videoService     the service running due publishes
+     * @param videoSpooler     the spooler keeping scheduled videos on disk until they are due
+     * @param jobStore         the store recording the progress of publish jobs
+     * @param scheduleStore    the store persisting pending publishes
+     * @param idempotencyStore the store remembering the job started for each idempotency key
+     * @param tick             the precision of the schedule
+     * @param wheelSize        the number of buckets of the timing wheel, a power of two
+     * @throws IOException if the pending publishes cannot be read back
+     */
+    @Autowired
+    public PublishScheduler(
+            VideoService videoService,
+            VideoSpooler videoSpooler,
+            JobStore jobStore,
+            ScheduleStore scheduleStore,
+            IdempotencyStore idempotencyStore,
+            @Value("${synctok.schedule.tick}") Duration tick,
+            @Value("${synctok.schedule.wheel-size}") int wheelSize) throws IOException {
+        this.videoService = videoService;
+        this.videoSpooler = videoSpooler;
+        this.jobStore = jobStore;
+        this.scheduleStore = scheduleStore;
+        this.idempotencyStore = idempotencyStore;
+        this.wheel = new TimingWheel<>(tick, wheelSize, Instant.now());
+        this.dispatchers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("schedule-", 0).factory());
+        resume();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("publish-scheduler").daemon(true).factory());
+        ticker.scheduleAtFixedRate(this::tick, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Accepts a video for publishing at a later time.
+     * The upload is spooled before this method returns; the job stays SCHEDULED until it is due and then moves
+     * through the usual states. A time in the past publishes the video at the next tick.
+     * When an idempotency key is given, a retry of the same request returns the job scheduled by the first attempt.
+     *
+     * @param videoFile      the MultipartFile containing the video to be published
+     * @param platforms      the list of platforms to publish the video to
+     * @param title          the title of the video
+     * @param caption        the caption of the video, or null to use the title
+     * @param publishAt      the time at which the video goes live
+     * @param idempotencyKey the idempotency key sent by the client, or null
+     * @return the scheduled job
+     * @throws IOException if the upload cannot be spooled
+     * @throws com.synctok.synctokApi.exception.UnsupportedPlatformException if any of the platforms is not supported
+     * @throws com.synctok.synctokApi.exception.InvalidVideoException if the video is malformed or breaks the limits
+     *         of a platform it would be uploaded to as is
+     * @throws com.synctok.synctokApi.exception.IdempotencyKeyMismatchException if the idempotency key was
+     *         already used for a different request
+     */
+    public PublishJob schedule(
+            MultipartFile videoFile,
+            List<String> platforms,
+            String title,
+            String caption,
+            Instant publishAt,
+            String idempotencyKey) throws IOException {
+        videoService.requireSupported(platforms);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return startSchedule(videoFile, platforms, title, caption, publishAt);
+        }
+        String signature = VideoService.requestSignature(videoFile, platforms, title, caption) + "\n" + publishAt;
+        String jobId = idempotencyStore.execute(idempotencyKey, signature,
+                () -> startSchedule(videoFile, platforms, title, caption, publishAt).id());
+        return videoService.getJob(jobId);
+    }
+
+    /**
+     * Returns the number of publishes waiting for their scheduled time.
+     *
+     * @return the number of pending publishes
+     */
+    public int getPendingCount() {
+        return wheel.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("synctok.schedule.pending", wheel, TimingWheel::size)
+                .description("Publishes waiting for their scheduled time")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        // Pending publishes stay in the store and are resumed by the next run
+        ticker.shutdownNow();
+        dispatchers.shutdownNow();
+    }
+
+    private PublishJob startSchedule(
+            MultipartFile videoFile,
+            List<String> platforms,
+            String title,
+            String caption,
+            Instant publishAt) throws IOException {
+        String jobId = UUID.randomUUID().toString();
+        VideoSource source = videoSpooler.spoolTo(videoFile, scheduleStore.videoFile(jobId));
+        try {
+            videoService.requireAccepted(source, platforms);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(source);
+            Files.deleteIfExists(source.getPath());
+            throw e;
+        }
+        ScheduledPublish publish = new ScheduledPublish(jobId, publishAt, title, caption, platforms,
+                source.getFilename(), source.getContentType(), source.getFingerprint(), null);
+        PublishJob job = PublishJob.scheduled(jobId, platforms, title, publishAt);
+        try {
+            scheduleStore.save(publish);
+            jobStore.save(job);
+        } catch (RuntimeException e) {
+            closeQuietly(source);
+            scheduleStore.remove(jobId);
+            Files.deleteIfExists(source.getPath());
+            throw e;
+        }
+        stageAhead(publish, source);
+        wheel.schedule(jobId, publishAt);
+        logger.info("Scheduled publish job {} for platforms {} at {}", jobId, platforms, publishAt);
+        return job;
+    }
+
+    private void stageAhead(ScheduledPublish publish, VideoSource source) {
+        if (!videoService.needsStaging(publish.platforms())) {
+            closeQuietly(source);
+            return;
+        }
+        CompletableFuture<String> staging = videoService.stageOnce(source, publish.platforms())
+                .thenApply(url -> {
+                    scheduleStore.save(publish.withVideoUrl(url));
+                    return url;
+                })
+                .whenComplete((url, ex) -> {
+                    closeQuietly(source);
+                    if (ex != null) {
+                        logger.warn("Failed to stage scheduled job {} ahead of time, staging it when due",
+                                publish.jobId(), ex);
+                    }
+                });
+        // A due publish waits for its staging, so the URL is never uploaded twice
+        stagings.put(publish.jobId(), staging);
+        staging.whenComplete((url, ex) -> stagings.remove(publish.jobId(), staging));
+    }
+
+    private void resume() throws IOException {
+        List<ScheduledPublish> pending = scheduleStore.recover();
+        for (ScheduledPublish publish : pending) {
+            if (jobStore.find(publish.jobId()).isEmpty()) {
+                jobStore.save(PublishJob.scheduled(
+                        publish.jobId(), publish.platforms(), publish.title(), publish.publishAt()));
+            }
+            wheel.schedule(publish.jobId(), publish.publishAt());
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Resumed {} scheduled publishes", pending.size());
+        }
+    }
+
+    private void tick() {
+        try {
+            wheel.advance(Instant.now(), jobId -> dispatchers.execute(() -> {
+                try {
+                    publishDue(jobId);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to publish scheduled job {}", jobId, e);
+                }
+            }));
+        } catch (RuntimeException e) {
+            // An exception would cancel the periodic task and stop every pending publish
+            logger.error("Failed to advance the publish schedule", e);
+        }
+    }
+
+    private void publishDue(String jobId) {
+        CompletableFuture<String> staging = stagings.get(jobId);
+        if (staging != null) {
+            staging.exceptionally(ex -> null).join();
+        }
+        Optional<ScheduledPublish> found = scheduleStore.find(jobId);
+        if (found.isEmpty()) {
+            return;
+        }
+        ScheduledPublish publish = found.get();
+        VideoSource source;
+        try {
+            source = videoSpooler.reopen(scheduleStore.videoFile(jobId), publish.filename(), publish.contentType(),
+                    publish.fingerprint());
+        } catch (IOException e) {
+            logger.error("Video of scheduled job {} is no longer available", jobId, e);
+            scheduleStore.remove(jobId);
+            publish.platforms().forEach(platform -> jobStore.updatePlatform(jobId, platform,
+                    PlatformStatus.failed("The scheduled video is no longer available")));
+            return;
+        }
+        // Removed before publishing: a crash from here on loses the publish rather than repeating it
+        scheduleStore.remove(jobId);
+        publish.platforms().forEach(platform ->
+                jobStore.updatePlatform(jobId, platform, PlatformStatus.of(PlatformState.QUEUED)));
+        logger.info("Scheduled publish job {} is due", jobId);
+        videoService.publishVideo(new PublishContext(jobId, source, publish.videoUrl(), publish.title(),
+                publish.caption(), Map.of()), publish.platforms());
+    }
+
+    private void closeQuietly(VideoSource source) {
+        try {
+            source.close();
+        } catch (IOException e) {
+            logger.warn("Failed to release scheduled video {}", source.getPath(), e);
+        }
+    }
+}
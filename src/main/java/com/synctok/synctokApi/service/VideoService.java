@@ -1,10 +1,24 @@
 package com.synctok.synctokApi.service;
 
-import com.synctok.synctokApi.client.CloudinaryClient;
+import com.synctok.synctokApi.client.CloudinaryStager;
+import com.synctok.synctokApi.client.StagedUrlCache;
+import com.synctok.synctokApi.exception.JobNotFoundException;
 import com.synctok.synctokApi.exception.UnsupportedPlatformException;
-import com.synctok.synctokApi.service.strategy.FilePlatformStrategy;
+import com.synctok.synctokApi.media.VideoMetadata;
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.media.VideoSpooler;
+import com.synctok.synctokApi.service.executor.PublishingExecutor;
+import com.synctok.synctokApi.service.idempotency.IdempotencyStore;
+import com.synctok.synctokApi.service.job.JobStore;
+import com.synctok.synctokApi.service.job.PlatformState;
+import com.synctok.synctokApi.service.job.PlatformStatus;
+import com.synctok.synctokApi.service.job.PublishJob;
 import com.synctok.synctokApi.service.strategy.PlatformStrategy;
+import com.synctok.synctokApi.service.strategy.PublishContext;
 import com.synctok.synctokApi.service.strategy.UrlPlatformStrategy;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,83 +26,403 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Service class for handling asynchronous video publishing operations across multiple platforms.
  * This class uses the strategy pattern to support different platform-specific publishing strategies.
+ * Publishes run as jobs whose per-platform progress is recorded in a {@link JobStore}; the number of jobs
+ * in flight is published as the {@code synctok.publish.jobs.in-flight} gauge.
+ * Platforms with a rendition configured in the {@link CloudinaryStager} publish that rendition rather than the
+ * original video.
  */
 @Service
-public final class VideoService {
+public final class VideoService implements MeterBinder {
     private final Map<String, PlatformStrategy> strategies;
-    private final CloudinaryClient cloudinaryClient;
+    private final CloudinaryStager cloudinaryStager;
+    private final StagedUrlCache stagedUrlCache;
+    private final VideoSpooler videoSpooler;
+    private final JobStore jobStore;
+    private final PublishingExecutor publishingExecutor;
+    private final IdempotencyStore idempotencyStore;
+    private final AtomicInteger inFlightJobs = new AtomicInteger();
     private static final Logger logger = LoggerFactory.getLogger(VideoService.class);
+    private static final String STAGING_LANE = "cloudinary";
 
 
     /**
-     * Constructs a new VideoService with the specified strategies and CloudinaryClient.
+     * Constructs a new VideoService with the specified strategies, clients and job store.
      *
      * @param strategies       the list of platform-specific publishing strategies
-     * @param cloudinaryClient the client used for uploading videos to Cloudinary
+     * @param cloudinaryStager the stager uploading videos and their renditions to Cloudinary
+     * @param stagedUrlCache   the cache of videos already staged on Cloudinary, by fingerprint
+     * @param videoSpooler     the spooler used to write each upload to disk once
+     * @param jobStore         the store recording the progress of publish jobs
+     * @param publishingExecutor the executor running staging and platform uploads
+     * @param idempotencyStore the store remembering the job started for each idempotency key
      */
     @Autowired
-    public VideoService(List<PlatformStrategy> strategies, CloudinaryClient cloudinaryClient) {
+    public VideoService(
+            List<PlatformStrategy> strategies,
+            CloudinaryStager cloudinaryStager,
+            StagedUrlCache stagedUrlCache,
+            VideoSpooler videoSpooler,
+            JobStore jobStore,
+            PublishingExecutor publishingExecutor,
+            IdempotencyStore idempotencyStore) {
         this.strategies = strategies.stream()
                 .collect(Collectors.toMap(
                         strategy -> strategy.getClass().getSimpleName().toLowerCase().replace("strategy", ""),
                         Function.identity()
                 ));
-        this.cloudinaryClient = cloudinaryClient;
+        this.cloudinaryStager = cloudinaryStager;
+        this.stagedUrlCache = stagedUrlCache;
+        this.videoSpooler = videoSpooler;
+        this.jobStore = jobStore;
+        this.publishingExecutor = publishingExecutor;
+        this.idempotencyStore = idempotencyStore;
     }
 
     /**
-     * Publishes a video to the specified platforms asynchronously.
+     * Accepts a video for publishing and starts the publish in the background.
+     * The upload is spooled to disk before this method returns, so the request that carried it can
+     * complete immediately; progress can then be followed through {@link #getJob(String)}.
+     * When an idempotency key is given, a retry of the same request returns the job started by the first attempt,
+     * waiting for that attempt if it is still being accepted, instead of publishing the video again.
      *
-     * @param videoFile the MultipartFile containing the video to be published
-     * @param platforms the list of platforms to publish the video to
-     * @param title     the title of the video
-     * @return CompletableFuture<Void> representing the completion of all publishing operations
-     * @throws IOException if there's an error during video upload
+     * @param videoFile      the MultipartFile containing the video to be published
+     * @param platforms      the list of platforms to publish the video to
+     * @param title          the title of the video
+     * @param caption        the caption of the video, or null to use the title
+     * @param idempotencyKey the idempotency key sent by the client, or null
+     * @return the job publishing the video, with every platform queued if it was just created
+     * @throws IOException if the upload cannot be spooled
+     * @throws UnsupportedPlatformException if any of the platforms is not supported
+     * @throws com.synctok.synctokApi.exception.InvalidVideoException if the video is malformed or breaks the limits
+     *         of a platform it would be uploaded to as is
+     * @throws com.synctok.synctokApi.exception.IdempotencyKeyMismatchException if the idempotency key was
+     *         already used for a different request
      */
-    public CompletableFuture<Void> publishVideo(
+    public PublishJob submitVideo(
             MultipartFile videoFile,
             List<String> platforms,
-            String title
+            String title,
+            String caption,
+            String idempotencyKey
     ) throws IOException {
+        requireSupported(platforms);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return startJob(videoFile, platforms, title, caption);
+        }
+        String signature = requestSignature(videoFile, platforms, title, caption);
+        String jobId = idempotencyStore.execute(idempotencyKey, signature,
+                () -> startJob(videoFile, platforms, title, caption).id());
+        return getJob(jobId);
+    }
+
+    private PublishJob startJob(
+            MultipartFile videoFile,
+            List<String> platforms,
+            String title,
+            String caption) throws IOException {
+        VideoSource source = videoSpooler.spool(videoFile);
+        try {
+            requireAccepted(source, platforms);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(source);
+            throw e;
+        }
+        PublishJob job = PublishJob.create(platforms, title);
+        jobStore.save(job);
+        logger.info("Accepted publish job {} for platforms: {}", job.id(), platforms);
+        publishVideo(new PublishContext(job.id(), source, null, title, caption, Map.of()), platforms);
+        return job;
+    }
+
+    /**
+     * Checks that every platform has a publishing strategy.
+     *
+     * @param platforms the platforms a video is to be published to
+     * @throws UnsupportedPlatformException if any of the platforms is not supported
+     */
+    void requireSupported(List<String> platforms) {
+        platforms.stream()
+                .filter(platform -> !strategies.containsKey(platform.toLowerCase()))
+                .findFirst()
+                .ifPresent(platform -> {
+                    throw new UnsupportedPlatformException(platform);
+                });
+    }
+
+    /**
+     * Checks a spooled video against the limits of every platform it is published to.
+     * Platforms publishing a rendition are checked too, since they fall back to the original video when their
+     * rendition cannot be generated.
+     *
+     * @param source    the spooled video, probed while it was spooled
+     * @param platforms the platforms the video is to be published to
+     * @throws IOException if the video cannot be read
+     * @throws com.synctok.synctokApi.exception.InvalidVideoException if a platform would reject the video
+     */
+    void requireAccepted(VideoSource source, List<String> platforms) throws IOException {
+        VideoMetadata metadata = source.getMetadata();
+        for (String platform : platforms) {
+            strategies.get(platform.toLowerCase()).validate(metadata);
+        }
+    }
+
+    /**
+     * Returns whether any of the platforms publishes from a staged URL rather than from the file, or publishes
+     * a rendition of the video.
+     *
+     * @param platforms the platforms a video is to be published to
+     * @return true if the video has to be staged on Cloudinary
+     */
+    boolean needsStaging(List<String> platforms) {
+        return platforms.stream()
+                .anyMatch(platform -> strategies.get(platform.toLowerCase()) instanceof UrlPlatformStrategy
+                        || cloudinaryStager.hasRendition(platform));
+    }
+
+    static String requestSignature(
+            MultipartFile videoFile,
+            List<String> platforms,
+            String title,
+            String caption) {
+        // Cheap to compute before spooling; a retry carries the same file, so its name and size match
+        return String.join("\n",
+                platforms.stream().map(String::toLowerCase).collect(Collectors.joining(",")),
+                String.valueOf(title),
+                String.valueOf(caption),
+                String.valueOf(videoFile.getOriginalFilename()),
+                String.valueOf(videoFile.getSize()));
+    }
+
+    /**
+     * Returns the current state of a publish job.
+     *
+     * @param jobId the identifier of the job
+     * @return the job
+     * @throws JobNotFoundException if no such job exists
+     */
+    public PublishJob getJob(String jobId) {
+        return jobStore.find(jobId).orElseThrow(() -> new JobNotFoundException(jobId));
+    }
+
+    /**
+     * Publishes a spooled video to the specified platforms asynchronously, recording progress on the job.
+     * The VideoSource of the context is shared by every platform and closed once all publishing operations
+     * have completed. Staging and each platform upload run on the {@link PublishingExecutor}, in the lane of
+     * their platform; every platform receives its own immutable copy of the context.
+     * File-based platforms start uploading immediately, while URL-based platforms wait for the video to be
+     * staged on Cloudinary. Staging is skipped entirely when no URL-based platform or rendition was requested, when
+     * the context already carries the URL the video was staged at, or when the same video was staged with the same
+     * renditions recently enough for its URL to be in the {@link StagedUrlCache}.
+     * A platform with a rendition waits until Cloudinary has generated it; file-based platforms then upload a
+     * downloaded copy of it. A platform whose rendition cannot be had publishes the original video instead.
+     *
+     * @param context   the job, video and metadata of this publish
+     * @param platforms the list of platforms to publish the video to
+     * @return CompletableFuture<Void> representing the completion of all publishing operations
+     */
+    public CompletableFuture<Void> publishVideo(PublishContext context, List<String> platforms) {
         logger.info("Starting video publication process for platforms: {}", platforms);
-        String videoUrl = cloudinaryClient.uploadAndGetPublicUrl(videoFile);
-        logger.info("Video uploaded to Cloudinary. Public URL: {}", videoUrl);
+        String jobId = context.jobId();
+        CompletableFuture<String> staging;
+        try {
+            staging = !needsStaging(platforms) ? null
+                    : context.videoUrl() != null ? CompletableFuture.completedFuture(context.videoUrl())
+                    : stageOnce(context.source(), platforms);
+        } catch (RuntimeException e) {
+            // Staging could not even be queued, so nothing else will release the video
+            closeQuietly(context.source());
+            throw e;
+        }
+        inFlightJobs.incrementAndGet();
 
         List<CompletableFuture<Void>> futures = platforms.stream()
-                .map(platform -> CompletableFuture.runAsync(() -> {
-                    logger.info("Publishing to platform: {}", platform);
-                    publishToPlatform(videoFile, videoUrl, platform, title);
-                    logger.info("Successfully published to platform: {}", platform);
-                }))
+                .map(platform -> startPlatform(context, platform, staging)
+                        .whenComplete((result, ex) -> {
+                            if (ex != null) {
+                                recordFailure(jobId, platform, ex);
+                            }
+                        }))
                 .toList();
 
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .whenComplete((result, ex) -> {
+                    inFlightJobs.decrementAndGet();
+                    closeQuietly(context.source());
+                })
                 .thenRun(() -> logger.info("Video published to all platforms successfully"));
     }
 
-    private void publishToPlatform(MultipartFile videoFile, String videoUrl, String platform, String title) {
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("synctok.publish.jobs.in-flight", inFlightJobs, AtomicInteger::get)
+                .description("Publish jobs with at least one platform still running")
+                .register(registry);
+    }
+
+    private CompletableFuture<Void> startPlatform(
+            PublishContext context,
+            String platform,
+            CompletableFuture<String> staging) {
+        if (strategies.get(platform.toLowerCase()) instanceof UrlPlatformStrategy) {
+            return staging.thenCompose(videoUrl -> renditionOf(videoUrl, platform))
+                    .thenCompose(videoUrl -> runPlatform(context.withVideoUrl(videoUrl), platform));
+        }
+        if (cloudinaryStager.hasRendition(platform)) {
+            return staging.thenCompose(videoUrl -> renditionOf(videoUrl, platform)
+                    .thenCompose(renditionUrl -> renditionUrl.equals(videoUrl)
+                            ? runPlatform(context, platform)
+                            : runPlatformOnRendition(context, platform, renditionUrl)));
+        }
+        return runPlatform(context, platform);
+    }
+
+    private CompletableFuture<String> renditionOf(String videoUrl, String platform) {
+        return cloudinaryStager.awaitRendition(videoUrl, platform)
+                .exceptionally(ex -> {
+                    logger.warn("No rendition of {} for platform {}, publishing the original video",
+                            videoUrl, platform, ex);
+                    return videoUrl;
+                });
+    }
+
+    private CompletableFuture<Void> runPlatform(PublishContext context, String platform) {
+        return runPlatform(context, platform, () -> publishToPlatform(context, platform));
+    }
+
+    private CompletableFuture<Void> runPlatformOnRendition(
+            PublishContext context,
+            String platform,
+            String renditionUrl) {
+        return runPlatform(context, platform, () -> {
+            VideoSource rendition;
+            try {
+                rendition = cloudinaryStager.download(renditionUrl, context.source());
+            } catch (IOException e) {
+                logger.warn("Failed to download rendition {}, publishing the original video", renditionUrl, e);
+                return publishToPlatform(context, platform);
+            }
+            return publishToPlatform(context.withSource(rendition), platform)
+                    .whenComplete((platformId, ex) -> closeQuietly(rendition));
+        });
+    }
+
+    private CompletableFuture<Void> runPlatform(
+            PublishContext context,
+            String platform,
+            Supplier<CompletableFuture<String>> publish) {
+        // Only the upload holds a slot of the platform's lane; waiting for the platform's rate limit before it
+        // and for the platform to process the video after it is asynchronous and occupies no thread
+        PlatformStrategy strategy = strategies.get(platform.toLowerCase());
+        CompletableFuture<Void> budget = strategy == null
+                ? CompletableFuture.completedFuture(null)
+                : strategy.reserveBudget(context);
+        return budget.thenCompose(reserved -> publishingExecutor.submit(platform, publish))
+                .thenCompose(Function.identity())
+                .thenAccept(platformId -> {
+                    jobStore.updatePlatform(context.jobId(), platform, PlatformStatus.of(PlatformState.PUBLISHED));
+                    logger.info("Successfully published to platform {} with id {}", platform, platformId);
+                });
+    }
+
+    /**
+     * Stages a video on Cloudinary on the staging lane of the executor, unless it was staged recently with the
+     * renditions of the same platforms.
+     *
+     * @param source    the spooled video
+     * @param platforms the platforms the video is published to, whose renditions are requested with the upload
+     * @return a CompletableFuture completed with the public URL of the staged video
+     */
+    CompletableFuture<String> stageOnce(VideoSource source, List<String> platforms) {
+        String cacheKey = stagingKey(fingerprintOf(source), cloudinaryStager.transformationsFor(platforms));
+        Optional<String> staged = stagedUrlCache.find(cacheKey);
+        if (staged.isPresent()) {
+            logger.info("Reusing video already staged on Cloudinary. Public URL: {}", staged.get());
+            return CompletableFuture.completedFuture(staged.get());
+        }
+        return publishingExecutor.submit(STAGING_LANE, () -> stage(source, platforms, cacheKey));
+    }
+
+    private static String stagingKey(String fingerprint, List<String> transformations) {
+        // Renditions are only generated eagerly for the upload that requested them, so they are part of the key
+        if (fingerprint == null || transformations.isEmpty()) {
+            return fingerprint;
+        }
+        return fingerprint + "-" + HexFormat.of().toHexDigits(String.join("|", transformations).hashCode());
+    }
+
+    private String fingerprintOf(VideoSource source) {
+        try {
+            return source.getFingerprint();
+        } catch (IOException e) {
+            logger.warn("Failed to fingerprint video {}, staging it without the cache", source.getPath(), e);
+            return null;
+        }
+    }
+
+    private String stage(VideoSource source, List<String> platforms, String cacheKey) {
+        try {
+            String videoUrl = cloudinaryStager.stage(source, platforms);
+            logger.info("Video uploaded to Cloudinary. Public URL: {}", videoUrl);
+            stagedUrlCache.put(cacheKey, videoUrl);
+            return videoUrl;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to stage video on Cloudinary", e);
+        }
+    }
+
+    private void recordFailure(String jobId, String platform, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        logger.error("Publishing job {} to platform {} failed", jobId, platform, cause);
+        jobStore.updatePlatform(jobId, platform, PlatformStatus.failed(cause.getMessage()));
+    }
+
+    private void closeQuietly(VideoSource source) {
+        try {
+            source.close();
+        } catch (IOException e) {
+            logger.warn("Failed to release spooled video {}", source.getPath(), e);
+        }
+    }
+
+    private CompletableFuture<String> publishToPlatform(PublishContext context, String platform) {
         logger.info("Starting publication process for platform: {}", platform);
         PlatformStrategy strategy = strategies.get(platform.toLowerCase());
+        CompletableFuture<String> published;
         try {
-            switch (strategy) {
-                case UrlPlatformStrategy urlPlatformStrategy -> urlPlatformStrategy.setVideoUrl(videoUrl);
-                case FilePlatformStrategy filePlatformStrategy -> filePlatformStrategy.setVideoFile(videoFile);
-                case null, default -> throw new UnsupportedPlatformException(platform);
+            if (strategy == null) {
+                throw new UnsupportedPlatformException(platform);
             }
-            strategy.publishVideo(title);
+            jobStore.updatePlatform(context.jobId(), platform, PlatformStatus.of(PlatformState.UPLOADING));
+            published = strategy.publishVideo(context);
         } catch (UnsupportedPlatformException e) {
             throw e;  // Re-throw UnsupportedPlatformException directly
         } catch (Exception e) {
-            throw new RuntimeException("Error publishing to " + platform, e);
+            throw publishingError(platform, e);
+        }
+        if (!published.isDone()) {
+            jobStore.updatePlatform(context.jobId(), platform, PlatformStatus.of(PlatformState.PROCESSING));
         }
+        return published.exceptionallyCompose(ex -> CompletableFuture.failedFuture(
+                publishingError(platform, ex instanceof CompletionException && ex.getCause() != null
+                        ? ex.getCause() : ex)));
+    }
+
+    private static RuntimeException publishingError(String platform, Throwable cause) {
+        return new RuntimeException("Error publishing to " + platform + ": " + cause.getMessage(), cause);
     }
 }
@@ -0,0 +1,16 @@
+package com.synctok.synctokApi.service.batch;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One video of a batch publish request, as described by the batch manifest.
+ *
+ * @param video     the file name of the uploaded video part this item publishes
+ * @param title     the title of the video
+ * @param caption   the caption of the video, or null to use the title
+ * @param platforms the platforms to publish the video to
+ * @param publishAt the time at which the video goes live, or null to publish it right away
+ */
+public record BatchItem(String video, String title, String caption, List<String> platforms, Instant publishAt) {
+}
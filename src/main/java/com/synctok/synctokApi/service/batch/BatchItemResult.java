@@ -0,0 +1,35 @@
+package com.synctok.synctokApi.service.batch;
+
+import com.synctok.synctokApi.service.job.PublishJob;
+
+/**
+ * Outcome of accepting one item of a batch publish request.
+ *
+ * @param video the file name of the video the item publishes
+ * @param job   the job publishing the video, or null if the item was rejected
+ * @param error the reason the item was rejected, or null if it was accepted
+ */
+public record BatchItemResult(String video, PublishJob job, String error) {
+
+    /**
+     * Creates the result of an accepted item.
+     *
+     * @param video the file name of the video
+     * @param job   the job publishing the video
+     * @return a new BatchItemResult
+     */
+    public static BatchItemResult accepted(String video, PublishJob job) {
+        return new BatchItemResult(video, job, null);
+    }
+
+    /**
+     * Creates the result of a rejected item.
+     *
+     * @param video the file name of the video
+     * @param error the reason the item was rejected
+     * @return a new BatchItemResult
+     */
+    public static BatchItemResult rejected(String video, String error) {
+        return new BatchItemResult(video, null, error);
+    }
+}
@@ -0,0 +1,24 @@
+package com.synctok.synctokApi.service.batch;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch publish request, with one result per manifest item, in manifest order.
+ *
+ * @param accepted the number of items whose publish job was started
+ * @param rejected the number of items that were rejected
+ * @param items    the result of each item
+ */
+public record BatchResult(int accepted, int rejected, List<BatchItemResult> items) {
+
+    /**
+     * Creates a BatchResult, counting the accepted and rejected items.
+     *
+     * @param items the result of each item
+     * @return a new BatchResult
+     */
+    public static BatchResult of(List<BatchItemResult> items) {
+        int accepted = (int) items.stream().filter(item -> item.job() != null).count();
+        return new BatchResult(accepted, items.size() - accepted, List.copyOf(items));
+    }
+}
@@ -0,0 +1,280 @@
+package com.synctok.synctokApi.service.executor;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Executor dedicated to the blocking work of the publishing pipeline.
+ * Tasks run on virtual threads by default, or on a fixed pool of platform threads when configured,
+ * so that long uploads never occupy the common ForkJoinPool. Every task runs in a named lane
+ * (a platform, or a shared stage such as staging) acting as a bulkhead: its concurrency is capped by a
+ * semaphore, and tasks waiting for a permit wait in the lane's own bounded queue without holding a thread,
+ * so a slow platform cannot take threads away from the others. Tasks submitted to a full lane fail
+ * immediately with a {@link RejectedExecutionException}.
+ * Queued and active tasks are exposed as gauges.
+ */
+@Component
+public final class PublishingExecutor implements MeterBinder, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublishingExecutor.class);
+    private static final String LANE_CONCURRENCY_PROPERTY = "synctok.publishing.executor.concurrency.";
+    private static final String LANE_MAX_QUEUED_PROPERTY = "synctok.publishing.executor.max-queued.";
+
+    private final ExecutorService executor;
+    private final int defaultConcurrency;
+    private final int defaultMaxQueued;
+    private final Environment environment;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+    private final AtomicInteger activeTasks = new AtomicInteger();
+    private volatile MeterRegistry meterRegistry;
+
+    /**
+     * Constructs a new PublishingExecutor.
+     *
+     * @param virtualThreads whether tasks run on virtual threads rather than a fixed pool
+     * @param poolSize the number of platform threads used when virtual threads are disabled
+     * @param defaultConcurrency the concurrency cap of lanes without a specific setting
+     * @param defaultMaxQueued the number of tasks lanes without a specific setting can hold waiting
+     * @param environment the environment used to look up per-lane concurrency caps and queue bounds
+     */
+    @Autowired
+    public PublishingExecutor(
+            @Value("${synctok.publishing.executor.virtual-threads}") boolean virtualThreads,
+            @Value("${synctok.publishing.executor.pool-size}") int poolSize,
+            @Value("${synctok.publishing.executor.default-concurrency}") int defaultConcurrency,
+            @Value("${synctok.publishing.executor.default-max-queued}") int defaultMaxQueued,
+            Environment environment) {
+        this.defaultConcurrency = defaultConcurrency;
+        this.defaultMaxQueued = defaultMaxQueued;
+        this.environment = environment;
+        if (virtualThreads) {
+            ThreadFactory factory = Thread.ofVirtual().name("publish-", 0).factory();
+            this.executor = Executors.newThreadPerTaskExecutor(factory);
+        } else {
+            ThreadFactory factory = Thread.ofPlatform().name("publish-", 0).daemon(true).factory();
+            this.executor = Executors.newFixedThreadPool(poolSize, factory);
+        }
+        logger.info("Publishing executor started with {} (default lane concurrency {})",
+                virtualThreads ? "virtual threads" : poolSize + " platform threads", defaultConcurrency);
+    }
+
+    /**
+     * Runs a task in the given lane once a permit for that lane is available.
+     *
+     * @param lane the lane the task belongs to, typically a platform name
+     * @param task the task to run
+     * @param <T> the result type of the task
+     * @return a CompletableFuture completed with the result of the task, or failed with a
+     *         {@link RejectedExecutionException} if the lane's queue is full
+     */
+    public <T> CompletableFuture<T> submit(String lane, Supplier<T> task) {
+        Lane target = lane(lane);
+        if (target.queued.incrementAndGet() > target.maxQueued) {
+            target.queued.decrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "The " + lane + " lane already has " + target.maxQueued + " tasks waiting"));
+        }
+        queuedTasks.incrementAndGet();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        target.pending.add(new PendingTask(() -> runTask(target, task, future), future::completeExceptionally));
+        dispatch(target);
+        return future;
+    }
+
+    /**
+     * Runs a task without a result in the given lane once a permit for that lane is available.
+     *
+     * @param lane the lane the task belongs to, typically a platform name
+     * @param task the task to run
+     * @return a CompletableFuture completed when the task has finished
+     */
+    public CompletableFuture<Void> run(String lane, Runnable task) {
+        return submit(lane, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Returns the number of tasks submitted but not yet running, across all lanes.
+     *
+     * @return the number of queued tasks
+     */
+    public int getQueuedTasks() {
+        return queuedTasks.get();
+    }
+
+    /**
+     * Returns the number of tasks currently running, across all lanes.
+     *
+     * @return the number of active tasks
+     */
+    public int getActiveTasks() {
+        return activeTasks.get();
+    }
+
+    /**
+     * Returns the number of tasks of a lane submitted but not yet running.
+     *
+     * @param lane the lane to inspect
+     * @return the number of queued tasks in the lane
+     */
+    public int getQueuedTasks(String lane) {
+        return lane(lane).queued.get();
+    }
+
+    /**
+     * Returns the number of tasks of a lane currently running.
+     *
+     * @param lane the lane to inspect
+     * @return the number of active tasks in the lane
+     */
+    public int getActiveTasks(String lane) {
+        return lane(lane).active.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("synctok.publishing.executor.queued", queuedTasks, AtomicInteger::get)
+                .description("Publishing tasks waiting for a thread or a lane permit")
+                .register(registry);
+        Gauge.builder("synctok.publishing.executor.active", activeTasks, AtomicInteger::get)
+                .description("Publishing tasks currently running")
+                .register(registry);
+        this.meterRegistry = registry;
+        lanes.forEach((name, lane) -> bindLane(registry, name, lane));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> void runTask(Lane lane, Supplier<T> task, CompletableFuture<T> future) {
+        lane.queued.decrementAndGet();
+        queuedTasks.decrementAndGet();
+        lane.active.incrementAndGet();
+        activeTasks.incrementAndGet();
+        T result;
+        try {
+            result = task.get();
+        } catch (RuntimeException | Error e) {
+            release(lane);
+            future.completeExceptionally(e);
+            return;
+        }
+        // Release the permit before completing, so dependent stages never run while holding it
+        release(lane);
+        future.complete(result);
+    }
+
+    private void release(Lane lane) {
+        lane.active.decrementAndGet();
+        activeTasks.decrementAndGet();
+        lane.permits.release();
+        dispatch(lane);
+    }
+
+    /**
+     * Hands queued tasks of a lane to the executor while the lane has permits left. Called whenever a task
+     * is queued and whenever a permit is released, so no queued task is left behind a free permit.
+     *
+     * @param lane the lane to dispatch
+     */
+    private void dispatch(Lane lane) {
+        while (!lane.pending.isEmpty() && lane.permits.tryAcquire()) {
+            PendingTask next = lane.pending.poll();
+            if (next == null) {
+                lane.permits.release();
+                continue;
+            }
+            try {
+                executor.execute(next.body());
+            } catch (RejectedExecutionException e) {
+                lane.queued.decrementAndGet();
+                queuedTasks.decrementAndGet();
+                lane.permits.release();
+                next.onRejected().accept(e);
+            }
+        }
+    }
+
+    private Lane lane(String name) {
+        String key = name.toLowerCase();
+        return lanes.computeIfAbsent(key, laneName -> {
+            int concurrency = environment.getProperty(
+                    LANE_CONCURRENCY_PROPERTY + laneName, Integer.class, defaultConcurrency);
+            int maxQueued = environment.getProperty(
+                    LANE_MAX_QUEUED_PROPERTY + laneName, Integer.class, defaultMaxQueued);
+            Lane lane = new Lane(new Semaphore(concurrency), maxQueued);
+            MeterRegistry registry = meterRegistry;
+            if (registry != null) {
+                bindLane(registry, laneName, lane);
+            }
+            return lane;
+        });
+    }
+
+    private static void bindLane(MeterRegistry registry, String name, Lane lane) {
+        Gauge.builder("synctok.publishing.executor.lane.queued", lane.queued, AtomicInteger::get)
+                .tag("lane", name)
+                .description("Publishing tasks of a lane waiting for a permit")
+                .register(registry);
+        Gauge.builder("synctok.publishing.executor.lane.active", lane.active, AtomicInteger::get)
+                .tag("lane", name)
+                .description("Publishing tasks of a lane currently running")
+                .register(registry);
+    }
+
+    /**
+     * Concurrency cap, queue and counters of a single lane.
+     *
+     * @param permits the semaphore capping concurrent tasks in the lane
+     * @param maxQueued the maximum number of tasks waiting for a permit
+     * @param pending the tasks waiting for a permit, in submission order
+     * @param queued the number of tasks waiting for a permit or for a thread
+     * @param active the number of tasks holding a permit
+     */
+    private record Lane(
+            Semaphore permits,
+            int maxQueued,
+            Queue<PendingTask> pending,
+            AtomicInteger queued,
+            AtomicInteger active) {
+        Lane(Semaphore permits, int maxQueued) {
+            this(permits, maxQueued, new ConcurrentLinkedQueue<>(), new AtomicInteger(), new AtomicInteger());
+        }
+    }
+
+    /**
+     * A task waiting in a lane.
+     *
+     * @param body the work run once the task holds a permit
+     * @param onRejected fails the task when the executor refuses it, e.g. during shutdown
+     */
+    private record PendingTask(Runnable body, Consumer<Throwable> onRejected) {
+    }
+}
@@ -0,0 +1,163 @@
+package com.synctok.synctokApi.service.idempotency;
+
+import com.synctok.synctokApi.exception.IdempotencyKeyMismatchException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers which publish job each idempotency key started, so a client retrying a request gets the
+ * job of its first attempt instead of publishing the video again.
+ * A key is claimed before the first request does any work. Duplicates that arrive while that request is still
+ * running wait for it and receive the same job. A request that fails releases its key, so it can be retried.
+ * Keys are kept for a bounded TTL, and at most a maximum number of keys are kept, oldest first out.
+ * The TTL must be shorter than the retention of finished jobs, so a key never outlives the job it points to.
+ * Keys are kept in the order they were claimed and all share the TTL, so expired keys are always the oldest ones
+ * and are evicted from the head of the map without scanning the rest.
+ */
+@Component
+public final class IdempotencyStore {
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final Duration ttl;
+    private final Map<String, Entry> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Constructs a new IdempotencyStore.
+     *
+     * @param ttl          how long a key is remembered after it was first used
+     * @param jobRetention how long finished jobs are kept, which the TTL must be shorter than
+     * @param maxEntries   the maximum number of keys remembered at once
+     * @throws IllegalArgumentException if the TTL is not shorter than the retention of jobs
+     */
+    @Autowired
+    public IdempotencyStore(
+            @Value("${synctok.idempotency.ttl}") Duration ttl,
+            @Value("${synctok.jobs.retention}") Duration jobRetention,
+            @Value("${synctok.idempotency.max-entries}") int maxEntries) {
+        if (ttl.compareTo(jobRetention) >= 0) {
+            throw new IllegalArgumentException("The idempotency TTL " + ttl
+                    + " must be shorter than the job retention " + jobRetention
+                    + ", or replayed requests could point to evicted jobs");
+        }
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(maxEntries, LOAD_FACTOR, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Runs an action at most once per idempotency key and returns the identifier of the job it started.
+     *
+     * @param key       the idempotency key sent by the client
+     * @param signature a description of the request, used to detect a key reused for a different request
+     * @param action    the action starting the job
+     * @return the identifier of the job started for this key, by this call or an earlier one
+     * @throws IOException if the action fails
+     * @throws IdempotencyKeyMismatchException if the key was already used for a different request
+     */
+    public String execute(String key, String signature, Action action) throws IOException {
+        while (true) {
+            CompletableFuture<String> jobId = new CompletableFuture<>();
+            Entry existing = claim(key, signature, jobId);
+            if (existing == null) {
+                return runClaimed(key, jobId, action);
+            }
+            if (!existing.signature().equals(signature)) {
+                throw new IdempotencyKeyMismatchException(key);
+            }
+            try {
+                return existing.jobId().join();
+            } catch (CompletionException e) {
+                // The first attempt failed and released the key; try again as if it had never been used
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys currently remembered.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry claim(String key, String signature, CompletableFuture<String> jobId) {
+        lock.lock();
+        try {
+            // Stamped under the lock, so the insertion order of the map is also the order of creation
+            Instant now = Instant.now();
+            Instant cutoff = now.minus(ttl);
+            Iterator<Entry> oldestFirst = entries.values().iterator();
+            while (oldestFirst.hasNext() && oldestFirst.next().createdAt().isBefore(cutoff)) {
+                oldestFirst.remove();
+            }
+            Entry existing = entries.get(key);
+            if (existing == null) {
+                entries.put(key, new Entry(signature, jobId, now));
+            }
+            return existing;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String runClaimed(String key, CompletableFuture<String> jobId, Action action) throws IOException {
+        try {
+            String started = action.run();
+            jobId.complete(started);
+            return started;
+        } catch (IOException | RuntimeException e) {
+            lock.lock();
+            try {
+                Entry current = entries.get(key);
+                if (current != null && current.jobId() == jobId) {
+                    entries.remove(key);
+                }
+            } finally {
+                lock.unlock();
+            }
+            jobId.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * An action starting a publish job.
+     */
+    @FunctionalInterface
+    public interface Action {
+
+        /**
+         * Starts the job.
+         *
+         * @return the identifier of the started job
+         * @throws IOException if the job cannot be started
+         */
+        String run() throws IOException;
+    }
+
+    private record Entry(String signature, CompletableFuture<String> jobId, Instant createdAt) {
+    }
+}
@@ -0,0 +1,223 @@
+package com.synctok.synctokApi.service.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.synctok.synctokApi.exception.JobNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * JobStore writing each job as a JSON document in a directory, so job state survives restarts.
+ * Enabled with {@code synctok.jobs.store=file}. Nothing is cached in memory; updates to the same job
+ * are serialized through a striped lock and written atomically through a temporary file. The locks are
+ * {@link ReentrantLock}s rather than monitors so that virtual threads waiting on them, or doing file I/O while
+ * holding them, do not pin their carrier thread. Finished jobs are deleted by the {@link JobSweeper} once they are
+ * older than the configured retention; only documents last written before the cutoff are read to check that.
+ * Jobs that were still being published when the application stopped will never finish, so they are marked as
+ * failed when the store is opened, which lets the sweeper expire them like any other finished job.
+ */
+@Component
+@ConditionalOnProperty(name = "synctok.jobs.store", havingValue = "file")
+public final class FileJobStore implements JobStore {
+
+    private static final Pattern SAFE_ID = Pattern.compile("[A-Za-z0-9-]+");
+    private static final String INTERRUPTED = "Interrupted by restart";
+    private static final int LOCK_STRIPES = 64;
+    private static final Logger logger = LoggerFactory.getLogger(FileJobStore.class);
+
+    private final Path directory;
+    private final Duration retention;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock[] lockStripes = new ReentrantLock[LOCK_STRIPES];
+
+    /**
+     * Constructs a new FileJobStore.
+     *
+     * @param directory the directory in which job documents are stored
+     * @param retention how long finished jobs are kept before being deleted
+     * @param objectMapper the ObjectMapper used to serialize jobs
+     * @throws IOException if the directory cannot be created or listed
+     */
+    @Autowired
+    public FileJobStore(
+            @Value("${synctok.jobs.directory}") String directory,
+            @Value("${synctok.jobs.retention}") Duration retention,
+            ObjectMapper objectMapper) throws IOException {
+        this.directory = Files.createDirectories(Path.of(directory));
+        this.retention = retention;
+        this.objectMapper = objectMapper;
+        for (int i = 0; i < lockStripes.length; i++) {
+            lockStripes[i] = new ReentrantLock();
+        }
+        failInterrupted();
+    }
+
+    @Override
+    public void save(PublishJob job) {
+        withLock(job.id(), () -> {
+            write(job);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<PublishJob> find(String id) {
+        return Optional.ofNullable(read(id));
+    }
+
+    @Override
+    public PublishJob update(String id, UnaryOperator<PublishJob> update) {
+        return withLock(id, () -> {
+            PublishJob current = read(id);
+            if (current == null) {
+                throw new JobNotFoundException(id);
+            }
+            PublishJob updated = update.apply(current);
+            write(updated);
+            return updated;
+        });
+    }
+
+    @Override
+    public void evictExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        List<Path> candidates;
+        try (Stream<Path> files = Files.list(directory)) {
+            candidates = files
+                    .filter(file -> file.getFileName().toString().endsWith(".json"))
+                    .filter(file -> lastModified(file).isBefore(cutoff))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list jobs in " + directory, e);
+        }
+        for (Path file : candidates) {
+            String id = idOf(file);
+            try {
+                withLock(id, () -> {
+                    PublishJob job = read(id);
+                    if (job != null && job.isFinished() && job.updatedAt().isBefore(cutoff)) {
+                        delete(file);
+                    }
+                    return null;
+                });
+            } catch (UncheckedIOException e) {
+                logger.warn("Skipping job document {} while evicting expired jobs", file, e);
+            }
+        }
+    }
+
+    private void failInterrupted() throws IOException {
+        List<Path> documents;
+        try (Stream<Path> files = Files.list(directory)) {
+            documents = files.filter(file -> file.getFileName().toString().endsWith(".json")).toList();
+        }
+        for (Path file : documents) {
+            String id = idOf(file);
+            try {
+                withLock(id, () -> {
+                    PublishJob job = read(id);
+                    if (job == null) {
+                        return null;
+                    }
+                    PublishJob failed = job;
+                    for (Map.Entry<String, PlatformStatus> platform : job.platforms().entrySet()) {
+                        if (isInterrupted(platform.getValue().state())) {
+                            failed = failed.withPlatformStatus(platform.getKey(), PlatformStatus.failed(INTERRUPTED));
+                        }
+                    }
+                    if (failed != job) {
+                        logger.warn("Job {} was interrupted by a restart, marking it as failed", id);
+                        write(failed);
+                    }
+                    return null;
+                });
+            } catch (UncheckedIOException e) {
+                logger.warn("Skipping job document {} while failing interrupted jobs", file, e);
+            }
+        }
+    }
+
+    private static boolean isInterrupted(PlatformState state) {
+        return !state.isTerminal() && state != PlatformState.SCHEDULED;
+    }
+
+    private static String idOf(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.substring(0, fileName.length() - ".json".length());
+    }
+
+    private static Instant lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant();
+        } catch (IOException e) {
+            // Deleted meanwhile, or unreadable; either way not a candidate
+            return Instant.MAX;
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete job document " + file, e);
+        }
+    }
+
+    private <T> T withLock(String key, Supplier<T> action) {
+        ReentrantLock lock = lockStripes[Math.floorMod(key.hashCode(), lockStripes.length)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PublishJob read(String id) {
+        if (!SAFE_ID.matcher(id).matches()) {
+            return null;
+        }
+        Path file = fileFor(id);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), PublishJob.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read job " + id, e);
+        }
+    }
+
+    private void write(PublishJob job) {
+        try {
+            Path temp = Files.createTempFile(directory, job.id(), ".tmp");
+            objectMapper.writeValue(temp.toFile(), job);
+            Files.move(temp, fileFor(job.id()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write job " + job.id(), e);
+        }
+    }
+
+    private Path fileFor(String id) {
+        return directory.resolve(id + ".json");
+    }
+}
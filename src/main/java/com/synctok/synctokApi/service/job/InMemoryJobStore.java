@@ -0,0 +1,61 @@
+package com.synctok.synctokApi.service.job;
+
+import com.synctok.synctokApi.exception.JobNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * JobStore keeping jobs in memory. This is the default store.
+ * Finished jobs are evicted by the {@link JobSweeper} once they are older than the configured retention.
+ */
+@Component
+@ConditionalOnProperty(name = "synctok.jobs.store", havingValue = "memory", matchIfMissing = true)
+public final class InMemoryJobStore implements JobStore {
+
+    private final ConcurrentMap<String, PublishJob> jobs = new ConcurrentHashMap<>();
+    private final Duration retention;
+
+    /**
+     * Constructs a new InMemoryJobStore.
+     *
+     * @param retention how long finished jobs are kept before being evicted
+     */
+    @Autowired
+    public InMemoryJobStore(@Value("${synctok.jobs.retention}") Duration retention) {
+        this.retention = retention;
+    }
+
+    @Override
+    public void save(PublishJob job) {
+        jobs.put(job.id(), job);
+    }
+
+    @Override
+    public Optional<PublishJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    @Override
+    public PublishJob update(String id, UnaryOperator<PublishJob> update) {
+        PublishJob updated = jobs.computeIfPresent(id, (key, job) -> update.apply(job));
+        if (updated == null) {
+            throw new JobNotFoundException(id);
+        }
+        return updated;
+    }
+
+    @Override
+    public void evictExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished() && job.updatedAt().isBefore(cutoff));
+    }
+}
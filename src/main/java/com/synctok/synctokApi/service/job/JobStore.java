@@ -0,0 +1,55 @@
+package com.synctok.synctokApi.service.job;
+
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * Storage for publish jobs.
+ * Implementations must apply updates to a single job atomically, since the platforms
+ * of a job are published concurrently and report their progress independently.
+ */
+public interface JobStore {
+
+    /**
+     * Stores a job, replacing any job with the same identifier.
+     *
+     * @param job the job to store
+     */
+    void save(PublishJob job);
+
+    /**
+     * Looks up a job by its identifier.
+     *
+     * @param id the identifier of the job
+     * @return the job, or an empty Optional if no such job is stored
+     */
+    Optional<PublishJob> find(String id);
+
+    /**
+     * Atomically replaces a stored job with the result of applying the update to it.
+     *
+     * @param id the identifier of the job
+     * @param update the function producing the new snapshot from the current one
+     * @return the updated job
+     * @throws com.synctok.synctokApi.exception.JobNotFoundException if no such job is stored
+     */
+    PublishJob update(String id, UnaryOperator<PublishJob> update);
+
+    /**
+     * Removes the finished jobs that have not changed for longer than the retention of the store.
+     * Called periodically by the {@link JobSweeper}.
+     */
+    void evictExpired();
+
+    /**
+     * Atomically updates the status of a single platform of a stored job.
+     *
+     * @param id the identifier of the job
+     * @param platform the platform whose status changed
+     * @param status the new status of the platform
+     * @return the updated job
+     */
+    default PublishJob updatePlatform(String id, String platform, PlatformStatus status) {
+        return update(id, job -> job.withPlatformStatus(platform, status));
+    }
+}
@@ -0,0 +1,55 @@
+package com.synctok.synctokApi.service.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically evicts expired jobs from the {@link JobStore}, off the path of saving and updating jobs.
+ * The sweep runs every {@code synctok.jobs.sweep-interval} on a single daemon thread.
+ */
+@Component
+public final class JobSweeper implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobSweeper.class);
+
+    private final JobStore jobStore;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a new JobSweeper and schedules its sweeps.
+     *
+     * @param jobStore      the store to evict expired jobs from
+     * @param sweepInterval the delay between two sweeps
+     */
+    @Autowired
+    public JobSweeper(JobStore jobStore, @Value("${synctok.jobs.sweep-interval}") Duration sweepInterval) {
+        this.jobStore = jobStore;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("job-sweeper").daemon(true).factory());
+        scheduler.scheduleWithFixedDelay(this::sweep, sweepInterval.toMillis(), sweepInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private void sweep() {
+        try {
+            jobStore.evictExpired();
+        } catch (RuntimeException e) {
+            // A failed sweep must not cancel the next ones
+            logger.warn("Failed to evict expired jobs", e);
+        }
+    }
+}
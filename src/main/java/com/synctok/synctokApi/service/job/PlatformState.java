@@ -0,0 +1,28 @@
+package com.synctok.synctokApi.service.job;
+
+/**
+ * Lifecycle states of a single platform within a publish job.
+ */
+public enum PlatformState {
+    /** The publish is waiting for its scheduled time. */
+    SCHEDULED,
+    /** The platform is waiting for the pipeline to start uploading to it. */
+    QUEUED,
+    /** The video is being uploaded to the platform. */
+    UPLOADING,
+    /** The upload has finished and the platform is processing the video. */
+    PROCESSING,
+    /** The video has been published on the platform. */
+    PUBLISHED,
+    /** Publishing to the platform failed. */
+    FAILED;
+
+    /**
+     * Returns whether this state is final.
+     *
+     * @return true if no further transitions are expected from this state
+     */
+    public boolean isTerminal() {
+        return this == PUBLISHED || this == FAILED;
+    }
+}
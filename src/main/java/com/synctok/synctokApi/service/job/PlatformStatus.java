@@ -0,0 +1,30 @@
+package com.synctok.synctokApi.service.job;
+
+/**
+ * Status of a single platform within a publish job.
+ *
+ * @param state the current lifecycle state of the platform
+ * @param error the reason publishing failed, or null if it has not failed
+ */
+public record PlatformStatus(PlatformState state, String error) {
+
+    /**
+     * Creates a status for the given state without an error.
+     *
+     * @param state the lifecycle state
+     * @return a new PlatformStatus
+     */
+    public static PlatformStatus of(PlatformState state) {
+        return new PlatformStatus(state, null);
+    }
+
+    /**
+     * Creates a failed status carrying the reason of the failure.
+     *
+     * @param error the reason publishing failed
+     * @return a new PlatformStatus in the FAILED state
+     */
+    public static PlatformStatus failed(String error) {
+        return new PlatformStatus(PlatformState.FAILED, error);
+    }
+}
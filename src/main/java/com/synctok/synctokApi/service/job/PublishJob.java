@@ -0,0 +1,96 @@
+package com.synctok.synctokApi.service.job;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of an asynchronous publish job and the state of each of its platforms.
+ * Updates produce a new snapshot, which keeps job stores free of shared mutable state.
+ *
+ * @param id the unique identifier of the job
+ * @param title the title of the video being published
+ * @param createdAt the time at which the job was accepted
+ * @param updatedAt the time of the last state change
+ * @param platforms the status of each requested platform, keyed by lower-case platform name
+ * @param publishAt the time at which the video is scheduled to go live, or null if it is published right away
+ */
+@JsonIgnoreProperties(value = "finished", allowGetters = true)
+public record PublishJob(
+        String id,
+        String title,
+        Instant createdAt,
+        Instant updatedAt,
+        Map<String, PlatformStatus> platforms,
+        Instant publishAt) {
+
+    /**
+     * Creates a PublishJob, defensively copying the platform statuses.
+     */
+    public PublishJob {
+        platforms = Collections.unmodifiableMap(new LinkedHashMap<>(platforms));
+    }
+
+    /**
+     * Creates a new job with every requested platform in the QUEUED state.
+     *
+     * @param platforms the platforms the video will be published to
+     * @param title the title of the video
+     * @return a new PublishJob with a random identifier
+     */
+    public static PublishJob create(List<String> platforms, String title) {
+        return create(UUID.randomUUID().toString(), platforms, title, PlatformState.QUEUED, null);
+    }
+
+    /**
+     * Creates a new job with every requested platform in the SCHEDULED state.
+     *
+     * @param id the identifier of the job
+     * @param platforms the platforms the video will be published to
+     * @param title the title of the video
+     * @param publishAt the time at which the video is scheduled to go live
+     * @return a new PublishJob
+     */
+    public static PublishJob scheduled(String id, List<String> platforms, String title, Instant publishAt) {
+        return create(id, platforms, title, PlatformState.SCHEDULED, publishAt);
+    }
+
+    private static PublishJob create(
+            String id,
+            List<String> platforms,
+            String title,
+            PlatformState state,
+            Instant publishAt) {
+        Map<String, PlatformStatus> statuses = new LinkedHashMap<>();
+        platforms.forEach(platform -> statuses.put(platform.toLowerCase(), PlatformStatus.of(state)));
+        Instant now = Instant.now();
+        return new PublishJob(id, title, now, now, statuses, publishAt);
+    }
+
+    /**
+     * Returns a copy of this job with the status of one platform replaced.
+     *
+     * @param platform the platform whose status changed
+     * @param status the new status of the platform
+     * @return a new PublishJob reflecting the change
+     */
+    public PublishJob withPlatformStatus(String platform, PlatformStatus status) {
+        Map<String, PlatformStatus> statuses = new LinkedHashMap<>(platforms);
+        statuses.put(platform.toLowerCase(), status);
+        return new PublishJob(id, title, createdAt, Instant.now(), statuses, publishAt);
+    }
+
+    /**
+     * Returns whether every platform of the job has reached a terminal state.
+     *
+     * @return true if the job has finished
+     */
+    public boolean isFinished() {
+        return platforms.values().stream().allMatch(status -> status.state().isTerminal());
+    }
+}
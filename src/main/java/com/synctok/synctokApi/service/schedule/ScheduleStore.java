@@ -0,0 +1,156 @@
+package com.synctok.synctokApi.service.schedule;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Persistent store of the publishes waiting for their scheduled time, so schedules survive restarts.
+ * Each publish is written as a JSON document in the schedule directory, atomically through a temporary file, next to
+ * the video it publishes. A publish is removed from the store once it is due; its video is deleted by the pipeline
+ * after publishing.
+ */
+@Component
+public final class ScheduleStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleStore.class);
+    private static final Pattern SAFE_ID = Pattern.compile("[A-Za-z0-9-]+");
+    private static final String RECORD_SUFFIX = ".json";
+    private static final String VIDEO_SUFFIX = ".video";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructs a new ScheduleStore.
+     *
+     * @param directory    the directory in which scheduled publishes and their videos are stored
+     * @param objectMapper the ObjectMapper used to serialize scheduled publishes
+     * @throws IOException if the directory cannot be created
+     */
+    @Autowired
+    public ScheduleStore(
+            @Value("${synctok.schedule.directory}") String directory,
+            ObjectMapper objectMapper) throws IOException {
+        this.directory = Files.createDirectories(Path.of(directory));
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the file in which the video of a scheduled publish is kept.
+     *
+     * @param jobId the identifier of the publish job
+     * @return the path of the video file
+     */
+    public Path videoFile(String jobId) {
+        return directory.resolve(checkedId(jobId) + VIDEO_SUFFIX);
+    }
+
+    /**
+     * Stores a scheduled publish, replacing any publish of the same job.
+     *
+     * @param publish the scheduled publish
+     */
+    public void save(ScheduledPublish publish) {
+        try {
+            Path temp = Files.createTempFile(directory, publish.jobId(), ".tmp");
+            objectMapper.writeValue(temp.toFile(), publish);
+            Files.move(temp, recordFile(publish.jobId()), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write schedule of job " + publish.jobId(), e);
+        }
+    }
+
+    /**
+     * Looks up the scheduled publish of a job.
+     *
+     * @param jobId the identifier of the publish job
+     * @return the scheduled publish, or an empty Optional if the job has no pending schedule
+     */
+    public Optional<ScheduledPublish> find(String jobId) {
+        if (!SAFE_ID.matcher(jobId).matches()) {
+            return Optional.empty();
+        }
+        Path file = recordFile(jobId);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(file.toFile(), ScheduledPublish.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read schedule of job " + jobId, e);
+        }
+    }
+
+    /**
+     * Removes the scheduled publish of a job, leaving its video in place.
+     *
+     * @param jobId the identifier of the publish job
+     * @return true if the job had a pending schedule
+     */
+    public boolean remove(String jobId) {
+        try {
+            return Files.deleteIfExists(recordFile(jobId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to remove schedule of job " + jobId, e);
+        }
+    }
+
+    /**
+     * Reads back every pending scheduled publish, for example after a restart.
+     * Videos left behind by publishes that were removed but never published are deleted.
+     *
+     * @return the pending scheduled publishes
+     * @throws IOException if the directory cannot be listed
+     */
+    public List<ScheduledPublish> recover() throws IOException {
+        List<ScheduledPublish> pending = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(RECORD_SUFFIX)) {
+                    readQuietly(file).ifPresent(pending::add);
+                } else if (name.endsWith(VIDEO_SUFFIX)
+                        && !Files.exists(recordFile(name.substring(0, name.length() - VIDEO_SUFFIX.length())))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        return pending;
+    }
+
+    private Optional<ScheduledPublish> readQuietly(Path file) {
+        try {
+            return Optional.of(objectMapper.readValue(file.toFile(), ScheduledPublish.class));
+        } catch (IOException e) {
+            logger.warn("Skipping unreadable scheduled publish {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    private Path recordFile(String jobId) {
+        return directory.resolve(checkedId(jobId) + RECORD_SUFFIX);
+    }
+
+    private static String checkedId(String jobId) {
+        if (!SAFE_ID.matcher(jobId).matches()) {
+            throw new IllegalArgumentException("Invalid job id: " + jobId);
+        }
+        return jobId;
+    }
+}
@@ -0,0 +1,48 @@
+package com.synctok.synctokApi.service.schedule;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A publish waiting for its scheduled time, as persisted by the {@link ScheduleStore}.
+ * The video itself is kept next to the record in the store, so the record only carries its metadata.
+ *
+ * @param jobId       the identifier of the publish job
+ * @param publishAt   the time at which the video goes live
+ * @param title       the title of the video
+ * @param caption     the caption of the video, or null to use the title
+ * @param platforms   the platforms to publish the video to
+ * @param filename    the original filename of the video
+ * @param contentType the MIME type of the video, may be null
+ * @param fingerprint the hex-encoded SHA-256 digest of the video
+ * @param videoUrl    the public URL the video was staged at ahead of time, or null if it has not been staged
+ */
+public record ScheduledPublish(
+        String jobId,
+        Instant publishAt,
+        String title,
+        String caption,
+        List<String> platforms,
+        String filename,
+        String contentType,
+        String fingerprint,
+        String videoUrl) {
+
+    /**
+     * Creates a ScheduledPublish, defensively copying the platforms.
+     */
+    public ScheduledPublish {
+        platforms = List.copyOf(platforms);
+    }
+
+    /**
+     * Returns a copy of this publish carrying the URL the video was staged at.
+     *
+     * @param url the public URL of the staged video
+     * @return a new ScheduledPublish with the URL set
+     */
+    public ScheduledPublish withVideoUrl(String url) {
+        return new ScheduledPublish(jobId, publishAt, title, caption, platforms, filename, contentType, fingerprint,
+                url);
+    }
+}
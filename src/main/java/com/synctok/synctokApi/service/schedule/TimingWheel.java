@@ -0,0 +1,124 @@
+package com.synctok.synctokApi.service.schedule;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel holding any number of tasks due at a future time.
+ * Time is divided into ticks; a task due at tick {@code n} is kept in bucket {@code n % wheelSize}, together with
+ * the tasks due one or more turns of the wheel later. Advancing the wheel only visits the buckets of the ticks that
+ * have passed, so scheduling is O(1) and the cost of a tick depends on the tasks in one bucket rather than on all
+ * pending tasks. Tasks never fire early, and fire at most one tick late.
+ * Tasks may be scheduled from any thread. They are handed to the wheel through a lock-free queue and placed in their
+ * bucket when the wheel next advances, so scheduling never waits for a tick in progress.
+ *
+ * @param <T> the type of the tasks
+ */
+public final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final Instant origin;
+    private final int mask;
+    private final List<List<Entry<T>>> buckets;
+    private final Queue<Entry<T>> added = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantLock advanceLock = new ReentrantLock();
+    private long nextTick;
+
+    /**
+     * Constructs a new TimingWheel.
+     *
+     * @param tick      the duration of one tick, which is the precision of the wheel
+     * @param wheelSize the number of buckets, a power of two
+     * @param origin    the time of the first tick
+     * @throws IllegalArgumentException if the tick is not positive or the wheel size is not a power of two
+     */
+    public TimingWheel(Duration tick, int wheelSize, Instant origin) {
+        if (tick.toMillis() <= 0) {
+            throw new IllegalArgumentException("The tick must be at least one millisecond: " + tick);
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("The wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickMillis = tick.toMillis();
+        this.origin = origin;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules a task. A task that is already due fires at the next tick.
+     *
+     * @param task     the task
+     * @param deadline the time at which the task is due
+     */
+    public void schedule(T task, Instant deadline) {
+        long millis = Duration.between(origin, deadline).toMillis();
+        added.add(new Entry<>(task, Math.ceilDiv(Math.max(millis, 0), tickMillis)));
+        size.incrementAndGet();
+    }
+
+    /**
+     * Advances the wheel through every tick up to the given time and hands the tasks that became due to the consumer,
+     * in the order of their ticks. The consumer is called without holding any lock of the wheel.
+     *
+     * @param now      the current time
+     * @param onExpiry the consumer receiving the tasks that became due
+     * @return the number of tasks that became due
+     */
+    public int advance(Instant now, Consumer<T> onExpiry) {
+        long lastTick = Math.floorDiv(Duration.between(origin, now).toMillis(), tickMillis);
+        List<T> expired = new ArrayList<>();
+        advanceLock.lock();
+        try {
+            while (nextTick <= lastTick) {
+                transferAdded();
+                long tick = nextTick;
+                buckets.get((int) (tick & mask)).removeIf(entry -> {
+                    if (entry.deadlineTick() > tick) {
+                        return false;
+                    }
+                    expired.add(entry.task());
+                    return true;
+                });
+                nextTick++;
+            }
+        } finally {
+            advanceLock.unlock();
+        }
+        size.addAndGet(-expired.size());
+        expired.forEach(onExpiry);
+        return expired.size();
+    }
+
+    /**
+     * Returns the number of tasks that have not become due yet.
+     *
+     * @return the number of pending tasks
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private void transferAdded() {
+        Entry<T> entry;
+        while ((entry = added.poll()) != null) {
+            // Overdue tasks go into the bucket of the tick being processed, so they still fire in this pass
+            long tick = Math.max(entry.deadlineTick(), nextTick);
+            buckets.get((int) (tick & mask)).add(entry);
+        }
+    }
+
+    private record Entry<T>(T task, long deadlineTick) {
+    }
+}
@@ -1,36 +1,87 @@
 package com.synctok.synctokApi.service.strategy;
 
 import com.synctok.synctokApi.client.InstagramClient;
+import com.synctok.synctokApi.client.InstagramContainerPoller;
+import com.synctok.synctokApi.exception.MediaNotReadyException;
+import com.synctok.synctokApi.exception.MediaPublishException;
+import com.synctok.synctokApi.media.VideoMetadata;
+import com.synctok.synctokApi.ratelimit.RateLimiter;
+import com.synctok.synctokApi.service.executor.PublishingExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * Implementation of UrlPlatformStrategy for Instagram video publishing.
  * This class handles the process of uploading and publishing videos to Instagram.
+ * The media container is published only once the poller reports that Instagram has finished processing it,
+ * and the publish call then goes back through the instagram lane rather than running on the poller's thread.
+ * When Instagram answers that the media is not available yet, the container goes back to the poller instead of
+ * the lane sleeping on it, up to a fixed number of publish attempts.
+ * Every publish is charged against the account's daily posts budget before it takes a slot of the lane.
  */
 @Component
 public final class InstagramStrategy implements UrlPlatformStrategy {
-    private String videoUrl;
+    private static final String PLATFORM = "instagram";
+    private static final int MAX_PUBLISH_ATTEMPTS = 5;
+
     private final InstagramClient instagramClient;
+    private final InstagramContainerPoller containerPoller;
+    private final PublishingExecutor publishingExecutor;
+    private final RateLimiter rateLimiter;
 
     /**
      * Constructs a new InstagramStrategy with the specified InstagramClient.
      *
      * @param instagramClient the client used for interacting with Instagram's API
+     * @param containerPoller the poller reporting when media containers are ready to be published
+     * @param publishingExecutor the executor running the publish call in the instagram lane
+     * @param rateLimiter the limiter holding back posts over the account's daily budget
      */
     @Autowired
-    public InstagramStrategy(InstagramClient instagramClient) {
+    public InstagramStrategy(
+            InstagramClient instagramClient,
+            InstagramContainerPoller containerPoller,
+            PublishingExecutor publishingExecutor,
+            RateLimiter rateLimiter) {
         this.instagramClient = instagramClient;
+        this.containerPoller = containerPoller;
+        this.publishingExecutor = publishingExecutor;
+        this.rateLimiter = rateLimiter;
     }
 
     @Override
-    public void setVideoUrl(String videoUrl) {
-        this.videoUrl = videoUrl;
+    public void validate(VideoMetadata metadata) {
+        InstagramClient.LIMITS.check(PLATFORM, metadata);
     }
 
     @Override
-    public void publishVideo(String title) {
-        String mediaContainerId = instagramClient.createMediaContainer(videoUrl, title);
-        instagramClient.publishMedia(mediaContainerId);
+    public CompletableFuture<Void> reserveBudget(PublishContext context) {
+        return rateLimiter.reserve(PLATFORM, instagramClient.getAccount(), "posts", 1);
+    }
+
+    @Override
+    public CompletableFuture<String> publishVideo(PublishContext context) {
+        String mediaContainerId = instagramClient.createMediaContainer(context.videoUrl(), context.caption());
+        return publishWhenFinished(mediaContainerId, 1);
+    }
+
+    private CompletableFuture<String> publishWhenFinished(String mediaContainerId, int attempt) {
+        return containerPoller.awaitFinished(mediaContainerId)
+                .thenCompose(ready -> publishingExecutor.submit(PLATFORM,
+                        () -> instagramClient.publishMedia(mediaContainerId)))
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (!(cause instanceof MediaNotReadyException notReady)) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                    if (attempt >= MAX_PUBLISH_ATTEMPTS) {
+                        return CompletableFuture.failedFuture(new MediaPublishException(
+                                "Failed to publish media after " + attempt + " attempts", notReady, mediaContainerId));
+                    }
+                    return publishWhenFinished(mediaContainerId, attempt + 1);
+                });
     }
 }
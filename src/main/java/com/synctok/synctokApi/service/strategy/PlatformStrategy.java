@@ -1,10 +1,14 @@
 package com.synctok.synctokApi.service.strategy;
 
+import com.synctok.synctokApi.media.VideoMetadata;
+
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface defining the strategy for publishing videos to different platforms.
  * This interface is part of the strategy pattern implementation for multi-platform video publishing.
+ * Implementations are stateless: everything about a publish is carried by its {@link PublishContext}.
  */
 public interface PlatformStrategy {
 
@@ -12,9 +16,34 @@ public interface PlatformStrategy {
      * Publishes a video to the platform.
      * The specific implementation of this method will handle the details of
      * uploading and publishing the video on the respective platform.
+     * The upload happens on the calling thread; the returned future completes once the platform
+     * has finished processing the video, which may happen later without holding any thread.
      *
-     * @param title the title of the video to be published
+     * @param context the video, metadata and options of this publish
+     * @return a CompletableFuture completed with the platform's ID of the published video
      * @throws IOException if there is an error during the video publishing process
      */
-    void publishVideo(String title) throws IOException;
+    CompletableFuture<String> publishVideo(PublishContext context) throws IOException;
+
+    /**
+     * Reserves the platform budget a publish will spend, before the publish takes a slot of the platform's lane,
+     * so a publish held back by a rate limit waits without occupying the lane.
+     * The default reserves nothing.
+     *
+     * @param context the video, metadata and options of this publish
+     * @return a CompletableFuture completed once the publish may start
+     */
+    default CompletableFuture<Void> reserveBudget(PublishContext context) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Checks that a video meets the platform's limits, before any of it is uploaded anywhere.
+     * The default accepts every video.
+     *
+     * @param metadata the metadata of the spooled video
+     * @throws com.synctok.synctokApi.exception.InvalidVideoException if the platform would reject the video
+     */
+    default void validate(VideoMetadata metadata) {
+    }
 }
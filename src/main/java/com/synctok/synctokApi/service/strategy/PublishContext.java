@@ -0,0 +1,65 @@
+package com.synctok.synctokApi.service.strategy;
+
+import com.synctok.synctokApi.media.VideoSource;
+
+import java.util.Map;
+
+/**
+ * Immutable description of a single publish handed to a {@link PlatformStrategy}.
+ * A new context is built for every platform of every job, so strategies can be shared
+ * singletons and still run any number of publishes concurrently.
+ *
+ * @param jobId    the identifier of the job this publish belongs to
+ * @param source   the spooled video, used by file-based platforms
+ * @param videoUrl the public URL of the staged video, used by URL-based platforms; may be null for file-based ones
+ * @param title    the title of the video
+ * @param caption  the caption or description of the video; defaults to the title when absent
+ * @param options  platform-specific options for this publish
+ */
+public record PublishContext(
+        String jobId,
+        VideoSource source,
+        String videoUrl,
+        String title,
+        String caption,
+        Map<String, String> options) {
+
+    /**
+     * Creates a context, falling back to the title when no caption is given.
+     */
+    public PublishContext {
+        caption = caption == null || caption.isBlank() ? title : caption;
+        options = options == null ? Map.of() : Map.copyOf(options);
+    }
+
+    /**
+     * Returns a copy of this context carrying the given staged video URL.
+     *
+     * @param url the public URL of the staged video
+     * @return a new context with the URL set
+     */
+    public PublishContext withVideoUrl(String url) {
+        return new PublishContext(jobId, source, url, title, caption, options);
+    }
+
+    /**
+     * Returns a copy of this context carrying another video, such as a platform's own rendition.
+     *
+     * @param video the spooled video to publish instead
+     * @return a new context with the video set
+     */
+    public PublishContext withSource(VideoSource video) {
+        return new PublishContext(jobId, video, videoUrl, title, caption, options);
+    }
+
+    /**
+     * Returns the value of a platform-specific option.
+     *
+     * @param key          the name of the option
+     * @param defaultValue the value returned when the option is not set
+     * @return the value of the option, or the default value
+     */
+    public String option(String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+}
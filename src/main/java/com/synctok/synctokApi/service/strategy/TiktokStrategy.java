@@ -2,40 +2,147 @@ package com.synctok.synctokApi.service.strategy;
 
 import com.synctok.synctokApi.client.TiktokClient;
 import com.synctok.synctokApi.client.TiktokClient.VideoUploadInitializationResult;
+import com.synctok.synctokApi.client.UploadCheckpoint;
+import com.synctok.synctokApi.client.UploadCheckpointStore;
+import com.synctok.synctokApi.exception.TiktokVideoPublishingException;
+import com.synctok.synctokApi.media.VideoMetadata;
+import com.synctok.synctokApi.ratelimit.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implementation of FilePlatformStrategy for TikTok video publishing.
  * This class handles the process of uploading and publishing videos to TikTok.
+ * Upload progress is checkpointed per video content, so publishing the same video again after a failure or a
+ * restart resumes from the last acknowledged chunk instead of starting over. A checkpoint is claimed by one
+ * publish at a time; a job publishing a video whose checkpoint is already claimed uploads it to a URL of its own
+ * without checkpointing it.
  */
 @Component
 public final class TiktokStrategy implements FilePlatformStrategy {
-    private MultipartFile videoFile;
+    private static final String PLATFORM = "tiktok";
+    private static final String CHECKPOINT_PREFIX = "tiktok-";
+    private static final Logger logger = LoggerFactory.getLogger(TiktokStrategy.class);
+
     private final TiktokClient tiktokClient;
+    private final UploadCheckpointStore checkpointStore;
+    private final Duration checkpointTtl;
+    private final RateLimiter rateLimiter;
+    private final Set<String> claimedCheckpoints = ConcurrentHashMap.newKeySet();
 
     /**
      * Constructs a new TiktokStrategy with the specified TiktokClient.
      *
      * @param tiktokClient the client used for interacting with TikTok's API
+     * @param checkpointStore the store recording the progress of chunked uploads
+     * @param checkpointTtl how long an initialized upload can be resumed, bounded by the upload URL's validity
+     * @param rateLimiter the limiter holding back upload initializations over the account's request budget,
+     *                    reserved before the upload takes a slot of the tiktok lane
      */
     @Autowired
-    public TiktokStrategy(TiktokClient tiktokClient) {
+    public TiktokStrategy(
+            TiktokClient tiktokClient,
+            UploadCheckpointStore checkpointStore,
+            @Value("${tiktok.upload.checkpoint-ttl}") Duration checkpointTtl,
+            RateLimiter rateLimiter) {
         this.tiktokClient = tiktokClient;
+        this.checkpointStore = checkpointStore;
+        this.checkpointTtl = checkpointTtl;
+        this.rateLimiter = rateLimiter;
     }
 
     @Override
-    public void setVideoFile(MultipartFile videoFile) {
-        this.videoFile = videoFile;
+    public void validate(VideoMetadata metadata) {
+        TiktokClient.LIMITS.check(PLATFORM, metadata);
     }
 
     @Override
-    public void publishVideo(String title) throws IOException {
+    public CompletableFuture<Void> reserveBudget(PublishContext context) {
+        // Only the initialization counts against TikTok's per-user request rate; chunks go to the upload URL,
+        // so an upload that will be resumed reserves nothing
+        try {
+            String key = checkpointKey(context);
+            if (!claimedCheckpoints.contains(key) && resumableCheckpoint(key, context).isPresent()) {
+                return CompletableFuture.completedFuture(null);
+            }
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return rateLimiter.reserve(PLATFORM, tiktokClient.getAccount(), "requests", 1);
+    }
+
+    @Override
+    public CompletableFuture<String> publishVideo(PublishContext context) throws IOException {
+        String key = checkpointKey(context);
+        if (!claimedCheckpoints.add(key)) {
+            logger.info("Tiktok upload of the same video is in progress, uploading job {} separately",
+                    context.jobId());
+            VideoUploadInitializationResult upload = tiktokClient.initializeVideoPublish(
+                    context.source(), context.caption());
+            tiktokClient.publishVideo(context.source(), upload.uploadUrl());
+            return CompletableFuture.completedFuture(upload.publishId());
+        }
+        try {
+            return CompletableFuture.completedFuture(publishCheckpointed(key, context));
+        } finally {
+            claimedCheckpoints.remove(key);
+        }
+    }
+
+    private String publishCheckpointed(String key, PublishContext context) {
+        Optional<UploadCheckpoint> resumable = resumableCheckpoint(key, context);
+        resumable.ifPresent(existing ->
+                logger.info("Resuming Tiktok upload {} for job {}", existing.publishId(), context.jobId()));
+        UploadCheckpoint checkpoint = resumable.orElseGet(() -> initialize(key, context));
+
+        try {
+            tiktokClient.publishVideo(context.source(), checkpoint.uploadUrl(), checkpoint.acknowledgedChunks(),
+                    chunkIndex -> checkpointStore.acknowledge(key, chunkIndex));
+        } catch (TiktokVideoPublishingException e) {
+            if (e.getCause() instanceof HttpClientErrorException rejection
+                    && rejection.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS) {
+                // The upload itself was rejected, so resuming it later would fail the same way
+                checkpointStore.delete(key);
+            }
+            throw e;
+        }
+        checkpointStore.delete(key);
+        return checkpoint.publishId();
+    }
+
+    private static String checkpointKey(PublishContext context) throws IOException {
+        return CHECKPOINT_PREFIX + context.source().getFingerprint();
+    }
+
+    private Optional<UploadCheckpoint> resumableCheckpoint(String key, PublishContext context) {
+        return checkpointStore.find(key)
+                .filter(checkpoint -> !checkpoint.isExpired(checkpointTtl)
+                        && checkpoint.totalSize() == context.source().getSize()
+                        && checkpoint.title().equals(context.caption()));
+    }
+
+    private UploadCheckpoint initialize(String key, PublishContext context) {
         VideoUploadInitializationResult videoInitializationResult = tiktokClient.initializeVideoPublish(
-                videoFile, title
+                context.source(), context.caption()
         );
-        tiktokClient.publishVideo(videoFile, videoInitializationResult.uploadUrl());
+        UploadCheckpoint checkpoint = UploadCheckpoint.start(
+                videoInitializationResult.publishId(),
+                videoInitializationResult.uploadUrl(),
+                context.caption(),
+                context.source().getSize());
+        checkpointStore.save(key, checkpoint);
+        return checkpoint;
     }
 }
@@ -2,15 +2,8 @@ package com.synctok.synctokApi.service.strategy;
 
 /**
  * Interface for platform strategies that handle URL-based video uploads.
- * This interface extends PlatformStrategy and adds functionality specific to
- * platforms that accept video URLs for publishing.
+ * This interface extends PlatformStrategy and marks platforms that accept video URLs
+ * for publishing; they read the staged video URL from {@link PublishContext#videoUrl()}.
  */
 public interface UrlPlatformStrategy extends PlatformStrategy {
-
-    /**
-     * Sets the URL of the video to be published on the platform.
-     *
-     * @param videoUrl the URL of the video to be published
-     */
-    void setVideoUrl(String videoUrl);
 }
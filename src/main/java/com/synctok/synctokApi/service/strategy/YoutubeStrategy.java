@@ -1,37 +1,58 @@
 package com.synctok.synctokApi.service.strategy;
 
 import com.synctok.synctokApi.client.YoutubeClient;
+import com.synctok.synctokApi.media.VideoMetadata;
+import com.synctok.synctokApi.ratelimit.RateLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.multipart.MultipartFile;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Implementation of FilePlatformStrategy for YouTube video publishing.
  * This class handles the process of uploading and publishing videos to YouTube.
+ * Every upload is charged against the account's YouTube Data API quota before it takes a slot of the youtube
+ * lane, so uploads beyond the daily quota wait for it to refill instead of failing with {@code quotaExceeded}.
  */
 @Component
 public final class YoutubeStrategy implements FilePlatformStrategy {
-    private MultipartFile videoFile;
+    private static final String PLATFORM = "youtube";
+
     private final YoutubeClient youtubeClient;
+    private final RateLimiter rateLimiter;
+    private final long uploadQuotaCost;
 
     /**
      * Constructs a new YoutubeStrategy with the specified YoutubeClient.
      *
      * @param youtubeClient the client used for interacting with YouTube's API
+     * @param rateLimiter the limiter holding back uploads over the account's quota
+     * @param uploadQuotaCost the quota units charged by YouTube for a video upload
      */
     @Autowired
-    public YoutubeStrategy(YoutubeClient youtubeClient) {
+    public YoutubeStrategy(
+            YoutubeClient youtubeClient,
+            RateLimiter rateLimiter,
+            @Value("${synctok.rate-limit.youtube.quota.upload-cost}") long uploadQuotaCost) {
         this.youtubeClient = youtubeClient;
+        this.rateLimiter = rateLimiter;
+        this.uploadQuotaCost = uploadQuotaCost;
+    }
+
+    @Override
+    public void validate(VideoMetadata metadata) {
+        YoutubeClient.LIMITS.check(PLATFORM, metadata);
     }
 
     @Override
-    public void setVideoFile(MultipartFile videoFile) {
-        this.videoFile = videoFile;
+    public CompletableFuture<Void> reserveBudget(PublishContext context) {
+        return rateLimiter.reserve(PLATFORM, youtubeClient.getAccount(), "quota", uploadQuotaCost);
     }
 
     @Override
-    public void publishVideo(String title) {
-        String publishedVideoUrl = youtubeClient.publishVideo(videoFile, title, "description");
-        System.out.println("Video published to Youtube with the id: " + publishedVideoUrl);
+    public CompletableFuture<String> publishVideo(PublishContext context) {
+        String publishedVideoId = youtubeClient.publishVideo(context.source(), context.title(), context.caption());
+        return CompletableFuture.completedFuture(publishedVideoId);
     }
 }
@@ -0,0 +1,62 @@
+package com.synctok.synctokApi.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BackoffPollerTest {
+
+    private final BackoffPoller<String> poller = new BackoffPoller<>(
+            "test", Duration.ofMillis(1), Duration.ofMillis(5), 2.0, Duration.ofSeconds(5));
+
+    @AfterEach
+    void tearDown() {
+        poller.shutdown();
+    }
+
+    @Test
+    void await_ChecksAgainUntilReadyAndSharesThePoll() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        BackoffPoller.Check check = () -> checks.incrementAndGet() == 3;
+
+        CompletableFuture<String> first = poller.await("key", "ready", Duration.ZERO, check, IOException::new);
+        CompletableFuture<String> second = poller.await("key", "other", Duration.ZERO, check, IOException::new);
+
+        assertSame(first, second);
+        assertEquals("ready", first.get(5, TimeUnit.SECONDS));
+        assertEquals(3, checks.get());
+        assertEquals(0, poller.getPendingCount());
+    }
+
+    @Test
+    void await_FailsWhenCheckFailsOrTimesOut() {
+        BackoffPoller<String> impatient = new BackoffPoller<>(
+                "impatient", Duration.ofMillis(1), Duration.ofMillis(5), 2.0, Duration.ofMillis(20));
+        try {
+            CompletableFuture<String> failed = poller.await("failed", "ready", Duration.ZERO,
+                    () -> {
+                        throw new IOException("gone");
+                    }, IllegalStateException::new);
+            CompletableFuture<String> late = impatient.await("late", "ready", Duration.ZERO,
+                    () -> false, () -> new IOException("late"));
+
+            assertInstanceOf(IOException.class,
+                    assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS)).getCause());
+            assertEquals("late",
+                    assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS)).getCause().getMessage());
+        } finally {
+            impatient.shutdown();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.synctok.synctokApi.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkUploaderTest {
+
+    @Test
+    void split_LastChunkHoldsRemainder() {
+        List<ChunkUploader.Chunk> chunks = ChunkUploader.split(25, 10);
+
+        assertEquals(3, chunks.size());
+        assertEquals("bytes 0-9/25", chunks.get(0).contentRange());
+        assertEquals("bytes 20-24/25", chunks.get(2).contentRange());
+        assertEquals(5, chunks.get(2).length());
+    }
+
+    @Test
+    void upload_SequentialSendsChunksInOrder() {
+        List<Integer> sent = new ArrayList<>();
+
+        new ChunkUploader(1).upload(30, 10, chunk -> sent.add(chunk.index()));
+
+        assertEquals(List.of(0, 1, 2), sent);
+    }
+
+    @Test
+    void upload_CapsChunksInFlight() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Set<Integer> sent = ConcurrentHashMap.newKeySet();
+
+        new ChunkUploader(3).upload(100, 10, chunk -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.add(chunk.index());
+            inFlight.decrementAndGet();
+        });
+
+        assertEquals(10, sent.size());
+        assertTrue(maxInFlight.get() > 1);
+        assertTrue(maxInFlight.get() <= 3);
+    }
+
+    @Test
+    void upload_RethrowsFirstChunkFailure() {
+        ChunkUploader uploader = new ChunkUploader(4);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> uploader.upload(100, 10, chunk -> {
+                    if (chunk.index() == 2) {
+                        throw new IllegalStateException("chunk 2 failed");
+                    }
+                }));
+
+        assertEquals("chunk 2 failed", exception.getMessage());
+    }
+
+    @Test
+    void upload_RetriesRetryableFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+        ChunkUploader uploader = new ChunkUploader(1, 3, Duration.ZERO, e -> e instanceof IllegalStateException);
+
+        uploader.upload(10, 10, chunk -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("transient");
+            }
+        });
+
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void upload_DoesNotRetryPermanentFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+        ChunkUploader uploader = new ChunkUploader(1, 3, Duration.ZERO, e -> e instanceof IllegalStateException);
+
+        assertThrows(IllegalArgumentException.class, () -> uploader.upload(10, 10, chunk -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("permanent");
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void constructor_RejectsNonPositiveParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new ChunkUploader(0));
+    }
+}
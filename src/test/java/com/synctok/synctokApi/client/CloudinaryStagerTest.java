@@ -0,0 +1,112 @@
+package com.synctok.synctokApi.client;
+
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.media.VideoSpooler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CloudinaryStagerTest {
+
+    private static final String VIDEO_URL = "https://res.cloudinary.com/demo/video/upload/v1573064751/sample.mp4";
+    private static final String REEL_URL =
+            "https://res.cloudinary.com/demo/video/upload/c_pad,ar_9:16/vc_h264/v1573064751/sample.mp4";
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private CloudinaryClient cloudinaryClient;
+
+    @Mock
+    private VideoSource videoSource;
+
+    private CloudinaryStager cloudinaryStager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("cloudinary.renditions.instagram", "c_pad,ar_9:16/vc_h264")
+                .withProperty("cloudinary.renditions.tiktok", "c_pad,ar_9:16/vc_h264")
+                .withProperty("cloudinary.renditions.youtube", "du_60")
+                .withProperty("cloudinary.renditions.facebook", " ");
+        cloudinaryStager = new CloudinaryStager(cloudinaryClient, new VideoSpooler(directory.toString(), true),
+                environment, Duration.ofMillis(10), Duration.ofMillis(20), 2, Duration.ofMillis(200));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cloudinaryStager.destroy();
+    }
+
+    @Test
+    void stage_RequestsTheRenditionsOfEveryPlatformInTheUpload() throws IOException {
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of("c_pad,ar_9:16/vc_h264", "du_60")))
+                .thenReturn(VIDEO_URL);
+
+        String url = cloudinaryStager.stage(videoSource, List.of("Instagram", "tiktok", "youtube", "facebook"));
+
+        assertEquals(VIDEO_URL, url);
+        assertTrue(cloudinaryStager.hasRendition("YouTube"));
+        assertEquals(List.of(), cloudinaryStager.transformationsFor(List.of("facebook", "snapchat")));
+    }
+
+    @Test
+    void renditionUrl_InsertsTheTransformationAfterTheUploadPath() {
+        assertEquals(REEL_URL, CloudinaryStager.renditionUrl(VIDEO_URL, "c_pad,ar_9:16/vc_h264"));
+        assertThrows(IllegalArgumentException.class,
+                () -> CloudinaryStager.renditionUrl("https://example.com/video.mp4", "du_60"));
+    }
+
+    @Test
+    void awaitRendition_CompletesOnceCloudinaryServesTheRendition() throws Exception {
+        when(cloudinaryClient.isAvailable(REEL_URL)).thenReturn(false, false, true);
+
+        CompletableFuture<String> first = cloudinaryStager.awaitRendition(VIDEO_URL, "instagram");
+        CompletableFuture<String> second = cloudinaryStager.awaitRendition(VIDEO_URL, "tiktok");
+
+        assertSame(first, second);
+        assertEquals(REEL_URL, first.get(5, TimeUnit.SECONDS));
+        verify(cloudinaryClient, times(3)).isAvailable(REEL_URL);
+        assertEquals(0, cloudinaryStager.getPendingCount());
+    }
+
+    @Test
+    void awaitRendition_ReturnsTheOriginalForPlatformsWithoutRendition() throws Exception {
+        assertEquals(VIDEO_URL, cloudinaryStager.awaitRendition(VIDEO_URL, "facebook").get());
+        verify(cloudinaryClient, never()).isAvailable(VIDEO_URL);
+    }
+
+    @Test
+    void awaitRendition_FailsWhenTheRenditionIsNotReadyInTime() throws IOException {
+        when(cloudinaryClient.isAvailable(REEL_URL)).thenReturn(false);
+
+        CompletableFuture<String> rendition = cloudinaryStager.awaitRendition(VIDEO_URL, "instagram");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rendition.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, e.getCause());
+    }
+}
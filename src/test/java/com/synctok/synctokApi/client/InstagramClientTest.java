@@ -1,6 +1,10 @@
 package com.synctok.synctokApi.client;
 import com.synctok.synctokApi.exception.MediaContainerCreationException;
+import com.synctok.synctokApi.exception.MediaNotReadyException;
 import com.synctok.synctokApi.exception.MediaPublishException;
+import com.synctok.synctokApi.metrics.PublishMetrics;
+import com.synctok.synctokApi.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -27,12 +31,21 @@ class InstagramClientTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private RateLimiter rateLimiter;
+
     private InstagramClient instagramClient;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PublishMetrics publishMetrics = new PublishMetrics(meterRegistry);
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        instagramClient = new InstagramClient(restTemplate, "test-token", "test-account-id");
+        instagramClient = new InstagramClient(
+                restTemplate, "test-token", "test-account-id", "https://graph.facebook.com/v20.0", publishMetrics,
+                rateLimiter);
     }
 
     @Test
@@ -90,35 +103,16 @@ class InstagramClientTest {
     }
 
     @Test
-    void publishMedia_RetrySuccess() {
+    void publishMedia_MediaNotAvailableYet() {
         String creationId = "123456";
         String errorResponseBody = "{\"error\":{\"message\":\"Media ID is not available\"}}";
-        String successResponseBody = "{\"id\":\"published-123\"}";
-
-        ResponseEntity<String> successResponse = new ResponseEntity<>(successResponseBody, HttpStatus.OK);
 
         doThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST, "Bad Request", errorResponseBody.getBytes(), null))
-                .doThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST, "Bad Request", errorResponseBody.getBytes(), null))
-                .doReturn(successResponse)
                 .when(restTemplate).postForEntity(anyString(), any(), eq(String.class));
 
-        String result = instagramClient.publishMedia(creationId);
+        assertThrows(MediaNotReadyException.class, () -> instagramClient.publishMedia(creationId));
 
-        assertEquals("published-123", result);
-        verify(restTemplate, times(3)).postForEntity(contains("/media_publish"), any(), eq(String.class));
-    }
-
-    @Test
-    void publishMedia_MaxRetriesExceeded() {
-        String creationId = "123456";
-        String errorResponseBody = "{\"error\":{\"message\":\"Media ID is not available\"}}";
-
-        doThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST, "Bad Request", errorResponseBody.getBytes(), null))
-                .when(restTemplate).postForEntity(anyString(), any(), eq(String.class));
-
-        assertThrows(MediaPublishException.class, () -> instagramClient.publishMedia(creationId));
-
-        verify(restTemplate, times(5)).postForEntity(contains("/media_publish"), any(), eq(String.class));
+        verify(restTemplate, times(1)).postForEntity(contains("/media_publish"), any(), eq(String.class));
     }
 
     @Test
@@ -0,0 +1,123 @@
+package com.synctok.synctokApi.client;
+
+import com.synctok.synctokApi.exception.MediaPublishException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InstagramContainerPollerTest {
+
+    @Mock
+    private InstagramClient instagramClient;
+
+    private InstagramContainerPoller poller;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        poller = new InstagramContainerPoller(
+                instagramClient, Duration.ofMillis(1), Duration.ofMillis(5), 2.0, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        poller.destroy();
+    }
+
+    @Test
+    void awaitFinished_CompletesWhenContainerFinishes() {
+        when(instagramClient.checkContainerStatus("123"))
+                .thenReturn("IN_PROGRESS", "IN_PROGRESS", "FINISHED");
+
+        CompletableFuture<Void> future = poller.awaitFinished("123");
+
+        assertDoesNotThrow(() -> future.get(5, TimeUnit.SECONDS));
+        verify(instagramClient, times(3)).checkContainerStatus("123");
+        assertEquals(0, poller.getPendingCount());
+    }
+
+    @Test
+    void awaitFinished_FailsWhenProcessingFails() {
+        when(instagramClient.checkContainerStatus("123")).thenReturn("ERROR");
+
+        CompletableFuture<Void> future = poller.awaitFinished("123");
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(MediaPublishException.class, exception.getCause());
+        assertTrue(exception.getCause().getMessage().contains("ERROR"));
+    }
+
+    @Test
+    void awaitFinished_FailsAfterTimeout() {
+        InstagramContainerPoller impatient = new InstagramContainerPoller(
+                instagramClient, Duration.ofMillis(1), Duration.ofMillis(5), 2.0, Duration.ofMillis(20));
+        when(instagramClient.checkContainerStatus("123")).thenReturn("IN_PROGRESS");
+
+        try {
+            CompletableFuture<Void> future = impatient.awaitFinished("123");
+
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(MediaPublishException.class, exception.getCause());
+        } finally {
+            impatient.destroy();
+        }
+    }
+
+    @Test
+    void awaitFinished_SharesPollForSameContainer() {
+        when(instagramClient.checkContainerStatus("123")).thenReturn("IN_PROGRESS", "FINISHED");
+
+        CompletableFuture<Void> first = poller.awaitFinished("123");
+        CompletableFuture<Void> second = poller.awaitFinished("123");
+
+        assertSame(first, second);
+        assertDoesNotThrow(() -> first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void awaitFinished_ChecksAgainAfterTransientFailure() {
+        when(instagramClient.checkContainerStatus("123"))
+                .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+                .thenThrow(new MediaPublishException("Failed to check container status",
+                        new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS), "123"))
+                .thenReturn("FINISHED");
+
+        CompletableFuture<Void> future = poller.awaitFinished("123");
+
+        assertDoesNotThrow(() -> future.get(5, TimeUnit.SECONDS));
+        verify(instagramClient, times(3)).checkContainerStatus("123");
+    }
+
+    @Test
+    void awaitFinished_FailsWhenStatusCannotBeRead() {
+        when(instagramClient.checkContainerStatus("123"))
+                .thenThrow(new MediaPublishException("Failed to check container status",
+                        new HttpClientErrorException(HttpStatus.BAD_REQUEST), "123"));
+
+        CompletableFuture<Void> future = poller.awaitFinished("123");
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(MediaPublishException.class, exception.getCause());
+    }
+}
@@ -0,0 +1,66 @@
+package com.synctok.synctokApi.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.synctok.synctokApi.exception.MalformedResponseException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PlatformJsonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void tiktokInitRequest_WritesPostAndSourceInfo() throws Exception {
+        JsonNode body = objectMapper.readTree(PlatformJson.tiktokInitRequest("My \"video\" #synctok", 12L, 10, 2));
+
+        assertEquals("My \"video\" #synctok", body.at("/post_info/title").asText());
+        assertEquals("SELF_ONLY", body.at("/post_info/privacy_level").asText());
+        assertEquals("FILE_UPLOAD", body.at("/source_info/source").asText());
+        assertEquals(12L, body.at("/source_info/video_size").asLong());
+        assertEquals(10, body.at("/source_info/chunk_size").asInt());
+        assertEquals(2, body.at("/source_info/total_chunk_count").asInt());
+    }
+
+    @Test
+    void youtubeVideoMetadata_WritesPrivateVideo() throws Exception {
+        JsonNode body = objectMapper.readTree(PlatformJson.youtubeVideoMetadata("Title", "Line one\nLine two"));
+
+        assertEquals("Title", body.at("/snippet/title").asText());
+        assertEquals("Line one\nLine two", body.at("/snippet/description").asText());
+        assertEquals("22", body.at("/snippet/categoryId").asText());
+        assertEquals("private", body.at("/status/privacyStatus").asText());
+    }
+
+    @Test
+    void requireStrings_ReadsFieldsOfNestedObjectSkippingTheRest() {
+        String body = "{\"error\":{\"code\":\"ok\",\"upload_url\":\"wrong\"},"
+                + "\"data\":{\"publish_id\":\"p-1\",\"extra\":[1,{\"upload_url\":\"wrong\"}],"
+                + "\"upload_url\":\"https://u\"}}";
+
+        String[] values = PlatformJson.requireStrings(body, "data", "upload_url", "publish_id");
+
+        assertArrayEquals(new String[] {"https://u", "p-1"}, values);
+    }
+
+    @Test
+    void readString_ReturnsNullForMissingOrNullFields() {
+        assertEquals("17841400008460056", PlatformJson.readString("{\"id\":17841400008460056}", "id"));
+        assertNull(PlatformJson.readString("{\"url\":null}", "url"));
+        assertNull(PlatformJson.readString("{\"done\":true}", "url"));
+    }
+
+    @Test
+    void requireString_RejectsMalformedResponses() {
+        assertThrows(MalformedResponseException.class, () -> PlatformJson.requireString("{\"name\":\"x\"}", "id"));
+        assertThrows(MalformedResponseException.class, () -> PlatformJson.requireString("[\"id\"]", "id"));
+        assertThrows(MalformedResponseException.class, () -> PlatformJson.requireString("{\"id\":", "id"));
+        assertThrows(MalformedResponseException.class, () -> PlatformJson.requireString(null, "id"));
+        assertThrows(MalformedResponseException.class,
+                () -> PlatformJson.requireStrings("{\"data\":\"none\"}", "data", "publish_id"));
+    }
+}
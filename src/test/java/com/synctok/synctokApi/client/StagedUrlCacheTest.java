@@ -0,0 +1,90 @@
+package com.synctok.synctokApi.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StagedUrlCacheTest {
+
+    private static final String URL = "https://res.cloudinary.com/demo/video/upload/clip.mp4";
+
+    @TempDir
+    private Path tempDir;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Test
+    void find_ReturnsStagedUrl() throws IOException {
+        StagedUrlCache cache = new StagedUrlCache(Duration.ofHours(1), 10, false, tempDir.toString(), objectMapper);
+
+        cache.put("abc123", URL);
+
+        assertEquals(Optional.of(URL), cache.find("abc123"));
+        assertEquals(Optional.empty(), cache.find("def456"));
+    }
+
+    @Test
+    void find_IgnoresExpiredEntries() throws IOException {
+        StagedUrlCache cache = new StagedUrlCache(Duration.ZERO, 10, false, tempDir.toString(), objectMapper);
+
+        cache.put("abc123", URL);
+
+        assertEquals(Optional.empty(), cache.find("abc123"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_EvictsLeastRecentlyUsedEntry() throws IOException {
+        StagedUrlCache cache = new StagedUrlCache(Duration.ofHours(1), 2, false, tempDir.toString(), objectMapper);
+
+        cache.put("aaa", URL + "?a");
+        cache.put("bbb", URL + "?b");
+        cache.find("aaa");
+        cache.put("ccc", URL + "?c");
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.find("aaa").isPresent());
+        assertFalse(cache.find("bbb").isPresent());
+        assertTrue(cache.find("ccc").isPresent());
+    }
+
+    @Test
+    void find_ReadsPersistentTierAfterRestart() throws IOException {
+        new StagedUrlCache(Duration.ofHours(1), 10, true, tempDir.toString(), objectMapper).put("abc123", URL);
+
+        StagedUrlCache reopened = new StagedUrlCache(Duration.ofHours(1), 10, true, tempDir.toString(), objectMapper);
+
+        assertEquals(0, reopened.size());
+        assertEquals(Optional.of(URL), reopened.find("abc123"));
+    }
+
+    @Test
+    void constructor_PrunesExpiredPersistentEntries() throws IOException {
+        new StagedUrlCache(Duration.ofHours(1), 10, true, tempDir.toString(), objectMapper).put("abc123", URL);
+
+        new StagedUrlCache(Duration.ZERO, 10, true, tempDir.toString(), objectMapper);
+
+        assertFalse(Files.exists(tempDir.resolve("abc123.json")));
+    }
+
+    @Test
+    void find_IgnoresMissingFingerprint() throws IOException {
+        StagedUrlCache cache = new StagedUrlCache(Duration.ofHours(1), 10, false, tempDir.toString(), objectMapper);
+
+        cache.put(null, URL);
+
+        assertEquals(Optional.empty(), cache.find(null));
+        assertEquals(0, cache.size());
+    }
+}
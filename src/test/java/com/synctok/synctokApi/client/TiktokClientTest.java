@@ -1,19 +1,33 @@
 package com.synctok.synctokApi.client;
 
 import com.synctok.synctokApi.exception.TiktokVideoPublishingException;
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.media.VideoSources;
+import com.synctok.synctokApi.metrics.PublishMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -21,6 +35,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class TiktokClientTest {
@@ -29,16 +45,39 @@ class TiktokClientTest {
     private RestTemplate restTemplate;
 
     @Mock
-    private MultipartFile mockMultipartFile;
+    private VideoSource mockVideoSource;
+
+    @TempDir
+    private Path tempDir;
+
+    private VideoSource spooledVideo;
 
     private TiktokClient tiktokClient;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PublishMetrics publishMetrics = new PublishMetrics(meterRegistry);
+
     private static final String ACCESS_TOKEN = "test_access_token";
+    private static final String TIKTOK_API = "https://open.tiktokapis.com";
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        tiktokClient = new TiktokClient(restTemplate, ACCESS_TOKEN);
+        tiktokClient = new TiktokClient(
+                restTemplate, ACCESS_TOKEN, TIKTOK_API, 1, 1, Duration.ZERO, publishMetrics);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (spooledVideo != null) {
+            spooledVideo.close();
+        }
+    }
+
+    private VideoSource spoolVideo(int size) throws IOException {
+        spooledVideo = VideoSources.open(tempDir, size);
+        return spooledVideo;
     }
 
     @Test
@@ -52,9 +91,9 @@ class TiktokClientTest {
                 eq(String.class)
         )).thenReturn(responseEntity);
 
-        when(mockMultipartFile.getSize()).thenReturn(1024L); // 1 KB file size
+        when(mockVideoSource.getSize()).thenReturn(1024L); // 1 KB file size
 
-        TiktokClient.VideoUploadInitializationResult result = tiktokClient.initializeVideoPublish(mockMultipartFile, "Test Video Title");
+        TiktokClient.VideoUploadInitializationResult result = tiktokClient.initializeVideoPublish(mockVideoSource, "Test Video Title");
 
         assertEquals("https://example.com/upload", result.uploadUrl());
         assertEquals("1234567890", result.publishId());
@@ -62,16 +101,16 @@ class TiktokClientTest {
 
     @Test
     void initializeVideoPublish_FileTooLarge() {
-        when(mockMultipartFile.getSize()).thenReturn(501L * 1024 * 1024); // 501 MB, exceeding the 500 MB limit
+        when(mockVideoSource.getSize()).thenReturn(501L * 1024 * 1024); // 501 MB, exceeding the 500 MB limit
 
         assertThrows(TiktokVideoPublishingException.class,
-                () -> tiktokClient.initializeVideoPublish(mockMultipartFile, "Test Video Title"),
+                () -> tiktokClient.initializeVideoPublish(mockVideoSource, "Test Video Title"),
                 "File size exceeds maximum allowed size");
     }
 
     @Test
     void initializeVideoPublish_HttpClientErrorException() {
-        when(mockMultipartFile.getSize()).thenReturn(1024L); // 1 KB file size
+        when(mockVideoSource.getSize()).thenReturn(1024L); // 1 KB file size
         when(restTemplate.exchange(
                 eq("https://open.tiktokapis.com/v2/post/publish/video/init/"),
                 eq(HttpMethod.POST),
@@ -80,13 +119,13 @@ class TiktokClientTest {
         )).thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST, "Bad Request"));
 
         TiktokVideoPublishingException exception = assertThrows(TiktokVideoPublishingException.class,
-                () -> tiktokClient.initializeVideoPublish(mockMultipartFile, "Test Video Title"));
+                () -> tiktokClient.initializeVideoPublish(mockVideoSource, "Test Video Title"));
         assertTrue(exception.getMessage().startsWith("Failed to initialize video upload:"));
     }
 
     @Test
     void initializeVideoPublish_InvalidJsonResponse() {
-        when(mockMultipartFile.getSize()).thenReturn(1024L); // 1 KB file size
+        when(mockVideoSource.getSize()).thenReturn(1024L); // 1 KB file size
         String invalidResponse = "Invalid JSON";
         ResponseEntity<String> responseEntity = new ResponseEntity<>(invalidResponse, HttpStatus.OK);
         when(restTemplate.exchange(
@@ -97,13 +136,13 @@ class TiktokClientTest {
         )).thenReturn(responseEntity);
 
         TiktokVideoPublishingException exception = assertThrows(TiktokVideoPublishingException.class,
-                () -> tiktokClient.initializeVideoPublish(mockMultipartFile, "Test Video Title"));
+                () -> tiktokClient.initializeVideoPublish(mockVideoSource, "Test Video Title"));
         assertEquals("Failed to parse response", exception.getMessage());
     }
 
     @Test
     void initializeVideoPublish_NullResponse() throws IOException {
-        when(mockMultipartFile.getSize()).thenReturn(1024L); // 1 KB file size
+        when(mockVideoSource.getSize()).thenReturn(1024L); // 1 KB file size
         ResponseEntity<String> responseEntity = new ResponseEntity<>(null, HttpStatus.OK);
         when(restTemplate.exchange(
                 eq("https://open.tiktokapis.com/v2/post/publish/video/init/"),
@@ -113,14 +152,13 @@ class TiktokClientTest {
         )).thenReturn(responseEntity);
 
         TiktokVideoPublishingException exception = assertThrows(TiktokVideoPublishingException.class,
-                () -> tiktokClient.initializeVideoPublish(mockMultipartFile, "Test Video Title"));
+                () -> tiktokClient.initializeVideoPublish(mockVideoSource, "Test Video Title"));
         assertEquals("Received empty response from server", exception.getMessage());
     }
 
     @Test
     void publishVideo_Success() throws IOException {
-        when(mockMultipartFile.getSize()).thenReturn(10L * 1024 * 1024); // 10 MB file size
-        when(mockMultipartFile.getBytes()).thenReturn(new byte[10 * 1024 * 1024]);
+        VideoSource video = spoolVideo(10 * 1024 * 1024); // 10 MB file size
 
         String mockResponseBody = "{\"success\":true}";
         ResponseEntity<String> responseEntity = new ResponseEntity<>(mockResponseBody, HttpStatus.CREATED);
@@ -132,13 +170,128 @@ class TiktokClientTest {
                 eq(String.class)
         )).thenReturn(responseEntity);
 
-        assertDoesNotThrow(() -> tiktokClient.publishVideo(mockMultipartFile, "https://example.com/upload"));
+        assertDoesNotThrow(() -> tiktokClient.publishVideo(video, "https://example.com/upload"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishVideo_StreamsChunkRangesFromSource() throws IOException {
+        VideoSource video = spoolVideo(6 * 1024 * 1024); // 6 MB file size, two chunks
+        ResponseEntity<String> responseEntity = new ResponseEntity<>("{\"success\":true}", HttpStatus.CREATED);
+        when(restTemplate.exchange(
+                eq("https://example.com/upload"),
+                eq(HttpMethod.PUT),
+                any(HttpEntity.class),
+                eq(String.class)
+        )).thenReturn(responseEntity);
+
+        tiktokClient.publishVideo(video, "https://example.com/upload");
+
+        ArgumentCaptor<HttpEntity<Resource>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(2)).exchange(
+                eq("https://example.com/upload"), eq(HttpMethod.PUT), captor.capture(), eq(String.class));
+        List<HttpEntity<Resource>> requests = captor.getAllValues();
+        assertEquals("bytes 0-5242879/6291456", requests.get(0).getHeaders().getFirst("Content-Range"));
+        assertEquals(5L * 1024 * 1024, requests.get(0).getBody().contentLength());
+        assertEquals("bytes 5242880-6291455/6291456", requests.get(1).getHeaders().getFirst("Content-Range"));
+        assertEquals(1024L * 1024, requests.get(1).getBody().contentLength());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishVideo_UploadsChunksInParallel() throws IOException {
+        TiktokClient parallelClient = new TiktokClient(
+                restTemplate, ACCESS_TOKEN, TIKTOK_API, 3, 1, Duration.ZERO, publishMetrics);
+        VideoSource video = spoolVideo(16 * 1024 * 1024); // 16 MB file size, four chunks
+        when(restTemplate.exchange(
+                eq("https://example.com/upload"),
+                eq(HttpMethod.PUT),
+                any(HttpEntity.class),
+                eq(String.class)
+        )).thenReturn(new ResponseEntity<>("{\"success\":true}", HttpStatus.CREATED));
+
+        parallelClient.publishVideo(video, "https://example.com/upload");
+
+        ArgumentCaptor<HttpEntity<Resource>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(4)).exchange(
+                eq("https://example.com/upload"), eq(HttpMethod.PUT), captor.capture(), eq(String.class));
+        Set<String> ranges = captor.getAllValues().stream()
+                .map(request -> request.getHeaders().getFirst("Content-Range"))
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(
+                "bytes 0-5242879/16777216",
+                "bytes 5242880-10485759/16777216",
+                "bytes 10485760-15728639/16777216",
+                "bytes 15728640-16777215/16777216"), ranges);
+    }
+
+    @Test
+    void publishVideo_RetriesTransientChunkFailure() throws IOException {
+        TiktokClient retryingClient = new TiktokClient(
+                restTemplate, ACCESS_TOKEN, TIKTOK_API, 1, 3, Duration.ZERO, publishMetrics);
+        VideoSource video = spoolVideo(6 * 1024 * 1024); // 6 MB file size, two chunks
+        when(restTemplate.exchange(
+                eq("https://example.com/upload"),
+                eq(HttpMethod.PUT),
+                any(HttpEntity.class),
+                eq(String.class)
+        )).thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+                .thenReturn(new ResponseEntity<>("{\"success\":true}", HttpStatus.CREATED));
+        List<Integer> acknowledged = new ArrayList<>();
+
+        retryingClient.publishVideo(video, "https://example.com/upload", Set.of(), acknowledged::add);
+
+        verify(restTemplate, times(3)).exchange(
+                eq("https://example.com/upload"), eq(HttpMethod.PUT), any(HttpEntity.class), eq(String.class));
+        assertEquals(List.of(0, 1), acknowledged);
+        assertEquals(1, meterRegistry.get("synctok.publish.retries").tag("stage", "chunk").counter().count());
+        assertEquals(6 * 1024 * 1024, meterRegistry.get("synctok.publish.bytes").counter().count());
+        assertEquals(1, meterRegistry.get("synctok.publish.stage")
+                .tags("stage", "chunk", "outcome", "failure").timer().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishVideo_SkipsAcknowledgedChunks() throws IOException {
+        VideoSource video = spoolVideo(6 * 1024 * 1024); // 6 MB file size, two chunks
+        when(restTemplate.exchange(
+                eq("https://example.com/upload"),
+                eq(HttpMethod.PUT),
+                any(HttpEntity.class),
+                eq(String.class)
+        )).thenReturn(new ResponseEntity<>("{\"success\":true}", HttpStatus.CREATED));
+        List<Integer> acknowledged = new ArrayList<>();
+
+        tiktokClient.publishVideo(video, "https://example.com/upload", Set.of(0), acknowledged::add);
+
+        ArgumentCaptor<HttpEntity<Resource>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).exchange(
+                eq("https://example.com/upload"), eq(HttpMethod.PUT), captor.capture(), eq(String.class));
+        assertEquals("bytes 5242880-6291455/6291456", captor.getValue().getHeaders().getFirst("Content-Range"));
+        assertEquals(List.of(1), acknowledged);
+    }
+
+    @Test
+    void publishVideo_GivesUpAfterMaxAttempts() throws IOException {
+        TiktokClient retryingClient = new TiktokClient(
+                restTemplate, ACCESS_TOKEN, TIKTOK_API, 1, 2, Duration.ZERO, publishMetrics);
+        VideoSource video = spoolVideo(1024);
+        when(restTemplate.exchange(
+                eq("https://example.com/upload"),
+                eq(HttpMethod.PUT),
+                any(HttpEntity.class),
+                eq(String.class)
+        )).thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+        assertThrows(TiktokVideoPublishingException.class,
+                () -> retryingClient.publishVideo(video, "https://example.com/upload"));
+        verify(restTemplate, times(2)).exchange(
+                eq("https://example.com/upload"), eq(HttpMethod.PUT), any(HttpEntity.class), eq(String.class));
     }
 
     @Test
     void uploadVideo_ChunkPublishFailure() throws IOException {
-        when(mockMultipartFile.getSize()).thenReturn(10L * 1024 * 1024); // 10 MB file size
-        when(mockMultipartFile.getBytes()).thenReturn(new byte[10 * 1024 * 1024]);
+        VideoSource video = spoolVideo(10 * 1024 * 1024); // 10 MB file size
 
         when(restTemplate.exchange(
                 eq("https://example.com/upload"),
@@ -148,7 +301,7 @@ class TiktokClientTest {
         )).thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST, "Bad Request"));
 
         assertThrows(TiktokVideoPublishingException.class,
-                () -> tiktokClient.publishVideo(mockMultipartFile, "https://example.com/upload"),
+                () -> tiktokClient.publishVideo(video, "https://example.com/upload"),
                 "Failed to upload video chunk: 400 Bad Request");
     }
 }
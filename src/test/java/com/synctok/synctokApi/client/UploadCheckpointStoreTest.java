@@ -0,0 +1,90 @@
+package com.synctok.synctokApi.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadCheckpointStoreTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private UploadCheckpointStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+        store = new UploadCheckpointStore(tempDir.toString(), Duration.ofHours(1), objectMapper);
+    }
+
+    @Test
+    void save_PersistsCheckpointAcrossInstances() throws IOException {
+        store.save("tiktok-abc", UploadCheckpoint.start("publish-1", "https://example.com/upload", "title", 100));
+
+        UploadCheckpointStore reopened = new UploadCheckpointStore(
+                tempDir.toString(), Duration.ofHours(1), JsonMapper.builder().findAndAddModules().build());
+
+        UploadCheckpoint checkpoint = reopened.find("tiktok-abc").orElseThrow();
+        assertEquals("publish-1", checkpoint.publishId());
+        assertEquals("https://example.com/upload", checkpoint.uploadUrl());
+        assertTrue(checkpoint.acknowledgedChunks().isEmpty());
+    }
+
+    @Test
+    void acknowledge_RecordsConcurrentChunks() {
+        store.save("tiktok-abc", UploadCheckpoint.start("publish-1", "https://example.com/upload", "title", 100));
+
+        IntStream.range(0, 20).parallel().forEach(chunk -> store.acknowledge("tiktok-abc", chunk));
+
+        assertEquals(20, store.find("tiktok-abc").orElseThrow().acknowledgedChunks().size());
+    }
+
+    @Test
+    void delete_RemovesCheckpoint() {
+        store.save("tiktok-abc", UploadCheckpoint.start("publish-1", "https://example.com/upload", "title", 100));
+
+        store.delete("tiktok-abc");
+
+        assertFalse(store.find("tiktok-abc").isPresent());
+    }
+
+    @Test
+    void evictExpired_DeletesCheckpointsOlderThanTtl() {
+        store.save("tiktok-old", new UploadCheckpoint("publish-1", "https://example.com/upload", "title", 100,
+                Set.of(0), Instant.now().minus(Duration.ofHours(2))));
+        store.save("tiktok-new", UploadCheckpoint.start("publish-2", "https://example.com/upload", "title", 100));
+
+        store.evictExpired();
+
+        assertFalse(store.find("tiktok-old").isPresent());
+        assertTrue(store.find("tiktok-new").isPresent());
+    }
+
+    @Test
+    void find_RejectsUnsafeKey() {
+        assertThrows(IllegalArgumentException.class, () -> store.find("../outside"));
+    }
+
+    @Test
+    void isExpired_ComparesAgeWithMaxAge() {
+        UploadCheckpoint old = new UploadCheckpoint("publish-1", "https://example.com/upload", "title", 100,
+                Set.of(), Instant.now().minus(Duration.ofHours(2)));
+
+        assertTrue(old.isExpired(Duration.ofHours(1)));
+        assertFalse(old.isExpired(Duration.ofHours(3)));
+    }
+}
@@ -1,19 +1,33 @@
 package com.synctok.synctokApi.client;
 
 import com.synctok.synctokApi.exception.YoutubeVideoPublishingException;
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.media.VideoSources;
+import com.synctok.synctokApi.metrics.PublishMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -22,60 +36,98 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class YoutubeClientTest {
 
+    private static final String ACCESS_TOKEN = "test_access_token";
+    private static final String UPLOAD_URL = "https://www.googleapis.com/upload/youtube/v3/videos";
+    private static final String SESSION_URL = "https://example.com/upload/session-1";
+    private static final int CHUNK_SIZE = 256 * 1024;
+
     @Mock
     private RestTemplate restTemplate;
 
     @Mock
-    private MultipartFile mockMultipartFile;
+    private VideoSource mockVideoSource;
+
+    @TempDir
+    private Path tempDir;
+
+    private VideoSource spooledVideo;
 
     private YoutubeClient youtubeClient;
 
-    private static final String ACCESS_TOKEN = "test_access_token";
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PublishMetrics publishMetrics = new PublishMetrics(meterRegistry);
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        youtubeClient = new YoutubeClient(restTemplate, ACCESS_TOKEN);
+        youtubeClient = new YoutubeClient(
+                restTemplate, ACCESS_TOKEN, UPLOAD_URL, DataSize.ofBytes(CHUNK_SIZE), 3, Duration.ZERO, publishMetrics);
     }
 
-    @Test
-    void publishVideo_Success() throws IOException {
-        String successResponse = "{\"id\":\"test-video-id\"}";
-        ResponseEntity<String> responseEntity = new ResponseEntity<>(successResponse, HttpStatus.OK);
+    @AfterEach
+    void tearDown() throws IOException {
+        if (spooledVideo != null) {
+            spooledVideo.close();
+        }
+    }
+
+    private VideoSource spoolVideo(int size) throws IOException {
+        spooledVideo = VideoSources.open(tempDir, size);
+        return spooledVideo;
+    }
+
+    private void givenSession() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setLocation(URI.create(SESSION_URL));
         when(restTemplate.exchange(
                 anyString(),
                 eq(HttpMethod.POST),
                 any(HttpEntity.class),
                 eq(String.class)
-        )).thenReturn(responseEntity);
+        )).thenReturn(new ResponseEntity<>(null, headers, HttpStatus.OK));
+    }
+
+    private static ResponseEntity<String> resumeIncomplete(long lastByte) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=0-" + lastByte);
+        return new ResponseEntity<>(null, headers, HttpStatusCode.valueOf(308));
+    }
+
+    private static ResponseEntity<String> completed() {
+        return new ResponseEntity<>("{\"id\":\"test-video-id\"}", HttpStatus.OK);
+    }
 
-        when(mockMultipartFile.getSize()).thenReturn(1024L); // 1 KB file size
-        when(mockMultipartFile.getBytes()).thenReturn(new byte[1024]);
-        when(mockMultipartFile.getOriginalFilename()).thenReturn("test-video.mp4");
+    @Test
+    void publishVideo_Success() throws IOException {
+        VideoSource video = spoolVideo(1024); // 1 KB file size, a single chunk
+        givenSession();
+        when(restTemplate.exchange(eq(SESSION_URL), eq(HttpMethod.PUT), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(completed());
 
-        String result = youtubeClient.publishVideo(mockMultipartFile, "Test Video Title", "Test Description");
+        String result = youtubeClient.publishVideo(video, "Test Video Title", "Test Description");
 
         assertEquals("test-video-id", result);
     }
 
     @Test
     void publishVideo_FileTooLarge() {
-        when(mockMultipartFile.getSize()).thenReturn(257L * 1024 * 1024 * 1024); // 257 GB, exceeding the 256 GB limit
+        when(mockVideoSource.getSize()).thenReturn(257L * 1024 * 1024 * 1024); // 257 GB, exceeding the 256 GB limit
 
         assertThrows(YoutubeVideoPublishingException.class,
-                () -> youtubeClient.publishVideo(mockMultipartFile, "Test Video Title", "Test Description"),
+                () -> youtubeClient.publishVideo(mockVideoSource, "Test Video Title", "Test Description"),
                 "File size exceeds maximum allowed size");
     }
 
     @Test
-    void publishVideo_HttpClientErrorException() throws IOException {
-        when(mockMultipartFile.getSize()).thenReturn(1024L); // 1 KB file size
-        when(mockMultipartFile.getBytes()).thenReturn(new byte[1024]);
-        when(mockMultipartFile.getOriginalFilename()).thenReturn("test-video.mp4");
+    void publishVideo_HttpClientErrorException() {
+        when(mockVideoSource.getSize()).thenReturn(1024L); // 1 KB file size
 
         when(restTemplate.exchange(
                 anyString(),
@@ -85,15 +137,13 @@ class YoutubeClientTest {
         )).thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST, "Bad Request"));
 
         YoutubeVideoPublishingException exception = assertThrows(YoutubeVideoPublishingException.class,
-                () -> youtubeClient.publishVideo(mockMultipartFile, "Test Video Title", "Test Description"));
+                () -> youtubeClient.publishVideo(mockVideoSource, "Test Video Title", "Test Description"));
         assertTrue(exception.getMessage().startsWith("Failed to upload video:"));
     }
 
     @Test
-    void publishVideo_NonOkResponseStatus() throws IOException {
-        when(mockMultipartFile.getSize()).thenReturn(1024L); // 1 KB file size
-        when(mockMultipartFile.getBytes()).thenReturn(new byte[1024]);
-        when(mockMultipartFile.getOriginalFilename()).thenReturn("test-video.mp4");
+    void publishVideo_SessionWithoutLocation() {
+        when(mockVideoSource.getSize()).thenReturn(1024L); // 1 KB file size
 
         ResponseEntity<String> responseEntity = new ResponseEntity<>("", HttpStatus.CREATED);
         when(restTemplate.exchange(
@@ -104,30 +154,103 @@ class YoutubeClientTest {
         )).thenReturn(responseEntity);
 
         assertThrows(YoutubeVideoPublishingException.class,
-                () -> youtubeClient.publishVideo(mockMultipartFile, "Test Video Title", "Test Description"),
-                "Failed to upload video. Status code: 201");
+                () -> youtubeClient.publishVideo(mockVideoSource, "Test Video Title", "Test Description"),
+                "Failed to start upload session. Status code: 201");
     }
 
     @Test
     void publishVideo_PrivacyStatusSetToPrivate() throws IOException {
-        String successResponse = "{\"id\":\"test-video-id\"}";
-        ResponseEntity<String> responseEntity = new ResponseEntity<>(successResponse, HttpStatus.OK);
+        VideoSource video = spoolVideo(1024);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setLocation(URI.create(SESSION_URL));
         when(restTemplate.exchange(
                 anyString(),
                 eq(HttpMethod.POST),
                 argThat(entity -> {
                     String body = entity.getBody().toString();
-                    return body.contains("\"privacyStatus\":\"private\"");
+                    return body.contains("\"privacyStatus\":\"private\"")
+                            && "1024".equals(entity.getHeaders().getFirst("X-Upload-Content-Length"));
                 }),
                 eq(String.class)
-        )).thenReturn(responseEntity);
+        )).thenReturn(new ResponseEntity<>(null, headers, HttpStatus.OK));
+        when(restTemplate.exchange(eq(SESSION_URL), eq(HttpMethod.PUT), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(completed());
+
+        String result = youtubeClient.publishVideo(video, "Test Video Title", "Test Description");
+
+        assertEquals("test-video-id", result);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishVideo_StreamsChunksFromCommittedOffset() throws IOException {
+        VideoSource video = spoolVideo(2 * CHUNK_SIZE + 100);
+        givenSession();
+        // The session only commits part of the second chunk, so the third request starts where it stopped
+        when(restTemplate.exchange(eq(SESSION_URL), eq(HttpMethod.PUT), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(resumeIncomplete(CHUNK_SIZE - 1))
+                .thenReturn(resumeIncomplete(CHUNK_SIZE + 999))
+                .thenReturn(completed());
+
+        String result = youtubeClient.publishVideo(video, "Test Video Title", "Test Description");
+
+        assertEquals("test-video-id", result);
+        ArgumentCaptor<HttpEntity<?>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(3)).exchange(eq(SESSION_URL), eq(HttpMethod.PUT), captor.capture(), eq(String.class));
+        List<String> ranges = captor.getAllValues().stream()
+                .map(request -> request.getHeaders().getFirst("Content-Range"))
+                .toList();
+        assertEquals(List.of(
+                "bytes 0-262143/524388",
+                "bytes 262144-524287/524388",
+                "bytes 263144-524387/524388"), ranges);
+    }
 
-        when(mockMultipartFile.getSize()).thenReturn(1024L); // 1 KB file size
-        when(mockMultipartFile.getBytes()).thenReturn(new byte[1024]);
-        when(mockMultipartFile.getOriginalFilename()).thenReturn("test-video.mp4");
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishVideo_QueriesSessionAfterTransientFailure() throws IOException {
+        VideoSource video = spoolVideo(2 * CHUNK_SIZE);
+        givenSession();
+        when(restTemplate.exchange(eq(SESSION_URL), eq(HttpMethod.PUT), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(resumeIncomplete(CHUNK_SIZE - 1))
+                .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+                .thenReturn(resumeIncomplete(CHUNK_SIZE + 99))
+                .thenReturn(completed());
 
-        String result = youtubeClient.publishVideo(mockMultipartFile, "Test Video Title", "Test Description");
+        String result = youtubeClient.publishVideo(video, "Test Video Title", "Test Description");
 
         assertEquals("test-video-id", result);
+        ArgumentCaptor<HttpEntity<?>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(4)).exchange(eq(SESSION_URL), eq(HttpMethod.PUT), captor.capture(), eq(String.class));
+        List<String> ranges = captor.getAllValues().stream()
+                .map(request -> request.getHeaders().getFirst("Content-Range"))
+                .toList();
+        assertEquals(List.of(
+                "bytes 0-262143/524288",
+                "bytes 262144-524287/524288",
+                "bytes */524288",
+                "bytes 262244-524287/524288"), ranges);
+    }
+
+    @Test
+    void publishVideo_GivesUpAfterMaxAttempts() throws IOException {
+        VideoSource video = spoolVideo(1024);
+        givenSession();
+        when(restTemplate.exchange(eq(SESSION_URL), eq(HttpMethod.PUT), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY))
+                .thenReturn(resumeIncomplete(-1))
+                .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY))
+                .thenReturn(resumeIncomplete(-1))
+                .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+        assertThrows(YoutubeVideoPublishingException.class,
+                () -> youtubeClient.publishVideo(video, "Test Video Title", "Test Description"));
+    }
+
+    @Test
+    void constructor_RejectsChunkSizeNotMultipleOf256KiB() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new YoutubeClient(restTemplate, ACCESS_TOKEN, UPLOAD_URL, DataSize.ofKilobytes(100), 3,
+                        Duration.ZERO, publishMetrics));
     }
 }
@@ -0,0 +1,88 @@
+package com.synctok.synctokApi.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AppConfigTest {
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/fast", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void pooledRestTemplate_AppliesPlatformSettings() {
+        RestTemplate restTemplate = AppConfig.pooledRestTemplate(environment("200ms"), "tiktok");
+
+        assertEquals("ok", restTemplate.getForObject(url("/fast"), String.class));
+        assertEquals("ok", restTemplate.getForObject(url("/fast"), String.class));
+    }
+
+    @Test
+    void pooledRestTemplate_TimesOutWithoutRetrying() {
+        RestTemplate restTemplate = AppConfig.pooledRestTemplate(environment("200ms"), "tiktok");
+
+        ResourceAccessException exception = assertThrows(ResourceAccessException.class,
+                () -> restTemplate.getForObject(url("/slow"), String.class));
+
+        assertInstanceOf(SocketTimeoutException.class, exception.getCause());
+        assertEquals(1, requests.get());
+    }
+
+    private MockEnvironment environment(String readTimeout) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("synctok.http.tiktok.connect-timeout", "1s")
+                .withProperty("synctok.http.tiktok.read-timeout", readTimeout)
+                .withProperty("synctok.http.tiktok.idle-timeout", "30s")
+                .withProperty("synctok.http.tiktok.max-connections", "2");
+        environment.setConversionService(new ApplicationConversionService());
+        return environment;
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+}
@@ -1,22 +1,38 @@
 package com.synctok.synctokApi.controller;
 
+import com.synctok.synctokApi.exception.IdempotencyKeyMismatchException;
+import com.synctok.synctokApi.exception.InvalidBatchException;
+import com.synctok.synctokApi.exception.InvalidVideoException;
+import com.synctok.synctokApi.exception.JobNotFoundException;
+import com.synctok.synctokApi.exception.UnsupportedPlatformException;
+import com.synctok.synctokApi.service.BatchService;
+import com.synctok.synctokApi.service.PublishScheduler;
 import com.synctok.synctokApi.service.VideoService;
+import com.synctok.synctokApi.service.batch.BatchItemResult;
+import com.synctok.synctokApi.service.batch.BatchResult;
+import com.synctok.synctokApi.service.job.PlatformState;
+import com.synctok.synctokApi.service.job.PlatformStatus;
+import com.synctok.synctokApi.service.job.PublishJob;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.test.web.servlet.MvcResult;
 
-import java.util.concurrent.CompletableFuture;
+import java.time.Instant;
+import java.util.List;
 
+import static org.hamcrest.Matchers.endsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(VideoController.class)
@@ -28,41 +44,164 @@ public class VideoControllerTest {
     @MockBean
     private VideoService videoService;
 
+    @MockBean
+    private BatchService batchService;
+
+    @MockBean
+    private PublishScheduler publishScheduler;
+
+    private static final String MANIFEST = """
+            [{"video": "first.mp4", "title": "First", "platforms": ["tiktok"]},
+             {"video": "second.mp4", "title": "Second", "caption": "Hi", "platforms": ["youtube", "instagram"]}]
+            """;
+
     @Test
-    public void testPublishVideo_Success() throws Exception {
+    public void testPublishVideo_Accepted() throws Exception {
         MockMultipartFile videoFile = new MockMultipartFile("video", "test.mp4", "video/mp4", "test video content".getBytes());
+        PublishJob job = PublishJob.create(List.of("instagram", "tiktok"), "title");
 
-        when(videoService.publishVideo(any(), any(), any()))
-                .thenReturn(CompletableFuture.completedFuture(null));
+        when(videoService.submitVideo(any(), any(), any(), any(), any())).thenReturn(job);
 
-        MvcResult mvcResult = mockMvc.perform(multipart("/api/v1/video/publish")
+        mockMvc.perform(multipart("/api/v1/video/publish")
                         .file(videoFile)
-                        .param("platforms", "instagram,facebook")
+                        .param("platforms", "instagram,tiktok")
                         .param("title", "title"))
-                .andExpect(status().isOk())
-                .andReturn();
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", endsWith("/api/v1/video/jobs/" + job.id())))
+                .andExpect(jsonPath("$.id").value(job.id()))
+                .andExpect(jsonPath("$.platforms.instagram.state").value("QUEUED"))
+                .andExpect(jsonPath("$.platforms.tiktok.state").value("QUEUED"));
+    }
 
-        mockMvc.perform(asyncDispatch(mvcResult))
-                .andExpect(status().isOk())
-                .andExpect(content().string("Video successfully uploaded and published to instagram, facebook"));
+    @Test
+    public void testPublishVideo_ScheduledForLater() throws Exception {
+        MockMultipartFile videoFile = new MockMultipartFile("video", "test.mp4", "video/mp4", "test video content".getBytes());
+        Instant publishAt = Instant.parse("2030-01-01T09:00:00Z");
+        PublishJob job = PublishJob.scheduled("scheduled-1", List.of("tiktok"), "title", publishAt);
+
+        when(publishScheduler.schedule(any(), eq(List.of("tiktok")), eq("title"), any(), eq(publishAt), any()))
+                .thenReturn(job);
+
+        mockMvc.perform(multipart("/api/v1/video/publish")
+                        .file(videoFile)
+                        .param("platforms", "tiktok")
+                        .param("title", "title")
+                        .param("publishAt", "2030-01-01T09:00:00Z"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", endsWith("/api/v1/video/jobs/scheduled-1")))
+                .andExpect(jsonPath("$.publishAt").value("2030-01-01T09:00:00Z"))
+                .andExpect(jsonPath("$.platforms.tiktok.state").value("SCHEDULED"));
     }
 
     @Test
-    public void testPublishVideo_Error() throws Exception {
+    public void testPublishVideo_UnsupportedPlatform() throws Exception {
         MockMultipartFile videoFile = new MockMultipartFile("video", "test.mp4", "video/mp4", "test video content".getBytes());
 
-        when(videoService.publishVideo(any(), any(), any()))
-                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Publishing failed")));
+        when(videoService.submitVideo(any(), any(), any(), any(), any())).thenThrow(new UnsupportedPlatformException("facebook"));
 
-        MvcResult mvcResult = mockMvc.perform(multipart("/api/v1/video/publish")
+        mockMvc.perform(multipart("/api/v1/video/publish")
                         .file(videoFile)
                         .param("platforms", "instagram,facebook")
                         .param("title", "title"))
-                .andExpect(request().asyncStarted())
-                .andReturn();
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.platform").value("facebook"));
+    }
+
+    @Test
+    public void testPublishVideo_IdempotencyKeyReused() throws Exception {
+        MockMultipartFile videoFile = new MockMultipartFile("video", "test.mp4", "video/mp4", "test video content".getBytes());
+
+        when(videoService.submitVideo(any(), any(), any(), any(), eq("key-1")))
+                .thenThrow(new IdempotencyKeyMismatchException("key-1"));
+
+        mockMvc.perform(multipart("/api/v1/video/publish")
+                        .file(videoFile)
+                        .param("platforms", "tiktok")
+                        .param("title", "title")
+                        .header("Idempotency-Key", "key-1"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.idempotencyKey").value("key-1"));
+    }
+
+    @Test
+    public void testPublishVideo_InvalidVideo() throws Exception {
+        MockMultipartFile videoFile = new MockMultipartFile("video", "test.mp4", "video/mp4", "test video content".getBytes());
+
+        when(videoService.submitVideo(any(), any(), any(), any(), any()))
+                .thenThrow(new InvalidVideoException("tiktok", List.of("duration of PT20M is longer than PT10M")));
+
+        mockMvc.perform(multipart("/api/v1/video/publish")
+                        .file(videoFile)
+                        .param("platforms", "tiktok")
+                        .param("title", "title"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.error").value("Invalid Video"))
+                .andExpect(jsonPath("$.platform").value("tiktok"))
+                .andExpect(jsonPath("$.violations[0]").value("duration of PT20M is longer than PT10M"));
+    }
+
+    @Test
+    public void testPublishBatch_ReturnsItemResults() throws Exception {
+        PublishJob job = PublishJob.create(List.of("tiktok"), "First");
+        MockMultipartFile manifest = new MockMultipartFile("manifest", "", MediaType.APPLICATION_JSON_VALUE,
+                MANIFEST.getBytes());
+
+        when(batchService.submitBatch(argThat(items -> items.size() == 2
+                        && items.get(1).platforms().equals(List.of("youtube", "instagram"))
+                        && items.get(1).caption().equals("Hi")), argThat(videos -> videos.size() == 2), eq("batch-1")))
+                .thenReturn(BatchResult.of(List.of(
+                        BatchItemResult.accepted("first.mp4", job),
+                        BatchItemResult.rejected("second.mp4", "Unsupported platform: facebook"))));
+
+        mockMvc.perform(multipart("/api/v1/video/publish/batch")
+                        .file(manifest)
+                        .file(new MockMultipartFile("videos", "first.mp4", "video/mp4", new byte[] {1}))
+                        .file(new MockMultipartFile("videos", "second.mp4", "video/mp4", new byte[] {2}))
+                        .header("Idempotency-Key", "batch-1"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[0].job.id").value(job.id()))
+                .andExpect(jsonPath("$.items[1].error").value("Unsupported platform: facebook"));
+    }
+
+    @Test
+    public void testPublishBatch_InvalidBatch() throws Exception {
+        MockMultipartFile manifest = new MockMultipartFile("manifest", "", MediaType.APPLICATION_JSON_VALUE,
+                MANIFEST.getBytes());
+
+        when(batchService.submitBatch(any(), any(), any()))
+                .thenThrow(new InvalidBatchException("more than one video is named first.mp4"));
+
+        mockMvc.perform(multipart("/api/v1/video/publish/batch")
+                        .file(manifest)
+                        .file(new MockMultipartFile("videos", "first.mp4", "video/mp4", new byte[] {1})))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid Batch"));
+    }
+
+    @Test
+    public void testGetJob_ReturnsPlatformStates() throws Exception {
+        PublishJob job = PublishJob.create(List.of("instagram", "tiktok"), "title")
+                .withPlatformStatus("instagram", PlatformStatus.of(PlatformState.PUBLISHED))
+                .withPlatformStatus("tiktok", PlatformStatus.failed("Upload failed"));
+
+        when(videoService.getJob(job.id())).thenReturn(job);
+
+        mockMvc.perform(get("/api/v1/video/jobs/{id}", job.id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("title"))
+                .andExpect(jsonPath("$.platforms.instagram.state").value("PUBLISHED"))
+                .andExpect(jsonPath("$.platforms.tiktok.state").value("FAILED"))
+                .andExpect(jsonPath("$.platforms.tiktok.error").value("Upload failed"));
+    }
+
+    @Test
+    public void testGetJob_NotFound() throws Exception {
+        when(videoService.getJob("missing")).thenThrow(new JobNotFoundException("missing"));
 
-        mockMvc.perform(asyncDispatch(mvcResult))
-                .andExpect(status().isInternalServerError())
-                .andExpect(content().string("An error occurred while publishing the video: java.lang.RuntimeException: Publishing failed"));
+        mockMvc.perform(get("/api/v1/video/jobs/{id}", "missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.jobId").value("missing"));
     }
 }
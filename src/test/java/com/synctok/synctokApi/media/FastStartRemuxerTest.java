@@ -0,0 +1,137 @@
+package com.synctok.synctokApi.media;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static com.synctok.synctokApi.media.Mp4Boxes.box;
+import static com.synctok.synctokApi.media.Mp4Boxes.concat;
+import static com.synctok.synctokApi.media.Mp4Boxes.movie;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FastStartRemuxerTest {
+
+    private static final byte[] FIRST_CHUNK = "first-chunk".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SECOND_CHUNK = "second-chunk".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void remux_MovesMoovInFrontAndShiftsChunkOffsets() throws IOException {
+        byte[] ftyp = box("ftyp", "isom".getBytes(StandardCharsets.US_ASCII));
+        long firstChunk = ftyp.length + 8;
+        long secondChunk = firstChunk + FIRST_CHUNK.length;
+        byte[] moov = movie(1000, 5000, firstChunk, secondChunk);
+        byte[] file = concat(ftyp, box("mdat", concat(FIRST_CHUNK, SECOND_CHUNK)), moov);
+        Path target = tempDir.resolve("remuxed.mp4");
+
+        try (VideoSource source = VideoSources.open(tempDir, file)) {
+            assertTrue(FastStartRemuxer.needsRemux(source.getMetadata()));
+            assertTrue(FastStartRemuxer.remux(source, target));
+        }
+
+        byte[] remuxed = Files.readAllBytes(target);
+        assertEquals(file.length, remuxed.length);
+        assertArrayEquals(ftyp, Arrays.copyOf(remuxed, ftyp.length));
+        assertEquals("moov", new String(remuxed, ftyp.length + 4, 4, StandardCharsets.US_ASCII));
+        long[] offsets = chunkOffsets(remuxed);
+        assertEquals(firstChunk + moov.length, offsets[0]);
+        assertEquals(secondChunk + moov.length, offsets[1]);
+        assertArrayEquals(FIRST_CHUNK, Arrays.copyOfRange(remuxed, (int) offsets[0], (int) offsets[1]));
+        try (VideoSource source = VideoSource.open(target, "remuxed.mp4", "video/mp4")) {
+            assertTrue(source.getMetadata().isFastStart());
+        }
+    }
+
+    @Test
+    void remux_ShiftsDataAfterMoovWithLargeHeaderBack() throws IOException {
+        byte[] ftyp = box("ftyp", "isom".getBytes(StandardCharsets.US_ASCII));
+        byte[] firstMdat = box("mdat", FIRST_CHUNK);
+        long firstChunk = ftyp.length + 8;
+        // A 64-bit size header is 8 bytes longer than the compact one the moov box is written back with
+        long moovSize = movie(1000, 5000, 0, 0).length + 8;
+        long secondChunk = ftyp.length + firstMdat.length + moovSize + 8;
+        byte[] moov = largeHeader(movie(1000, 5000, firstChunk, secondChunk));
+        byte[] file = concat(ftyp, firstMdat, moov, box("mdat", SECOND_CHUNK));
+        Path target = tempDir.resolve("remuxed.mp4");
+
+        try (VideoSource source = VideoSources.open(tempDir, file)) {
+            assertTrue(FastStartRemuxer.remux(source, target));
+        }
+
+        byte[] remuxed = Files.readAllBytes(target);
+        assertEquals(file.length - 8, remuxed.length);
+        long[] offsets = chunkOffsets(remuxed);
+        assertEquals(firstChunk + moov.length - 8, offsets[0]);
+        assertEquals(secondChunk - 8, offsets[1]);
+        assertArrayEquals(FIRST_CHUNK,
+                Arrays.copyOfRange(remuxed, (int) offsets[0], (int) offsets[0] + FIRST_CHUNK.length));
+        assertArrayEquals(SECOND_CHUNK,
+                Arrays.copyOfRange(remuxed, (int) offsets[1], (int) offsets[1] + SECOND_CHUNK.length));
+        try (VideoSource source = VideoSource.open(target, "remuxed.mp4", "video/mp4")) {
+            assertTrue(source.getMetadata().isFastStart());
+        }
+    }
+
+    @Test
+    void remux_LeavesFastStartVideosAlone() throws IOException {
+        byte[] ftyp = box("ftyp", new byte[4]);
+        byte[] moov = movie(1000, 5000, 0);
+        byte[] file = concat(ftyp, moov, box("mdat", FIRST_CHUNK));
+        Path target = tempDir.resolve("untouched.mp4");
+
+        try (VideoSource source = VideoSources.open(tempDir, file)) {
+            assertFalse(FastStartRemuxer.needsRemux(source.getMetadata()));
+            assertFalse(FastStartRemuxer.remux(source, target));
+        }
+
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void remux_IgnoresOtherContainers() throws IOException {
+        try (VideoSource source = VideoSources.open(tempDir, new byte[] {0x1A, 0x45, (byte) 0xDF, (byte) 0xA3, 0, 0, 0, 0})) {
+            assertFalse(FastStartRemuxer.needsRemux(source.getMetadata()));
+            assertFalse(FastStartRemuxer.remux(source, tempDir.resolve("other.mp4")));
+        }
+    }
+
+    private static byte[] largeHeader(byte[] box) {
+        return ByteBuffer.allocate(box.length + 8)
+                .putInt(1)
+                .put(box, 4, 4)
+                .putLong(box.length + 8)
+                .put(box, 8, box.length - 8)
+                .array();
+    }
+
+    private static long[] chunkOffsets(byte[] file) {
+        int stco = indexOf(file, "stco".getBytes(StandardCharsets.US_ASCII));
+        ByteBuffer body = ByteBuffer.wrap(file, stco + 4, file.length - stco - 4);
+        body.getInt();
+        long[] offsets = new long[body.getInt()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = Integer.toUnsignedLong(body.getInt());
+        }
+        return offsets;
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            if (Arrays.equals(data, i, i + pattern.length, pattern, 0, pattern.length)) {
+                return i;
+            }
+        }
+        throw new AssertionError("pattern not found");
+    }
+}
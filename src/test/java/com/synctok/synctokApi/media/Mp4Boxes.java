@@ -0,0 +1,57 @@
+package com.synctok.synctokApi.media;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds the boxes of synthetic MP4 files for tests.
+ */
+final class Mp4Boxes {
+
+    private Mp4Boxes() {
+    }
+
+    static byte[] movie(int timescale, int duration, long... chunkOffsets) {
+        ByteBuffer mvhd = ByteBuffer.allocate(100);
+        mvhd.putInt(0).putLong(0).putInt(timescale).putInt(duration);
+        return box("moov", concat(box("mvhd", mvhd.array()),
+                track("vide", "avc1", 1080, 1920, chunkOffsets),
+                track("soun", "mp4a", 0, 0)));
+    }
+
+    static byte[] track(String handler, String codec, int width, int height, long... chunkOffsets) {
+        ByteBuffer tkhd = ByteBuffer.allocate(84);
+        tkhd.putInt(0).position(4 + 20 + 52);
+        tkhd.putInt(width << 16).putInt(height << 16);
+        ByteBuffer hdlr = ByteBuffer.allocate(24);
+        hdlr.position(8);
+        hdlr.put(handler.getBytes(StandardCharsets.US_ASCII));
+        ByteBuffer stsd = ByteBuffer.allocate(24);
+        stsd.putInt(0).putInt(1).putInt(16).put(codec.getBytes(StandardCharsets.US_ASCII));
+        ByteBuffer stco = ByteBuffer.allocate(8 + chunkOffsets.length * Integer.BYTES);
+        stco.putInt(0).putInt(chunkOffsets.length);
+        for (long offset : chunkOffsets) {
+            stco.putInt((int) offset);
+        }
+        byte[] stbl = box("stbl", concat(box("stsd", stsd.array()), box("stco", stco.array())));
+        byte[] mdia = box("mdia", concat(box("hdlr", hdlr.array()), box("minf", stbl)));
+        return box("trak", concat(box("tkhd", tkhd.array()), mdia));
+    }
+
+    static byte[] box(String type, byte[] body) {
+        return ByteBuffer.allocate(8 + body.length)
+                .putInt(8 + body.length)
+                .put(type.getBytes(StandardCharsets.US_ASCII))
+                .put(body)
+                .array();
+    }
+
+    static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
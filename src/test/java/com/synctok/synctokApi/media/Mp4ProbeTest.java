@@ -0,0 +1,88 @@
+package com.synctok.synctokApi.media;
+
+import com.synctok.synctokApi.exception.InvalidVideoException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static com.synctok.synctokApi.media.Mp4Boxes.box;
+import static com.synctok.synctokApi.media.Mp4Boxes.concat;
+import static com.synctok.synctokApi.media.Mp4Boxes.movie;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Mp4ProbeTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void probe_ReadsDurationDimensionsAndCodecs() throws IOException {
+        byte[] mdat = box("mdat", new byte[1024]);
+        byte[] file = concat(box("ftyp", "isom".getBytes(StandardCharsets.US_ASCII)), mdat, movie(1000, 90_500));
+
+        VideoMetadata metadata = probe(file);
+
+        assertEquals(file.length, metadata.size());
+        assertEquals(Duration.ofMillis(90_500), metadata.duration());
+        assertEquals(1080, metadata.width());
+        assertEquals(1920, metadata.height());
+        assertEquals("avc1", metadata.videoCodec());
+        assertEquals("mp4a", metadata.audioCodec());
+        assertTrue(metadata.isProbed());
+        assertFalse(metadata.isFastStart());
+    }
+
+    @Test
+    void probe_RecognisesFastStartAndLargeMdat() throws IOException {
+        ByteBuffer largeMdat = ByteBuffer.allocate(16 + 32);
+        largeMdat.putInt(1).put("mdat".getBytes(StandardCharsets.US_ASCII)).putLong(16 + 32);
+        byte[] file = concat(box("ftyp", new byte[4]), movie(600, 1200), largeMdat.array());
+
+        VideoMetadata metadata = probe(file);
+
+        assertEquals(Duration.ofSeconds(2), metadata.duration());
+        assertTrue(metadata.isFastStart());
+    }
+
+    @Test
+    void probe_LeavesOtherContainersUnprobed() throws IOException {
+        VideoMetadata metadata = probe(new byte[] {0x1A, 0x45, (byte) 0xDF, (byte) 0xA3, 0, 0, 0, 0, 0, 0});
+
+        assertFalse(metadata.isProbed());
+        assertNull(metadata.duration());
+        assertEquals(10, metadata.size());
+    }
+
+    @Test
+    void probe_RejectsTruncatedFile() throws IOException {
+        byte[] mdat = box("mdat", new byte[1024]);
+        byte[] file = concat(box("ftyp", new byte[4]), movie(1000, 5000), mdat);
+        byte[] truncated = Arrays.copyOf(file, file.length - 100);
+
+        InvalidVideoException e = assertThrows(InvalidVideoException.class, () -> probe(truncated));
+        assertTrue(e.getViolations().getFirst().startsWith("truncated"));
+    }
+
+    @Test
+    void probe_RejectsFileWithoutMoov() {
+        byte[] file = concat(box("ftyp", new byte[4]), box("mdat", new byte[64]));
+
+        assertThrows(InvalidVideoException.class, () -> probe(file));
+    }
+
+    private VideoMetadata probe(byte[] content) throws IOException {
+        try (VideoSource source = VideoSources.open(tempDir, content)) {
+            return Mp4Probe.probe(source);
+        }
+    }
+}
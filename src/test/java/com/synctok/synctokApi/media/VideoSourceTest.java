@@ -0,0 +1,171 @@
+package com.synctok.synctokApi.media;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VideoSourceTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void spool_WritesUploadOnceAndExposesMetadata() throws IOException {
+        byte[] content = "0123456789".getBytes();
+        MockMultipartFile upload = new MockMultipartFile("video", "clip.mp4", "video/mp4", content);
+        VideoSpooler spooler = new VideoSpooler(tempDir.toString(), true);
+
+        try (VideoSource source = spooler.spool(upload)) {
+            assertEquals(10, source.getSize());
+            assertEquals("clip.mp4", source.getFilename());
+            assertEquals("video/mp4", source.getContentType());
+            assertArrayEquals(content, Files.readAllBytes(source.getPath()));
+        }
+    }
+
+    @Test
+    void spool_FingerprintsStreamWhileWriting() throws IOException {
+        VideoSpooler spooler = new VideoSpooler(tempDir.toString(), true);
+
+        try (VideoSource source = spooler.spool(new ByteArrayInputStream("abc".getBytes()), "clip.mp4", null)) {
+            Files.write(source.getPath(), "changed".getBytes());
+
+            assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", source.getFingerprint());
+        }
+    }
+
+    @Test
+    void spool_MovesUploadIntoSpoolInsteadOfCopyingIt() throws IOException {
+        MultipartFile upload = mock(MultipartFile.class);
+        when(upload.getOriginalFilename()).thenReturn("clip.mp4");
+        doAnswer(invocation -> Files.write(invocation.<File>getArgument(0).toPath(), "abc".getBytes()))
+                .when(upload).transferTo(any(File.class));
+
+        try (VideoSource source = new VideoSpooler(tempDir.toString(), true).spool(upload)) {
+            assertEquals(3, source.getSize());
+            assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", source.getFingerprint());
+        }
+        verify(upload, never()).getInputStream();
+    }
+
+    @Test
+    void spool_MovesMoovInFrontOfMediaData() throws IOException {
+        byte[] content = Mp4Boxes.concat(Mp4Boxes.box("ftyp", new byte[4]), Mp4Boxes.box("mdat", new byte[64]),
+                Mp4Boxes.movie(1000, 5000, 16));
+        MockMultipartFile upload = new MockMultipartFile("video", "clip.mp4", "video/mp4", content);
+
+        try (VideoSource source = new VideoSpooler(tempDir.toString(), true).spool(upload);
+                VideoSource original = new VideoSpooler(tempDir.toString(), false).spool(upload)) {
+            assertTrue(source.getMetadata().isFastStart());
+            assertEquals(content.length, source.getSize());
+            assertEquals(original.getFingerprint(), source.getFingerprint());
+            assertFalse(original.getMetadata().isFastStart());
+            assertArrayEquals(content, Files.readAllBytes(original.getPath()));
+        }
+        try (var spooled = Files.list(tempDir)) {
+            assertEquals(0, spooled.count());
+        }
+    }
+
+    @Test
+    void close_DeletesSpoolFile() throws IOException {
+        MockMultipartFile upload = new MockMultipartFile("video", "clip.mp4", "video/mp4", new byte[16]);
+        VideoSource source = new VideoSpooler(tempDir.toString(), true).spool(upload);
+        Path spoolFile = source.getPath();
+
+        source.close();
+
+        assertFalse(Files.exists(spoolFile));
+    }
+
+    @Test
+    void close_LeavesOpenedFileInPlace() throws IOException {
+        Path file = Files.write(tempDir.resolve("existing.mp4"), new byte[16]);
+
+        VideoSource.open(file, "existing.mp4", null).close();
+
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void asResource_StreamsOnlyTheRequestedRange() throws IOException {
+        Path file = Files.write(tempDir.resolve("range.mp4"), "0123456789".getBytes());
+
+        try (VideoSource source = VideoSource.open(file, "range.mp4", null)) {
+            Resource slice = source.asResource(3, 4);
+
+            assertEquals(4, slice.contentLength());
+            try (InputStream in = slice.getInputStream()) {
+                assertArrayEquals("3456".getBytes(), in.readAllBytes());
+            }
+            // A resource can be re-read, for example when a request is retried
+            try (InputStream in = slice.getInputStream()) {
+                assertArrayEquals("3456".getBytes(), in.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void asResource_WholeVideoCarriesFilename() throws IOException {
+        Path file = Files.write(tempDir.resolve("whole.mp4"), new byte[32]);
+
+        try (VideoSource source = VideoSource.open(file, "original.mp4", null)) {
+            Resource resource = source.asResource();
+
+            assertEquals("original.mp4", resource.getFilename());
+            assertEquals(32, resource.contentLength());
+        }
+    }
+
+    @Test
+    void read_IsPositional() throws IOException {
+        Path file = Files.write(tempDir.resolve("positional.mp4"), "abcdef".getBytes());
+
+        try (VideoSource source = VideoSource.open(file, "positional.mp4", null)) {
+            ByteBuffer buffer = ByteBuffer.allocate(2);
+            source.read(buffer, 4);
+
+            assertArrayEquals("ef".getBytes(), buffer.array());
+        }
+    }
+
+    @Test
+    void asResource_RangeOutsideVideo() throws IOException {
+        Path file = Files.write(tempDir.resolve("small.mp4"), new byte[8]);
+
+        try (VideoSource source = VideoSource.open(file, "small.mp4", null)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> source.asResource(4, 8));
+        }
+    }
+
+    @Test
+    void getFingerprint_IsSha256OfContent() throws IOException {
+        Path file = Files.write(tempDir.resolve("hashed.mp4"), "abc".getBytes());
+
+        try (VideoSource source = VideoSource.open(file, "hashed.mp4", null)) {
+            assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", source.getFingerprint());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.synctok.synctokApi.media;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Creates the videos tests publish, probe and rewrite.
+ */
+public final class VideoSources {
+
+    private VideoSources() {
+    }
+
+    /**
+     * Writes a video of zero bytes of the given size and opens it.
+     *
+     * @param directory the directory to write the video to
+     * @param size      the size of the video in bytes
+     * @return a VideoSource over the video; the caller closes it
+     * @throws IOException if the video cannot be written
+     */
+    public static VideoSource open(Path directory, int size) throws IOException {
+        return open(directory, new byte[size]);
+    }
+
+    /**
+     * Writes a video with the given content and opens it.
+     *
+     * @param directory the directory to write the video to
+     * @param content   the content of the video
+     * @return a VideoSource over the video; the caller closes it
+     * @throws IOException if the video cannot be written
+     */
+    public static VideoSource open(Path directory, byte[] content) throws IOException {
+        Path file = Files.write(directory.resolve("video.mp4"), content);
+        return VideoSource.open(file, "video.mp4", "video/mp4");
+    }
+}
@@ -0,0 +1,49 @@
+package com.synctok.synctokApi.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PublishMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final PublishMetrics metrics = new PublishMetrics(registry);
+
+    @Test
+    void time_TagsStageWithOutcome() {
+        assertEquals("id", metrics.time("tiktok", "init", () -> "id"));
+        assertThrows(IOException.class, () -> metrics.time("tiktok", "init", () -> {
+            throw new IOException("Connection reset");
+        }));
+
+        assertEquals(1, registry.get("synctok.publish.stage")
+                .tags("platform", "tiktok", "stage", "init", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("synctok.publish.stage")
+                .tags("platform", "tiktok", "stage", "init", "outcome", "failure").timer().count());
+    }
+
+    @Test
+    void recordRetry_CountsRetriesPerStage() {
+        metrics.recordRetry("instagram", "publish");
+        metrics.recordRetry("instagram", "publish");
+
+        assertEquals(2, registry.get("synctok.publish.retries")
+                .tags("platform", "instagram", "stage", "publish").counter().count());
+    }
+
+    @Test
+    void recordUpload_UpdatesThroughputGauge() {
+        metrics.recordBytesSent("youtube", 4096);
+        metrics.recordUpload("youtube", 8 * 1024 * 1024, Duration.ofSeconds(2));
+
+        assertEquals(4096, registry.get("synctok.publish.bytes").tag("platform", "youtube").counter().count());
+        assertEquals(4 * 1024 * 1024, registry.get("synctok.publish.upload.throughput")
+                .tag("platform", "youtube").gauge().value());
+    }
+}
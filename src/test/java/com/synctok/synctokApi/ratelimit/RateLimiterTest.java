@@ -0,0 +1,172 @@
+package com.synctok.synctokApi.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    @TempDir
+    Path stateDir;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private MockEnvironment environment;
+
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        environment = new MockEnvironment()
+                .withProperty("synctok.rate-limit.tiktok.requests.capacity", "2")
+                .withProperty("synctok.rate-limit.tiktok.requests.period", "400ms")
+                .withProperty("synctok.rate-limit.youtube.quota.capacity", "10000")
+                .withProperty("synctok.rate-limit.youtube.quota.period", "24h");
+        environment.setConversionService(new ApplicationConversionService());
+        rateLimiter = newRateLimiter(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rateLimiter.destroy();
+    }
+
+    private RateLimiter newRateLimiter(boolean enabled) throws IOException {
+        return new RateLimiter(enabled, stateDir.toString(), Duration.ofMillis(20), objectMapper, environment);
+    }
+
+    @Test
+    void acquire_WaitsForRefillWhenOverBudget() {
+        rateLimiter.acquire("tiktok", "account", "requests", 1);
+        rateLimiter.acquire("tiktok", "account", "requests", 1);
+
+        Instant started = Instant.now();
+        rateLimiter.acquire("tiktok", "account", "requests", 1);
+
+        // One token refills every 200ms
+        assertTrue(Duration.between(started, Instant.now()).toMillis() >= 150);
+    }
+
+    @Test
+    void acquire_KeepsAccountsApart() {
+        rateLimiter.acquire("tiktok", "first", "requests", 2);
+
+        Instant started = Instant.now();
+        rateLimiter.acquire("tiktok", "second", "requests", 2);
+
+        assertTrue(Duration.between(started, Instant.now()).toMillis() < 150);
+    }
+
+    @Test
+    void reserve_CompletesOnceTokensAreDueWithoutBlocking() throws Exception {
+        rateLimiter.reserve("tiktok", "account", "requests", 2).get();
+
+        Instant started = Instant.now();
+        CompletableFuture<Void> due = rateLimiter.reserve("tiktok", "account", "requests", 1);
+
+        assertTrue(Duration.between(started, Instant.now()).toMillis() < 150);
+        assertFalse(due.isDone());
+        due.get(2, TimeUnit.SECONDS);
+        assertTrue(Duration.between(started, Instant.now()).toMillis() >= 150);
+    }
+
+    @Test
+    void reserve_ServesCallersInArrivalOrder() throws Exception {
+        rateLimiter.reserve("tiktok", "account", "requests", 2).get();
+
+        CompletableFuture<Void> first = rateLimiter.reserve("tiktok", "account", "requests", 2);
+        CompletableFuture<Void> second = rateLimiter.reserve("tiktok", "account", "requests", 1);
+
+        second.get(2, TimeUnit.SECONDS);
+        assertTrue(first.isDone());
+    }
+
+    @Test
+    void acquire_RemembersSpentBudgetAcrossRestarts() throws IOException {
+        rateLimiter.acquire("youtube", "account", "quota", 1600);
+        rateLimiter.destroy();
+
+        RateLimiter restarted = newRateLimiter(true);
+        try {
+            assertEquals(8400, restarted.getRemaining("youtube", "account", "quota"), 1);
+        } finally {
+            restarted.destroy();
+        }
+    }
+
+    @Test
+    void acquire_SavesSpentBudgetInTheBackground() throws Exception {
+        rateLimiter.acquire("youtube", "account", "quota", 1600);
+        rateLimiter.acquire("youtube", "account", "quota", 1600);
+        Thread.sleep(200);
+
+        RateLimiter restarted = newRateLimiter(true);
+        try {
+            assertEquals(6800, restarted.getRemaining("youtube", "account", "quota"), 1);
+        } finally {
+            restarted.destroy();
+        }
+    }
+
+    @Test
+    void acquire_ChargesQuotaUnits() {
+        rateLimiter.acquire("youtube", "account", "quota", 1600);
+
+        assertEquals(8400, rateLimiter.getRemaining("youtube", "account", "quota"), 1);
+    }
+
+    @Test
+    void acquire_RejectsCostAboveCapacity() {
+        assertThrows(IllegalArgumentException.class,
+                () -> rateLimiter.acquire("youtube", "account", "quota", 10001));
+    }
+
+    @Test
+    void acquire_LeavesUnconfiguredAndDisabledBudgetsUnlimited() throws IOException {
+        RateLimiter disabled = newRateLimiter(false);
+
+        assertEquals(Double.POSITIVE_INFINITY, rateLimiter.getRemaining("instagram", "account", "requests"));
+        assertEquals(Double.POSITIVE_INFINITY, disabled.getRemaining("tiktok", "account", "requests"));
+    }
+
+    @Test
+    void bindTo_ExposesRemainingBudget() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        rateLimiter.bindTo(registry);
+
+        rateLimiter.acquire("youtube", "account", "quota", 1600);
+
+        double remaining = registry.get("synctok.ratelimit.remaining")
+                .tags("platform", "youtube", "account", "account", "budget", "quota")
+                .gauge()
+                .value();
+        assertEquals(8400, remaining, 1);
+        assertEquals(0, registry.get("synctok.ratelimit.waiting").gauge().value());
+    }
+
+    @Test
+    void accountOf_IsStableAndHidesTheCredential() {
+        String account = RateLimiter.accountOf("secret-token");
+
+        assertEquals(account, RateLimiter.accountOf("secret-token"));
+        assertFalse(account.contains("secret"));
+    }
+}
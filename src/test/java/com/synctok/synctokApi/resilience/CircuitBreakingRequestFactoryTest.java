@@ -0,0 +1,83 @@
+package com.synctok.synctokApi.resilience;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CircuitBreakingRequestFactoryTest {
+
+    private static final String URL = "https://example.com/upload";
+
+    private final CircuitBreaker breaker = CircuitBreaker.of("youtube", CircuitBreakerConfig.custom()
+            .slidingWindowSize(2)
+            .minimumNumberOfCalls(2)
+            .build());
+
+    private final List<MockClientHttpRequest> sent = new ArrayList<>();
+
+    private RestTemplate restTemplate(HttpStatus status) {
+        return new RestTemplate(new CircuitBreakingRequestFactory((uri, method) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            request.setResponse(new MockClientHttpResponse(new byte[0], status));
+            sent.add(request);
+            return request;
+        }, breaker));
+    }
+
+    @Test
+    void execute_OpensOnServerErrorsAndFailsFast() {
+        RestTemplate restTemplate = restTemplate(HttpStatus.SERVICE_UNAVAILABLE);
+
+        assertThrows(HttpServerErrorException.class, () -> restTemplate.put(URL, "chunk"));
+        assertThrows(HttpServerErrorException.class, () -> restTemplate.put(URL, "chunk"));
+
+        assertThrows(CallNotPermittedException.class, () -> restTemplate.put(URL, "chunk"));
+        assertEquals(2, sent.stream().filter(MockClientHttpRequest::isExecuted).count());
+    }
+
+    @Test
+    void execute_DoesNotCountClientErrorsAgainstThePlatform() {
+        RestTemplate restTemplate = restTemplate(HttpStatus.BAD_REQUEST);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(HttpClientErrorException.class, () -> restTemplate.put(URL, "chunk"));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void createRequest_PassesStreamedBodiesThrough() throws Exception {
+        ClientHttpRequest request = new CircuitBreakingRequestFactory(
+                (uri, method) -> new MockClientHttpRequest(method, uri), breaker)
+                .createRequest(URI.create(URL), HttpMethod.PUT);
+
+        restTemplate(HttpStatus.OK).exchange(URL, HttpMethod.PUT,
+                new HttpEntity<>(new ByteArrayResource(new byte[] {1, 2, 3})), String.class);
+
+        assertInstanceOf(StreamingHttpOutputMessage.class, request);
+        assertArrayEquals(new byte[] {1, 2, 3}, sent.getFirst().getBodyAsBytes());
+    }
+}
@@ -0,0 +1,81 @@
+package com.synctok.synctokApi.resilience;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PlatformCircuitBreakersTest {
+
+    private PlatformCircuitBreakers circuitBreakers;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("synctok.circuit-breaker.slow-call-duration-threshold.youtube", "20ms");
+        environment.setConversionService(new ApplicationConversionService());
+        circuitBreakers = new PlatformCircuitBreakers(
+                50, 50, 4, 4, Duration.ofMinutes(1), Duration.ofMinutes(5), environment);
+    }
+
+    @Test
+    void forPlatform_FailsFastOnceFailureRateIsExceeded() {
+        CircuitBreaker breaker = circuitBreakers.forPlatform("tiktok");
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IOException.class, () -> breaker.executeCallable(() -> {
+                calls.incrementAndGet();
+                throw new IOException("503 Service Unavailable");
+            }));
+        }
+
+        assertThrows(CallNotPermittedException.class, () -> breaker.executeCallable(calls::incrementAndGet));
+        assertEquals(4, calls.get());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreakers.forPlatform("instagram").getState());
+    }
+
+    @Test
+    void forPlatform_OpensOnSlowCallsAboveThePlatformThreshold() throws Exception {
+        CircuitBreaker breaker = circuitBreakers.forPlatform("youtube");
+        for (int i = 0; i < 4; i++) {
+            breaker.executeCallable(() -> {
+                Thread.sleep(30);
+                return "chunk";
+            });
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakers.forPlatform("youtube").getState());
+        assertEquals(Duration.ofMinutes(5), circuitBreakers.forPlatform("tiktok").getCircuitBreakerConfig()
+                .getSlowCallDurationThreshold());
+    }
+
+    @Test
+    void forPlatform_ReturnsOneBreakerPerPlatform() {
+        assertSame(circuitBreakers.forPlatform("YouTube"), circuitBreakers.forPlatform("youtube"));
+    }
+
+    @Test
+    void bindTo_ExposesBreakerState() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        circuitBreakers.bindTo(registry);
+        circuitBreakers.forPlatform("tiktok").transitionToOpenState();
+
+        double open = registry.get("resilience4j.circuitbreaker.state")
+                .tags("name", "tiktok", "state", "open")
+                .gauge()
+                .value();
+        assertEquals(1.0, open);
+    }
+}
@@ -0,0 +1,135 @@
+package com.synctok.synctokApi.service;
+
+import com.synctok.synctokApi.exception.InvalidBatchException;
+import com.synctok.synctokApi.exception.UnsupportedPlatformException;
+import com.synctok.synctokApi.service.batch.BatchItem;
+import com.synctok.synctokApi.service.batch.BatchResult;
+import com.synctok.synctokApi.service.job.PublishJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BatchServiceTest {
+
+    @Mock
+    private VideoService videoService;
+
+    @Mock
+    private PublishScheduler publishScheduler;
+
+    private BatchService batchService;
+
+    private final MockMultipartFile first = new MockMultipartFile("videos", "first.mp4", "video/mp4", new byte[] {1});
+    private final MockMultipartFile second = new MockMultipartFile("videos", "second.mp4", "video/mp4", new byte[] {2});
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        batchService = new BatchService(videoService, publishScheduler, 3);
+    }
+
+    @Test
+    void submitBatch_StartsOneJobPerItem() throws IOException {
+        PublishJob firstJob = PublishJob.create(List.of("tiktok"), "First");
+        PublishJob secondJob = PublishJob.create(List.of("youtube", "instagram"), "Second");
+        when(videoService.submitVideo(first, List.of("tiktok"), "First", null, null)).thenReturn(firstJob);
+        when(videoService.submitVideo(second, List.of("youtube", "instagram"), "Second", "caption", null))
+                .thenReturn(secondJob);
+
+        BatchResult result = batchService.submitBatch(List.of(
+                new BatchItem("first.mp4", "First", null, List.of("tiktok"), null),
+                new BatchItem("second.mp4", "Second", "caption", List.of("youtube", "instagram"), null)),
+                List.of(first, second), null);
+
+        assertEquals(2, result.accepted());
+        assertEquals(0, result.rejected());
+        assertSame(firstJob, result.items().get(0).job());
+        assertSame(secondJob, result.items().get(1).job());
+    }
+
+    @Test
+    void submitBatch_SchedulesItemsWithAPublishTime() throws IOException {
+        Instant publishAt = Instant.parse("2030-01-01T09:00:00Z");
+        PublishJob job = PublishJob.scheduled("scheduled", List.of("tiktok"), "First", publishAt);
+        when(publishScheduler.schedule(first, List.of("tiktok"), "First", null, publishAt, null)).thenReturn(job);
+
+        BatchResult result = batchService.submitBatch(
+                List.of(new BatchItem("first.mp4", "First", null, List.of("tiktok"), publishAt)),
+                List.of(first), null);
+
+        assertSame(job, result.items().getFirst().job());
+        verifyNoInteractions(videoService);
+    }
+
+    @Test
+    void submitBatch_ReportsInvalidItemsWithoutFailingTheOthers() throws IOException {
+        PublishJob job = PublishJob.create(List.of("tiktok"), "First");
+        when(videoService.submitVideo(eq(first), any(), any(), any(), any())).thenReturn(job);
+        when(videoService.submitVideo(eq(second), any(), any(), any(), any()))
+                .thenThrow(new UnsupportedPlatformException("facebook"));
+
+        BatchResult result = batchService.submitBatch(List.of(
+                new BatchItem("first.mp4", "First", null, List.of("tiktok"), null),
+                new BatchItem("second.mp4", "Second", null, List.of("facebook"), null),
+                new BatchItem("missing.mp4", "Missing", null, List.of("tiktok"), null)),
+                List.of(first, second), null);
+
+        assertEquals(1, result.accepted());
+        assertEquals(2, result.rejected());
+        assertNull(result.items().get(0).error());
+        assertEquals("Unsupported platform: facebook", result.items().get(1).error());
+        assertEquals("No video named missing.mp4 was uploaded", result.items().get(2).error());
+    }
+
+    @Test
+    void submitBatch_KeysEachItemByPosition() throws IOException {
+        when(videoService.submitVideo(any(), any(), any(), any(), any()))
+                .thenReturn(PublishJob.create(List.of("tiktok"), "Same"));
+
+        batchService.submitBatch(List.of(
+                new BatchItem("first.mp4", "Same", null, List.of("tiktok"), null),
+                new BatchItem("first.mp4", "Same", null, List.of("tiktok"), null)),
+                List.of(first), "batch-1");
+
+        verify(videoService).submitVideo(first, List.of("tiktok"), "Same", null, "batch-1#0");
+        verify(videoService).submitVideo(first, List.of("tiktok"), "Same", null, "batch-1#1");
+    }
+
+    @Test
+    void submitBatch_RejectsOversizedBatches() {
+        BatchItem item = new BatchItem("first.mp4", "First", null, List.of("tiktok"), null);
+        List<MultipartFile> videos = List.of(first);
+
+        assertThrows(InvalidBatchException.class,
+                () -> batchService.submitBatch(List.of(item, item, item, item), videos, null));
+        assertThrows(InvalidBatchException.class, () -> batchService.submitBatch(List.of(), videos, null));
+        verifyNoInteractions(videoService);
+    }
+
+    @Test
+    void submitBatch_RejectsAmbiguousVideoNames() {
+        MockMultipartFile duplicate = new MockMultipartFile("videos", "first.mp4", "video/mp4", new byte[] {3});
+
+        assertThrows(InvalidBatchException.class, () -> batchService.submitBatch(
+                List.of(new BatchItem("first.mp4", "First", null, List.of("tiktok"), null)),
+                List.of(first, duplicate), null));
+        verifyNoInteractions(videoService);
+    }
+}
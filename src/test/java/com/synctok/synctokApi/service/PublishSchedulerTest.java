@@ -0,0 +1,175 @@
+package com.synctok.synctokApi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.synctok.synctokApi.client.CloudinaryClient;
+import com.synctok.synctokApi.client.CloudinaryStager;
+import com.synctok.synctokApi.client.StagedUrlCache;
+import com.synctok.synctokApi.exception.UnsupportedPlatformException;
+import com.synctok.synctokApi.media.VideoSpooler;
+import com.synctok.synctokApi.service.executor.PublishingExecutor;
+import com.synctok.synctokApi.service.idempotency.IdempotencyStore;
+import com.synctok.synctokApi.service.job.InMemoryJobStore;
+import com.synctok.synctokApi.service.job.JobStore;
+import com.synctok.synctokApi.service.job.PlatformState;
+import com.synctok.synctokApi.service.job.PublishJob;
+import com.synctok.synctokApi.service.schedule.ScheduleStore;
+import com.synctok.synctokApi.service.schedule.ScheduledPublish;
+import com.synctok.synctokApi.service.strategy.InstagramStrategy;
+import com.synctok.synctokApi.service.strategy.PlatformStrategy;
+import com.synctok.synctokApi.service.strategy.TiktokStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PublishSchedulerTest {
+
+    private static final String VIDEO_URL = "https://res.cloudinary.com/demo/video/upload/clip.mp4";
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private CloudinaryClient cloudinaryClient;
+
+    @Mock
+    private InstagramStrategy instagramStrategy;
+
+    @Mock
+    private TiktokStrategy tiktokStrategy;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private final MockMultipartFile video = new MockMultipartFile("video", "clip.mp4", "video/mp4", new byte[] {1, 2});
+
+    private JobStore jobStore;
+
+    private ScheduleStore scheduleStore;
+
+    private VideoService videoService;
+
+    private PublishScheduler publishScheduler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        when(cloudinaryClient.uploadAndGetPublicUrl(any(), any())).thenReturn(VIDEO_URL);
+        when(instagramStrategy.publishVideo(any())).thenReturn(CompletableFuture.completedFuture("instagram-id"));
+        when(tiktokStrategy.publishVideo(any())).thenReturn(CompletableFuture.completedFuture("tiktok-id"));
+        when(instagramStrategy.reserveBudget(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(tiktokStrategy.reserveBudget(any())).thenReturn(CompletableFuture.completedFuture(null));
+        jobStore = new InMemoryJobStore(Duration.ofHours(1));
+        scheduleStore = new ScheduleStore(directory.resolve("schedule").toString(), objectMapper);
+        List<PlatformStrategy> strategies = List.of(instagramStrategy, tiktokStrategy);
+        VideoSpooler videoSpooler = new VideoSpooler(directory.resolve("spool").toString(), true);
+        CloudinaryStager cloudinaryStager = new CloudinaryStager(cloudinaryClient, videoSpooler, new MockEnvironment(),
+                Duration.ofMillis(10), Duration.ofMillis(10), 1, Duration.ofSeconds(5));
+        videoService = new VideoService(strategies, cloudinaryStager,
+                new StagedUrlCache(Duration.ofHours(1), 0, false, "unused", objectMapper), videoSpooler, jobStore,
+                new PublishingExecutor(true, 1, 2, 100, new MockEnvironment()),
+                new IdempotencyStore(Duration.ofHours(1), Duration.ofDays(1), 10));
+        publishScheduler = newScheduler();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publishScheduler.destroy();
+    }
+
+    private PublishScheduler newScheduler() throws IOException {
+        return new PublishScheduler(videoService, new VideoSpooler(directory.resolve("spool").toString(), true),
+                jobStore, scheduleStore, new IdempotencyStore(Duration.ofHours(1), Duration.ofDays(1), 10),
+                Duration.ofMillis(10), 8);
+    }
+
+    @Test
+    void schedule_StagesAheadAndPublishesWhenDue() throws IOException {
+        Instant publishAt = Instant.now().plusMillis(500);
+
+        PublishJob job = publishScheduler.schedule(video, List.of("tiktok", "instagram"), "title", null, publishAt,
+                null);
+
+        assertEquals(PlatformState.SCHEDULED, jobStore.find(job.id()).orElseThrow().platforms().get("tiktok").state());
+        assertEquals(publishAt, job.publishAt());
+        waitUntil(() -> VIDEO_URL.equals(scheduleStore.find(job.id()).map(ScheduledPublish::videoUrl).orElse(null)));
+        verify(tiktokStrategy, never()).publishVideo(any());
+
+        waitUntil(() -> videoService.getJob(job.id()).isFinished());
+        assertTrue(Instant.now().isAfter(publishAt));
+        verify(instagramStrategy).publishVideo(argThat(context -> VIDEO_URL.equals(context.videoUrl())));
+        verify(tiktokStrategy).publishVideo(argThat(context -> "clip.mp4".equals(context.source().getFilename())));
+        verify(cloudinaryClient).uploadAndGetPublicUrl(any(), any());
+        assertEquals(PlatformState.PUBLISHED, videoService.getJob(job.id()).platforms().get("instagram").state());
+        waitUntil(() -> !Files.exists(scheduleStore.videoFile(job.id())));
+        assertEquals(0, publishScheduler.getPendingCount());
+    }
+
+    @Test
+    void constructor_ResumesPublishesPendingFromAPreviousRun() throws IOException {
+        publishScheduler.destroy();
+        scheduleStore.save(new ScheduledPublish("resumed", Instant.now().minusSeconds(60), "title", "caption",
+                List.of("tiktok"), "clip.mp4", "video/mp4", "ba7816bf", null));
+        Files.write(scheduleStore.videoFile("resumed"), new byte[] {1, 2});
+
+        publishScheduler = newScheduler();
+
+        verify(tiktokStrategy, timeout(5000)).publishVideo(argThat(context -> "caption".equals(context.caption())));
+        waitUntil(() -> videoService.getJob("resumed").isFinished());
+        assertTrue(scheduleStore.find("resumed").isEmpty());
+    }
+
+    @Test
+    void schedule_RejectsUnsupportedPlatformsBeforeSpooling() throws IOException {
+        assertThrows(UnsupportedPlatformException.class, () -> publishScheduler.schedule(video,
+                List.of("facebook"), "title", null, Instant.now().plusSeconds(60), null));
+
+        assertTrue(scheduleStore.recover().isEmpty());
+        assertEquals(0, publishScheduler.getPendingCount());
+    }
+
+    @Test
+    void schedule_ReturnsTheFirstJobForARetriedRequest() throws IOException {
+        Instant publishAt = Instant.now().plusSeconds(60);
+
+        PublishJob first = publishScheduler.schedule(video, List.of("tiktok"), "title", null, publishAt, "key-1");
+        PublishJob retried = publishScheduler.schedule(video, List.of("tiktok"), "title", null, publishAt, "key-1");
+
+        assertEquals(first.id(), retried.id());
+        assertEquals(1, publishScheduler.getPendingCount());
+        assertFalse(videoService.getJob(first.id()).isFinished());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -1,30 +1,58 @@
 package com.synctok.synctokApi.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.synctok.synctokApi.client.CloudinaryClient;
+import com.synctok.synctokApi.client.CloudinaryStager;
+import com.synctok.synctokApi.client.StagedUrlCache;
+import com.synctok.synctokApi.exception.IdempotencyKeyMismatchException;
+import com.synctok.synctokApi.exception.InvalidVideoException;
+import com.synctok.synctokApi.exception.JobNotFoundException;
 import com.synctok.synctokApi.exception.UnsupportedPlatformException;
-import com.synctok.synctokApi.service.strategy.FilePlatformStrategy;
+import com.synctok.synctokApi.media.VideoMetadata;
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.media.VideoSpooler;
+import com.synctok.synctokApi.service.executor.PublishingExecutor;
+import com.synctok.synctokApi.service.idempotency.IdempotencyStore;
+import com.synctok.synctokApi.service.job.InMemoryJobStore;
+import com.synctok.synctokApi.service.job.JobStore;
+import com.synctok.synctokApi.service.job.PlatformState;
+import com.synctok.synctokApi.service.job.PublishJob;
 import com.synctok.synctokApi.service.strategy.InstagramStrategy;
 import com.synctok.synctokApi.service.strategy.PlatformStrategy;
+import com.synctok.synctokApi.service.strategy.PublishContext;
 import com.synctok.synctokApi.service.strategy.TiktokStrategy;
-import com.synctok.synctokApi.service.strategy.UrlPlatformStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -43,81 +71,227 @@ class VideoServiceTest {
     @Mock
     private MultipartFile videoFile;
 
+    @Mock
+    private VideoSpooler videoSpooler;
+
+    @Mock
+    private VideoSource videoSource;
+
+    private JobStore jobStore;
+
+    private StagedUrlCache stagedUrlCache;
+
+    private PublishingExecutor publishingExecutor;
+
+    private final MockEnvironment environment = new MockEnvironment();
+
     private VideoService videoService;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
         MockitoAnnotations.openMocks(this);
+        when(videoSpooler.spool(videoFile)).thenReturn(videoSource);
+        when(videoSource.getFingerprint()).thenReturn("ba7816bf");
+        when(instagramStrategy.publishVideo(any())).thenReturn(CompletableFuture.completedFuture("instagram-id"));
+        when(tiktokStrategy.publishVideo(any())).thenReturn(CompletableFuture.completedFuture("tiktok-id"));
+        when(instagramStrategy.reserveBudget(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(tiktokStrategy.reserveBudget(any())).thenReturn(CompletableFuture.completedFuture(null));
+        jobStore = new InMemoryJobStore(Duration.ofHours(1));
         List<PlatformStrategy> strategies = List.of(instagramStrategy, tiktokStrategy);
-        videoService = new VideoService(strategies, cloudinaryClient);
+        publishingExecutor = new PublishingExecutor(true, 1, 2, 100, new MockEnvironment());
+        stagedUrlCache = new StagedUrlCache(Duration.ofHours(1), 10, false, "unused", new ObjectMapper());
+        IdempotencyStore idempotencyStore = new IdempotencyStore(Duration.ofHours(1), Duration.ofDays(1), 10);
+        CloudinaryStager cloudinaryStager = new CloudinaryStager(cloudinaryClient, videoSpooler, environment,
+                Duration.ofMillis(10), Duration.ofMillis(10), 1, Duration.ofSeconds(5));
+        videoService = new VideoService(strategies, cloudinaryStager, stagedUrlCache, videoSpooler, jobStore,
+                publishingExecutor, idempotencyStore);
+    }
+
+    private PublishContext context(PublishJob job) {
+        return new PublishContext(job.id(), videoSource, null, job.title(), null, Map.of());
+    }
+
+    private PublishJob createJob(List<String> platforms, String title) {
+        PublishJob job = PublishJob.create(platforms, title);
+        jobStore.save(job);
+        return job;
     }
 
     @Test
-    void publishVideo_SuccessfulPublishUrlStrategy() throws IOException, ExecutionException, InterruptedException {
+    void publishVideo_SuccessfulPublishUrlStrategy() throws IOException {
         String title = "title";
         String videoUrl = "http://example.com/video.mp4";
         List<String> platforms = List.of("instagram");
+        PublishJob job = createJob(platforms, title);
 
-        when(cloudinaryClient.uploadAndGetPublicUrl(videoFile)).thenReturn(videoUrl);
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of())).thenReturn(videoUrl);
 
-        CompletableFuture<Void> result = videoService.publishVideo(videoFile, platforms, title);
+        CompletableFuture<Void> result = videoService.publishVideo(context(job), platforms);
 
         assertDoesNotThrow(() -> result.get());
 
-        verify(cloudinaryClient).uploadAndGetPublicUrl(videoFile);
-        verify((UrlPlatformStrategy)instagramStrategy).setVideoUrl(videoUrl);
-        verify(instagramStrategy).publishVideo(title);
-        verify(tiktokStrategy, never()).publishVideo(title);
+        verify(cloudinaryClient).uploadAndGetPublicUrl(videoSource, List.of());
+        verify(instagramStrategy).publishVideo(argThat(context -> videoUrl.equals(context.videoUrl())));
+        verify(tiktokStrategy, never()).publishVideo(any());
+        assertEquals(PlatformState.PUBLISHED, videoService.getJob(job.id()).platforms().get("instagram").state());
     }
 
     @Test
-    void publishVideo_SuccessfulPublishFileStrategy() throws IOException, ExecutionException, InterruptedException {
-        String title = "title";
+    void publishVideo_ReusesStagedUrlOfSameVideo() throws IOException {
         String videoUrl = "http://example.com/video.mp4";
-        List<String> platforms = List.of("tiktok");
+        List<String> platforms = List.of("instagram");
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of())).thenReturn(videoUrl);
+
+        assertDoesNotThrow(() -> videoService.publishVideo(context(createJob(platforms, "first")), platforms).get());
+        PublishJob second = createJob(platforms, "second");
+        assertDoesNotThrow(() -> videoService.publishVideo(context(second), platforms).get());
+
+        verify(cloudinaryClient).uploadAndGetPublicUrl(videoSource, List.of());
+        verify(instagramStrategy, times(2))
+                .publishVideo(argThat(context -> videoUrl.equals(context.videoUrl())));
+        assertEquals(PlatformState.PUBLISHED, videoService.getJob(second.id()).platforms().get("instagram").state());
+    }
 
-        when(cloudinaryClient.uploadAndGetPublicUrl(videoFile)).thenReturn(videoUrl);
+    @Test
+    void publishVideo_SuccessfulPublishFileStrategySkipsStaging() throws IOException {
+        String title = "title";
+        List<String> platforms = List.of("tiktok");
+        PublishJob job = createJob(platforms, title);
 
-        CompletableFuture<Void> result = videoService.publishVideo(videoFile, platforms, title);
+        CompletableFuture<Void> result = videoService.publishVideo(context(job), platforms);
 
         assertDoesNotThrow(() -> result.get());
 
-        verify(cloudinaryClient).uploadAndGetPublicUrl(videoFile);
-        verify((FilePlatformStrategy)tiktokStrategy).setVideoFile(videoFile);
-        verify(tiktokStrategy).publishVideo(title);
-        verify(instagramStrategy, never()).publishVideo(title);
+        verify(cloudinaryClient, never()).uploadAndGetPublicUrl(any(), any());
+        verify(tiktokStrategy).publishVideo(argThat(context -> context.source() == videoSource));
+        verify(instagramStrategy, never()).publishVideo(any());
+        verify(videoSource).close();
+        assertEquals(PlatformState.PUBLISHED, videoService.getJob(job.id()).platforms().get("tiktok").state());
     }
 
     @Test
-    void publishVideo_UnsupportedPlatform() throws IOException {
+    void submitVideo_UnsupportedPlatform() throws IOException {
         String title = "title";
-        String videoUrl = "http://example.com/video.mp4";
         List<String> platforms = List.of("unsupported");
 
-        when(cloudinaryClient.uploadAndGetPublicUrl(videoFile)).thenReturn(videoUrl);
+        UnsupportedPlatformException exception = assertThrows(UnsupportedPlatformException.class,
+                () -> videoService.submitVideo(videoFile, platforms, title, null, null));
 
-        CompletableFuture<Void> result = videoService.publishVideo(videoFile, platforms, title);
+        assertEquals("unsupported", exception.getPlatform());
+        verify(videoSpooler, never()).spool(any());
+        verify(cloudinaryClient, never()).uploadAndGetPublicUrl(any(), any());
+        verify(instagramStrategy, never()).publishVideo(any());
+        verify(tiktokStrategy, never()).publishVideo(any());
+    }
 
-        ExecutionException exception = assertThrows(ExecutionException.class, result::get);
-        assertInstanceOf(UnsupportedPlatformException.class, exception.getCause());
+    @Test
+    void submitVideo_ReturnsQueuedJobAndPublishesInBackground() throws IOException {
+        String title = "title";
+        List<String> platforms = List.of("instagram", "tiktok");
 
-        verify(cloudinaryClient).uploadAndGetPublicUrl(videoFile);
-        verify(instagramStrategy, never()).publishVideo(title);
-        verify(tiktokStrategy, never()).publishVideo(title);
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of())).thenReturn("http://example.com/video.mp4");
+
+        PublishJob job = videoService.submitVideo(videoFile, platforms, title, null, null);
+
+        assertEquals(PlatformState.QUEUED, job.platforms().get("instagram").state());
+        assertEquals(PlatformState.QUEUED, job.platforms().get("tiktok").state());
+        verify(videoSpooler).spool(videoFile);
+        verify(videoSource, timeout(TimeUnit.SECONDS.toMillis(5))).close();
+        assertTrue(videoService.getJob(job.id()).isFinished());
+    }
+
+    @Test
+    void submitVideo_RetryWithSameIdempotencyKeyReturnsFirstJob() throws IOException {
+        List<String> platforms = List.of("tiktok");
+        when(videoFile.getOriginalFilename()).thenReturn("clip.mp4");
+        when(videoFile.getSize()).thenReturn(10L);
+
+        PublishJob first = videoService.submitVideo(videoFile, platforms, "title", null, "key-1");
+        PublishJob retried = videoService.submitVideo(videoFile, platforms, "title", null, "key-1");
+
+        assertEquals(first.id(), retried.id());
+        verify(videoSpooler).spool(videoFile);
+        verify(tiktokStrategy, timeout(TimeUnit.SECONDS.toMillis(5))).publishVideo(any());
+    }
+
+    @Test
+    void submitVideo_IdempotencyKeyReusedForDifferentRequest() throws IOException {
+        when(videoFile.getOriginalFilename()).thenReturn("clip.mp4");
+        when(videoFile.getSize()).thenReturn(10L);
+        videoService.submitVideo(videoFile, List.of("tiktok"), "title", null, "key-1");
+
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> videoService.submitVideo(videoFile, List.of("tiktok"), "other title", null, "key-1"));
+        verify(videoSpooler).spool(videoFile);
+    }
+
+    @Test
+    void submitVideo_RejectsVideoAPlatformWouldRefuse() throws IOException {
+        VideoMetadata metadata = new VideoMetadata(10, Duration.ofMinutes(20), 1080, 1920, "avc1", "mp4a", 0, 100);
+        when(videoSource.getMetadata()).thenReturn(metadata);
+        doThrow(new InvalidVideoException("tiktok", List.of("duration of PT20M is longer than PT10M")))
+                .when(tiktokStrategy).validate(metadata);
+
+        InvalidVideoException exception = assertThrows(InvalidVideoException.class,
+                () -> videoService.submitVideo(videoFile, List.of("instagram", "tiktok"), "title", null, null));
+
+        assertEquals("tiktok", exception.getPlatform());
+        verify(videoSource).close();
+        verify(cloudinaryClient, never()).uploadAndGetPublicUrl(any(), any());
+        verify(tiktokStrategy, never()).publishVideo(any());
+    }
+
+    @Test
+    void submitVideo_ChecksLimitsOfPlatformsPublishingARendition() throws IOException {
+        // A platform falls back to the original video when its rendition cannot be generated
+        environment.setProperty("cloudinary.renditions.tiktok", "c_pad,ar_9:16");
+        VideoMetadata metadata = VideoMetadata.unprobed(10);
+        when(videoSource.getMetadata()).thenReturn(metadata);
+        doThrow(new InvalidVideoException("tiktok", List.of("video codec vp08 is not one of [avc1]")))
+                .when(tiktokStrategy).validate(metadata);
+
+        assertThrows(InvalidVideoException.class,
+                () -> videoService.requireAccepted(videoSource, List.of("instagram", "tiktok")));
+
+        verify(tiktokStrategy).validate(metadata);
+    }
+
+    @Test
+    void publishVideo_ReleasesVideoWhenStagingCannotStart() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        videoService.bindTo(registry);
+        when(videoSource.getFingerprint()).thenThrow(new IllegalStateException("spool file vanished"));
+        PublishJob job = createJob(List.of("instagram"), "title");
+
+        assertThrows(IllegalStateException.class, () -> videoService.publishVideo(context(job), List.of("instagram")));
+
+        verify(videoSource).close();
+        assertEquals(0, registry.get("synctok.publish.jobs.in-flight").gauge().value());
+    }
+
+    @Test
+    void getJob_UnknownJob() {
+        assertThrows(JobNotFoundException.class, () -> videoService.getJob("missing"));
     }
 
     @Test
     void publishVideo_CloudinaryClientThrowsIOException() throws Exception {
         String title = "title";
         List<String> platforms = List.of("instagram");
-        when(cloudinaryClient.uploadAndGetPublicUrl(videoFile)).thenThrow(new IOException("Upload failed"));
+        PublishJob job = createJob(platforms, title);
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of()))
+                .thenThrow(new IOException("Upload failed"));
 
-        IOException exception = assertThrows(IOException.class, () -> videoService.publishVideo(videoFile, platforms, title));
+        CompletableFuture<Void> result = videoService.publishVideo(context(job), platforms);
 
-        assertEquals("Upload failed", exception.getMessage());
-        verify(cloudinaryClient).uploadAndGetPublicUrl(videoFile);
-        verify(instagramStrategy, never()).publishVideo(title);
-        verify(tiktokStrategy, never()).publishVideo(title);
+        ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+        assertInstanceOf(IOException.class, exception.getCause().getCause());
+        assertEquals("Upload failed", exception.getCause().getCause().getMessage());
+        verify(cloudinaryClient).uploadAndGetPublicUrl(videoSource, List.of());
+        verify(videoSource).close();
+        verify(instagramStrategy, never()).publishVideo(any());
+        verify(tiktokStrategy, never()).publishVideo(any());
+        assertEquals(PlatformState.FAILED, videoService.getJob(job.id()).platforms().get("instagram").state());
     }
 
     @Test
@@ -125,53 +299,219 @@ class VideoServiceTest {
         String title = "title";
         String videoUrl = "http://example.com/video.mp4";
         List<String> platforms = List.of("instagram");
+        PublishJob job = createJob(platforms, title);
 
-        when(cloudinaryClient.uploadAndGetPublicUrl(videoFile)).thenReturn(videoUrl);
-        doThrow(new RuntimeException("Publish failed")).when(instagramStrategy).publishVideo(title);
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of())).thenReturn(videoUrl);
+        doThrow(new RuntimeException("Publish failed")).when(instagramStrategy).publishVideo(any());
 
-        CompletableFuture<Void> result = videoService.publishVideo(videoFile, platforms, title);
+        CompletableFuture<Void> result = videoService.publishVideo(context(job), platforms);
 
         ExecutionException exception = assertThrows(ExecutionException.class, result::get);
         assertInstanceOf(RuntimeException.class, exception.getCause());
 
-        verify(cloudinaryClient).uploadAndGetPublicUrl(videoFile);
-        verify((UrlPlatformStrategy)instagramStrategy).setVideoUrl(videoUrl);
-        verify(instagramStrategy).publishVideo(title);
+        verify(cloudinaryClient).uploadAndGetPublicUrl(videoSource, List.of());
+        verify(instagramStrategy).publishVideo(argThat(context -> videoUrl.equals(context.videoUrl())));
+        PublishJob finished = videoService.getJob(job.id());
+        assertEquals(PlatformState.FAILED, finished.platforms().get("instagram").state());
+        assertEquals("Error publishing to instagram: Publish failed", finished.platforms().get("instagram").error());
     }
 
     @Test
-    void publishVideo_CaseInsensitivePlatformNames() throws IOException, ExecutionException, InterruptedException {
+    void publishVideo_CaseInsensitivePlatformNames() throws IOException {
         String title = "title";
         String videoUrl = "http://example.com/video.mp4";
         List<String> platforms = List.of("InStAgRaM");
+        PublishJob job = createJob(platforms, title);
 
-        when(cloudinaryClient.uploadAndGetPublicUrl(videoFile)).thenReturn(videoUrl);
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of())).thenReturn(videoUrl);
 
-        CompletableFuture<Void> result = videoService.publishVideo(videoFile, platforms, title);
+        CompletableFuture<Void> result = videoService.publishVideo(context(job), platforms);
 
         assertDoesNotThrow(() -> result.get());
 
-        verify(cloudinaryClient).uploadAndGetPublicUrl(videoFile);
-        verify((UrlPlatformStrategy)instagramStrategy).setVideoUrl(videoUrl);
-        verify(instagramStrategy).publishVideo(title);
+        verify(cloudinaryClient).uploadAndGetPublicUrl(videoSource, List.of());
+        verify(instagramStrategy).publishVideo(argThat(context -> videoUrl.equals(context.videoUrl())));
+        assertEquals(PlatformState.PUBLISHED, videoService.getJob(job.id()).platforms().get("instagram").state());
     }
 
     @Test
-    void publishVideo_MultipleStrategies() throws IOException, ExecutionException, InterruptedException {
+    void publishVideo_MultipleStrategies() throws IOException {
         String title = "title";
         String videoUrl = "http://example.com/video.mp4";
         List<String> platforms = List.of("instagram", "tiktok");
+        PublishJob job = createJob(platforms, title);
 
-        when(cloudinaryClient.uploadAndGetPublicUrl(videoFile)).thenReturn(videoUrl);
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of())).thenReturn(videoUrl);
 
-        CompletableFuture<Void> result = videoService.publishVideo(videoFile, platforms, title);
+        CompletableFuture<Void> result = videoService.publishVideo(context(job), platforms);
 
         assertDoesNotThrow(() -> result.get());
 
-        verify(cloudinaryClient).uploadAndGetPublicUrl(videoFile);
-        verify((UrlPlatformStrategy)instagramStrategy).setVideoUrl(videoUrl);
-        verify(instagramStrategy).publishVideo(title);
-        verify((FilePlatformStrategy)tiktokStrategy).setVideoFile(videoFile);
-        verify(tiktokStrategy).publishVideo(title);
+        verify(cloudinaryClient).uploadAndGetPublicUrl(videoSource, List.of());
+        verify(instagramStrategy).publishVideo(argThat(context -> videoUrl.equals(context.videoUrl())));
+        verify(tiktokStrategy).publishVideo(argThat(context -> context.source() == videoSource));
+        assertTrue(videoService.getJob(job.id()).isFinished());
+    }
+
+    @Test
+    void publishVideo_ConcurrentJobsKeepTheirOwnVideo() throws IOException {
+        VideoSource otherSource = mock(VideoSource.class);
+        List<String> platforms = List.of("tiktok");
+        PublishJob first = createJob(platforms, "first");
+        PublishJob second = createJob(platforms, "second");
+
+        CompletableFuture<Void> firstResult = videoService.publishVideo(context(first), platforms);
+        CompletableFuture<Void> secondResult = videoService.publishVideo(
+                new PublishContext(second.id(), otherSource, null, "second", null, Map.of()), platforms);
+
+        assertDoesNotThrow(() -> CompletableFuture.allOf(firstResult, secondResult).get());
+        verify(tiktokStrategy).publishVideo(argThat(context ->
+                context.jobId().equals(first.id()) && context.source() == videoSource));
+        verify(tiktokStrategy).publishVideo(argThat(context ->
+                context.jobId().equals(second.id()) && context.source() == otherSource));
+    }
+
+    @Test
+    void publishVideo_FileStrategyDoesNotWaitForStaging() throws Exception {
+        List<String> platforms = List.of("instagram", "tiktok");
+        PublishJob job = createJob(platforms, "title");
+        CountDownLatch stagingReleased = new CountDownLatch(1);
+
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of())).thenAnswer(invocation -> {
+            stagingReleased.await(5, TimeUnit.SECONDS);
+            return "http://example.com/video.mp4";
+        });
+
+        CompletableFuture<Void> result = videoService.publishVideo(context(job), platforms);
+
+        verify(tiktokStrategy, timeout(TimeUnit.SECONDS.toMillis(5))).publishVideo(any());
+        verify(instagramStrategy, never()).publishVideo(any());
+        stagingReleased.countDown();
+        assertDoesNotThrow(() -> result.get());
+        verify(instagramStrategy).publishVideo(any());
+    }
+
+    @Test
+    void publishVideo_StagingFailureOnlyFailsUrlStrategies() throws IOException {
+        List<String> platforms = List.of("instagram", "tiktok");
+        PublishJob job = createJob(platforms, "title");
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of()))
+                .thenThrow(new IOException("Upload failed"));
+
+        CompletableFuture<Void> result = videoService.publishVideo(context(job), platforms);
+
+        assertThrows(ExecutionException.class, result::get);
+        verify(tiktokStrategy).publishVideo(any());
+        verify(instagramStrategy, never()).publishVideo(any());
+        PublishJob finished = videoService.getJob(job.id());
+        assertEquals(PlatformState.PUBLISHED, finished.platforms().get("tiktok").state());
+        assertEquals(PlatformState.FAILED, finished.platforms().get("instagram").state());
+    }
+
+    @Test
+    void publishVideo_TracksPlatformProcessingWithoutHoldingTheLane() throws IOException {
+        List<String> platforms = List.of("instagram");
+        PublishJob job = createJob(platforms, "title");
+        CompletableFuture<String> processing = new CompletableFuture<>();
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of())).thenReturn("http://example.com/video.mp4");
+        when(instagramStrategy.publishVideo(any())).thenReturn(processing);
+
+        CompletableFuture<Void> result = videoService.publishVideo(context(job), platforms);
+
+        verify(instagramStrategy, timeout(TimeUnit.SECONDS.toMillis(5))).publishVideo(any());
+        waitForState(job.id(), "instagram", PlatformState.PROCESSING);
+        waitUntil(() -> publishingExecutor.getActiveTasks("instagram") == 0);
+        assertFalse(result.isDone());
+        processing.complete("instagram-id");
+        assertDoesNotThrow(() -> result.get());
+        assertEquals(PlatformState.PUBLISHED, videoService.getJob(job.id()).platforms().get("instagram").state());
+    }
+
+    @Test
+    void publishVideo_WaitsForRateLimitBudgetOutsideTheLane() throws IOException {
+        List<String> platforms = List.of("tiktok");
+        PublishJob job = createJob(platforms, "title");
+        CompletableFuture<Void> budget = new CompletableFuture<>();
+        when(tiktokStrategy.reserveBudget(any())).thenReturn(budget);
+
+        CompletableFuture<Void> result = videoService.publishVideo(context(job), platforms);
+
+        verify(tiktokStrategy).reserveBudget(any());
+        assertEquals(0, publishingExecutor.getQueuedTasks("tiktok") + publishingExecutor.getActiveTasks("tiktok"));
+        verify(tiktokStrategy, never()).publishVideo(any());
+        budget.complete(null);
+        assertDoesNotThrow(() -> result.get());
+        assertEquals(PlatformState.PUBLISHED, videoService.getJob(job.id()).platforms().get("tiktok").state());
+    }
+
+    @Test
+    void publishVideo_RecordsAsynchronousPlatformFailure() throws IOException {
+        List<String> platforms = List.of("instagram");
+        PublishJob job = createJob(platforms, "title");
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of())).thenReturn("http://example.com/video.mp4");
+        when(instagramStrategy.publishVideo(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Processing failed")));
+
+        CompletableFuture<Void> result = videoService.publishVideo(context(job), platforms);
+
+        assertThrows(ExecutionException.class, result::get);
+        PublishJob finished = videoService.getJob(job.id());
+        assertEquals(PlatformState.FAILED, finished.platforms().get("instagram").state());
+        assertEquals("Error publishing to instagram: Processing failed", finished.platforms().get("instagram").error());
+    }
+
+    @Test
+    void publishVideo_PublishesEachPlatformItsOwnRendition() throws IOException {
+        environment.setProperty("cloudinary.renditions.instagram", "ar_9:16,du_90");
+        environment.setProperty("cloudinary.renditions.tiktok", "ar_9:16,br_8m");
+        String videoUrl = "https://res.cloudinary.com/demo/video/upload/v1/clip.mp4";
+        String tiktokUrl = "https://res.cloudinary.com/demo/video/upload/ar_9:16,br_8m/v1/clip.mp4";
+        VideoSource tiktokRendition = mock(VideoSource.class);
+        List<String> platforms = List.of("instagram", "tiktok");
+        PublishJob job = createJob(platforms, "title");
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of("ar_9:16,du_90", "ar_9:16,br_8m")))
+                .thenReturn(videoUrl);
+        when(cloudinaryClient.isAvailable(any())).thenReturn(false, true);
+        when(cloudinaryClient.<VideoSource>download(argThat(tiktokUrl::equals), any())).thenReturn(tiktokRendition);
+
+        CompletableFuture<Void> result = videoService.publishVideo(context(job), platforms);
+
+        assertDoesNotThrow(() -> result.get());
+        verify(instagramStrategy).publishVideo(argThat(context ->
+                "https://res.cloudinary.com/demo/video/upload/ar_9:16,du_90/v1/clip.mp4".equals(context.videoUrl())));
+        verify(tiktokStrategy).publishVideo(argThat(context -> context.source() == tiktokRendition));
+        verify(tiktokRendition).close();
+        assertTrue(videoService.getJob(job.id()).isFinished());
+    }
+
+    @Test
+    void publishVideo_PublishesTheOriginalWhenARenditionFails() throws IOException {
+        environment.setProperty("cloudinary.renditions.instagram", "ar_9:16");
+        environment.setProperty("cloudinary.renditions.tiktok", "ar_9:16");
+        String videoUrl = "https://res.cloudinary.com/demo/video/upload/v1/clip.mp4";
+        List<String> platforms = List.of("instagram", "tiktok");
+        PublishJob job = createJob(platforms, "title");
+        when(cloudinaryClient.uploadAndGetPublicUrl(videoSource, List.of("ar_9:16"))).thenReturn(videoUrl);
+        when(cloudinaryClient.isAvailable(any())).thenThrow(new IOException("400 Bad Request"));
+
+        CompletableFuture<Void> result = videoService.publishVideo(context(job), platforms);
+
+        assertDoesNotThrow(() -> result.get());
+        verify(instagramStrategy).publishVideo(argThat(context -> videoUrl.equals(context.videoUrl())));
+        verify(tiktokStrategy).publishVideo(argThat(context -> context.source() == videoSource));
+        verify(cloudinaryClient, never()).download(any(), any());
+    }
+
+    private void waitForState(String jobId, String platform, PlatformState state) {
+        waitUntil(() -> videoService.getJob(jobId).platforms().get(platform).state() == state);
+        assertEquals(state, videoService.getJob(jobId).platforms().get(platform).state());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(condition.getAsBoolean());
     }
 }
@@ -0,0 +1,162 @@
+package com.synctok.synctokApi.service.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PublishingExecutorTest {
+
+    private PublishingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    void submit_RunsTaskOnVirtualThread() throws Exception {
+        executor = new PublishingExecutor(true, 1, 1, 100, new MockEnvironment());
+
+        boolean virtual = executor.submit("tiktok", () -> Thread.currentThread().isVirtual()).get(5, TimeUnit.SECONDS);
+
+        assertTrue(virtual);
+    }
+
+    @Test
+    void submit_CapsConcurrencyPerLane() throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("synctok.publishing.executor.concurrency.tiktok", "2");
+        executor = new PublishingExecutor(true, 1, 8, 100, environment);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            futures.add(executor.run("TikTok", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(20);
+                running.decrementAndGet();
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void gauges_ReportQueuedAndActiveTasks() throws Exception {
+        executor = new PublishingExecutor(false, 4, 1, 100, new MockEnvironment());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        executor.bindTo(registry);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = executor.run("youtube", () -> {
+            started.countDown();
+            await(release);
+        });
+        CompletableFuture<Void> second = executor.run("youtube", () -> { });
+        started.await(5, TimeUnit.SECONDS);
+        waitFor(() -> executor.getQueuedTasks("youtube") == 1);
+
+        assertEquals(1, executor.getActiveTasks());
+        assertEquals(1.0, registry.get("synctok.publishing.executor.active").gauge().value());
+        assertEquals(1.0, registry.get("synctok.publishing.executor.lane.queued").tag("lane", "youtube").gauge().value());
+
+        release.countDown();
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, executor.getActiveTasks());
+        assertEquals(0, executor.getQueuedTasks());
+    }
+
+    @Test
+    void submit_QueuedTasksDoNotHoldThreadsOfOtherLanes() throws Exception {
+        executor = new PublishingExecutor(false, 2, 1, 100, new MockEnvironment());
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> slow = executor.run("youtube", () -> await(release));
+        CompletableFuture<Void> queued = executor.run("youtube", () -> { });
+        String healthy = executor.submit("tiktok", () -> "published").get(5, TimeUnit.SECONDS);
+
+        assertEquals("published", healthy);
+        assertEquals(1, executor.getQueuedTasks("youtube"));
+        release.countDown();
+        CompletableFuture.allOf(slow, queued).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void submit_RejectsTasksBeyondLaneQueue() throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("synctok.publishing.executor.max-queued.youtube", "1");
+        executor = new PublishingExecutor(true, 1, 1, 100, environment);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        CompletableFuture<Void> running = executor.run("youtube", () -> {
+            started.countDown();
+            await(release);
+        });
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> queued = executor.run("youtube", () -> { });
+        CompletableFuture<Void> rejected = executor.run("youtube", () -> { });
+
+        ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        release.countDown();
+        CompletableFuture.allOf(running, queued).get(5, TimeUnit.SECONDS);
+        assertEquals(0, executor.getQueuedTasks());
+    }
+
+    @Test
+    void submit_PropagatesTaskFailure() {
+        executor = new PublishingExecutor(true, 1, 1, 100, new MockEnvironment());
+
+        CompletableFuture<String> future = executor.submit("instagram", () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertEquals(0, executor.getActiveTasks("instagram"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            sleep(5);
+        }
+    }
+}
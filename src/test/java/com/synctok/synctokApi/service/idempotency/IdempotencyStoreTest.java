@@ -0,0 +1,111 @@
+package com.synctok.synctokApi.service.idempotency;
+
+import com.synctok.synctokApi.exception.IdempotencyKeyMismatchException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotencyStoreTest {
+
+    @Test
+    void execute_RunsActionOncePerKey() throws IOException {
+        IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1), Duration.ofDays(1), 10);
+        AtomicInteger runs = new AtomicInteger();
+
+        String first = store.execute("key-1", "request", () -> "job-" + runs.incrementAndGet());
+        String second = store.execute("key-1", "request", () -> "job-" + runs.incrementAndGet());
+
+        assertEquals("job-1", first);
+        assertEquals("job-1", second);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_DuplicateWaitsForRunningAttempt() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1), Duration.ofDays(1), 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> execute(store, () -> {
+            started.countDown();
+            release.join();
+            return "job-1";
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> duplicate = CompletableFuture.supplyAsync(() -> execute(store, () -> "job-2"));
+
+        Thread.sleep(50);
+        assertFalse(duplicate.isDone());
+        release.complete(null);
+        assertEquals("job-1", first.get(5, TimeUnit.SECONDS));
+        assertEquals("job-1", duplicate.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_FailedAttemptReleasesKey() throws IOException {
+        IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1), Duration.ofDays(1), 10);
+
+        assertThrows(IOException.class, () -> store.execute("key-1", "request", () -> {
+            throw new IOException("Spooling failed");
+        }));
+
+        assertEquals("job-2", store.execute("key-1", "request", () -> "job-2"));
+    }
+
+    @Test
+    void execute_RejectsKeyReusedForDifferentRequest() throws IOException {
+        IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1), Duration.ofDays(1), 10);
+        store.execute("key-1", "request", () -> "job-1");
+
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> store.execute("key-1", "other request", () -> "job-2"));
+    }
+
+    @Test
+    void execute_ForgetsExpiredAndOldestKeys() throws IOException {
+        IdempotencyStore expiring = new IdempotencyStore(Duration.ZERO, Duration.ofDays(1), 10);
+        expiring.execute("key-1", "request", () -> "job-1");
+        assertEquals("job-2", expiring.execute("key-1", "request", () -> "job-2"));
+
+        IdempotencyStore bounded = new IdempotencyStore(Duration.ofHours(1), Duration.ofDays(1), 2);
+        bounded.execute("key-1", "request", () -> "job-1");
+        bounded.execute("key-2", "request", () -> "job-2");
+        bounded.execute("key-3", "request", () -> "job-3");
+        assertEquals(2, bounded.size());
+        assertEquals("job-4", bounded.execute("key-1", "request", () -> "job-4"));
+    }
+
+    @Test
+    void execute_KeepsKeysClaimedAfterExpiredOnes() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(Duration.ofMillis(50), Duration.ofDays(1), 10);
+        store.execute("key-1", "request", () -> "job-1");
+        Thread.sleep(100);
+        store.execute("key-2", "request", () -> "job-2");
+
+        assertEquals("job-2", store.execute("key-2", "request", () -> "job-3"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void newStore_RejectsTtlOutlivingJobs() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new IdempotencyStore(Duration.ofDays(1), Duration.ofDays(1), 10));
+    }
+
+    private static String execute(IdempotencyStore store, IdempotencyStore.Action action) {
+        try {
+            return store.execute("key-1", "request", action);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.synctok.synctokApi.service.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.synctok.synctokApi.exception.JobNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileJobStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private FileJobStore jobStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jobStore = new FileJobStore(directory.toString(), Duration.ofHours(1), objectMapper);
+    }
+
+    @Test
+    void find_SurvivesNewStoreInstance() throws IOException {
+        Instant publishAt = Instant.now().plus(Duration.ofDays(1));
+        PublishJob job = PublishJob.scheduled("scheduled", List.of("tiktok", "youtube"), "title", publishAt);
+        jobStore.save(job);
+        jobStore.updatePlatform(job.id(), "tiktok", PlatformStatus.of(PlatformState.PUBLISHED));
+
+        FileJobStore reopened = new FileJobStore(directory.toString(), Duration.ofHours(1), objectMapper);
+        PublishJob found = reopened.find(job.id()).orElseThrow();
+
+        assertEquals("title", found.title());
+        assertEquals(PlatformState.PUBLISHED, found.platforms().get("tiktok").state());
+        assertEquals(PlatformState.SCHEDULED, found.platforms().get("youtube").state());
+    }
+
+    @Test
+    void newStore_FailsJobsInterruptedByRestart() throws IOException {
+        PublishJob job = PublishJob.create(List.of("tiktok", "youtube", "instagram", "facebook"), "title");
+        jobStore.save(job);
+        jobStore.updatePlatform(job.id(), "tiktok", PlatformStatus.of(PlatformState.PUBLISHED));
+        jobStore.updatePlatform(job.id(), "youtube", PlatformStatus.of(PlatformState.UPLOADING));
+        jobStore.updatePlatform(job.id(), "instagram", PlatformStatus.of(PlatformState.PROCESSING));
+
+        FileJobStore reopened = new FileJobStore(directory.toString(), Duration.ofHours(1), objectMapper);
+        PublishJob found = reopened.find(job.id()).orElseThrow();
+
+        assertTrue(found.isFinished());
+        assertEquals(PlatformStatus.of(PlatformState.PUBLISHED), found.platforms().get("tiktok"));
+        for (String platform : List.of("youtube", "instagram", "facebook")) {
+            assertEquals(PlatformStatus.failed("Interrupted by restart"), found.platforms().get(platform));
+        }
+    }
+
+    @Test
+    void evictExpired_DeletesExpiredFinishedJobs() throws IOException {
+        Instant longAgo = Instant.now().minus(Duration.ofDays(2));
+        PublishJob finished = new PublishJob("finished", "title", longAgo, longAgo,
+                Map.of("tiktok", PlatformStatus.of(PlatformState.PUBLISHED)), null);
+        PublishJob running = new PublishJob("running", "title", longAgo, longAgo,
+                Map.of("tiktok", PlatformStatus.of(PlatformState.UPLOADING)), null);
+        PublishJob recent = PublishJob.create(List.of("tiktok"), "title");
+        jobStore.save(finished);
+        jobStore.save(running);
+        jobStore.save(recent);
+        jobStore.updatePlatform(recent.id(), "tiktok", PlatformStatus.of(PlatformState.PUBLISHED));
+        for (String id : List.of("finished", "running")) {
+            Files.setLastModifiedTime(directory.resolve(id + ".json"), FileTime.from(longAgo));
+        }
+
+        jobStore.evictExpired();
+
+        assertTrue(jobStore.find("finished").isEmpty());
+        assertFalse(Files.exists(directory.resolve("finished.json")));
+        assertTrue(jobStore.find("running").isPresent());
+        assertTrue(jobStore.find(recent.id()).isPresent());
+    }
+
+    @Test
+    void find_UnknownOrUnsafeId() {
+        assertTrue(jobStore.find("missing").isEmpty());
+        assertTrue(jobStore.find("../etc/passwd").isEmpty());
+    }
+
+    @Test
+    void update_UnknownJob() {
+        assertThrows(JobNotFoundException.class,
+                () -> jobStore.updatePlatform("missing", "tiktok", PlatformStatus.of(PlatformState.UPLOADING)));
+    }
+
+    @Test
+    void update_ConcurrentPlatformUpdatesAreNotLost() {
+        List<String> platforms = IntStream.range(0, 16).mapToObj(i -> "platform" + i).toList();
+        PublishJob job = PublishJob.create(platforms, "title");
+        jobStore.save(job);
+
+        CompletableFuture.allOf(platforms.stream()
+                .map(platform -> CompletableFuture.runAsync(() ->
+                        jobStore.updatePlatform(job.id(), platform, PlatformStatus.of(PlatformState.PUBLISHED))))
+                .toArray(CompletableFuture[]::new)).join();
+
+        assertTrue(jobStore.find(job.id()).orElseThrow().isFinished());
+    }
+}
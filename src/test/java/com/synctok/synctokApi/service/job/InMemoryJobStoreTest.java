@@ -0,0 +1,53 @@
+package com.synctok.synctokApi.service.job;
+
+import com.synctok.synctokApi.exception.JobNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryJobStoreTest {
+
+    private final InMemoryJobStore jobStore = new InMemoryJobStore(Duration.ofHours(1));
+
+    @Test
+    void updatePlatform_ReplacesSnapshot() {
+        PublishJob job = PublishJob.create(List.of("instagram"), "title");
+        jobStore.save(job);
+
+        PublishJob updated = jobStore.updatePlatform(job.id(), "Instagram", PlatformStatus.of(PlatformState.UPLOADING));
+
+        assertEquals(PlatformState.UPLOADING, updated.platforms().get("instagram").state());
+        assertEquals(PlatformState.QUEUED, job.platforms().get("instagram").state());
+        assertEquals(updated, jobStore.find(job.id()).orElseThrow());
+    }
+
+    @Test
+    void update_UnknownJob() {
+        assertThrows(JobNotFoundException.class,
+                () -> jobStore.updatePlatform("missing", "instagram", PlatformStatus.of(PlatformState.UPLOADING)));
+    }
+
+    @Test
+    void evictExpired_RemovesExpiredFinishedJobs() {
+        Instant longAgo = Instant.now().minus(Duration.ofDays(2));
+        PublishJob finished = new PublishJob("finished", "title", longAgo, longAgo,
+                Map.of("instagram", PlatformStatus.of(PlatformState.PUBLISHED)), null);
+        PublishJob running = new PublishJob("running", "title", longAgo, longAgo,
+                Map.of("instagram", PlatformStatus.of(PlatformState.UPLOADING)), null);
+        jobStore.save(finished);
+        jobStore.save(running);
+        assertTrue(jobStore.find("finished").isPresent());
+
+        jobStore.evictExpired();
+
+        assertTrue(jobStore.find("finished").isEmpty());
+        assertTrue(jobStore.find("running").isPresent());
+    }
+}
@@ -0,0 +1,27 @@
+package com.synctok.synctokApi.service.job;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class JobSweeperTest {
+
+    @Test
+    void sweep_KeepsEvictingAfterAFailedSweep() {
+        JobStore jobStore = mock(JobStore.class);
+        doThrow(new IllegalStateException("disk full")).doNothing().when(jobStore).evictExpired();
+
+        JobSweeper jobSweeper = new JobSweeper(jobStore, Duration.ofMillis(10));
+        try {
+            verify(jobStore, timeout(TimeUnit.SECONDS.toMillis(5)).atLeast(2)).evictExpired();
+        } finally {
+            jobSweeper.destroy();
+        }
+    }
+}
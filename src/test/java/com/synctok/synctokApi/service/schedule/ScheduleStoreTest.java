@@ -0,0 +1,81 @@
+package com.synctok.synctokApi.service.schedule;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScheduleStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private ScheduleStore scheduleStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        scheduleStore = new ScheduleStore(directory.toString(), objectMapper);
+    }
+
+    private static ScheduledPublish publish(String jobId) {
+        return new ScheduledPublish(jobId, Instant.parse("2030-01-01T09:00:00Z"), "title", null,
+                List.of("tiktok", "instagram"), "clip.mp4", "video/mp4", "ba7816bf", null);
+    }
+
+    @Test
+    void find_SurvivesNewStoreInstance() throws IOException {
+        scheduleStore.save(publish("job-1").withVideoUrl("https://cdn.example.com/clip.mp4"));
+
+        ScheduledPublish found = new ScheduleStore(directory.toString(), objectMapper).find("job-1").orElseThrow();
+
+        assertEquals(Instant.parse("2030-01-01T09:00:00Z"), found.publishAt());
+        assertEquals(List.of("tiktok", "instagram"), found.platforms());
+        assertEquals("https://cdn.example.com/clip.mp4", found.videoUrl());
+    }
+
+    @Test
+    void remove_LeavesTheVideoInPlace() throws IOException {
+        scheduleStore.save(publish("job-1"));
+        Files.writeString(scheduleStore.videoFile("job-1"), "video");
+
+        assertTrue(scheduleStore.remove("job-1"));
+        assertFalse(scheduleStore.remove("job-1"));
+
+        assertTrue(scheduleStore.find("job-1").isEmpty());
+        assertTrue(Files.exists(scheduleStore.videoFile("job-1")));
+    }
+
+    @Test
+    void recover_ReturnsPendingPublishesAndDeletesOrphanedVideos() throws IOException {
+        scheduleStore.save(publish("pending"));
+        Files.writeString(scheduleStore.videoFile("pending"), "video");
+        Files.writeString(scheduleStore.videoFile("orphan"), "video");
+        Files.writeString(directory.resolve("broken.json"), "{");
+
+        List<ScheduledPublish> recovered = scheduleStore.recover();
+
+        assertEquals(List.of("pending"), recovered.stream().map(ScheduledPublish::jobId).toList());
+        assertTrue(Files.exists(scheduleStore.videoFile("pending")));
+        assertFalse(Files.exists(scheduleStore.videoFile("orphan")));
+    }
+
+    @Test
+    void videoFile_RejectsUnsafeIds() {
+        assertThrows(IllegalArgumentException.class, () -> scheduleStore.videoFile("../escape"));
+        assertTrue(scheduleStore.find("../escape").isEmpty());
+    }
+}
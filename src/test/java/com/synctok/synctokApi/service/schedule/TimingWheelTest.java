@@ -0,0 +1,91 @@
+package com.synctok.synctokApi.service.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final Instant ORIGIN = Instant.parse("2030-01-01T00:00:00Z");
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(Duration.ofSeconds(1), 4, ORIGIN);
+    private final List<String> fired = new ArrayList<>();
+
+    @Test
+    void advance_NeverFiresTasksEarly() {
+        wheel.schedule("a", ORIGIN.plusMillis(2500));
+
+        assertEquals(0, wheel.advance(ORIGIN.plusSeconds(2), fired::add));
+        assertEquals(1, wheel.advance(ORIGIN.plusSeconds(3), fired::add));
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_KeepsTasksDueOnLaterTurnsOfTheWheel() {
+        wheel.schedule("later", ORIGIN.plusSeconds(10));
+        wheel.schedule("soon", ORIGIN.plusSeconds(2));
+
+        wheel.advance(ORIGIN.plusSeconds(6), fired::add);
+        assertEquals(List.of("soon"), fired);
+
+        wheel.advance(ORIGIN.plusSeconds(10), fired::add);
+        assertEquals(List.of("soon", "later"), fired);
+    }
+
+    @Test
+    void advance_FiresOverdueTasksAtTheNextTick() {
+        wheel.advance(ORIGIN.plusSeconds(5), fired::add);
+        wheel.schedule("overdue", ORIGIN.minusSeconds(30));
+
+        wheel.advance(ORIGIN.plusSeconds(6), fired::add);
+
+        assertEquals(List.of("overdue"), fired);
+    }
+
+    @Test
+    void advance_CatchesUpInDeadlineOrder() {
+        wheel.schedule("c", ORIGIN.plusSeconds(9));
+        wheel.schedule("a", ORIGIN.plusSeconds(1));
+        wheel.schedule("b", ORIGIN.plusSeconds(6));
+
+        wheel.advance(ORIGIN.plusSeconds(60), fired::add);
+
+        assertEquals(List.of("a", "b", "c"), fired);
+    }
+
+    @Test
+    void advance_FiresEveryTaskOfALargeScheduleExactlyOnce() {
+        TimingWheel<Integer> large = new TimingWheel<>(Duration.ofSeconds(1), 512, ORIGIN);
+        Random random = new Random(42);
+        int tasks = 200_000;
+        for (int i = 0; i < tasks; i++) {
+            large.schedule(i, ORIGIN.plusMillis(random.nextLong(Duration.ofDays(1).toMillis())));
+        }
+        assertEquals(tasks, large.size());
+
+        Set<Integer> seen = new HashSet<>();
+        for (int hour = 1; hour <= 24; hour++) {
+            large.advance(ORIGIN.plus(Duration.ofHours(hour)), task -> assertTrue(seen.add(task)));
+        }
+
+        assertEquals(tasks, seen.size());
+        assertEquals(0, large.size());
+    }
+
+    @Test
+    void constructor_RejectsWheelSizesThatAreNotPowersOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<>(Duration.ofSeconds(1), 100, ORIGIN));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<>(Duration.ZERO, 64, ORIGIN));
+    }
+}
@@ -1,17 +1,33 @@
 package com.synctok.synctokApi.service.strategy;
 
 import com.synctok.synctokApi.client.InstagramClient;
+import com.synctok.synctokApi.client.InstagramContainerPoller;
+import com.synctok.synctokApi.exception.MediaNotReadyException;
+import com.synctok.synctokApi.exception.MediaPublishException;
+import com.synctok.synctokApi.ratelimit.RateLimiter;
+import com.synctok.synctokApi.service.executor.PublishingExecutor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.env.MockEnvironment;
 
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -21,25 +37,35 @@ class InstagramStrategyTest {
     @Mock
     private InstagramClient instagramClient;
 
+    @Mock
+    private InstagramContainerPoller containerPoller;
+
+    @Mock
+    private RateLimiter rateLimiter;
+
     private InstagramStrategy instagramStrategy;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        instagramStrategy = new InstagramStrategy(instagramClient);
+        PublishingExecutor publishingExecutor = new PublishingExecutor(true, 1, 2, 100, new MockEnvironment());
+        instagramStrategy = new InstagramStrategy(instagramClient, containerPoller, publishingExecutor,
+                rateLimiter);
     }
 
     @Test
-    void publishVideo_SuccessfulPublish() {
+    void publishVideo_SuccessfulPublish() throws Exception {
         String title = "title";
         String videoUrl = "http://example.com/video.mp4";
         String mediaContainerId = "media123";
 
-        instagramStrategy.setVideoUrl(videoUrl);
         when(instagramClient.createMediaContainer(videoUrl, title)).thenReturn(mediaContainerId);
+        when(containerPoller.awaitFinished(mediaContainerId)).thenReturn(CompletableFuture.completedFuture(null));
+        when(instagramClient.publishMedia(mediaContainerId)).thenReturn("published123");
 
-        assertDoesNotThrow(() -> instagramStrategy.publishVideo(title));
+        String publishedId = instagramStrategy.publishVideo(context(videoUrl, title, null)).get();
 
+        assertEquals("published123", publishedId);
         verify(instagramClient).createMediaContainer(videoUrl, title);
         verify(instagramClient).publishMedia(mediaContainerId);
     }
@@ -50,10 +76,9 @@ class InstagramStrategyTest {
         String videoUrl = "http://example.com/video.mp4";
         RuntimeException expectedException = new RuntimeException("Creation failed");
 
-        instagramStrategy.setVideoUrl(videoUrl);
         when(instagramClient.createMediaContainer(videoUrl, title)).thenThrow(expectedException);
 
-        assertThrows(RuntimeException.class, () -> instagramStrategy.publishVideo(title));
+        assertThrows(RuntimeException.class, () -> instagramStrategy.publishVideo(context(videoUrl, title, null)));
 
         verify(instagramClient).createMediaContainer(videoUrl, title);
         verify(instagramClient, never()).publishMedia(anyString());
@@ -66,19 +91,108 @@ class InstagramStrategyTest {
         String mediaContainerId = "media123";
         RuntimeException expectedException = new RuntimeException("Publish failed");
 
-        instagramStrategy.setVideoUrl(videoUrl);
         when(instagramClient.createMediaContainer(videoUrl, title)).thenReturn(mediaContainerId);
+        when(containerPoller.awaitFinished(mediaContainerId)).thenReturn(CompletableFuture.completedFuture(null));
         doThrow(expectedException).when(instagramClient).publishMedia(mediaContainerId);
 
-        assertThrows(RuntimeException.class, () -> instagramStrategy.publishVideo(title));
+        CompletableFuture<String> result = instagramStrategy.publishVideo(context(videoUrl, title, null));
 
+        ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+        assertEquals(expectedException, exception.getCause());
         verify(instagramClient).createMediaContainer(videoUrl, title);
         verify(instagramClient).publishMedia(mediaContainerId);
     }
 
     @Test
-    void setVideoUrl_SuccessfulSet() {
+    void publishVideo_WaitsForContainerBeforePublishing() {
         String videoUrl = "http://example.com/video.mp4";
-        assertDoesNotThrow(() -> instagramStrategy.setVideoUrl(videoUrl));
+        CompletableFuture<Void> processing = new CompletableFuture<>();
+        when(instagramClient.createMediaContainer(videoUrl, "title")).thenReturn("media123");
+        when(containerPoller.awaitFinished("media123")).thenReturn(processing);
+
+        CompletableFuture<String> result = instagramStrategy.publishVideo(context(videoUrl, "title", null));
+
+        assertFalse(result.isDone());
+        verify(instagramClient, never()).publishMedia(anyString());
+        processing.completeExceptionally(new MediaPublishException("Media container processing ended with status ERROR",
+                "media123"));
+        ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+        assertInstanceOf(MediaPublishException.class, exception.getCause());
+        verify(instagramClient, never()).publishMedia(anyString());
+    }
+
+    @Test
+    void publishVideo_PublishesInPublishingLaneRatherThanOnPollerThread() throws Exception {
+        String videoUrl = "http://example.com/video.mp4";
+        CompletableFuture<Void> processing = new CompletableFuture<>();
+        AtomicReference<String> publishingThread = new AtomicReference<>();
+        when(instagramClient.createMediaContainer(videoUrl, "title")).thenReturn("media123");
+        when(containerPoller.awaitFinished("media123")).thenReturn(processing);
+        when(instagramClient.publishMedia("media123")).thenAnswer(invocation -> {
+            publishingThread.set(Thread.currentThread().getName());
+            return "published123";
+        });
+
+        CompletableFuture<String> result = instagramStrategy.publishVideo(context(videoUrl, "title", null));
+        processing.complete(null);
+
+        assertEquals("published123", result.get());
+        assertTrue(publishingThread.get().startsWith("publish-"));
+    }
+
+    @Test
+    void publishVideo_PollsContainerAgainWhenMediaIsNotAvailable() throws Exception {
+        String videoUrl = "http://example.com/video.mp4";
+        when(instagramClient.createMediaContainer(videoUrl, "title")).thenReturn("media123");
+        when(containerPoller.awaitFinished("media123")).thenReturn(CompletableFuture.completedFuture(null));
+        when(instagramClient.publishMedia("media123"))
+                .thenThrow(new MediaNotReadyException("Media is not available yet", null, "media123"))
+                .thenReturn("published123");
+
+        assertEquals("published123", instagramStrategy.publishVideo(context(videoUrl, "title", null)).get());
+
+        verify(containerPoller, times(2)).awaitFinished("media123");
+        verify(instagramClient, times(2)).publishMedia("media123");
+    }
+
+    @Test
+    void publishVideo_GivesUpWhenMediaStaysUnavailable() {
+        String videoUrl = "http://example.com/video.mp4";
+        when(instagramClient.createMediaContainer(videoUrl, "title")).thenReturn("media123");
+        when(containerPoller.awaitFinished("media123")).thenReturn(CompletableFuture.completedFuture(null));
+        when(instagramClient.publishMedia("media123"))
+                .thenThrow(new MediaNotReadyException("Media is not available yet", null, "media123"));
+
+        CompletableFuture<String> result = instagramStrategy.publishVideo(context(videoUrl, "title", null));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+        assertInstanceOf(MediaPublishException.class, exception.getCause());
+        verify(instagramClient, times(5)).publishMedia("media123");
+    }
+
+    @Test
+    void reserveBudget_ReservesPostOfAccount() {
+        CompletableFuture<Void> due = new CompletableFuture<>();
+        when(instagramClient.getAccount()).thenReturn("account");
+        when(rateLimiter.reserve("instagram", "account", "posts", 1)).thenReturn(due);
+
+        assertSame(due, instagramStrategy.reserveBudget(context("http://example.com/video.mp4", "title", null)));
+        verify(instagramClient, never()).createMediaContainer(anyString(), anyString());
+    }
+
+    @Test
+    void publishVideo_UsesCaptionOfContext() throws Exception {
+        String videoUrl = "http://example.com/video.mp4";
+        when(instagramClient.createMediaContainer(videoUrl, "caption")).thenReturn("media123");
+        when(containerPoller.awaitFinished("media123")).thenReturn(CompletableFuture.completedFuture(null));
+
+        instagramStrategy.publishVideo(context(videoUrl, "title", "caption")).get();
+
+        verify(instagramClient).createMediaContainer(videoUrl, "caption");
+        verify(instagramClient).publishMedia("media123");
+    }
+
+    private static PublishContext context(String videoUrl, String title, String caption) {
+        return new PublishContext("job", null, videoUrl, title, caption, Map.of());
     }
 }
@@ -0,0 +1,198 @@
+package com.synctok.synctokApi.service.strategy;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.synctok.synctokApi.client.TiktokClient;
+import com.synctok.synctokApi.client.TiktokClient.VideoUploadInitializationResult;
+import com.synctok.synctokApi.client.UploadCheckpoint;
+import com.synctok.synctokApi.client.UploadCheckpointStore;
+import com.synctok.synctokApi.exception.TiktokVideoPublishingException;
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.ratelimit.RateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TiktokStrategyTest {
+
+    private static final String KEY = "tiktok-fingerprint";
+    private static final String UPLOAD_URL = "https://example.com/upload";
+
+    @Mock
+    private TiktokClient tiktokClient;
+
+    @Mock
+    private UploadCheckpointStore checkpointStore;
+
+    @Mock
+    private VideoSource videoFile;
+
+    @Mock
+    private RateLimiter rateLimiter;
+
+    private TiktokStrategy tiktokStrategy;
+
+    private PublishContext context;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        when(videoFile.getFingerprint()).thenReturn("fingerprint");
+        when(videoFile.getSize()).thenReturn(100L);
+        when(tiktokClient.getAccount()).thenReturn("account");
+        tiktokStrategy = new TiktokStrategy(tiktokClient, checkpointStore, Duration.ofHours(1), rateLimiter);
+        context = new PublishContext("job", videoFile, null, "title", null, Map.of());
+    }
+
+    @Test
+    void publishVideo_InitializesAndCheckpointsNewUpload() throws IOException {
+        when(checkpointStore.find(KEY)).thenReturn(Optional.empty());
+        when(tiktokClient.initializeVideoPublish(videoFile, "title"))
+                .thenReturn(new VideoUploadInitializationResult(UPLOAD_URL, "publish-1"));
+
+        tiktokStrategy.publishVideo(context);
+
+        verify(checkpointStore).save(eq(KEY), any(UploadCheckpoint.class));
+        verify(tiktokClient).publishVideo(eq(videoFile), eq(UPLOAD_URL), eq(Set.of()), any());
+        verify(checkpointStore).delete(KEY);
+    }
+
+    @Test
+    void publishVideo_ResumesFromCheckpoint() throws IOException {
+        UploadCheckpoint checkpoint = new UploadCheckpoint(
+                "publish-1", UPLOAD_URL, "title", 100, Set.of(0, 1), Instant.now());
+        when(checkpointStore.find(KEY)).thenReturn(Optional.of(checkpoint));
+
+        tiktokStrategy.publishVideo(context);
+
+        verify(tiktokClient, never()).initializeVideoPublish(any(), anyString());
+        verify(tiktokClient).publishVideo(eq(videoFile), eq(UPLOAD_URL), eq(Set.of(0, 1)), any());
+        verify(checkpointStore).delete(KEY);
+    }
+
+    @Test
+    void reserveBudget_ReservesRequestForNewUpload() {
+        CompletableFuture<Void> due = new CompletableFuture<>();
+        when(checkpointStore.find(KEY)).thenReturn(Optional.empty());
+        when(rateLimiter.reserve("tiktok", "account", "requests", 1)).thenReturn(due);
+
+        assertSame(due, tiktokStrategy.reserveBudget(context));
+    }
+
+    @Test
+    void reserveBudget_ReservesNothingForResumedUpload() {
+        UploadCheckpoint checkpoint = UploadCheckpoint.start("publish-1", UPLOAD_URL, "title", 100);
+        when(checkpointStore.find(KEY)).thenReturn(Optional.of(checkpoint));
+
+        assertTrue(tiktokStrategy.reserveBudget(context).isDone());
+        verify(rateLimiter, never()).reserve(anyString(), anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void publishVideo_ResumesUploadLeftBehindByFailedJob(@TempDir Path checkpoints) throws IOException {
+        UploadCheckpointStore store = new UploadCheckpointStore(
+                checkpoints.toString(), Duration.ofHours(1), JsonMapper.builder().findAndAddModules().build());
+        TiktokStrategy strategy = new TiktokStrategy(tiktokClient, store, Duration.ofHours(1), rateLimiter);
+        when(tiktokClient.initializeVideoPublish(videoFile, "title"))
+                .thenReturn(new VideoUploadInitializationResult(UPLOAD_URL, "publish-1"));
+        doAnswer(invocation -> {
+            invocation.<IntConsumer>getArgument(3).accept(0);
+            throw new TiktokVideoPublishingException("Failed to upload video chunk: 503 Service Unavailable");
+        }).when(tiktokClient).publishVideo(eq(videoFile), eq(UPLOAD_URL), eq(Set.of()), any());
+
+        assertThrows(TiktokVideoPublishingException.class, () -> strategy.publishVideo(context));
+        String publishId = strategy.publishVideo(
+                new PublishContext("retry", videoFile, null, "title", null, Map.of())).join();
+
+        assertEquals("publish-1", publishId);
+        verify(tiktokClient).initializeVideoPublish(videoFile, "title");
+        verify(tiktokClient).publishVideo(eq(videoFile), eq(UPLOAD_URL), eq(Set.of(0)), any());
+        assertTrue(store.find(KEY).isEmpty());
+    }
+
+    @Test
+    void publishVideo_UploadsSeparatelyWhileCheckpointIsClaimed() throws Exception {
+        UploadCheckpoint checkpoint = UploadCheckpoint.start("publish-1", UPLOAD_URL, "title", 100);
+        when(checkpointStore.find(KEY)).thenReturn(Optional.of(checkpoint));
+        when(tiktokClient.initializeVideoPublish(videoFile, "title"))
+                .thenReturn(new VideoUploadInitializationResult("https://example.com/other", "publish-2"));
+        CompletableFuture<String> other = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            other.complete(tiktokStrategy.publishVideo(
+                    new PublishContext("other-job", videoFile, null, "title", null, Map.of())).join());
+            return null;
+        }).when(tiktokClient).publishVideo(eq(videoFile), eq(UPLOAD_URL), any(), any());
+
+        tiktokStrategy.publishVideo(context);
+
+        assertEquals("publish-2", other.join());
+        verify(tiktokClient).publishVideo(videoFile, "https://example.com/other");
+        verify(checkpointStore, never()).save(anyString(), any());
+        verify(checkpointStore).delete(KEY);
+    }
+
+    @Test
+    void publishVideo_IgnoresExpiredCheckpoint() throws IOException {
+        UploadCheckpoint checkpoint = new UploadCheckpoint(
+                "publish-1", "https://example.com/expired", "title", 100, Set.of(0), Instant.now().minusSeconds(7200));
+        when(checkpointStore.find(KEY)).thenReturn(Optional.of(checkpoint));
+        when(tiktokClient.initializeVideoPublish(videoFile, "title"))
+                .thenReturn(new VideoUploadInitializationResult(UPLOAD_URL, "publish-2"));
+
+        tiktokStrategy.publishVideo(context);
+
+        verify(tiktokClient).publishVideo(eq(videoFile), eq(UPLOAD_URL), eq(Set.of()), any());
+    }
+
+    @Test
+    void publishVideo_KeepsCheckpointWhenChunksCannotBeDelivered() {
+        UploadCheckpoint checkpoint = UploadCheckpoint.start("publish-1", UPLOAD_URL, "title", 100);
+        when(checkpointStore.find(KEY)).thenReturn(Optional.of(checkpoint));
+        doThrow(new TiktokVideoPublishingException("Failed to upload video chunk: 503 Service Unavailable"))
+                .when(tiktokClient).publishVideo(eq(videoFile), eq(UPLOAD_URL), any(), any());
+
+        assertThrows(TiktokVideoPublishingException.class, () -> tiktokStrategy.publishVideo(context));
+
+        verify(checkpointStore, never()).delete(KEY);
+    }
+
+    @Test
+    void publishVideo_DropsCheckpointWhenUploadIsRejected() {
+        UploadCheckpoint checkpoint = UploadCheckpoint.start("publish-1", UPLOAD_URL, "title", 100);
+        when(checkpointStore.find(KEY)).thenReturn(Optional.of(checkpoint));
+        doThrow(new TiktokVideoPublishingException("Failed to upload video chunk",
+                new HttpClientErrorException(HttpStatus.NOT_FOUND)))
+                .when(tiktokClient).publishVideo(eq(videoFile), eq(UPLOAD_URL), any(), any());
+
+        assertThrows(TiktokVideoPublishingException.class, () -> tiktokStrategy.publishVideo(context));
+
+        verify(checkpointStore).delete(KEY);
+    }
+}
@@ -1,17 +1,25 @@
 package com.synctok.synctokApi.service.strategy;
 
 import com.synctok.synctokApi.client.YoutubeClient;
+import com.synctok.synctokApi.media.VideoSource;
+import com.synctok.synctokApi.ratelimit.RateLimiter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class YoutubeStrategyTest {
@@ -20,47 +28,79 @@ class YoutubeStrategyTest {
     private YoutubeClient youtubeClient;
 
     @Mock
-    private MultipartFile videoFile;
+    private VideoSource videoFile;
+
+    @Mock
+    private RateLimiter rateLimiter;
 
     private YoutubeStrategy youtubeStrategy;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        youtubeStrategy = new YoutubeStrategy(youtubeClient);
-        youtubeStrategy.setVideoFile(videoFile);
+        when(youtubeClient.getAccount()).thenReturn("account");
+        youtubeStrategy = new YoutubeStrategy(youtubeClient, rateLimiter, 1600);
     }
 
     @Test
     void publishVideo_ShouldUploadVideoSuccessfully() {
-        String title = "title";
+        when(youtubeClient.publishVideo(videoFile, "title", "description")).thenReturn("video-id");
 
-        when(youtubeClient.publishVideo(videoFile, title, "description")).thenReturn("video-id");
-
-        assertDoesNotThrow(() -> youtubeStrategy.publishVideo(title));
+        assertDoesNotThrow(() -> youtubeStrategy.publishVideo(context(videoFile, "title", "description")));
         verify(youtubeClient).publishVideo(videoFile, "title", "description");
     }
 
+    @Test
+    void reserveBudget_ShouldChargeQuotaOfAnUpload() {
+        CompletableFuture<Void> due = new CompletableFuture<>();
+        when(rateLimiter.reserve("youtube", "account", "quota", 1600)).thenReturn(due);
+
+        assertSame(due, youtubeStrategy.reserveBudget(context(videoFile, "title", "description")));
+        verify(youtubeClient, never()).publishVideo(any(), any(), any());
+    }
+
+    @Test
+    void publishVideo_ShouldNotChargeQuotaAgain() {
+        when(youtubeClient.publishVideo(videoFile, "title", "description")).thenReturn("video-id");
+
+        assertDoesNotThrow(() -> youtubeStrategy.publishVideo(context(videoFile, "title", "description")));
+
+        verifyNoInteractions(rateLimiter);
+    }
+
     @Test
     void publishVideo_ShouldThrowExceptionWhenUploadFails() {
-        String title = "title";
-        when(youtubeClient.publishVideo(videoFile, title, "description"))
+        when(youtubeClient.publishVideo(videoFile, "title", "description"))
                 .thenThrow(new RuntimeException("Upload failed"));
 
-        Exception exception = assertThrows(RuntimeException.class, () -> youtubeStrategy.publishVideo(title));
+        Exception exception = assertThrows(RuntimeException.class,
+                () -> youtubeStrategy.publishVideo(context(videoFile, "title", "description")));
         assertEquals("Upload failed", exception.getMessage());
         verify(youtubeClient).publishVideo(videoFile, "title", "description");
     }
 
     @Test
-    void setVideoFile_ShouldSetVideoFile() {
-        String title = "title";
-        MultipartFile newVideoFile = mock(MultipartFile.class);
-        youtubeStrategy.setVideoFile(newVideoFile);
+    void publishVideo_ShouldUseTitleAsDescriptionWhenNoCaption() {
+        when(youtubeClient.publishVideo(videoFile, "title", "title")).thenReturn("video-id");
+
+        assertDoesNotThrow(() -> youtubeStrategy.publishVideo(context(videoFile, "title", null)));
+        verify(youtubeClient).publishVideo(videoFile, "title", "title");
+    }
 
-        when(youtubeClient.publishVideo(newVideoFile, title, "description")).thenReturn("new-video-id");
+    @Test
+    void publishVideo_ShouldKeepConcurrentPublishesApart() {
+        VideoSource otherVideoFile = mock(VideoSource.class);
+        PublishContext first = context(videoFile, "first", "description");
+        PublishContext second = context(otherVideoFile, "second", "description");
+
+        assertDoesNotThrow(() -> youtubeStrategy.publishVideo(second));
+        assertDoesNotThrow(() -> youtubeStrategy.publishVideo(first));
+
+        verify(youtubeClient).publishVideo(videoFile, "first", "description");
+        verify(youtubeClient).publishVideo(otherVideoFile, "second", "description");
+    }
 
-        assertDoesNotThrow(() -> youtubeStrategy.publishVideo(title));
-        verify(youtubeClient).publishVideo(newVideoFile, "title", "description");
+    private static PublishContext context(VideoSource source, String title, String caption) {
+        return new PublishContext("job", source, null, title, caption, Map.of());
     }
 }